@@ -2,38 +2,129 @@ package com.quickfix.testtool;
 
 import com.quickfix.testtool.config.ScenarioParser;
 import com.quickfix.testtool.core.engine.TestEngine;
+import com.quickfix.testtool.core.engine.TestResult;
+import com.quickfix.testtool.core.engine.TestStatus;
 import com.quickfix.testtool.core.model.TestScenario;
+import com.quickfix.testtool.message.validation.ValidatorStatistics;
+import com.quickfix.testtool.service.CaptureValidationService;
+import com.quickfix.testtool.service.PerformanceBaselineStore;
+import com.quickfix.testtool.service.PerformanceRegressionGate;
+import com.quickfix.testtool.service.PerformanceSample;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
 public class QuickFixTestTool {
     private static final Logger log = LoggerFactory.getLogger(QuickFixTestTool.class);
     
+    // 退出码：功能失败与性能回归分开，便于流水线区分处理
+    public static final int EXIT_PASSED = 0;
+    public static final int EXIT_FUNCTIONAL_FAILURE = 1;
+    public static final int EXIT_PERFORMANCE_REGRESSION = 2;
+    
+    public static final String UPDATE_BASELINE_PROPERTY = "testtool.baseline.update";
+    
     public static void main(String[] args) {
         if (args.length < 1) {
-            System.err.println("Usage: java QuickFixTestTool <scenario-file.yml>");
-            System.exit(1);
+            System.err.println("Usage: java QuickFixTestTool <scenario-file.yml> [--runs N]");
+            System.err.println("       java QuickFixTestTool --validate-capture <fix-log>");
+            System.exit(EXIT_FUNCTIONAL_FAILURE);
+        }
+        
+        if ("--validate-capture".equals(args[0]) && args.length > 1) {
+            System.exit(validateCapture(args[1]));
         }
         
         try {
             // 解析测试场景
             TestScenario scenario = ScenarioParser.parseFromYaml(args[0]);
             log.info("Loaded test scenario: {}", scenario.getName());
+            int runs = parseRuns(args);
             
-            // 创建测试引擎并执行
+            // 创建测试引擎并执行，多次执行时收集每次的性能样本
             TestEngine engine = new TestEngine();
-            TestResult result = engine.executeScenario(scenario);
-            
-            // 输出结果
-            log.info("Test completed: {} - {}", 
-                    scenario.getName(), 
-                    result.getStatus());
+            List<PerformanceSample> samples = new ArrayList<>();
+            for (int run = 1; run <= runs; run++) {
+                TestResult result = engine.executeScenario(scenario);
+                result.complete();
+                
+                // 输出结果
+                log.info("Test completed: {} - {} (run {}/{})", 
+                        scenario.getName(), 
+                        result.getStatus(), run, runs);
+                
+                if (result.getStatus() != TestStatus.PASSED) {
+                    System.exit(EXIT_FUNCTIONAL_FAILURE);
+                }
+                PerformanceSample sample = PerformanceSample.from(result);
+                if (sample != null) {
+                    samples.add(sample);
+                }
+            }
             
-            System.exit(result.getStatus() == TestStatus.PASSED ? 0 : 1);
+            System.exit(checkPerformance(scenario.getId(), samples));
             
         } catch (Exception e) {
             log.error("Test execution failed", e);
-            System.exit(1);
+            System.exit(EXIT_FUNCTIONAL_FAILURE);
+        }
+    }
+    
+    /**
+     * 事后验证抓取的会话日志，输出按错误码的计数、失败样本和各验证器耗时
+     */
+    private static int validateCapture(String file) {
+        CaptureValidationService service = new CaptureValidationService();
+        try {
+            CaptureValidationService.Report report = service.validate(Paths.get(file));
+            report.getSamples().forEach(sample -> log.warn("Validation failure {}", sample));
+            log.info("Failures by error code: {}", report.getCountsByError());
+            for (ValidatorStatistics statistics : report.getStatistics()) {
+                log.info("{}", statistics);
+            }
+            return report.hasFailures() ? EXIT_FUNCTIONAL_FAILURE : EXIT_PASSED;
+        } catch (Exception e) {
+            log.error("Capture validation failed", e);
+            return EXIT_FUNCTIONAL_FAILURE;
+        } finally {
+            service.shutdown();
+        }
+    }
+    
+    /**
+     * 与已保存的基线比较，未回归时将本次样本并入基线
+     */
+    private static int checkPerformance(String scenarioId, List<PerformanceSample> samples) {
+        if (samples.isEmpty() || scenarioId == null) {
+            return EXIT_PASSED;
+        }
+        
+        PerformanceBaselineStore baselines = new PerformanceBaselineStore();
+        PerformanceRegressionGate.Verdict verdict = new PerformanceRegressionGate()
+                .evaluate(baselines.load(scenarioId), samples);
+        
+        if (verdict.isRegression()) {
+            log.error("Performance regression detected for {}: {}", scenarioId, verdict.getFindings());
+            return EXIT_PERFORMANCE_REGRESSION;
+        }
+        if (!verdict.hasBaseline()) {
+            log.info("No performance baseline for {}, recording {} samples", scenarioId, samples.size());
+        }
+        if (Boolean.parseBoolean(System.getProperty(UPDATE_BASELINE_PROPERTY, "true"))) {
+            baselines.append(scenarioId, samples);
+        }
+        return EXIT_PASSED;
+    }
+    
+    private static int parseRuns(String[] args) {
+        for (int i = 1; i < args.length - 1; i++) {
+            if ("--runs".equals(args[i])) {
+                return Math.max(1, Integer.parseInt(args[i + 1]));
+            }
         }
+        return 1;
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.quickfix.testtool.api;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.quickfix.testtool.core.engine.TestEngine;
 import com.quickfix.testtool.core.model.TestScenario;
@@ -97,12 +98,20 @@ public class JsonScenarioApiServer {
                 }
                 
                 String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-                Map<String, Object> request = objectMapper.readValue(body, Map.class);
+                ExecuteRequest request = objectMapper.readValue(body, ExecuteRequest.class);
                 
-                String scenarioId = (String) request.get("scenarioId");
-                boolean async = Boolean.TRUE.equals(request.get("async"));
+                // 批量并行执行
+                if (request.getScenarioIds() != null) {
+                    List<String> executionIds = scenarioManager.executeSuite(request.getScenarioIds());
+                    sendResponse(exchange, 202, Map.of(
+                            "executionIds", executionIds,
+                            "status", "queued"
+                    ));
+                    return;
+                }
                 
-                String executionId = scenarioManager.executeScenario(scenarioId, async);
+                boolean async = request.isAsync();
+                String executionId = scenarioManager.executeScenario(request.getScenarioId(), async);
                 
                 sendResponse(exchange, 202, Map.of(
                         "executionId", executionId,
@@ -114,6 +123,25 @@ public class JsonScenarioApiServer {
         }
     }
     
+    /**
+     * 执行请求：scenarioIds非空时并行执行整个套件，否则执行单个场景
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class ExecuteRequest {
+        private String scenarioId;
+        private boolean async;
+        private List<String> scenarioIds;
+        
+        public String getScenarioId() { return scenarioId; }
+        public void setScenarioId(String scenarioId) { this.scenarioId = scenarioId; }
+        
+        public boolean isAsync() { return async; }
+        public void setAsync(boolean async) { this.async = async; }
+        
+        public List<String> getScenarioIds() { return scenarioIds; }
+        public void setScenarioIds(List<String> scenarioIds) { this.scenarioIds = scenarioIds; }
+    }
+    
     class StatusHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
@@ -144,6 +172,10 @@ public class JsonScenarioApiServer {
                 if (record.error != null) {
                     response.put("error", record.error);
                 }
+                if (record.result != null) {
+                    response.put("durationMillis", record.result.getDuration());
+                    response.put("latency", record.result.getLatency().toSummary());
+                }
                 
                 sendResponse(exchange, 200, response);
             } catch (Exception e) {
@@ -0,0 +1,55 @@
+package com.quickfix.testtool.core.engine;
+
+/**
+ * 负载生成用的ClOrdID生成器
+ * 格式为 前缀-运行标识-定长十进制序号，序号直接写入复用的字符缓冲区，
+ * 每个ID只产生最终的String一次分配；响应关联时从ID中解析序号，不做截取或查表
+ */
+final class ClOrdIdGenerator {
+    private static final int SEQUENCE_DIGITS = 10;
+
+    private final char[] buffer;
+    private final int sequenceOffset;
+
+    ClOrdIdGenerator(String prefix) {
+        String head = prefix + "-" + Long.toString(System.currentTimeMillis(), 36) + "-";
+        this.sequenceOffset = head.length();
+        this.buffer = new char[sequenceOffset + SEQUENCE_DIGITS];
+        head.getChars(0, sequenceOffset, buffer, 0);
+    }
+
+    /**
+     * 生成指定序号的ID，仅由生产线程调用
+     */
+    String format(long sequence) {
+        long value = sequence;
+        for (int i = buffer.length - 1; i >= sequenceOffset; i--) {
+            buffer[i] = (char) ('0' + (value % 10));
+            value /= 10;
+        }
+        return new String(buffer);
+    }
+
+    /**
+     * 解析由本生成器产生的ID的序号，其他ID返回-1
+     */
+    long sequenceOf(String clOrdId) {
+        if (clOrdId == null || clOrdId.length() != buffer.length) {
+            return -1;
+        }
+        for (int i = 0; i < sequenceOffset; i++) {
+            if (clOrdId.charAt(i) != buffer[i]) {
+                return -1;
+            }
+        }
+        long value = 0;
+        for (int i = sequenceOffset; i < buffer.length; i++) {
+            char c = clOrdId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
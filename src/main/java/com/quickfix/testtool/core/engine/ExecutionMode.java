@@ -0,0 +1,108 @@
+package com.quickfix.testtool.core.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 引擎线程模型
+ * JDK 21+上场景执行和阻塞等待运行在虚拟线程上，低版本JDK回退到平台线程池；
+ * 启动时通过系统属性testtool.executionMode（auto/virtual/platform）选择一次
+ */
+public enum ExecutionMode {
+    VIRTUAL, PLATFORM;
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionMode.class);
+
+    public static final String EXECUTION_MODE_PROPERTY = "testtool.executionMode";
+
+    private static final ExecutionMode CURRENT = select();
+
+    public static ExecutionMode current() {
+        return CURRENT;
+    }
+
+    /**
+     * 每个任务一个线程：虚拟线程模式下不设上限，平台模式下使用固定大小线程池
+     */
+    public ExecutorService newTaskExecutor(String namePrefix, int platformPoolSize) {
+        if (this == VIRTUAL) {
+            try {
+                Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+                return (ExecutorService) perTask.invoke(null, virtualThreadFactory(namePrefix));
+            } catch (ReflectiveOperationException e) {
+                throw new UnsupportedOperationException("Virtual thread executor is not available", e);
+            }
+        }
+        return Executors.newFixedThreadPool(platformPoolSize, platformThreadFactory(namePrefix));
+    }
+
+    /**
+     * 固定并发度的执行器，虚拟线程模式下线程本身为虚拟线程
+     */
+    public ExecutorService newFixedExecutor(String namePrefix, int parallelism) {
+        ThreadFactory factory = this == VIRTUAL ? virtualThreadFactory(namePrefix) : platformThreadFactory(namePrefix);
+        return Executors.newFixedThreadPool(parallelism, factory);
+    }
+
+    private static ExecutionMode select() {
+        String configured = System.getProperty(EXECUTION_MODE_PROPERTY, "auto").trim().toLowerCase();
+        boolean available = virtualThreadsAvailable();
+
+        ExecutionMode mode;
+        switch (configured) {
+            case "platform":
+                mode = PLATFORM;
+                break;
+            case "virtual":
+                if (!available) {
+                    log.warn("Virtual threads requested but not supported by Java {}, falling back to platform threads",
+                            System.getProperty("java.version"));
+                }
+                mode = available ? VIRTUAL : PLATFORM;
+                break;
+            default:
+                mode = available ? VIRTUAL : PLATFORM;
+        }
+        log.info("Test engine execution mode: {}", mode);
+        return mode;
+    }
+
+    private static boolean virtualThreadsAvailable() {
+        try {
+            virtualThreadFactory("probe").newThread(() -> { });
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 通过反射调用Thread.ofVirtual()，保持Java 11编译兼容
+     */
+    private static ThreadFactory virtualThreadFactory(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix + "-", 1L);
+            Method factory = builderClass.getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new UnsupportedOperationException("Virtual threads are not available", e);
+        }
+    }
+
+    private static ThreadFactory platformThreadFactory(String namePrefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,424 @@
+package com.quickfix.testtool.core.engine;
+
+import com.quickfix.testtool.core.model.TestStep.ExpectedResult;
+import com.quickfix.testtool.message.RawFixMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import quickfix.FieldMap;
+import quickfix.FieldNotFound;
+import quickfix.Message;
+import quickfix.field.MsgType;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 编译后的消息期望，所有等待和校验步骤共用的匹配引擎
+ * 期望字段在编译期解析为按标签排序的条件数组，匹配时按选择性从高到低求值并在首个不满足处返回，
+ * 逐条消息匹配不分配对象（正则使用线程内复用的Matcher，数值按FIX十进制格式直接解析）；
+ * 也可直接在RawFixMessage上匹配，免去完整解析
+ *
+ * 字段期望值支持以下写法：
+ * "11": "ORDER-1"                         等于
+ * "11": {"regex": "ORDER-\\d+"}           正则完全匹配
+ * "38": {"min": 100, "max": 200}          数值闭区间，可只给一端
+ * "58": {"contains": "reject"}            包含子串
+ * "39": {"equals": "0"}                   等于（对象写法）
+ */
+final class MessageExpectation implements Predicate<Message> {
+    private static final Logger log = LoggerFactory.getLogger(MessageExpectation.class);
+
+    static final MessageExpectation ANY = new MessageExpectation(null, new Condition[0], true);
+
+    private static final byte EQUALS = 0;
+    private static final byte REGEX = 1;
+    private static final byte CONTAINS = 2;
+    private static final byte RANGE = 3;
+
+    // 取值分布广的标签，等值条件通常能最先排除不相关消息
+    private static final int[] HIGH_SELECTIVITY_TAGS = {1, 11, 17, 37, 41, 55, 526, 790};
+
+    private final String msgType;
+    // 接受的MsgType，null表示任意类型
+    private final String[] acceptedTypes;
+    private final boolean satisfiable;
+    // 按标签排序的条件
+    private final int[] tags;
+    private final byte[] operators;
+    private final String[] operands;
+    private final Pattern[] patterns;
+    private final double[] minimums;
+    private final double[] maximums;
+    // 求值顺序（条件下标），按选择性排列
+    private final int[] evaluationOrder;
+    // 计划在并行执行的场景间共享，正则Matcher按线程复用
+    private final ThreadLocal<Matcher[]> matchers;
+
+    private MessageExpectation(String msgType, Condition[] conditions, boolean satisfiable) {
+        this.msgType = msgType;
+        this.acceptedTypes = null;
+        this.satisfiable = satisfiable;
+
+        int size = conditions.length;
+        this.tags = new int[size];
+        this.operators = new byte[size];
+        this.operands = new String[size];
+        this.patterns = new Pattern[size];
+        this.minimums = new double[size];
+        this.maximums = new double[size];
+        for (int i = 0; i < size; i++) {
+            Condition condition = conditions[i];
+            tags[i] = condition.tag;
+            operators[i] = condition.operator;
+            operands[i] = condition.operand;
+            patterns[i] = condition.pattern;
+            minimums[i] = condition.minimum;
+            maximums[i] = condition.maximum;
+        }
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> selectivityRank(tags[i], operators[i])));
+        this.evaluationOrder = Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+        boolean hasRegex = false;
+        for (byte operator : operators) {
+            hasRegex |= operator == REGEX;
+        }
+        this.matchers = hasRegex ? ThreadLocal.withInitial(() -> new Matcher[size]) : null;
+    }
+
+    private MessageExpectation(MessageExpectation base, String[] acceptedTypes) {
+        this.msgType = base.msgType;
+        this.acceptedTypes = acceptedTypes;
+        this.satisfiable = base.satisfiable;
+        this.tags = base.tags;
+        this.operators = base.operators;
+        this.operands = base.operands;
+        this.patterns = base.patterns;
+        this.minimums = base.minimums;
+        this.maximums = base.maximums;
+        this.evaluationOrder = base.evaluationOrder;
+        this.matchers = base.matchers;
+    }
+
+    /**
+     * 附加MsgType限定，返回的期望只接受其中之一的消息，与msgType条件同时成立
+     */
+    MessageExpectation restrictedTo(String... types) {
+        return new MessageExpectation(this, types.clone());
+    }
+
+    /**
+     * 由步骤参数编译：msgType为消息类型，其余数字键为字段条件，非数字键忽略
+     */
+    static MessageExpectation fromParameters(Map<String, ?> params) {
+        if (params == null || params.isEmpty()) {
+            return ANY;
+        }
+
+        String msgType = null;
+        boolean satisfiable = true;
+        TreeMap<Integer, Condition> conditions = new TreeMap<>();
+        for (Map.Entry<String, ?> entry : params.entrySet()) {
+            if ("msgType".equals(entry.getKey())) {
+                msgType = String.valueOf(entry.getValue());
+                continue;
+            }
+            int tag;
+            try {
+                tag = Integer.parseInt(entry.getKey());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid field tag: {}", entry.getKey());
+                continue;
+            }
+            Condition condition = Condition.compile(tag, entry.getValue());
+            if (condition == null) {
+                satisfiable = false;
+            } else {
+                conditions.put(tag, condition);
+            }
+        }
+        return new MessageExpectation(msgType, conditions.values().toArray(new Condition[0]), satisfiable);
+    }
+
+    /**
+     * 由期望结果编译，非法字段标签或条件使期望无法满足
+     */
+    static MessageExpectation fromExpectedResult(ExpectedResult expected) {
+        if (expected == null) {
+            return ANY;
+        }
+
+        boolean satisfiable = true;
+        TreeMap<Integer, Condition> conditions = new TreeMap<>();
+        if (expected.getFields() != null) {
+            for (Map.Entry<String, ?> entry : expected.getFields().entrySet()) {
+                Condition condition = null;
+                try {
+                    int tag = Integer.parseInt(entry.getKey());
+                    condition = Condition.compile(tag, entry.getValue());
+                    if (condition != null) {
+                        conditions.put(tag, condition);
+                    }
+                } catch (NumberFormatException e) {
+                    log.warn("Invalid expected field tag: {}", entry.getKey());
+                }
+                satisfiable &= condition != null;
+            }
+        }
+        return new MessageExpectation(expected.getMessageType(), conditions.values().toArray(new Condition[0]),
+                satisfiable);
+    }
+
+    @Override
+    public boolean test(Message message) {
+        return matches(message);
+    }
+
+    boolean matches(Message message) {
+        if (!satisfiable) {
+            return false;
+        }
+
+        try {
+            if (msgType != null) {
+                FieldMap header = message.getHeader();
+                if (!header.isSetField(MsgType.FIELD) || !msgType.equals(header.getString(MsgType.FIELD))) {
+                    return false;
+                }
+            }
+            if (acceptedTypes != null) {
+                FieldMap header = message.getHeader();
+                if (!header.isSetField(MsgType.FIELD) || !isAccepted(header.getString(MsgType.FIELD))) {
+                    return false;
+                }
+            }
+
+            for (int i : evaluationOrder) {
+                String actual = valueOf(message, tags[i]);
+                if (actual == null || !holds(i, actual)) {
+                    return false;
+                }
+            }
+            return true;
+
+        } catch (FieldNotFound e) {
+            return false;
+        }
+    }
+
+    /**
+     * 消息体中未找到时再查找消息头，均不存在返回null
+     */
+    private static String valueOf(Message message, int tag) throws FieldNotFound {
+        if (message.isSetField(tag)) {
+            return message.getString(tag);
+        }
+        FieldMap header = message.getHeader();
+        return header.isSetField(tag) ? header.getString(tag) : null;
+    }
+
+    /**
+     * 在原始报文上匹配，标签取报文中第一次出现的字段
+     */
+    boolean matches(RawFixMessage raw) {
+        if (!satisfiable || !raw.isWellFormed()) {
+            return false;
+        }
+        if (msgType != null && !raw.isMsgType(msgType)) {
+            return false;
+        }
+        if (acceptedTypes != null && !isAccepted(raw)) {
+            return false;
+        }
+
+        for (int i : evaluationOrder) {
+            int field = raw.indexOf(tags[i]);
+            if (field < 0) {
+                return false;
+            }
+            boolean holds;
+            switch (operators[i]) {
+                case EQUALS:
+                    holds = raw.valueEqualsAt(field, operands[i]);
+                    break;
+                case CONTAINS:
+                    holds = raw.valueContainsAt(field, operands[i]);
+                    break;
+                default:
+                    holds = holds(i, raw.valueAt(field));
+            }
+            if (!holds) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isAccepted(String type) {
+        for (String acceptedType : acceptedTypes) {
+            if (acceptedType.equals(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isAccepted(RawFixMessage raw) {
+        for (String acceptedType : acceptedTypes) {
+            if (raw.isMsgType(acceptedType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean holds(int index, CharSequence actual) {
+        switch (operators[index]) {
+            case EQUALS:
+                return operands[index].contentEquals(actual);
+            case CONTAINS:
+                return actual.toString().contains(operands[index]);
+            case REGEX:
+                Matcher[] cache = matchers.get();
+                Matcher matcher = cache[index];
+                if (matcher == null) {
+                    matcher = patterns[index].matcher(actual);
+                    cache[index] = matcher;
+                } else {
+                    matcher.reset(actual);
+                }
+                return matcher.matches();
+            case RANGE:
+                double value = parseDecimal(actual);
+                return value >= minimums[index] && value <= maximums[index];
+            default:
+                return false;
+        }
+    }
+
+    private static int selectivityRank(int tag, byte operator) {
+        boolean highSelectivity = Arrays.binarySearch(HIGH_SELECTIVITY_TAGS, tag) >= 0;
+        switch (operator) {
+            case EQUALS:
+                return highSelectivity ? 0 : 2;
+            case REGEX:
+            case CONTAINS:
+                return highSelectivity ? 1 : 4;
+            default:
+                return 3;
+        }
+    }
+
+    /**
+     * 解析FIX十进制值（可选符号、整数部分、小数部分），格式不符返回NaN使区间条件不成立
+     */
+    static double parseDecimal(CharSequence value) {
+        int length = value.length();
+        if (length == 0) {
+            return Double.NaN;
+        }
+        int i = 0;
+        boolean negative = value.charAt(0) == '-';
+        if (negative || value.charAt(0) == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean fraction = false;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '.' && !fraction) {
+                fraction = true;
+            } else if (c >= '0' && c <= '9') {
+                if (digits++ >= 18) {
+                    // 超出long精度时交给标准解析
+                    return parseStandard(value);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (fraction) {
+                    scale++;
+                }
+            } else {
+                return parseStandard(value);
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        double result = scale == 0 ? mantissa : mantissa / Math.pow(10, scale);
+        return negative ? -result : result;
+    }
+
+    private static double parseStandard(CharSequence value) {
+        try {
+            return Double.parseDouble(value.toString());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * 单个字段条件的编译结果
+     */
+    private static final class Condition {
+        private final int tag;
+        private final byte operator;
+        private final String operand;
+        private final Pattern pattern;
+        private final double minimum;
+        private final double maximum;
+
+        private Condition(int tag, byte operator, String operand, Pattern pattern, double minimum, double maximum) {
+            this.tag = tag;
+            this.operator = operator;
+            this.operand = operand;
+            this.pattern = pattern;
+            this.minimum = minimum;
+            this.maximum = maximum;
+        }
+
+        /**
+         * 编译字段期望值，无法识别时返回null
+         */
+        static Condition compile(int tag, Object spec) {
+            if (!(spec instanceof Map)) {
+                return new Condition(tag, EQUALS, String.valueOf(spec), null, 0, 0);
+            }
+
+            Map<?, ?> map = (Map<?, ?>) spec;
+            try {
+                if (map.containsKey("equals")) {
+                    return new Condition(tag, EQUALS, String.valueOf(map.get("equals")), null, 0, 0);
+                }
+                if (map.containsKey("regex")) {
+                    return new Condition(tag, REGEX, null, Pattern.compile(String.valueOf(map.get("regex"))), 0, 0);
+                }
+                if (map.containsKey("contains")) {
+                    return new Condition(tag, CONTAINS, String.valueOf(map.get("contains")), null, 0, 0);
+                }
+                if (map.containsKey("min") || map.containsKey("max")) {
+                    double minimum = map.containsKey("min")
+                            ? Double.parseDouble(String.valueOf(map.get("min"))) : Double.NEGATIVE_INFINITY;
+                    double maximum = map.containsKey("max")
+                            ? Double.parseDouble(String.valueOf(map.get("max"))) : Double.POSITIVE_INFINITY;
+                    return new Condition(tag, RANGE, null, null, minimum, maximum);
+                }
+            } catch (PatternSyntaxException | NumberFormatException e) {
+                log.warn("Invalid condition for tag {}: {} ({})", tag, spec, e.getMessage());
+                return null;
+            }
+            log.warn("Unsupported condition for tag {}: {}", tag, spec);
+            return null;
+        }
+    }
+}
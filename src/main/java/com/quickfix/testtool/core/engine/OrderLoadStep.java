@@ -0,0 +1,269 @@
+package com.quickfix.testtool.core.engine;
+
+import com.quickfix.testtool.core.metrics.LatencyHistogram;
+import com.quickfix.testtool.simulator.FIXSimulator;
+import com.quickfix.testtool.simulator.MessageJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import quickfix.FieldNotFound;
+import quickfix.Message;
+import quickfix.field.ClOrdID;
+import quickfix.field.MsgType;
+import quickfix.field.TransactTime;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 订单负载步骤（SEND_BULK_ORDERS / SEND_ORDER_STREAM）
+ * 开环发送：按固定间隔或泊松到达时间表发送NewOrderSingle，发送时刻不受响应影响；
+ * 响应校验在独立任务中从会话日志并行消费，生产线程从不等待校验
+ *
+ * 延迟按ClOrdID关联订单与响应：服务时间从实际发送时刻起算；限速时另记从计划发送时刻起算的响应时间，
+ * 发送端落后于计划时排队的时间也计入其中，修正协调遗漏。
+ * 吞吐量按已匹配的响应数除以首笔发送到最后一笔匹配响应的时间计算，反映被测网关的处理能力而非发送速率
+ */
+class OrderLoadStep extends PlanStep {
+    private static final Logger log = LoggerFactory.getLogger(OrderLoadStep.class);
+
+    // 生产进行中时校验任务每次等待的最长时间
+    private static final long VERIFY_SLICE_MILLIS = 100;
+
+    enum Arrival { CONSTANT, POISSON }
+
+    private final List<Message> templates;
+    private final String[] templateIds;
+    private final Map<String, Integer> explicitIds;
+    private final long count;
+    private final long durationNanos;
+    private final double rate;
+    private final Arrival arrival;
+    private final long seed;
+    private final String idPrefix;
+    private final MessageExpectation expected;
+    private final long timeout;
+
+    /**
+     * @param templates 订单骨架，按序循环使用
+     * @param templateIds 模板中显式指定的ClOrdID，仅在第一轮使用，其余序号自动生成
+     * @param count 订单总数，不大于0时按durationNanos持续发送
+     * @param rate 每秒订单数，不大于0表示不限速
+     * @param expected 每笔订单的响应期望，null表示只发送不校验
+     */
+    OrderLoadStep(String action, List<Message> templates, String[] templateIds, Map<String, Integer> explicitIds,
+                  long count, long durationNanos, double rate, Arrival arrival, long seed, String idPrefix,
+                  MessageExpectation expected, long timeout) {
+        super(action);
+        this.templates = templates;
+        this.templateIds = templateIds;
+        this.explicitIds = explicitIds;
+        this.count = count;
+        this.durationNanos = durationNanos;
+        this.rate = rate;
+        this.arrival = arrival;
+        this.seed = seed;
+        this.idPrefix = idPrefix;
+        this.expected = expected;
+        this.timeout = timeout;
+    }
+
+    @Override
+    void execute(TestEngine engine, FIXSimulator simulator, TestResult result) throws Exception {
+        ClOrdIdGenerator ids = new ClOrdIdGenerator(idPrefix);
+        SendTimes sendTimes = new SendTimes();
+        AtomicLong sent = new AtomicLong();
+        // 生产结束时刻（毫秒），0表示仍在发送
+        AtomicLong productionEnd = new AtomicLong();
+        // 最后一笔匹配响应的接收时刻（纳秒）
+        AtomicLong lastResponse = new AtomicLong();
+
+        CompletableFuture<Long> verifier = expected == null ? null : CompletableFuture.supplyAsync(
+                () -> verify(engine, simulator, ids, sendTimes, sent, productionEnd, lastResponse, result),
+                engine.getExecutor());
+
+        long start = System.nanoTime();
+        long maxLag;
+        try {
+            maxLag = produce(simulator, ids, sendTimes, sent, start);
+        } finally {
+            productionEnd.set(System.currentTimeMillis());
+        }
+        long elapsed = Math.max(1, System.nanoTime() - start);
+
+        log.info("Sent {} orders in {} ms ({} orders/s, max schedule lag {} us)", sent.get(),
+                TimeUnit.NANOSECONDS.toMillis(elapsed), (long) (sent.get() * 1e9 / elapsed),
+                TimeUnit.NANOSECONDS.toMicros(maxLag));
+
+        if (verifier != null) {
+            long matched = verifier.get();
+            if (matched > 0) {
+                result.getLatency().recordThroughput(getKey(), matched, lastResponse.get() - sendTimes.sentAt(0));
+            }
+            if (matched < sent.get()) {
+                fail(result, "Only " + matched + " of " + sent.get()
+                        + " orders received a matching response within timeout");
+            } else {
+                log.info("All {} orders received a matching response", matched);
+            }
+        }
+    }
+
+    /**
+     * 按时间表发送订单，返回实际发送时刻相对计划时刻的最大滞后（纳秒）
+     */
+    private long produce(FIXSimulator simulator, ClOrdIdGenerator ids, SendTimes sendTimes, AtomicLong sent,
+                         long start) throws Exception {
+        double meanInterval = rate > 0 ? 1e9 / rate : 0;
+        SplittableRandom random = seed != 0 ? new SplittableRandom(seed) : new SplittableRandom();
+        double offset = 0;
+        long maxLag = 0;
+
+        for (long sequence = 0; count > 0 ? sequence < count : offset < durationNanos; sequence++) {
+            long intended = start + (long) offset;
+            if (rate > 0) {
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                maxLag = Math.max(maxLag, -wait);
+            } else if (count <= 0) {
+                offset = System.nanoTime() - start;
+            }
+
+            Message order = (Message) templates.get((int) (sequence % templates.size())).clone();
+            String explicitId = sequence < templateIds.length ? templateIds[(int) sequence] : null;
+            order.setString(ClOrdID.FIELD, explicitId != null ? explicitId : ids.format(sequence));
+            order.setField(new TransactTime());
+            // 发送时刻先于sent计数写入，校验任务读取sent后即可见
+            sendTimes.put(sequence, rate > 0 ? intended : System.nanoTime(), System.nanoTime());
+            simulator.sendMessage(order);
+            sent.incrementAndGet();
+
+            if (rate > 0) {
+                offset += arrival == Arrival.POISSON
+                        ? -Math.log(1 - random.nextDouble()) * meanInterval
+                        : meanInterval;
+            }
+        }
+        return maxLag;
+    }
+
+    /**
+     * 从会话日志消费响应并按ClOrdID关联到订单序号，每笔订单只计一次；
+     * 生产结束后最多再等待timeout毫秒
+     */
+    private long verify(TestEngine engine, FIXSimulator simulator, ClOrdIdGenerator ids, SendTimes sendTimes,
+                        AtomicLong sent, AtomicLong productionEnd, AtomicLong lastResponse, TestResult result) {
+        BitSet matched = new BitSet();
+        int[] lastMatched = new int[1];
+        long matchedCount = 0;
+        LatencyHistogram service = result.getLatency().forStep(getKey());
+        LatencyHistogram messageType = result.getLatency().forMessageType(MsgType.ORDER_SINGLE);
+        LatencyHistogram corrected = rate > 0 ? result.getLatency().forCorrectedStep(getKey()) : null;
+
+        try {
+            while (true) {
+                long end = productionEnd.get();
+                if (end != 0 && matchedCount >= sent.get()) {
+                    return matchedCount;
+                }
+                long wait = end == 0 ? VERIFY_SLICE_MILLIS : end + timeout - System.currentTimeMillis();
+                if (wait <= 0) {
+                    return matchedCount;
+                }
+
+                MessageJournal.Entry response = engine.awaitEntry(simulator, message -> {
+                    if (!expected.matches(message)) {
+                        return false;
+                    }
+                    int sequence = correlate(message, ids);
+                    if (sequence < 0 || matched.get(sequence)) {
+                        return false;
+                    }
+                    matched.set(sequence);
+                    lastMatched[0] = sequence;
+                    return true;
+                }, wait);
+                if (response != null) {
+                    matchedCount++;
+                    int sequence = lastMatched[0];
+                    // 响应可能先于生产线程递增sent到达，等待发送时刻可见
+                    while (sent.get() <= sequence) {
+                        Thread.onSpinWait();
+                    }
+                    long received = response.getNanoTime();
+                    if (received > lastResponse.get()) {
+                        lastResponse.set(received);
+                    }
+                    long latency = received - sendTimes.sentAt(sequence);
+                    service.record(latency);
+                    messageType.record(latency);
+                    if (corrected != null) {
+                        corrected.record(received - sendTimes.intendedAt(sequence));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return matchedCount;
+        } catch (Exception e) {
+            log.error("Response verification failed", e);
+            return matchedCount;
+        }
+    }
+
+    private int correlate(Message message, ClOrdIdGenerator ids) {
+        try {
+            String clOrdId = message.getString(ClOrdID.FIELD);
+            long sequence = ids.sequenceOf(clOrdId);
+            if (sequence >= 0) {
+                return sequence <= Integer.MAX_VALUE ? (int) sequence : -1;
+            }
+            Integer explicit = explicitIds.get(clOrdId);
+            return explicit != null ? explicit : -1;
+        } catch (FieldNotFound e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 按订单序号记录计划发送时刻与实际发送时刻，分块存储，仅由生产线程写入
+     */
+    private static class SendTimes {
+        private static final int CHUNK_BITS = 14;
+        private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+        private volatile long[][] intended = new long[16][];
+        private volatile long[][] actual = new long[16][];
+
+        void put(long sequence, long intendedAt, long sentAt) {
+            int chunk = (int) (sequence >>> CHUNK_BITS);
+            if (chunk >= intended.length) {
+                intended = Arrays.copyOf(intended, Math.max(chunk + 1, intended.length * 2));
+                actual = Arrays.copyOf(actual, intended.length);
+            }
+            if (intended[chunk] == null) {
+                intended[chunk] = new long[CHUNK_SIZE];
+                actual[chunk] = new long[CHUNK_SIZE];
+            }
+            int offset = (int) (sequence & (CHUNK_SIZE - 1));
+            intended[chunk][offset] = intendedAt;
+            actual[chunk][offset] = sentAt;
+        }
+
+        long intendedAt(long sequence) {
+            return intended[(int) (sequence >>> CHUNK_BITS)][(int) (sequence & (CHUNK_SIZE - 1))];
+        }
+
+        long sentAt(long sequence) {
+            return actual[(int) (sequence >>> CHUNK_BITS)][(int) (sequence & (CHUNK_SIZE - 1))];
+        }
+    }
+}
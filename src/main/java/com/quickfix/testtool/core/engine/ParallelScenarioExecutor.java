@@ -0,0 +1,126 @@
+package com.quickfix.testtool.core.engine;
+
+import com.quickfix.testtool.core.model.TestScenario;
+import com.quickfix.testtool.simulator.SessionAllocator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 并行场景执行器
+ * 以可配置的并行度同时执行多个场景，每个场景分配独立的端口、CompID和存储目录
+ */
+public class ParallelScenarioExecutor {
+    private static final Logger log = LoggerFactory.getLogger(ParallelScenarioExecutor.class);
+
+    public static final String PARALLELISM_PROPERTY = "testtool.parallelism";
+
+    private final TestEngine testEngine;
+    private final SessionAllocator allocator;
+    private final int parallelism;
+    private final ExecutorService executor;
+
+    public ParallelScenarioExecutor(TestEngine testEngine) {
+        this(testEngine, defaultParallelism(), new SessionAllocator());
+    }
+
+    public ParallelScenarioExecutor(TestEngine testEngine, int parallelism, SessionAllocator allocator) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.testEngine = testEngine;
+        this.allocator = allocator;
+        this.parallelism = parallelism;
+
+        // 并行度仍受端口和存储资源约束，虚拟线程只降低每个场景阻塞等待的开销
+        this.executor = ExecutionMode.current().newFixedExecutor("scenario-runner", parallelism);
+    }
+
+    /**
+     * 默认并行度：系统属性testtool.parallelism，未设置时取CPU核数
+     */
+    public static int defaultParallelism() {
+        String configured = System.getProperty(PARALLELISM_PROPERTY);
+        if (configured != null) {
+            try {
+                return Math.max(1, Integer.parseInt(configured.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Invalid {} value: {}", PARALLELISM_PROPERTY, configured);
+            }
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * 提交单个场景，返回在场景结束时完成的Future
+     */
+    public CompletableFuture<TestResult> submit(TestScenario scenario) {
+        return submit(scenario, null);
+    }
+
+    /**
+     * 提交单个场景，onStart在场景从队列中取出、开始执行时调用
+     */
+    public CompletableFuture<TestResult> submit(TestScenario scenario, Runnable onStart) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (onStart != null) {
+                onStart.run();
+            }
+            SessionAllocator.SessionAllocation allocation = allocator.allocate(scenario.getId());
+            try {
+                TestResult result = testEngine.executeScenario(scenario, allocation);
+                result.complete();
+                return result;
+            } finally {
+                allocator.release(allocation);
+            }
+        }, executor);
+    }
+
+    /**
+     * 并行执行整个套件并等待全部完成，结果顺序与输入一致
+     */
+    public List<TestResult> executeSuite(List<TestScenario> scenarios) throws InterruptedException {
+        log.info("Executing suite of {} scenarios with parallelism {}", scenarios.size(), parallelism);
+        long startTime = System.currentTimeMillis();
+
+        List<CompletableFuture<TestResult>> futures = new ArrayList<>();
+        for (TestScenario scenario : scenarios) {
+            futures.add(submit(scenario));
+        }
+
+        List<TestResult> results = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                TestResult failed = new TestResult(scenarios.get(i).getId());
+                failed.setStatus(TestStatus.FAILED);
+                failed.setErrorMessage(e.getCause().getMessage());
+                failed.complete();
+                results.add(failed);
+            }
+        }
+
+        log.info("Suite completed in {} ms", System.currentTimeMillis() - startTime);
+        return results;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.quickfix.testtool.core.engine;
+
+import com.quickfix.testtool.simulator.FIXSimulator;
+import com.quickfix.testtool.simulator.MessageJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import quickfix.FieldNotFound;
+import quickfix.Message;
+import quickfix.Session;
+import quickfix.SessionID;
+import quickfix.field.ClOrdID;
+import quickfix.field.MsgType;
+import quickfix.field.TransactTime;
+
+/**
+ * 执行计划中的步骤，创建后不可变，可在多次执行间共享
+ */
+abstract class PlanStep {
+    private final String action;
+    private String key;
+
+    PlanStep(String action) {
+        this.action = action;
+        this.key = action;
+    }
+
+    /**
+     * 编译期设置步骤序号，计划发布后不再修改
+     */
+    PlanStep withIndex(int index) {
+        this.key = (index + 1) + ":" + action;
+        return this;
+    }
+
+    String getAction() { return action; }
+
+    /**
+     * 步骤标识（序号:动作），用于延迟统计
+     */
+    String getKey() { return key; }
+
+    abstract void execute(TestEngine engine, FIXSimulator simulator, TestResult result) throws Exception;
+
+    static void fail(TestResult result, String failure) {
+        result.addFailure(failure);
+        result.setStatus(TestStatus.FAILED);
+    }
+}
+
+/**
+ * 编译期已确定失败的步骤（缺少参数、参数格式错误、未知动作）
+ */
+class FailedStep extends PlanStep {
+    private static final Logger log = LoggerFactory.getLogger(FailedStep.class);
+
+    private final String failure;
+    private final boolean fatal;
+
+    FailedStep(String action, String failure, boolean fatal) {
+        super(action);
+        this.failure = failure;
+        this.fatal = fatal;
+    }
+
+    @Override
+    void execute(TestEngine engine, FIXSimulator simulator, TestResult result) {
+        log.warn("{}", failure);
+        if (fatal) {
+            fail(result, failure);
+        } else {
+            result.addFailure(failure);
+        }
+    }
+}
+
+class WaitLoginStep extends PlanStep {
+    private static final Logger log = LoggerFactory.getLogger(WaitLoginStep.class);
+
+    private final long timeout;
+
+    WaitLoginStep(String action, long timeout) {
+        super(action);
+        this.timeout = timeout;
+    }
+
+    @Override
+    void execute(TestEngine engine, FIXSimulator simulator, TestResult result) {
+        log.info("Waiting for login completion...");
+        long deadline = System.currentTimeMillis() + timeout;
+
+        // 在场景线程上直接轮询，不向引擎执行器提交任务，避免场景与轮询任务争用同一线程池
+        try {
+            while (!isLoggedOn(simulator)) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    fail(result, "Login timeout after " + timeout + "ms");
+                    return;
+                }
+                Thread.sleep(Math.min(100, remaining));
+            }
+            log.info("Login completed successfully");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(result, "Login wait interrupted");
+        } catch (Exception e) {
+            fail(result, "Login wait failed: " + e.getMessage());
+        }
+    }
+
+    private static boolean isLoggedOn(FIXSimulator simulator) {
+        SessionID sessionId = simulator.getSessionId();
+        if (sessionId == null) {
+            return false;
+        }
+        Session session = Session.lookupSession(sessionId);
+        return session != null && session.isLoggedOn();
+    }
+}
+
+/**
+ * 发送消息步骤：复制预构建的消息骨架，只填充每次执行都会变化的字段
+ */
+class SendMessageStep extends PlanStep {
+    private static final Logger log = LoggerFactory.getLogger(SendMessageStep.class);
+
+    private final String description;
+    private final String failurePrefix;
+    private final Message skeleton;
+    private final int generatedIdTag;
+    private final String generatedIdPrefix;
+    private final boolean stampTransactTime;
+    private final MessageExpectation expected;
+    private final long expectedTimeout;
+
+    /**
+     * @param generatedIdTag 未在参数中指定时按时间戳生成的ID字段，0表示无
+     * @param expected 响应期望，null表示不校验响应
+     */
+    SendMessageStep(String action, String description, String failurePrefix, Message skeleton,
+                    int generatedIdTag, String generatedIdPrefix, boolean stampTransactTime,
+                    MessageExpectation expected, long expectedTimeout) {
+        super(action);
+        this.description = description;
+        this.failurePrefix = failurePrefix;
+        this.skeleton = skeleton;
+        this.generatedIdTag = generatedIdTag;
+        this.generatedIdPrefix = generatedIdPrefix;
+        this.stampTransactTime = stampTransactTime;
+        this.expected = expected;
+        this.expectedTimeout = expectedTimeout;
+    }
+
+    @Override
+    void execute(TestEngine engine, FIXSimulator simulator, TestResult result) {
+        try {
+            log.info("Sending {}...", description);
+            Message message = (Message) skeleton.clone();
+            String msgType = message.getHeader().getString(MsgType.FIELD);
+            if (generatedIdTag > 0) {
+                message.setString(generatedIdTag, generatedIdPrefix + System.currentTimeMillis());
+            }
+            if (stampTransactTime) {
+                message.setField(new TransactTime());
+            }
+
+            long sentAt = System.nanoTime();
+            simulator.sendMessage(message);
+            log.debug("{} sent successfully", description);
+
+            if (expected == null) {
+                // 响应由后续等待步骤接收，发送时刻随ClOrdID交给该步骤记录延迟
+                if (message.isSetField(ClOrdID.FIELD)) {
+                    result.registerSend(message.getString(ClOrdID.FIELD), getKey(), msgType, sentAt);
+                }
+            } else {
+                MessageJournal.Entry response = engine.awaitEntry(simulator, expected, expectedTimeout);
+                if (response == null) {
+                    fail(result, "Response validation failed or timeout");
+                } else {
+                    long latency = response.getNanoTime() - sentAt;
+                    result.getLatency().forStep(getKey()).record(latency);
+                    result.getLatency().forMessageType(msgType).record(latency);
+                    log.debug("Response validation passed");
+                }
+            }
+
+        } catch (Exception e) {
+            log.error("{}", failurePrefix, e);
+            fail(result, failurePrefix + ": " + e.getMessage());
+        }
+    }
+}
+
+/**
+ * 等待入站消息步骤，可限定接受的消息类型
+ * 收到的消息带有此前发送步骤登记的ClOrdID时，按该发送步骤记录往返延迟
+ */
+class AwaitMessageStep extends PlanStep {
+    private static final Logger log = LoggerFactory.getLogger(AwaitMessageStep.class);
+
+    private final String description;
+    private final MessageExpectation expectation;
+    private final long timeout;
+
+    /**
+     * @param acceptedTypes 接受的MsgType，null表示任意类型；编译进期望，使日志溢出条目可直接在原始报文上匹配
+     */
+    AwaitMessageStep(String action, String description, String[] acceptedTypes,
+                     MessageExpectation expectation, long timeout) {
+        super(action);
+        this.description = description;
+        this.expectation = acceptedTypes != null ? expectation.restrictedTo(acceptedTypes) : expectation;
+        this.timeout = timeout;
+    }
+
+    @Override
+    void execute(TestEngine engine, FIXSimulator simulator, TestResult result) {
+        try {
+            log.info("Waiting for {}...", description);
+            MessageJournal.Entry received = engine.awaitEntry(simulator, expectation, timeout);
+
+            if (received == null) {
+                fail(result, "No " + description + " received within timeout");
+            } else {
+                Message receivedMessage = received.getMessage();
+                log.info("{} received: {}", description, receivedMessage);
+                recordLatency(result, received, receivedMessage);
+            }
+
+        } catch (Exception e) {
+            fail(result, "Failed to wait for " + description + ": " + e.getMessage());
+        }
+    }
+
+    private static void recordLatency(TestResult result, MessageJournal.Entry received, Message message)
+            throws FieldNotFound {
+        if (!message.isSetField(ClOrdID.FIELD)) {
+            return;
+        }
+        TestResult.PendingSend send = result.takeSend(message.getString(ClOrdID.FIELD));
+        if (send != null) {
+            long latency = received.getNanoTime() - send.sentAt;
+            result.getLatency().forStep(send.stepKey).record(latency);
+            result.getLatency().forMessageType(send.msgType).record(latency);
+        }
+    }
+}
+
+class VerifySessionStateStep extends PlanStep {
+    private final boolean expectLoggedOn;
+
+    VerifySessionStateStep(String action, boolean expectLoggedOn) {
+        super(action);
+        this.expectLoggedOn = expectLoggedOn;
+    }
+
+    @Override
+    void execute(TestEngine engine, FIXSimulator simulator, TestResult result) {
+        SessionID sessionId = simulator.getSessionId();
+        Session session = sessionId != null ? Session.lookupSession(sessionId) : null;
+        boolean isLoggedOn = session != null && session.isLoggedOn();
+
+        if (expectLoggedOn && !isLoggedOn) {
+            fail(result, "Expected session to be logged on, but it's not");
+        } else if (!expectLoggedOn && isLoggedOn) {
+            fail(result, "Expected session to be disconnected, but it's logged on");
+        }
+    }
+}
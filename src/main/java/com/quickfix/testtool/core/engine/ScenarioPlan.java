@@ -0,0 +1,26 @@
+package com.quickfix.testtool.core.engine;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 场景执行计划
+ * 由ScenarioPlanCompiler从TestScenario编译而来，步骤参数已解析为类型化对象
+ */
+public final class ScenarioPlan {
+    private final String scenarioId;
+    private final String contentHash;
+    private final List<PlanStep> steps;
+
+    ScenarioPlan(String scenarioId, String contentHash, List<PlanStep> steps) {
+        this.scenarioId = scenarioId;
+        this.contentHash = contentHash;
+        this.steps = Collections.unmodifiableList(steps);
+    }
+
+    public String getScenarioId() { return scenarioId; }
+    public String getContentHash() { return contentHash; }
+    public int getStepCount() { return steps.size(); }
+
+    List<PlanStep> getSteps() { return steps; }
+}
@@ -0,0 +1,358 @@
+package com.quickfix.testtool.core.engine;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quickfix.testtool.core.model.TestScenario;
+import com.quickfix.testtool.core.model.TestStep;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import quickfix.FieldNotFound;
+import quickfix.Message;
+import quickfix.field.*;
+import quickfix.fix44.NewOrderSingle;
+import quickfix.fix44.OrderCancelReplaceRequest;
+import quickfix.fix44.OrderCancelRequest;
+import quickfix.fix44.OrderStatusRequest;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 场景编译器
+ * 将TestScenario编译为不可变的执行计划：动作字符串解析为步骤对象，字段标签解析为整数，
+ * 数值参数预先解析，待发送消息预构建为骨架；编译结果按场景ID和内容哈希缓存，
+ * 同一场景重复执行时只解析一次
+ */
+public class ScenarioPlanCompiler {
+    private static final Logger log = LoggerFactory.getLogger(ScenarioPlanCompiler.class);
+
+    private static final long DEFAULT_LOGIN_TIMEOUT = 10000;
+    private static final long DEFAULT_TIMEOUT = 5000;
+    private static final long DEFAULT_LOAD_TIMEOUT = 10000;
+    private static final String[] EXECUTION_REPORT_TYPES = {MsgType.EXECUTION_REPORT};
+    private static final String[] CANCEL_RESPONSE_TYPES = {MsgType.ORDER_CANCEL_REJECT, MsgType.EXECUTION_REPORT};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // 每个场景ID只保留最新内容对应的计划
+    private final Map<String, ScenarioPlan> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 返回场景的执行计划，内容未变化时直接复用缓存
+     */
+    public ScenarioPlan compile(TestScenario scenario) {
+        String contentHash = contentHash(scenario);
+        String scenarioId = scenario.getId();
+        if (scenarioId == null || contentHash == null) {
+            return doCompile(scenario, contentHash);
+        }
+
+        ScenarioPlan cached = cache.get(scenarioId);
+        if (cached != null && contentHash.equals(cached.getContentHash())) {
+            return cached;
+        }
+
+        ScenarioPlan plan = doCompile(scenario, contentHash);
+        cache.put(scenarioId, plan);
+        return plan;
+    }
+
+    public void invalidate(String scenarioId) {
+        cache.remove(scenarioId);
+    }
+
+    public int getCachedPlanCount() {
+        return cache.size();
+    }
+
+    private ScenarioPlan doCompile(TestScenario scenario, String contentHash) {
+        List<PlanStep> steps = new ArrayList<>();
+        if (scenario.getSequence() != null) {
+            for (TestStep step : scenario.getSequence()) {
+                steps.add(compileStep(step).withIndex(steps.size()));
+            }
+        }
+        log.debug("Compiled scenario {} into {} steps", scenario.getId(), steps.size());
+        return new ScenarioPlan(scenario.getId(), contentHash, steps);
+    }
+
+    private PlanStep compileStep(TestStep step) {
+        String action = step.getAction();
+        Map<String, ?> params = step.getParameters();
+
+        switch (String.valueOf(action)) {
+            case "WAIT_LOGIN":
+                return new WaitLoginStep(action, timeout(step, DEFAULT_LOGIN_TIMEOUT));
+            case "SEND_HEARTBEAT":
+                return compileSend(step, "heartbeat", "Failed to send heartbeat", () -> heartbeat(params));
+            case "SEND_TEST_REQUEST":
+                return compileSend(step, "test request", "Failed to send test request", () -> testRequest(params));
+            case "WAIT_MESSAGE":
+                return new AwaitMessageStep(action, "matching message", null,
+                        MessageExpectation.fromParameters(params), timeout(step, DEFAULT_TIMEOUT));
+            case "VERIFY_SESSION_STATE":
+                return compileSessionState(action, params);
+            // 订单相关操作
+            case "SEND_NEW_ORDER":
+                if (params == null) {
+                    return new FailedStep(action, "Missing parameters for new order", true);
+                }
+                return compileSend(step, "new order", "Failed to send new order", () -> newOrder(params));
+            case "CANCEL_ORDER":
+                if (params == null || !params.containsKey("origClOrdID")) {
+                    return new FailedStep(action, "Missing origClOrdID parameter for cancel order", true);
+                }
+                return compileSend(step, "order cancel request", "Failed to cancel order", () -> cancelOrder(params));
+            case "MODIFY_ORDER":
+                if (params == null || !params.containsKey("origClOrdID")) {
+                    return new FailedStep(action, "Missing origClOrdID parameter for modify order", true);
+                }
+                return compileSend(step, "order modify request", "Failed to modify order", () -> modifyOrder(params));
+            case "QUERY_ORDER_STATUS":
+                if (params == null || !params.containsKey("orderID")) {
+                    return new FailedStep(action, "Missing orderID parameter for order status query", true);
+                }
+                return compileSend(step, "order status request", "Failed to query order status",
+                        () -> orderStatus(params));
+            case "SEND_BULK_ORDERS":
+            case "SEND_ORDER_STREAM":
+                return compileOrderLoad(step);
+            case "WAIT_EXECUTION_REPORT":
+                return new AwaitMessageStep(action, "execution report", EXECUTION_REPORT_TYPES,
+                        MessageExpectation.fromParameters(params), timeout(step, DEFAULT_TIMEOUT));
+            case "WAIT_ORDER_CANCEL_RESPONSE":
+                return new AwaitMessageStep(action, "order cancel response", CANCEL_RESPONSE_TYPES,
+                        MessageExpectation.fromParameters(params), timeout(step, DEFAULT_TIMEOUT));
+            case "WAIT_ORDER_MODIFY_RESPONSE":
+                return new AwaitMessageStep(action, "order modify response", CANCEL_RESPONSE_TYPES,
+                        MessageExpectation.fromParameters(params), timeout(step, DEFAULT_TIMEOUT));
+            default:
+                return new FailedStep(action, "Unknown action: " + action, false);
+        }
+    }
+
+    private PlanStep compileSessionState(String action, Map<String, ?> params) {
+        if (params == null || !params.containsKey("expectedState")) {
+            return new FailedStep(action, "Missing expectedState parameter", true);
+        }
+        String expectedState = param(params, "expectedState", "");
+        switch (expectedState.toUpperCase()) {
+            case "LOGGED_ON":
+                return new VerifySessionStateStep(action, true);
+            case "DISCONNECTED":
+                return new VerifySessionStateStep(action, false);
+            default:
+                return new FailedStep(action, "Unknown session state: " + expectedState, true);
+        }
+    }
+
+    /**
+     * 参数解析失败在编译期转为失败步骤，执行到该步骤时报告与逐条解析相同的错误
+     */
+    private PlanStep compileSend(TestStep step, String description, String failurePrefix, SkeletonBuilder builder) {
+        try {
+            Skeleton skeleton = builder.build();
+            TestStep.ExpectedResult expected = step.getExpected();
+            MessageExpectation expectation = expected != null ? MessageExpectation.fromExpectedResult(expected) : null;
+            long expectedTimeout = expected != null && expected.getTimeout() > 0 ? expected.getTimeout() : DEFAULT_TIMEOUT;
+            return new SendMessageStep(step.getAction(), description, failurePrefix, skeleton.message,
+                    skeleton.generatedIdTag, skeleton.generatedIdPrefix, skeleton.stampTransactTime,
+                    expectation, expectedTimeout);
+        } catch (RuntimeException e) {
+            log.warn("Invalid parameters for step {}: {}", step.getAction(), e.getMessage());
+            return new FailedStep(step.getAction(), failurePrefix + ": " + e.getMessage(), true);
+        }
+    }
+
+    /**
+     * SEND_BULK_ORDERS发送orders列表中的订单，count大于列表长度时循环使用并自动生成ClOrdID；
+     * SEND_ORDER_STREAM以参数本身为订单模板，按count或durationMs持续发送。
+     * 两者均支持rate（每秒订单数）、arrival（constant/poisson）、seed和clOrdIDPrefix
+     */
+    private PlanStep compileOrderLoad(TestStep step) {
+        String action = step.getAction();
+        Map<String, ?> params = step.getParameters();
+        boolean bulk = "SEND_BULK_ORDERS".equals(action);
+        String failurePrefix = bulk ? "Failed to send bulk orders" : "Failed to send order stream";
+
+        if (params == null) {
+            return new FailedStep(action, "Missing parameters for " + (bulk ? "bulk orders" : "order stream"), true);
+        }
+
+        List<Map<String, ?>> orders = new ArrayList<>();
+        if (bulk) {
+            Object list = params.get("orders");
+            if (!(list instanceof List) || ((List<?>) list).isEmpty()) {
+                return new FailedStep(action, "Missing orders parameter for bulk orders", true);
+            }
+            for (Object order : (List<?>) list) {
+                if (!(order instanceof Map)) {
+                    return new FailedStep(action, failurePrefix + ": invalid order entry " + order, true);
+                }
+                @SuppressWarnings("unchecked")
+                Map<String, ?> orderParams = (Map<String, ?>) order;
+                orders.add(orderParams);
+            }
+        } else {
+            orders.add(params);
+        }
+
+        try {
+            List<Message> templates = new ArrayList<>();
+            String[] templateIds = new String[orders.size()];
+            Map<String, Integer> explicitIds = new HashMap<>();
+            for (int i = 0; i < orders.size(); i++) {
+                Skeleton skeleton = newOrder(orders.get(i));
+                templates.add(skeleton.message);
+                // 流式发送的模板在每次发送时都重新生成ClOrdID
+                if (bulk && skeleton.generatedIdTag == 0) {
+                    templateIds[i] = skeleton.message.getString(ClOrdID.FIELD);
+                    explicitIds.put(templateIds[i], i);
+                }
+            }
+
+            long count = Long.parseLong(param(params, "count", bulk ? String.valueOf(orders.size()) : "0"));
+            long durationMillis = Long.parseLong(param(params, "durationMs", "0"));
+            double rate = Double.parseDouble(param(params, "rate", "0"));
+            long seed = Long.parseLong(param(params, "seed", "0"));
+            OrderLoadStep.Arrival arrival = OrderLoadStep.Arrival.valueOf(
+                    param(params, "arrival", "constant").toUpperCase());
+            if (count <= 0 && durationMillis <= 0) {
+                return new FailedStep(action, failurePrefix + ": count or durationMs must be positive", true);
+            }
+
+            TestStep.ExpectedResult expected = step.getExpected();
+            return new OrderLoadStep(action, templates, templateIds, explicitIds, count,
+                    TimeUnit.MILLISECONDS.toNanos(durationMillis), rate, arrival, seed,
+                    param(params, "clOrdIDPrefix", bulk ? "BULK" : "STREAM"),
+                    expected != null ? MessageExpectation.fromExpectedResult(expected) : null,
+                    timeout(step, DEFAULT_LOAD_TIMEOUT));
+        } catch (RuntimeException | FieldNotFound e) {
+            log.warn("Invalid parameters for step {}: {}", action, e.getMessage());
+            return new FailedStep(action, failurePrefix + ": " + e.getMessage(), true);
+        }
+    }
+
+    private Skeleton heartbeat(Map<String, ?> params) {
+        Message heartbeat = new Message();
+        heartbeat.getHeader().setField(new MsgType(MsgType.HEARTBEAT));
+        if (params != null && params.containsKey("testReqID")) {
+            heartbeat.setField(new TestReqID(param(params, "testReqID", null)));
+        }
+        return new Skeleton(heartbeat, 0, null, false);
+    }
+
+    private Skeleton testRequest(Map<String, ?> params) {
+        Message testRequest = new Message();
+        testRequest.getHeader().setField(new MsgType(MsgType.TEST_REQUEST));
+        if (params != null && params.containsKey("testReqID")) {
+            testRequest.setField(new TestReqID(param(params, "testReqID", null)));
+            return new Skeleton(testRequest, 0, null, false);
+        }
+        return new Skeleton(testRequest, TestReqID.FIELD, "TEST_", false);
+    }
+
+    private Skeleton newOrder(Map<String, ?> params) {
+        NewOrderSingle order = new NewOrderSingle();
+        order.set(new Symbol(param(params, "symbol", "AAPL")));
+        order.set(new Side(param(params, "side", "1").charAt(0)));
+        order.set(new OrdType(param(params, "ordType", "1").charAt(0)));
+        order.set(new OrderQty(Double.parseDouble(param(params, "quantity", param(params, "orderQty", "100")))));
+        if (params.containsKey("price")) {
+            order.set(new Price(Double.parseDouble(param(params, "price", null))));
+        }
+        if (params.containsKey("timeInForce")) {
+            order.set(new TimeInForce(param(params, "timeInForce", null).charAt(0)));
+        }
+        return withClOrdID(order, params, "ORDER_");
+    }
+
+    private Skeleton cancelOrder(Map<String, ?> params) {
+        OrderCancelRequest cancelRequest = new OrderCancelRequest();
+        cancelRequest.set(new OrigClOrdID(param(params, "origClOrdID", null)));
+        cancelRequest.set(new Symbol(param(params, "symbol", "AAPL")));
+        cancelRequest.set(new Side(param(params, "side", "1").charAt(0)));
+        cancelRequest.set(new OrderQty(Double.parseDouble(param(params, "quantity", "100"))));
+        return withClOrdID(cancelRequest, params, "CANCEL_");
+    }
+
+    private Skeleton modifyOrder(Map<String, ?> params) {
+        OrderCancelReplaceRequest modifyRequest = new OrderCancelReplaceRequest();
+        modifyRequest.set(new OrigClOrdID(param(params, "origClOrdID", null)));
+        modifyRequest.set(new Symbol(param(params, "symbol", "AAPL")));
+        modifyRequest.set(new Side(param(params, "side", "1").charAt(0)));
+        modifyRequest.set(new OrderQty(Double.parseDouble(param(params, "quantity", "100"))));
+        if (params.containsKey("price")) {
+            modifyRequest.set(new Price(Double.parseDouble(param(params, "price", null))));
+        }
+        return withClOrdID(modifyRequest, params, "MODIFY_");
+    }
+
+    private Skeleton orderStatus(Map<String, ?> params) {
+        OrderStatusRequest statusRequest = new OrderStatusRequest();
+        statusRequest.set(new OrderID(param(params, "orderID", null)));
+        statusRequest.set(new Symbol(param(params, "symbol", "AAPL")));
+        statusRequest.set(new Side(param(params, "side", "1").charAt(0)));
+        return new Skeleton(statusRequest, 0, null, false);
+    }
+
+    /**
+     * 指定了clOrdID时写入骨架，否则在每次发送时按前缀生成
+     */
+    private Skeleton withClOrdID(Message message, Map<String, ?> params, String generatedPrefix) {
+        if (params.containsKey("clOrdID")) {
+            message.setString(ClOrdID.FIELD, param(params, "clOrdID", null));
+            return new Skeleton(message, 0, null, true);
+        }
+        return new Skeleton(message, ClOrdID.FIELD, generatedPrefix, true);
+    }
+
+    private static String param(Map<String, ?> params, String key, String defaultValue) {
+        Object value = params.get(key);
+        return value != null ? String.valueOf(value) : defaultValue;
+    }
+
+    private static long timeout(TestStep step, long defaultTimeout) {
+        return step.getTimeout() > 0 ? step.getTimeout() : defaultTimeout;
+    }
+
+    /**
+     * 场景内容哈希，序列化失败时返回null（不缓存）
+     */
+    private String contentHash(TestScenario scenario) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(scenario));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            log.warn("Unable to hash scenario {}, plan will not be cached", scenario.getId(), e);
+            return null;
+        }
+    }
+
+    private interface SkeletonBuilder {
+        Skeleton build();
+    }
+
+    private static class Skeleton {
+        private final Message message;
+        private final int generatedIdTag;
+        private final String generatedIdPrefix;
+        private final boolean stampTransactTime;
+
+        Skeleton(Message message, int generatedIdTag, String generatedIdPrefix, boolean stampTransactTime) {
+            this.message = message;
+            this.generatedIdTag = generatedIdTag;
+            this.generatedIdPrefix = generatedIdPrefix;
+            this.stampTransactTime = stampTransactTime;
+        }
+    }
+}
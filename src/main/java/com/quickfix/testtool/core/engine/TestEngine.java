@@ -1,42 +1,61 @@
 package com.quickfix.testtool.core.engine;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quickfix.testtool.core.metrics.LatencyReport;
 import com.quickfix.testtool.core.model.TestScenario;
-import com.quickfix.testtool.core.model.TestStep;
-import com.quickfix.testtool.core.model.TestStep.ExpectedResult;
+import com.quickfix.testtool.message.RawFixMessage;
 import com.quickfix.testtool.simulator.*;
+import com.quickfix.testtool.simulator.marketdata.MarketDataPublisher;
+import com.quickfix.testtool.simulator.store.StoreType;
+import com.quickfix.testtool.simulator.timing.LatencyDistribution;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import quickfix.*;
-import quickfix.field.MsgType;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 
 public class TestEngine {
     private static final Logger log = LoggerFactory.getLogger(TestEngine.class);
     
-    private final ExecutorService executor = Executors.newFixedThreadPool(10);
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(5);
+    // 阻塞等待在JDK 21+上运行于虚拟线程，否则回退到固定大小的平台线程池
+    private final ExecutorService executor = ExecutionMode.current().newTaskExecutor("test-engine", 10);
+    // 异步场景使用独立的执行器，场景线程阻塞时不会占满等待任务所需的线程
+    private final ExecutorService scenarioExecutor = ExecutionMode.current().newTaskExecutor("test-scenario", 10);
+    private final ScenarioPlanCompiler planCompiler = new ScenarioPlanCompiler();
+    private static final ThreadLocal<RawFixMessage> RAW_SCANNER = ThreadLocal.withInitial(RawFixMessage::new);
     
     public TestResult executeScenario(TestScenario scenario) {
+        return executeScenario(scenario, null);
+    }
+    
+    /**
+     * 使用分配的独立会话资源执行场景，allocation为null时使用默认配置
+     */
+    public TestResult executeScenario(TestScenario scenario, SessionAllocator.SessionAllocation allocation) {
         log.info("Starting test scenario: {}", scenario.getName());
         TestResult result = new TestResult(scenario.getId());
+        FIXSimulator simulator = null;
         
         try {
+            // 同一场景重复执行时复用已编译的计划
+            ScenarioPlan plan = planCompiler.compile(scenario);
+            
             // 初始化模拟器
-            FIXSimulator simulator = createSimulator(scenario);
+            simulator = createSimulator(scenario, allocation);
             simulator.start();
             
             // 执行测试序列
-            for (TestStep step : scenario.getSequence()) {
+            for (PlanStep step : plan.getSteps()) {
                 executeStep(step, simulator, result);
                 if (result.getStatus() == TestStatus.FAILED) {
                     break;
                 }
             }
             
-            simulator.stop();
             if (result.getStatus() != TestStatus.FAILED) {
                 result.setStatus(TestStatus.PASSED);
             }
@@ -45,66 +64,52 @@ public class TestEngine {
             log.error("Test execution failed", e);
             result.setStatus(TestStatus.FAILED);
             result.setErrorMessage(e.getMessage());
+        } finally {
+            // 无论成功与否都释放端口，便于并行执行时复用
+            if (simulator != null) {
+                simulator.stop();
+            }
         }
         
         return result;
     }
     
-    private FIXSimulator createSimulator(TestScenario scenario) {
+    private FIXSimulator createSimulator(TestScenario scenario, SessionAllocator.SessionAllocation allocation) throws IOException {
         // 根据配置创建合适的模拟器
         if ("initiator".equalsIgnoreCase(scenario.getConfiguration().getRole())) {
-            return new InitiatorSimulator();
+            InitiatorSimulator simulator = new InitiatorSimulator(allocation);
+            simulator.setStoreType(StoreType.fromString(scenario.getConfiguration().getStoreType()));
+            if (scenario.getConfiguration().getMarketData() != null) {
+                simulator.setMarketData(new ObjectMapper().convertValue(scenario.getConfiguration().getMarketData(),
+                        MarketDataPublisher.Definition.class));
+            }
+            return simulator;
         } else {
-            return new AcceptorSimulator();
+            AcceptorSimulator simulator = new AcceptorSimulator(allocation);
+            simulator.setStoreType(StoreType.fromString(scenario.getConfiguration().getStoreType()));
+            if ("matching".equalsIgnoreCase(scenario.getConfiguration().getCounterparty())) {
+                simulator.enableMatchingEngine();
+            }
+            simulator.setResponseLatency(LatencyDistribution.parse(scenario.getConfiguration().getResponseLatency()));
+            if (scenario.getConfiguration().getBehaviorFile() != null) {
+                simulator.setBehavior(RuleBasedBehavior.load(Paths.get(scenario.getConfiguration().getBehaviorFile())));
+            } else if (scenario.getConfiguration().getBehaviors() != null) {
+                simulator.setBehavior(RuleBasedBehavior.compile(scenario.getConfiguration().getBehaviors()));
+            }
+            if (scenario.getConfiguration().getSessionBehaviors() != null) {
+                for (Map.Entry<String, List<Map<String, Object>>> entry : scenario.getConfiguration().getSessionBehaviors().entrySet()) {
+                    simulator.setSessionBehavior(entry.getKey(), RuleBasedBehavior.compile(entry.getValue()));
+                }
+            }
+            return simulator;
         }
     }
     
-    private void executeStep(TestStep step, FIXSimulator simulator, TestResult result) {
+    private void executeStep(PlanStep step, FIXSimulator simulator, TestResult result) {
         log.debug("Executing step: {}", step.getAction());
         
         try {
-            switch (step.getAction()) {
-                case "WAIT_LOGIN":
-                    waitForLogin(step, simulator, result);
-                    break;
-                case "SEND_HEARTBEAT":
-                    sendHeartbeat(step, simulator, result);
-                    break;
-                case "SEND_TEST_REQUEST":
-                    sendTestRequest(step, simulator, result);
-                    break;
-                case "WAIT_MESSAGE":
-                    waitForMessage(step, simulator, result);
-                    break;
-                case "VERIFY_SESSION_STATE":
-                    verifySessionState(step, simulator, result);
-                    break;
-                // 订单相关操作
-                case "SEND_NEW_ORDER":
-                    sendNewOrder(step, simulator, result);
-                    break;
-                case "CANCEL_ORDER":
-                    cancelOrder(step, simulator, result);
-                    break;
-                case "MODIFY_ORDER":
-                    modifyOrder(step, simulator, result);
-                    break;
-                case "QUERY_ORDER_STATUS":
-                    queryOrderStatus(step, simulator, result);
-                    break;
-                case "WAIT_EXECUTION_REPORT":
-                    waitForExecutionReport(step, simulator, result);
-                    break;
-                case "WAIT_ORDER_CANCEL_RESPONSE":
-                    waitForOrderCancelResponse(step, simulator, result);
-                    break;
-                case "WAIT_ORDER_MODIFY_RESPONSE":
-                    waitForOrderModifyResponse(step, simulator, result);
-                    break;
-                default:
-                    log.warn("Unknown action: {}", step.getAction());
-                    result.addFailure("Unknown action: " + step.getAction());
-            }
+            step.execute(this, simulator, result);
         } catch (Exception e) {
             log.error("Step execution failed: {}", step.getAction(), e);
             result.addFailure("Step " + step.getAction() + " failed: " + e.getMessage());
@@ -112,571 +117,104 @@ public class TestEngine {
         }
     }
     
-    private void waitForLogin(TestStep step, FIXSimulator simulator, TestResult result) {
-        log.info("Waiting for login completion...");
-        long timeout = step.getTimeout() > 0 ? step.getTimeout() : 10000; // 默认10秒
-        AtomicBoolean loggedIn = new AtomicBoolean(false);
-        
-        try {
-            CompletableFuture<Void> loginFuture = CompletableFuture.runAsync(() -> {
-                while (!loggedIn.get() && !Thread.currentThread().isInterrupted()) {
-                    try {
-                        SessionID sessionId = simulator.getSessionId();
-                        if (sessionId != null) {
-                            Session session = Session.lookupSession(sessionId);
-                            if (session != null && session.isLoggedOn()) {
-                                loggedIn.set(true);
-                                break;
-                            }
-                        }
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                }
-            });
-            
-            loginFuture.get(timeout, TimeUnit.MILLISECONDS);
-            
-            if (!loggedIn.get()) {
-                result.addFailure("Login timeout after " + timeout + "ms");
-                result.setStatus(TestStatus.FAILED);
-            } else {
-                log.info("Login completed successfully");
-            }
-            
-        } catch (TimeoutException e) {
-            result.addFailure("Login timeout after " + timeout + "ms");
-            result.setStatus(TestStatus.FAILED);
-        } catch (Exception e) {
-            result.addFailure("Login wait failed: " + e.getMessage());
-            result.setStatus(TestStatus.FAILED);
-        }
-    }
-    
-    private void sendHeartbeat(TestStep step, FIXSimulator simulator, TestResult result) {
-        try {
-            log.info("Sending heartbeat message...");
-            Message heartbeat = new Message();
-            
-            // 设置消息头
-            heartbeat.getHeader().setField(new quickfix.field.MsgType(MsgType.HEARTBEAT));
-            
-            // 添加TestReqID（如果提供）
-            Map<String, String> params = step.getParameters();
-            if (params != null && params.containsKey("testReqID")) {
-                heartbeat.setField(new quickfix.field.TestReqID(params.get("testReqID")));
-            }
-            
-            simulator.sendMessage(heartbeat);
-            log.debug("Heartbeat sent successfully");
-            
-            // 验证响应
-            if (step.getExpected() != null) {
-                verifyResponse(step.getExpected(), simulator, result);
-            }
-            
-        } catch (Exception e) {
-            log.error("Failed to send heartbeat", e);
-            result.addFailure("Failed to send heartbeat: " + e.getMessage());
-            result.setStatus(TestStatus.FAILED);
-        }
-    }
-    
-    private void sendTestRequest(TestStep step, FIXSimulator simulator, TestResult result) {
-        try {
-            log.info("Sending test request...");
-            Message testRequest = new Message();
-            
-            testRequest.getHeader().setField(new quickfix.field.MsgType(MsgType.TEST_REQUEST));
-            
-            Map<String, String> params = step.getParameters();
-            if (params != null && params.containsKey("testReqID")) {
-                testRequest.setField(new quickfix.field.TestReqID(params.get("testReqID")));
-            } else {
-                testRequest.setField(new quickfix.field.TestReqID("TEST_" + System.currentTimeMillis()));
-            }
-            
-            simulator.sendMessage(testRequest);
-            log.debug("Test request sent successfully");
-            
-            if (step.getExpected() != null) {
-                verifyResponse(step.getExpected(), simulator, result);
-            }
-            
-        } catch (Exception e) {
-            log.error("Failed to send test request", e);
-            result.addFailure("Failed to send test request: " + e.getMessage());
-            result.setStatus(TestStatus.FAILED);
-        }
-    }
-     private void sendNewOrder(TestStep step, FIXSimulator simulator, TestResult result) {
-        try {
-            log.info("Sending new order...");
-            Map<String, String> params = step.getParameters();
-            if (params == null) {
-                result.addFailure("Missing parameters for new order");
-                result.setStatus(TestStatus.FAILED);
-                return;
-            }
-            
-            NewOrderSingle order = new NewOrderSingle();
-            
-            // 设置订单字段
-            order.set(new ClOrdID(params.getOrDefault("clOrdID", "ORDER_" + System.currentTimeMillis())));
-            order.set(new Symbol(params.getOrDefault("symbol", "AAPL")));
-            order.set(new Side(params.getOrDefault("side", "1").charAt(0)));
-            order.set(new TransactTime(new Date()));
-            order.set(new OrdType(params.getOrDefault("ordType", "1").charAt(0)));
-            order.set(new OrderQty(Double.parseDouble(params.getOrDefault("quantity", "100"))));
-            
-            if (params.containsKey("price")) {
-                order.set(new Price(Double.parseDouble(params.get("price"))));
-            }
-            if (params.containsKey("timeInForce")) {
-                order.set(new TimeInForce(params.get("timeInForce").charAt(0)));
-            }
-            
-            simulator.sendMessage(order);
-            log.debug("New order sent successfully");
-            
-            if (step.getExpected() != null) {
-                verifyResponse(step.getExpected(), simulator, result);
-            }
-            
-        } catch (Exception e) {
-            log.error("Failed to send new order", e);
-            result.addFailure("Failed to send new order: " + e.getMessage());
-            result.setStatus(TestStatus.FAILED);
-        }
-    }
-    
-    private void cancelOrder(TestStep step, FIXSimulator simulator, TestResult result) {
-        try {
-            log.info("Canceling order...");
-            Map<String, String> params = step.getParameters();
-            if (params == null || !params.containsKey("origClOrdID")) {
-                result.addFailure("Missing origClOrdID parameter for cancel order");
-                result.setStatus(TestStatus.FAILED);
-                return;
-            }
-            
-            OrderCancelRequest cancelRequest = new OrderCancelRequest();
-            
-            cancelRequest.set(new OrigClOrdID(params.get("origClOrdID")));
-            cancelRequest.set(new ClOrdID(params.getOrDefault("clOrdID", "CANCEL_" + System.currentTimeMillis())));
-            cancelRequest.set(new Symbol(params.getOrDefault("symbol", "AAPL")));
-            cancelRequest.set(new Side(params.getOrDefault("side", "1").charAt(0)));
-            cancelRequest.set(new TransactTime(new Date()));
-            cancelRequest.set(new OrderQty(Double.parseDouble(params.getOrDefault("quantity", "100"))));
-            
-            simulator.sendMessage(cancelRequest);
-            log.debug("Order cancel request sent successfully");
-            
-            if (step.getExpected() != null) {
-                verifyResponse(step.getExpected(), simulator, result);
-            }
-            
-        } catch (Exception e) {
-            log.error("Failed to cancel order", e);
-            result.addFailure("Failed to cancel order: " + e.getMessage());
-            result.setStatus(TestStatus.FAILED);
-        }
-    }
-    
-    private void modifyOrder(TestStep step, FIXSimulator simulator, TestResult result) {
-        try {
-            log.info("Modifying order...");
-            Map<String, String> params = step.getParameters();
-            if (params == null || !params.containsKey("origClOrdID")) {
-                result.addFailure("Missing origClOrdID parameter for modify order");
-                result.setStatus(TestStatus.FAILED);
-                return;
-            }
-            
-            OrderCancelReplaceRequest modifyRequest = new OrderCancelReplaceRequest();
-            
-            modifyRequest.set(new OrigClOrdID(params.get("origClOrdID")));
-            modifyRequest.set(new ClOrdID(params.getOrDefault("clOrdID", "MODIFY_" + System.currentTimeMillis())));
-            modifyRequest.set(new Symbol(params.getOrDefault("symbol", "AAPL")));
-            modifyRequest.set(new Side(params.getOrDefault("side", "1").charAt(0)));
-            modifyRequest.set(new TransactTime(new Date()));
-            modifyRequest.set(new OrderQty(Double.parseDouble(params.getOrDefault("quantity", "100"))));
-            
-            if (params.containsKey("price")) {
-                modifyRequest.set(new Price(Double.parseDouble(params.get("price"))));
-            }
-            
-            simulator.sendMessage(modifyRequest);
-            log.debug("Order modify request sent successfully");
-            
-            if (step.getExpected() != null) {
-                verifyResponse(step.getExpected(), simulator, result);
-            }
-            
-        } catch (Exception e) {
-            log.error("Failed to modify order", e);
-            result.addFailure("Failed to modify order: " + e.getMessage());
-            result.setStatus(TestStatus.FAILED);
-        }
-    }
-    
-    private void queryOrderStatus(TestStep step, FIXSimulator simulator, TestResult result) {
-        try {
-            log.info("Querying order status...");
-            Map<String, String> params = step.getParameters();
-            if (params == null || !params.containsKey("orderID")) {
-                result.addFailure("Missing orderID parameter for order status query");
-                result.setStatus(TestStatus.FAILED);
-                return;
-            }
-            
-            OrderStatusRequest statusRequest = new OrderStatusRequest();
-            
-            statusRequest.set(new OrderID(params.get("orderID")));
-            statusRequest.set(new Symbol(params.getOrDefault("symbol", "AAPL")));
-            statusRequest.set(new Side(params.getOrDefault("side", "1").charAt(0)));
-            
-            simulator.sendMessage(statusRequest);
-            log.debug("Order status request sent successfully");
-            
-            if (step.getExpected() != null) {
-                verifyResponse(step.getExpected(), simulator, result);
-            }
-            
-        } catch (Exception e) {
-            log.error("Failed to query order status", e);
-            result.addFailure("Failed to query order status: " + e.getMessage());
-            result.setStatus(TestStatus.FAILED);
-        }
+    /**
+     * 从会话日志的步骤游标开始查找匹配的入站消息，未找到时在消息总线上等待新消息到达，超时返回null
+     * 匹配成功后提交游标，下一步骤从该消息之后继续消费
+     */
+    Message awaitMessage(FIXSimulator simulator, Predicate<Message> predicate, long timeout)
+            throws InterruptedException, ExecutionException {
+        MessageJournal.Entry entry = awaitEntry(simulator, predicate, timeout);
+        return entry != null ? entry.getMessage() : null;
     }
     
-    private void waitForExecutionReport(TestStep step, FIXSimulator simulator, TestResult result) {
-        long timeout = step.getTimeout() > 0 ? step.getTimeout() : 5000;
-        Map<String, String> params = step.getParameters();
-        
-        try {
-            log.info("Waiting for execution report...");
-            CompletableFuture<Message> messageFuture = CompletableFuture.supplyAsync(() -> {
-                long startTime = System.currentTimeMillis();
-                while (System.currentTimeMillis() - startTime < timeout) {
-                    Message message = simulator.getLastReceivedMessage();
-                    if (message != null && message instanceof ExecutionReport) {
-                        if (matchesExpected(message, params)) {
-                            return message;
-                        }
-                    }
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                }
-                return null;
-            });
-            
-            Message receivedMessage = messageFuture.get(timeout, TimeUnit.MILLISECONDS);
-            
-            if (receivedMessage == null) {
-                result.addFailure("No execution report received within timeout");
-                result.setStatus(TestStatus.FAILED);
-            } else {
-                log.info("Execution report received: {}", receivedMessage);
-            }
-            
-        } catch (Exception e) {
-            result.addFailure("Failed to wait for execution report: " + e.getMessage());
-            result.setStatus(TestStatus.FAILED);
+    /**
+     * 与awaitMessage相同，返回日志条目以便取得消息的接收时刻
+     */
+    MessageJournal.Entry awaitEntry(FIXSimulator simulator, Predicate<Message> predicate, long timeout)
+            throws InterruptedException, ExecutionException {
+        SessionID sessionId = simulator.getSessionId();
+        if (sessionId == null) {
+            // 没有会话日志时以消息总线记录的到达时刻作为接收时刻
+            return simulator.getMessageBus().awaitEntry(null, predicate, timeout).get();
         }
-    }
-    
-    private void waitForOrderCancelResponse(TestStep step, FIXSimulator simulator, TestResult result) {
-        long timeout = step.getTimeout() > 0 ? step.getTimeout() : 5000;
-        Map<String, String> params = step.getParameters();
         
+        MessageJournal.SessionJournal journal = simulator.getJournal().session(sessionId);
+        MessageJournal.Cursor cursor = journal.stepCursor();
+        long position = cursor.getNext();
+        long deadline = System.currentTimeMillis() + timeout;
+        cursor.setIdle(false);
         try {
-            log.info("Waiting for order cancel response...");
-            CompletableFuture<Message> messageFuture = CompletableFuture.supplyAsync(() -> {
-                long startTime = System.currentTimeMillis();
-                while (System.currentTimeMillis() - startTime < timeout) {
-                    Message message = simulator.getLastReceivedMessage();
-                    if (message != null && (message instanceof OrderCancelReject || message instanceof ExecutionReport)) {
-                        if (matchesExpected(message, params)) {
-                            return message;
-                        }
-                    }
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                }
-                return null;
-            });
-            
-            Message receivedMessage = messageFuture.get(timeout, TimeUnit.MILLISECONDS);
-            
-            if (receivedMessage == null) {
-                result.addFailure("No order cancel response received within timeout");
-                result.setStatus(TestStatus.FAILED);
-            } else {
-                log.info("Order cancel response received: {}", receivedMessage);
-            }
-            
-        } catch (Exception e) {
-            result.addFailure("Failed to wait for order cancel response: " + e.getMessage());
-            result.setStatus(TestStatus.FAILED);
+            return scanJournal(simulator, sessionId, journal, cursor, position, predicate, deadline);
+        } finally {
+            cursor.setIdle(true);
         }
     }
     
-    private void waitForOrderModifyResponse(TestStep step, FIXSimulator simulator, TestResult result) {
-        long timeout = step.getTimeout() > 0 ? step.getTimeout() : 5000;
-        Map<String, String> params = step.getParameters();
-        
-        try {
-            log.info("Waiting for order modify response...");
-            CompletableFuture<Message> messageFuture = CompletableFuture.supplyAsync(() -> {
-                long startTime = System.currentTimeMillis();
-                while (System.currentTimeMillis() - startTime < timeout) {
-                    Message message = simulator.getLastReceivedMessage();
-                    if (message != null && (message instanceof OrderCancelReject || message instanceof ExecutionReport)) {
-                        if (matchesExpected(message, params)) {
-                            return message;
-                        }
-                    }
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
+    private MessageJournal.Entry scanJournal(FIXSimulator simulator, SessionID sessionId,
+                                             MessageJournal.SessionJournal journal, MessageJournal.Cursor cursor,
+                                             long position, Predicate<Message> predicate, long deadline)
+            throws InterruptedException, ExecutionException {
+        while (true) {
+            // 先注册唤醒再扫描日志，避免扫描与等待之间到达的消息被错过
+            CompletableFuture<MessageJournal.Entry> arrival = simulator.getMessageBus()
+                    .awaitNext(sessionId, Math.max(0, deadline - System.currentTimeMillis()));
+            
+            MessageJournal.Entry entry;
+            while ((entry = journal.read(cursor, Math.max(position, cursor.getNext()))) != null) {
+                position = entry.getSequence() + 1;
+                cursor.markScanned(position);
+                if (entry.getDirection() == MessageJournal.Direction.INBOUND && accepts(predicate, entry)) {
+                    arrival.complete(null);
+                    cursor.commit(position);
+                    return entry;
                 }
-                return null;
-            });
-            
-            Message receivedMessage = messageFuture.get(timeout, TimeUnit.MILLISECONDS);
-            
-            if (receivedMessage == null) {
-                result.addFailure("No order modify response received within timeout");
-                result.setStatus(TestStatus.FAILED);
-            } else {
-                log.info("Order modify response received: {}", receivedMessage);
             }
             
-        } catch (Exception e) {
-            result.addFailure("Failed to wait for order modify response: " + e.getMessage());
-            result.setStatus(TestStatus.FAILED);
-        }
-    }
-    private void waitForMessage(TestStep step, FIXSimulator simulator, TestResult result) {
-        long timeout = step.getTimeout() > 0 ? step.getTimeout() : 5000;
-        Map<String, String> params = step.getParameters();
-        
-        try {
-            log.info("Waiting for message...");
-            CompletableFuture<Message> messageFuture = CompletableFuture.supplyAsync(() -> {
-                long startTime = System.currentTimeMillis();
-                while (System.currentTimeMillis() - startTime < timeout) {
-                    Message message = simulator.getLastReceivedMessage();
-                    if (message != null && matchesExpected(message, params)) {
-                        return message;
-                    }
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                }
+            if (System.currentTimeMillis() >= deadline) {
+                arrival.complete(null);
                 return null;
-            });
-            
-            Message receivedMessage = messageFuture.get(timeout, TimeUnit.MILLISECONDS);
-            
-            if (receivedMessage == null) {
-                result.addFailure("No matching message received within timeout");
-                result.setStatus(TestStatus.FAILED);
-            } else {
-                log.info("Expected message received: {}", receivedMessage);
             }
-            
-        } catch (Exception e) {
-            result.addFailure("Failed to wait for message: " + e.getMessage());
-            result.setStatus(TestStatus.FAILED);
+            arrival.get();
         }
     }
     
-    private void verifySessionState(TestStep step, FIXSimulator simulator, TestResult result) {
-        try {
-            Map<String, String> params = step.getParameters();
-            if (params == null || !params.containsKey("expectedState")) {
-                result.addFailure("Missing expectedState parameter");
-                result.setStatus(TestStatus.FAILED);
-                return;
-            }
-            
-            String expectedState = params.get("expectedState");
-            SessionID sessionId = simulator.getSessionId();
-            Session session = sessionId != null ? Session.lookupSession(sessionId) : null;
-            
-            boolean isLoggedOn = session != null && session.isLoggedOn();
-            
-            switch (expectedState.toUpperCase()) {
-                case "LOGGED_ON":
-                    if (!isLoggedOn) {
-                        result.addFailure("Expected session to be logged on, but it's not");
-                        result.setStatus(TestStatus.FAILED);
-                    }
-                    break;
-                case "DISCONNECTED":
-                    if (isLoggedOn) {
-                        result.addFailure("Expected session to be disconnected, but it's logged on");
-                        result.setStatus(TestStatus.FAILED);
-                    }
-                    break;
-                default:
-                    result.addFailure("Unknown session state: " + expectedState);
-                    result.setStatus(TestStatus.FAILED);
-            }
-            
-        } catch (Exception e) {
-            result.addFailure("Failed to verify session state: " + e.getMessage());
-            result.setStatus(TestStatus.FAILED);
+    /**
+     * 溢出文件读回的条目只保留原始报文，编译后的期望直接在字节上匹配，命中后才完整解析
+     */
+    private static boolean accepts(Predicate<Message> predicate, MessageJournal.Entry entry) {
+        byte[] raw = entry.getRawMessage();
+        if (raw != null && predicate instanceof MessageExpectation) {
+            return ((MessageExpectation) predicate).matches(RAW_SCANNER.get().wrap(raw)) && entry.getMessage() != null;
         }
+        Message message = entry.getMessage();
+        return message != null && predicate.test(message);
     }
     
-    private void verifyResponse(ExpectedResult expected, FIXSimulator simulator, TestResult result) {
-        long timeout = expected.getTimeout() > 0 ? expected.getTimeout() : 5000;
-        
-        try {
-            CompletableFuture<Boolean> verificationFuture = CompletableFuture.supplyAsync(() -> {
-                long startTime = System.currentTimeMillis();
-                while (System.currentTimeMillis() - startTime < timeout) {
-                    Message response = simulator.getLastReceivedMessage();
-                    if (response != null && validateMessage(response, expected)) {
-                        return true;
-                    }
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                }
-                return false;
-            });
-            
-            boolean success = verificationFuture.get(timeout, TimeUnit.MILLISECONDS);
-            
-            if (!success) {
-                result.addFailure("Response validation failed or timeout");
-                result.setStatus(TestStatus.FAILED);
-            } else {
-                log.debug("Response validation passed");
-            }
-            
-        } catch (Exception e) {
-            result.addFailure("Response verification failed: " + e.getMessage());
-            result.setStatus(TestStatus.FAILED);
-        }
-    }
+    /**
+     * 步骤内阻塞等待子任务使用的执行器
+     */
+    public ExecutorService getExecutor() { return executor; }
     
-    private boolean validateMessage(Message message, ExpectedResult expected) {
-        if (expected == null) return true;
-        
-        try {
-            // 验证消息类型
-            if (expected.getMessageType() != null) {
-                String actualMsgType = message.getHeader().getString(MsgType.FIELD);
-                if (!expected.getMessageType().equals(actualMsgType)) {
-                    log.debug("Message type mismatch: expected={}, actual={}", 
-                             expected.getMessageType(), actualMsgType);
-                    return false;
-                }
-            }
-            
-            // 验证字段值
-            if (expected.getFields() != null) {
-                for (Map.Entry<String, String> entry : expected.getFields().entrySet()) {
-                    int fieldTag = Integer.parseInt(entry.getKey());
-                    String expectedValue = entry.getValue();
-                    
-                    if (!message.isSetField(fieldTag)) {
-                        log.debug("Missing expected field: {}", fieldTag);
-                        return false;
-                    }
-                    
-                    String actualValue = message.getString(fieldTag);
-                    if (!expectedValue.equals(actualValue)) {
-                        log.debug("Field value mismatch: tag={}, expected={}, actual={}", 
-                                 fieldTag, expectedValue, actualValue);
-                        return false;
-                    }
-                }
-            }
-            
-            return true;
-            
-        } catch (Exception e) {
-            log.error("Error validating message", e);
-            return false;
-        }
-    }
+    /**
+     * 异步场景的执行器
+     */
+    public ExecutorService getScenarioExecutor() { return scenarioExecutor; }
     
-    private boolean matchesExpected(Message message, Map<String, String> params) {
-        if (params == null || params.isEmpty()) return true;
-        
-        try {
-            // 检查消息类型
-            if (params.containsKey("msgType")) {
-                String expectedType = params.get("msgType");
-                String actualType = message.getHeader().getString(MsgType.FIELD);
-                if (!expectedType.equals(actualType)) {
-                    return false;
-                }
-            }
-            
-            // 检查其他字段
-            for (Map.Entry<String, String> entry : params.entrySet()) {
-                if ("msgType".equals(entry.getKey())) continue;
-                
-                try {
-                    int fieldTag = Integer.parseInt(entry.getKey());
-                    String expectedValue = entry.getValue();
-                    String actualValue = message.getString(fieldTag);
-                    
-                    if (!expectedValue.equals(actualValue)) {
-                        return false;
-                    }
-                } catch (NumberFormatException e) {
-                    log.warn("Invalid field tag: {}", entry.getKey());
-                }
-            }
-            
-            return true;
-            
-        } catch (Exception e) {
-            log.error("Error matching message", e);
-            return false;
-        }
-    }
+    public ScenarioPlanCompiler getPlanCompiler() { return planCompiler; }
     
     public void shutdown() {
+        scenarioExecutor.shutdown();
         executor.shutdown();
-        scheduler.shutdown();
         try {
+            if (!scenarioExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                scenarioExecutor.shutdownNow();
+            }
             if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
                 executor.shutdownNow();
             }
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
-            }
         } catch (InterruptedException e) {
+            scenarioExecutor.shutdownNow();
             executor.shutdownNow();
-            scheduler.shutdownNow();
             Thread.currentThread().interrupt();
         }
     }
@@ -688,6 +226,9 @@ class TestResult {
     private TestStatus status;
     private String errorMessage;
     private final List<String> failures = new ArrayList<>();
+    private final LatencyReport latency = new LatencyReport();
+    // 未附带响应期望的发送步骤按ClOrdID登记发送时刻，由后续等待步骤取出计算延迟
+    private final Map<String, PendingSend> pendingSends = new HashMap<>();
     private final long startTime = System.currentTimeMillis();
     private long endTime;
     
@@ -716,6 +257,30 @@ class TestResult {
     public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
     public List<String> getFailures() { return new ArrayList<>(failures); }
     public boolean hasFailures() { return !failures.isEmpty(); }
+    public LatencyReport getLatency() { return latency; }
+    
+    void registerSend(String clOrdId, String stepKey, String msgType, long sentAt) {
+        pendingSends.put(clOrdId, new PendingSend(stepKey, msgType, sentAt));
+    }
+    
+    /**
+     * 取出ClOrdID对应的发送记录，没有时返回null
+     */
+    PendingSend takeSend(String clOrdId) {
+        return pendingSends.remove(clOrdId);
+    }
+    
+    static final class PendingSend {
+        final String stepKey;
+        final String msgType;
+        final long sentAt;
+        
+        PendingSend(String stepKey, String msgType, long sentAt) {
+            this.stepKey = stepKey;
+            this.msgType = msgType;
+            this.sentAt = sentAt;
+        }
+    }
 }
 
 enum TestStatus {
@@ -0,0 +1,124 @@
+package com.quickfix.testtool.core.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 延迟直方图（纳秒）
+ * 采用与HdrHistogram相同的对数-线性分桶：小于256的值逐一计数，之后每个二次幂区间划分为128个等宽子桶，
+ * 相对误差不超过1%，可记录约2.4小时以内的值；记录为数组下标自增，不分配对象，直方图之间可直接合并
+ *
+ * 单写者：同一直方图同一时刻只应由一个线程记录，读取汇总可在其他线程进行
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 8;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+    private static final int MAX_MAGNITUDE = 43;
+    private static final long MAX_VALUE = (1L << MAX_MAGNITUDE) - 1;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_MAGNITUDE - SUB_BUCKET_BITS) * SUB_BUCKET_HALF;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+        counts[indexOf(value)]++;
+        totalCount++;
+        sum += value;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * 合并另一个直方图的全部计数
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.add(this);
+        return copy;
+    }
+
+    /**
+     * 返回不小于指定百分比样本的最小值（取所在子桶的上界），无样本时返回0
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(100.0, percentile) / 100.0 * totalCount));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts[i];
+            if (cumulative >= target) {
+                return Math.min(highestEquivalentValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    public long getTotalCount() { return totalCount; }
+    public long getMinValue() { return totalCount == 0 ? 0 : min; }
+    public long getMaxValue() { return max; }
+    public double getMean() { return totalCount == 0 ? 0 : (double) sum / totalCount; }
+
+    /**
+     * 汇总统计，时间单位为微秒
+     */
+    public Map<String, Object> toSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", totalCount);
+        summary.put("minMicros", micros(getMinValue()));
+        summary.put("meanMicros", micros(getMean()));
+        summary.put("p50Micros", micros(getValueAtPercentile(50)));
+        summary.put("p90Micros", micros(getValueAtPercentile(90)));
+        summary.put("p99Micros", micros(getValueAtPercentile(99)));
+        summary.put("p999Micros", micros(getValueAtPercentile(99.9)));
+        summary.put("maxMicros", micros(max));
+        return summary;
+    }
+
+    private static double micros(double nanos) {
+        return Math.round(nanos / 100.0) / 10.0;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS + 1));
+        return SUB_BUCKET_COUNT + (magnitude - SUB_BUCKET_BITS) * SUB_BUCKET_HALF + (subBucket - SUB_BUCKET_HALF);
+    }
+
+    static long lowestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int offset = index - SUB_BUCKET_COUNT;
+        int magnitude = offset / SUB_BUCKET_HALF + SUB_BUCKET_BITS;
+        long subBucket = offset % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return subBucket << (magnitude - SUB_BUCKET_BITS + 1);
+    }
+
+    static long highestEquivalentValue(int index) {
+        return index + 1 < BUCKET_COUNT ? lowestEquivalentValue(index + 1) - 1 : MAX_VALUE;
+    }
+}
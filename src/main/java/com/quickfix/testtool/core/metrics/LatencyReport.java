@@ -0,0 +1,86 @@
+package com.quickfix.testtool.core.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 场景执行的延迟统计
+ * steps：按步骤记录发送到确认的服务时间；
+ * correctedSteps：开环负载步骤从计划发送时刻起算的响应时间，已修正协调遗漏（coordinated omission）；
+ * messageTypes：按请求MsgType汇总的服务时间；
+ * throughput：负载步骤的响应吞吐（条/秒），即已匹配响应数除以首笔发送到最后一笔匹配响应的时间
+ */
+public class LatencyReport {
+    private final Map<String, LatencyHistogram> steps = new LinkedHashMap<>();
+    private final Map<String, LatencyHistogram> correctedSteps = new LinkedHashMap<>();
+    private final Map<String, LatencyHistogram> messageTypes = new LinkedHashMap<>();
+    private final Map<String, Double> throughput = new LinkedHashMap<>();
+    private long loadResponses;
+    private long loadNanos;
+
+    public synchronized LatencyHistogram forStep(String stepKey) {
+        return steps.computeIfAbsent(stepKey, key -> new LatencyHistogram());
+    }
+
+    public synchronized LatencyHistogram forCorrectedStep(String stepKey) {
+        return correctedSteps.computeIfAbsent(stepKey, key -> new LatencyHistogram());
+    }
+
+    public synchronized LatencyHistogram forMessageType(String msgType) {
+        return messageTypes.computeIfAbsent(msgType, key -> new LatencyHistogram());
+    }
+
+    public synchronized void recordThroughput(String stepKey, long responses, long elapsedNanos) {
+        throughput.put(stepKey, responses * 1e9 / Math.max(1, elapsedNanos));
+        loadResponses += responses;
+        loadNanos += elapsedNanos;
+    }
+
+    /**
+     * 所有负载步骤的总体响应吞吐，无负载步骤时返回0
+     */
+    public synchronized double getThroughput() {
+        return loadNanos == 0 ? 0 : loadResponses * 1e9 / loadNanos;
+    }
+
+    /**
+     * 所有步骤服务时间的合并直方图
+     */
+    public synchronized LatencyHistogram getOverall() {
+        LatencyHistogram overall = new LatencyHistogram();
+        steps.values().forEach(overall::add);
+        return overall;
+    }
+
+    /**
+     * 所有开环负载步骤修正后响应时间的合并直方图
+     */
+    public synchronized LatencyHistogram getOverallCorrected() {
+        LatencyHistogram overall = new LatencyHistogram();
+        correctedSteps.values().forEach(overall::add);
+        return overall;
+    }
+
+    public synchronized boolean isEmpty() {
+        return steps.isEmpty() && correctedSteps.isEmpty() && messageTypes.isEmpty() && throughput.isEmpty();
+    }
+
+    public synchronized Map<String, Object> toSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("steps", summarize(steps));
+        if (!correctedSteps.isEmpty()) {
+            summary.put("correctedSteps", summarize(correctedSteps));
+        }
+        summary.put("messageTypes", summarize(messageTypes));
+        if (!throughput.isEmpty()) {
+            summary.put("throughput", new LinkedHashMap<>(throughput));
+        }
+        return summary;
+    }
+
+    private static Map<String, Object> summarize(Map<String, LatencyHistogram> histograms) {
+        Map<String, Object> summaries = new LinkedHashMap<>();
+        histograms.forEach((key, histogram) -> summaries.put(key, histogram.toSummary()));
+        return summaries;
+    }
+}
@@ -35,6 +35,18 @@ class Configuration {
     private String quickfixConfig;
     private int initialSeqNum;
     private String loginState;
+    private String storeType;
+    // 模拟器对手方："matching"使用内置撮合引擎，缺省按行为配置应答
+    private String counterparty;
+    // 模拟器应答延迟分布，如"fixed:5"、"uniform:2,10"、"lognormal:5,0.5"、"trace:latency.txt"
+    private String responseLatency;
+    // 模拟器声明式行为规则，键为tag号的条件加应答动作列表；规则较多时可放在behaviorFile中
+    private List<Map<String, Object>> behaviors;
+    private String behaviorFile;
+    // 按对端TargetCompID指定的会话行为规则，用于多会话（含动态会话）场景
+    private Map<String, List<Map<String, Object>>> sessionBehaviors;
+    // Initiator模拟器行情发布参数，如symbolCount、updatesPerSecond、entriesPerMessage、conflationMillis
+    private Map<String, Object> marketData;
     
     // Getters and setters
     public String getQuickfixConfig() { return quickfixConfig; }
@@ -45,6 +57,27 @@ class Configuration {
     
     public String getLoginState() { return loginState; }
     public void setLoginState(String loginState) { this.loginState = loginState; }
+    
+    public String getStoreType() { return storeType; }
+    public void setStoreType(String storeType) { this.storeType = storeType; }
+    
+    public String getCounterparty() { return counterparty; }
+    public void setCounterparty(String counterparty) { this.counterparty = counterparty; }
+    
+    public String getResponseLatency() { return responseLatency; }
+    public void setResponseLatency(String responseLatency) { this.responseLatency = responseLatency; }
+    
+    public List<Map<String, Object>> getBehaviors() { return behaviors; }
+    public void setBehaviors(List<Map<String, Object>> behaviors) { this.behaviors = behaviors; }
+    
+    public String getBehaviorFile() { return behaviorFile; }
+    public void setBehaviorFile(String behaviorFile) { this.behaviorFile = behaviorFile; }
+    
+    public Map<String, List<Map<String, Object>>> getSessionBehaviors() { return sessionBehaviors; }
+    public void setSessionBehaviors(Map<String, List<Map<String, Object>>> sessionBehaviors) { this.sessionBehaviors = sessionBehaviors; }
+    
+    public Map<String, Object> getMarketData() { return marketData; }
+    public void setMarketData(Map<String, Object> marketData) { this.marketData = marketData; }
 }
 
 class TestStep {
@@ -71,6 +104,7 @@ class ExpectedResult {
     private String sessionState;
     private String messageType;
     private Map<String, Object> fields;
+    private long timeout;
     
     // Getters and setters
     public String getSessionState() { return sessionState; }
@@ -81,4 +115,7 @@ class ExpectedResult {
     
     public Map<String, Object> getFields() { return fields; }
     public void setFields(Map<String, Object> fields) { this.fields = fields; }
+    
+    public long getTimeout() { return timeout; }
+    public void setTimeout(long timeout) { this.timeout = timeout; }
 }
\ No newline at end of file
@@ -0,0 +1,374 @@
+package com.quickfix.testtool.message;
+
+import quickfix.DefaultMessageFactory;
+import quickfix.InvalidMessage;
+import quickfix.Message;
+import quickfix.MessageUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 原始FIX报文扫描器
+ * 直接在SOH分隔的字节缓冲区上一次扫描建立字段索引（标签号及取值起止偏移），不复制字节、不创建字段对象；
+ * 支持按标签查找和比较取值、校验BodyLength(9)与CheckSum(10)。
+ * 数据字段（如RawData(96)、XmlData(213)）按前一个长度字段给出的字节数跳过，取值中可以包含SOH；
+ * 实例通过wrap反复复用，非线程安全；需要重复组等完整语义时调用toMessage()解析
+ */
+public final class RawFixMessage {
+    public static final byte SOH = 0x01;
+
+    private static final int BEGIN_STRING = 8;
+    private static final int BODY_LENGTH = 9;
+    private static final int MSG_TYPE = 35;
+    private static final int CHECK_SUM = 10;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private byte[] buffer;
+    private int offset;
+    private int length;
+
+    // 字段索引：第i个字段的标签、字段起点（标签首字节）、取值起点和终点（SOH位置）
+    private int fieldCount;
+    private int[] tags = new int[INITIAL_CAPACITY];
+    private int[] fieldStarts = new int[INITIAL_CAPACITY];
+    private int[] valueStarts = new int[INITIAL_CAPACITY];
+    private int[] valueEnds = new int[INITIAL_CAPACITY];
+
+    private String malformation;
+    private Message parsed;
+    private final ValueView valueView = new ValueView();
+
+    public RawFixMessage wrap(byte[] buffer) {
+        return wrap(buffer, 0, buffer.length);
+    }
+
+    /**
+     * 绑定到新的报文并建立字段索引，之前取得的取值视图随之失效
+     */
+    public RawFixMessage wrap(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.fieldCount = 0;
+        this.malformation = null;
+        this.parsed = null;
+        scan();
+        return this;
+    }
+
+    private void scan() {
+        int end = offset + length;
+        int position = offset;
+        // 前一个字段为长度字段时，其对应的数据字段标签及长度
+        int dataTag = 0;
+        int dataLength = -1;
+        while (position < end) {
+            int fieldStart = position;
+            int tag = 0;
+            while (position < end && buffer[position] != '=') {
+                byte b = buffer[position];
+                if (b < '0' || b > '9' || tag > 99999999) {
+                    malformation = "Invalid tag at offset " + (fieldStart - offset);
+                    return;
+                }
+                tag = tag * 10 + (b - '0');
+                position++;
+            }
+            if (position == end || position == fieldStart) {
+                malformation = "Invalid tag at offset " + (fieldStart - offset);
+                return;
+            }
+
+            int valueStart = ++position;
+            if (tag == dataTag && dataLength >= 0) {
+                position = valueStart + dataLength;
+                if (position >= end || buffer[position] != SOH) {
+                    malformation = "Field " + tag + " does not match declared length " + dataLength;
+                    return;
+                }
+            } else {
+                while (position < end && buffer[position] != SOH) {
+                    position++;
+                }
+                if (position == end) {
+                    malformation = "Field " + tag + " not terminated by SOH";
+                    return;
+                }
+            }
+
+            if (fieldCount == tags.length) {
+                grow();
+            }
+            tags[fieldCount] = tag;
+            fieldStarts[fieldCount] = fieldStart;
+            valueStarts[fieldCount] = valueStart;
+            valueEnds[fieldCount] = position;
+            fieldCount++;
+            position++;
+
+            dataTag = dataTagOf(tag);
+            dataLength = dataTag != 0 ? parseInt(valueStart, position - 1) : -1;
+        }
+        if (fieldCount == 0) {
+            malformation = "Empty message";
+        }
+    }
+
+    /**
+     * 长度字段对应的数据字段标签（FIX 4.4），不是长度字段时返回0
+     */
+    private static int dataTagOf(int tag) {
+        switch (tag) {
+            case 90: return 91;     // SecureDataLen -> SecureData
+            case 93: return 89;     // SignatureLength -> Signature
+            case 95: return 96;     // RawDataLength -> RawData
+            case 212: return 213;   // XmlDataLen -> XmlData
+            case 348: return 349;   // EncodedIssuerLen -> EncodedIssuer
+            case 350: return 351;   // EncodedSecurityDescLen -> EncodedSecurityDesc
+            case 352: return 353;   // EncodedListExecInstLen -> EncodedListExecInst
+            case 354: return 355;   // EncodedTextLen -> EncodedText
+            case 356: return 357;   // EncodedSubjectLen -> EncodedSubject
+            case 358: return 359;   // EncodedHeadlineLen -> EncodedHeadline
+            case 360: return 361;   // EncodedAllocTextLen -> EncodedAllocText
+            case 362: return 363;   // EncodedUnderlyingIssuerLen -> EncodedUnderlyingIssuer
+            case 364: return 365;   // EncodedUnderlyingSecurityDescLen -> EncodedUnderlyingSecurityDesc
+            case 445: return 446;   // EncodedListStatusTextLen -> EncodedListStatusText
+            case 618: return 619;   // EncodedLegIssuerLen -> EncodedLegIssuer
+            case 621: return 622;   // EncodedLegSecurityDescLen -> EncodedLegSecurityDesc
+            default: return 0;
+        }
+    }
+
+    /**
+     * 解析缓冲区片段中的非负整数，为空或不是整数时返回-1
+     */
+    private int parseInt(int start, int end) {
+        if (start == end) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer[i];
+            if (b < '0' || b > '9' || value > (Integer.MAX_VALUE - 9) / 10) {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    private void grow() {
+        int capacity = tags.length * 2;
+        tags = Arrays.copyOf(tags, capacity);
+        fieldStarts = Arrays.copyOf(fieldStarts, capacity);
+        valueStarts = Arrays.copyOf(valueStarts, capacity);
+        valueEnds = Arrays.copyOf(valueEnds, capacity);
+    }
+
+    /**
+     * 报文能否切分为tag=value字段序列，不检查字段顺序和校验值
+     */
+    public boolean isWellFormed() {
+        return malformation == null;
+    }
+
+    /**
+     * 无法切分时的原因，可切分时为null
+     */
+    public String getMalformation() {
+        return malformation;
+    }
+
+    public int getFieldCount() { return fieldCount; }
+    public int getTag(int field) { return tags[field]; }
+
+    /**
+     * 标签第一次出现的字段下标，不存在时返回-1
+     */
+    public int indexOf(int tag) {
+        for (int i = 0; i < fieldCount; i++) {
+            if (tags[i] == tag) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isSetField(int tag) {
+        return indexOf(tag) >= 0;
+    }
+
+    public boolean isMsgType(String msgType) {
+        return valueEquals(MSG_TYPE, msgType);
+    }
+
+    public boolean valueEquals(int tag, String expected) {
+        int field = indexOf(tag);
+        return field >= 0 && valueEqualsAt(field, expected);
+    }
+
+    public boolean valueEqualsAt(int field, String expected) {
+        int start = valueStarts[field];
+        int valueLength = valueEnds[field] - start;
+        if (valueLength != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < valueLength; i++) {
+            if ((buffer[start + i] & 0xFF) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean valueContainsAt(int field, String part) {
+        int start = valueStarts[field];
+        int last = valueEnds[field] - part.length();
+        for (int i = start; i <= last; i++) {
+            int j = 0;
+            while (j < part.length() && (buffer[i + j] & 0xFF) == part.charAt(j)) {
+                j++;
+            }
+            if (j == part.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 以CharSequence形式返回字段取值，视图对象在实例内复用，下一次调用或wrap后失效
+     */
+    public CharSequence valueAt(int field) {
+        return valueView.bind(valueStarts[field], valueEnds[field]);
+    }
+
+    /**
+     * 返回字段取值的字符串副本，标签不存在时返回null
+     */
+    public String getString(int tag) {
+        int field = indexOf(tag);
+        return field >= 0 ? stringAt(field) : null;
+    }
+
+    public String stringAt(int field) {
+        return new String(buffer, valueStarts[field], valueEnds[field] - valueStarts[field],
+                StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 解析非负整数取值，标签不存在或不是整数时返回-1
+     */
+    public int getInt(int tag) {
+        int field = indexOf(tag);
+        return field >= 0 ? parseInt(valueStarts[field], valueEnds[field]) : -1;
+    }
+
+    public int getDeclaredBodyLength() {
+        return getInt(BODY_LENGTH);
+    }
+
+    /**
+     * 实际消息体长度：BodyLength字段之后到CheckSum字段之前的字节数，
+     * 缺少任一字段时返回-1
+     */
+    public int computeBodyLength() {
+        int bodyLength = indexOf(BODY_LENGTH);
+        int checkSum = checkSumIndex();
+        if (bodyLength < 0 || checkSum < bodyLength) {
+            return -1;
+        }
+        return fieldStarts[checkSum] - (valueEnds[bodyLength] + 1);
+    }
+
+    public boolean isBodyLengthValid() {
+        int declared = getDeclaredBodyLength();
+        return declared >= 0 && declared == computeBodyLength();
+    }
+
+    public int getDeclaredCheckSum() {
+        return getInt(CHECK_SUM);
+    }
+
+    private int checkSumIndex() {
+        return fieldCount > 0 && tags[fieldCount - 1] == CHECK_SUM ? fieldCount - 1 : indexOf(CHECK_SUM);
+    }
+
+    /**
+     * 实际校验和：CheckSum字段之前所有字节之和模256，缺少CheckSum时返回-1
+     */
+    public int computeCheckSum() {
+        int checkSum = checkSumIndex();
+        if (checkSum < 0) {
+            return -1;
+        }
+        int sum = 0;
+        for (int i = offset; i < fieldStarts[checkSum]; i++) {
+            sum += buffer[i] & 0xFF;
+        }
+        return sum & 0xFF;
+    }
+
+    public boolean isCheckSumValid() {
+        int declared = getDeclaredCheckSum();
+        return declared >= 0 && declared == computeCheckSum();
+    }
+
+    /**
+     * 标准头尾顺序：BeginString、BodyLength、MsgType依次开头，CheckSum结尾
+     */
+    public boolean isFieldOrderValid() {
+        return fieldCount >= 4 && tags[0] == BEGIN_STRING && tags[1] == BODY_LENGTH && tags[2] == MSG_TYPE
+                && tags[fieldCount - 1] == CHECK_SUM;
+    }
+
+    /**
+     * 完整解析为quickfix.Message，结果在当前报文范围内缓存
+     */
+    public Message toMessage() throws InvalidMessage {
+        if (parsed == null) {
+            parsed = MessageUtils.parse(new DefaultMessageFactory(), null, toString());
+        }
+        return parsed;
+    }
+
+    @Override
+    public String toString() {
+        return buffer == null ? "" : new String(buffer, offset, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 缓冲区片段的字符视图，供正则和数值解析直接读取
+     */
+    private final class ValueView implements CharSequence {
+        private int start;
+        private int end;
+
+        ValueView bind(int start, int end) {
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer[start + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new String(buffer, start + from, to - from, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return new String(buffer, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -2,8 +2,7 @@ package com.quickfix.testtool.message.validation;
 
 import quickfix.*;
 import quickfix.field.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Set;
 
 /**
  * 业务逻辑验证器
@@ -11,38 +10,38 @@ import java.util.List;
 public class BusinessLogicValidator implements MessageValidator {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(BusinessLogicValidator.class);
     
+    private static final Set<String> MESSAGE_TYPES = Set.of(MsgType.ORDER_SINGLE, MsgType.EXECUTION_REPORT, MsgType.ORDER_CANCEL_REQUEST);
+    
     @Override
     public ValidationResult validate(Message message, ValidationContext context) {
-        List<String> details = new ArrayList<>();
+        ValidationDetails details = ValidationDetails.begin();
         
         try {
             String msgType = message.getHeader().getString(MsgType.FIELD);
             
             switch (msgType) {
-                case MsgType.NEW_ORDER_SINGLE:
-                    return validateNewOrderSingle(message, context);
+                case MsgType.ORDER_SINGLE:
+                    return validateNewOrderSingle(message, details);
                 case MsgType.EXECUTION_REPORT:
-                    return validateExecutionReport(message, context);
+                    return validateExecutionReport(message, details);
                 case MsgType.ORDER_CANCEL_REQUEST:
-                    return validateOrderCancelRequest(message, context);
+                    return validateOrderCancelRequest(message, details);
                 default:
                     return ValidationResult.success();
             }
             
         } catch (Exception e) {
-            details.add("Business logic validation error: " + e.getMessage());
-            return ValidationResult.failure("Business logic validation failed", details);
+            details.add(ValidationError.VALIDATION_ERROR).arg("Business logic").arg(e.getMessage());
+            return details.toResult("Business logic validation failed");
         }
     }
     
-    private ValidationResult validateNewOrderSingle(Message message, ValidationContext context) {
-        List<String> details = new ArrayList<>();
-        
+    private ValidationResult validateNewOrderSingle(Message message, ValidationDetails details) {
         try {
             // 验证订单数量必须为正数
             double orderQty = message.getDouble(OrderQty.FIELD);
             if (orderQty <= 0) {
-                details.add("Order quantity must be positive: " + orderQty);
+                details.add(ValidationError.NON_POSITIVE_ORDER_QTY).arg(orderQty);
             }
             
             // 验证价格必须为正数（对于市价订单除外）
@@ -51,40 +50,34 @@ public class BusinessLogicValidator implements MessageValidator {
                 if (message.isSetField(Price.FIELD)) {
                     double price = message.getDouble(Price.FIELD);
                     if (price <= 0) {
-                        details.add("Price must be positive for limit/stop orders: " + price);
+                        details.add(ValidationError.NON_POSITIVE_PRICE).arg(price);
                     }
                 } else {
-                    details.add("Price is required for limit/stop orders");
+                    details.add(ValidationError.PRICE_REQUIRED);
                 }
             }
             
             // 验证交易方向
             char side = message.getChar(Side.FIELD);
             if (side != Side.BUY && side != Side.SELL) {
-                details.add("Invalid side value: " + side);
+                details.add(ValidationError.INVALID_SIDE).arg(side);
             }
             
         } catch (FieldNotFound e) {
-            details.add("Required field missing: " + e.getMessage());
+            details.add(ValidationError.REQUIRED_FIELD_MISSING).arg(e.getMessage());
         }
         
-        if (details.isEmpty()) {
-            return ValidationResult.success();
-        } else {
-            return ValidationResult.failure("NewOrderSingle business validation failed", details);
-        }
+        return details.toResult("NewOrderSingle business validation failed");
     }
     
-    private ValidationResult validateExecutionReport(Message message, ValidationContext context) {
-        List<String> details = new ArrayList<>();
-        
+    private ValidationResult validateExecutionReport(Message message, ValidationDetails details) {
         try {
             // 验证执行类型和订单状态的一致性
             char execType = message.getChar(ExecType.FIELD);
             char ordStatus = message.getChar(OrdStatus.FIELD);
             
             if (!isValidExecTypeOrdStatusCombination(execType, ordStatus)) {
-                details.add(String.format("Invalid ExecType/OrdStatus combination: %c/%c", execType, ordStatus));
+                details.add(ValidationError.INVALID_EXEC_TYPE_ORD_STATUS).arg(execType).arg(ordStatus);
             }
             
             // 验证成交数量不超过订单数量
@@ -93,7 +86,7 @@ public class BusinessLogicValidator implements MessageValidator {
                 double orderQty = message.getDouble(OrderQty.FIELD);
                 
                 if (lastShares > orderQty) {
-                    details.add(String.format("Last shares (%f) exceeds order quantity (%f)", lastShares, orderQty));
+                    details.add(ValidationError.LAST_SHARES_EXCEED_ORDER_QTY).arg(lastShares).arg(orderQty);
                 }
             }
             
@@ -101,47 +94,37 @@ public class BusinessLogicValidator implements MessageValidator {
             if (message.isSetField(LastPx.FIELD)) {
                 double lastPx = message.getDouble(LastPx.FIELD);
                 if (lastPx <= 0) {
-                    details.add("Last price must be positive: " + lastPx);
+                    details.add(ValidationError.NON_POSITIVE_LAST_PX).arg(lastPx);
                 }
             }
             
         } catch (FieldNotFound e) {
-            details.add("Required field missing: " + e.getMessage());
+            details.add(ValidationError.REQUIRED_FIELD_MISSING).arg(e.getMessage());
         }
         
-        if (details.isEmpty()) {
-            return ValidationResult.success();
-        } else {
-            return ValidationResult.failure("ExecutionReport business validation failed", details);
-        }
+        return details.toResult("ExecutionReport business validation failed");
     }
     
-    private ValidationResult validateOrderCancelRequest(Message message, ValidationContext context) {
-        List<String> details = new ArrayList<>();
-        
+    private ValidationResult validateOrderCancelRequest(Message message, ValidationDetails details) {
         try {
             // 验证取消数量不超过原始订单数量
             if (message.isSetField(OrderQty.FIELD)) {
                 double orderQty = message.getDouble(OrderQty.FIELD);
                 if (orderQty <= 0) {
-                    details.add("Cancel quantity must be positive: " + orderQty);
+                    details.add(ValidationError.NON_POSITIVE_CANCEL_QTY).arg(orderQty);
                 }
             }
             
             // 验证原始订单ID存在
             if (!message.isSetField(OrigClOrdID.FIELD)) {
-                details.add("Missing OrigClOrdID(41) in OrderCancelRequest");
+                details.add(ValidationError.MISSING_ORIG_CL_ORD_ID);
             }
             
         } catch (FieldNotFound e) {
-            details.add("Required field missing: " + e.getMessage());
+            details.add(ValidationError.REQUIRED_FIELD_MISSING).arg(e.getMessage());
         }
         
-        if (details.isEmpty()) {
-            return ValidationResult.success();
-        } else {
-            return ValidationResult.failure("OrderCancelRequest business validation failed", details);
-        }
+        return details.toResult("OrderCancelRequest business validation failed");
     }
     
     private boolean isValidExecTypeOrdStatusCombination(char execType, char ordStatus) {
@@ -164,6 +147,11 @@ public class BusinessLogicValidator implements MessageValidator {
         }
     }
     
+    @Override
+    public Set<String> getMessageTypes() {
+        return MESSAGE_TYPES;
+    }
+    
     @Override
     public String getName() {
         return "BusinessLogicValidator";
@@ -5,12 +5,17 @@ import quickfix.field.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 字段值验证器
+ * 只对测试步骤会给出期望消息的订单类消息及其响应生效
  */
 public class FieldValueValidator implements MessageValidator {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(FieldValueValidator.class);
+    private static final Set<String> MESSAGE_TYPES = Set.of(MsgType.ORDER_SINGLE, MsgType.ORDER_CANCEL_REQUEST,
+            MsgType.ORDER_CANCEL_REPLACE_REQUEST, MsgType.ORDER_STATUS_REQUEST, MsgType.EXECUTION_REPORT,
+            MsgType.ORDER_CANCEL_REJECT);
     
     @Override
     public ValidationResult validate(Message message, ValidationContext context) {
@@ -92,6 +97,11 @@ public class FieldValueValidator implements MessageValidator {
         }
     }
     
+    @Override
+    public Set<String> getMessageTypes() {
+        return MESSAGE_TYPES;
+    }
+    
     @Override
     public String getName() {
         return "FieldValueValidator";
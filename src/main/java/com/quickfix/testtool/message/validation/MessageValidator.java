@@ -2,7 +2,9 @@ package com.quickfix.testtool.message.validation;
 
 import quickfix.Message;
 import quickfix.SessionID;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 消息验证器接口
@@ -11,6 +13,21 @@ public interface MessageValidator {
     ValidationResult validate(Message message, ValidationContext context);
     String getName();
     int getPriority();
+    
+    /**
+     * 关注的MsgType，验证链只对这些类型调用本验证器；空集合表示所有类型
+     */
+    default Set<String> getMessageTypes() {
+        return Collections.emptySet();
+    }
+    
+    /**
+     * 有状态验证器返回消息所属的顺序键（如订单号），验证链对同一键的验证串行执行；
+     * 返回null表示可与其他验证并行
+     */
+    default String getOrderingKey(Message message) {
+        return null;
+    }
 }
 
 /**
@@ -38,33 +55,64 @@ public class ValidationContext {
 
 /**
  * 验证结果
+ * 结构化明细在第一次调用getDetails()时才渲染为文本
  */
 public class ValidationResult {
+    private static final ValidationResult SUCCESS =
+            new ValidationResult(true, "Validation passed", ValidationLevel.INFO, List.of());
+    
     private final boolean valid;
     private final String message;
     private final ValidationLevel level;
-    private final List<String> details;
+    private final ValidationDetails structuredDetails;
+    private List<String> details;
     
     public ValidationResult(boolean valid, String message, ValidationLevel level, List<String> details) {
         this.valid = valid;
         this.message = message;
         this.level = level;
         this.details = details;
+        this.structuredDetails = null;
     }
     
+    private ValidationResult(String message, ValidationDetails structuredDetails) {
+        this.valid = false;
+        this.message = message;
+        this.level = ValidationLevel.ERROR;
+        this.structuredDetails = structuredDetails;
+    }
+    
+    /**
+     * 共享的成功结果，不可修改
+     */
     public static ValidationResult success() {
-        return new ValidationResult(true, "Validation passed", ValidationLevel.INFO, List.of());
+        return SUCCESS;
     }
     
     public static ValidationResult failure(String message, List<String> details) {
         return new ValidationResult(false, message, ValidationLevel.ERROR, details);
     }
     
+    static ValidationResult failure(String message, ValidationDetails details) {
+        return new ValidationResult(message, details);
+    }
+    
     // Getters
     public boolean isValid() { return valid; }
     public String getMessage() { return message; }
     public ValidationLevel getLevel() { return level; }
-    public List<String> getDetails() { return details; }
+    
+    public List<String> getDetails() {
+        if (details == null && structuredDetails != null) {
+            details = structuredDetails.render();
+        }
+        return details;
+    }
+    
+    /**
+     * 结构化明细，由字符串明细构造的结果返回null
+     */
+    public ValidationDetails getStructuredDetails() { return structuredDetails; }
 }
 
 /**
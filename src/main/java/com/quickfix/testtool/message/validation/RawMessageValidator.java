@@ -0,0 +1,10 @@
+package com.quickfix.testtool.message.validation;
+
+import com.quickfix.testtool.message.RawFixMessage;
+
+/**
+ * 可直接验证原始报文的验证器，验证链对其跳过完整解析
+ */
+public interface RawMessageValidator extends MessageValidator {
+    ValidationResult validate(RawFixMessage raw, ValidationContext context);
+}
@@ -1,19 +1,47 @@
 package com.quickfix.testtool.message.validation;
 
+import com.quickfix.testtool.message.RawFixMessage;
 import quickfix.*;
-import quickfix.field.MsgType;
-import java.util.ArrayList;
-import java.util.List;
+import quickfix.field.*;
 
 /**
  * FIX消息语法验证器
  */
-public class SyntaxValidator implements MessageValidator {
+public class SyntaxValidator implements RawMessageValidator {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(SyntaxValidator.class);
+
+    private static final RequiredField[] HEADER_FIELDS = {
+            new RequiredField(BeginString.FIELD, "BeginString"),
+            new RequiredField(BodyLength.FIELD, "BodyLength"),
+            new RequiredField(MsgType.FIELD, "MsgType"),
+            new RequiredField(SenderCompID.FIELD, "SenderCompID"),
+            new RequiredField(TargetCompID.FIELD, "TargetCompID"),
+            new RequiredField(MsgSeqNum.FIELD, "MsgSeqNum")
+    };
+
+    // Heartbeat没有必需字段，未列出的消息类型不做消息体检查
+    private static final RequiredFields[] REQUIRED_BODY_FIELDS = {
+            new RequiredFields(MsgType.LOGON, "Logon",
+                    new RequiredField(EncryptMethod.FIELD, "EncryptMethod"),
+                    new RequiredField(HeartBtInt.FIELD, "HeartBtInt")),
+            new RequiredFields(MsgType.HEARTBEAT, "Heartbeat"),
+            new RequiredFields(MsgType.TEST_REQUEST, "TestRequest",
+                    new RequiredField(TestReqID.FIELD, "TestReqID")),
+            new RequiredFields(MsgType.ORDER_SINGLE, "NewOrderSingle",
+                    new RequiredField(ClOrdID.FIELD, "ClOrdID"),
+                    new RequiredField(Side.FIELD, "Side"),
+                    new RequiredField(TransactTime.FIELD, "TransactTime"),
+                    new RequiredField(OrdType.FIELD, "OrdType")),
+            new RequiredFields(MsgType.EXECUTION_REPORT, "ExecutionReport",
+                    new RequiredField(OrderID.FIELD, "OrderID"),
+                    new RequiredField(ExecID.FIELD, "ExecID"),
+                    new RequiredField(ExecType.FIELD, "ExecType"),
+                    new RequiredField(OrdStatus.FIELD, "OrdStatus"))
+    };
     
     @Override
     public ValidationResult validate(Message message, ValidationContext context) {
-        List<String> details = new ArrayList<>();
+        ValidationDetails details = ValidationDetails.begin();
         
         try {
             // 验证消息头
@@ -25,163 +53,100 @@ public class SyntaxValidator implements MessageValidator {
             // 验证消息尾
             validateTrailer(message, details);
             
-            if (details.isEmpty()) {
-                return ValidationResult.success();
-            } else {
-                return ValidationResult.failure("Syntax validation failed", details);
-            }
+            return details.toResult("Syntax validation failed");
             
         } catch (Exception e) {
-            details.add("Unexpected error: " + e.getMessage());
-            return ValidationResult.failure("Syntax validation error", details);
+            details.add(ValidationError.UNEXPECTED_ERROR).arg(e.getMessage());
+            return details.toResult("Syntax validation error");
         }
     }
     
-    private void validateHeader(Message message, List<String> details) {
-        try {
-            // 验证必需的头字段
-            if (!message.getHeader().isSetField(quickfix.field.BeginString.FIELD)) {
-                details.add("Missing BeginString(8) in header");
-            }
-            
-            if (!message.getHeader().isSetField(quickfix.field.BodyLength.FIELD)) {
-                details.add("Missing BodyLength(9) in header");
-            }
-            
-            if (!message.getHeader().isSetField(quickfix.field.MsgType.FIELD)) {
-                details.add("Missing MsgType(35) in header");
-            }
-            
-            if (!message.getHeader().isSetField(quickfix.field.SenderCompID.FIELD)) {
-                details.add("Missing SenderCompID(49) in header");
-            }
-            
-            if (!message.getHeader().isSetField(quickfix.field.TargetCompID.FIELD)) {
-                details.add("Missing TargetCompID(56) in header");
-            }
-            
-            if (!message.getHeader().isSetField(quickfix.field.MsgSeqNum.FIELD)) {
-                details.add("Missing MsgSeqNum(34) in header");
-            }
-            
-        } catch (FieldNotFound e) {
-            details.add("Header field validation error: " + e.getMessage());
+    /**
+     * 直接在原始报文上验证，除必需字段外还校验字段顺序、BodyLength和CheckSum，不构造quickfix.Message
+     */
+    @Override
+    public ValidationResult validate(RawFixMessage raw, ValidationContext context) {
+        ValidationDetails details = ValidationDetails.begin();
+        if (!raw.isWellFormed()) {
+            details.add(ValidationError.MALFORMED_MESSAGE).arg(raw.getMalformation());
+            return details.toResult("Syntax validation failed");
         }
-    }
-    
-    private void validateBody(Message message, List<String> details) {
-        try {
-            // 根据消息类型验证必需字段
-            String msgType = message.getHeader().getString(quickfix.field.MsgType.FIELD);
-            
-            switch (msgType) {
-                case MsgType.LOGON:
-                    validateLogonMessage(message, details);
-                    break;
-                case MsgType.HEARTBEAT:
-                    validateHeartbeatMessage(message, details);
-                    break;
-                case MsgType.TEST_REQUEST:
-                    validateTestRequestMessage(message, details);
-                    break;
-                case MsgType.NEW_ORDER_SINGLE:
-                    validateNewOrderSingleMessage(message, details);
-                    break;
-                case MsgType.EXECUTION_REPORT:
-                    validateExecutionReportMessage(message, details);
-                    break;
-                default:
-                    log.debug("No specific validation for message type: {}", msgType);
+
+        for (RequiredField field : HEADER_FIELDS) {
+            if (!raw.isSetField(field.tag)) {
+                details.add(ValidationError.MISSING_HEADER_FIELD).arg(field.label);
             }
-            
-        } catch (FieldNotFound e) {
-            details.add("Message type validation error: " + e.getMessage());
         }
-    }
-    
-    private void validateTrailer(Message message, List<String> details) {
-        try {
-            if (!message.getTrailer().isSetField(quickfix.field.CheckSum.FIELD)) {
-                details.add("Missing CheckSum(10) in trailer");
-            }
-        } catch (FieldNotFound e) {
-            details.add("Trailer field validation error: " + e.getMessage());
+        if (!raw.isFieldOrderValid()) {
+            details.add(ValidationError.INVALID_HEADER_ORDER);
         }
-    }
-    
-    private void validateLogonMessage(Message message, List<String> details) {
-        try {
-            if (!message.isSetField(quickfix.field.EncryptMethod.FIELD)) {
-                details.add("Missing EncryptMethod(98) in Logon message");
-            }
-            
-            if (!message.isSetField(quickfix.field.HeartBtInt.FIELD)) {
-                details.add("Missing HeartBtInt(108) in Logon message");
+        if (raw.isSetField(BodyLength.FIELD) && !raw.isBodyLengthValid()) {
+            details.add(ValidationError.BODY_LENGTH_MISMATCH).arg(raw.getDeclaredBodyLength())
+                    .arg(raw.computeBodyLength());
+        }
+
+        for (RequiredFields required : REQUIRED_BODY_FIELDS) {
+            if (raw.isMsgType(required.msgType)) {
+                for (RequiredField field : required.fields) {
+                    if (!raw.isSetField(field.tag)) {
+                        details.add(ValidationError.MISSING_BODY_FIELD).arg(field.label).arg(required.messageName);
+                    }
+                }
+                break;
             }
-            
-        } catch (FieldNotFound e) {
-            details.add("Logon message validation error: " + e.getMessage());
         }
+
+        if (!raw.isSetField(CheckSum.FIELD)) {
+            details.add(ValidationError.MISSING_CHECKSUM);
+        } else if (!raw.isCheckSumValid()) {
+            details.add(ValidationError.CHECKSUM_MISMATCH).arg(raw.getDeclaredCheckSum())
+                    .arg(raw.computeCheckSum());
+        }
+
+        return details.toResult("Syntax validation failed");
     }
-    
-    private void validateHeartbeatMessage(Message message, List<String> details) {
-        // Heartbeat消息没有必需字段
-    }
-    
-    private void validateTestRequestMessage(Message message, List<String> details) {
-        try {
-            if (!message.isSetField(quickfix.field.TestReqID.FIELD)) {
-                details.add("Missing TestReqID(112) in TestRequest message");
+
+    private void validateHeader(Message message, ValidationDetails details) {
+        for (RequiredField field : HEADER_FIELDS) {
+            if (!message.getHeader().isSetField(field.tag)) {
+                details.add(ValidationError.MISSING_HEADER_FIELD).arg(field.label);
             }
-        } catch (FieldNotFound e) {
-            details.add("TestRequest message validation error: " + e.getMessage());
         }
     }
     
-    private void validateNewOrderSingleMessage(Message message, List<String> details) {
+    private void validateBody(Message message, ValidationDetails details) {
         try {
-            if (!message.isSetField(quickfix.field.ClOrdID.FIELD)) {
-                details.add("Missing ClOrdID(11) in NewOrderSingle message");
-            }
-            
-            if (!message.isSetField(quickfix.field.Side.FIELD)) {
-                details.add("Missing Side(54) in NewOrderSingle message");
-            }
-            
-            if (!message.isSetField(quickfix.field.TransactTime.FIELD)) {
-                details.add("Missing TransactTime(60) in NewOrderSingle message");
+            // 根据消息类型验证必需字段
+            String msgType = message.getHeader().getString(MsgType.FIELD);
+            RequiredFields required = requiredFieldsOf(msgType);
+            if (required == null) {
+                log.debug("No specific validation for message type: {}", msgType);
+                return;
             }
-            
-            if (!message.isSetField(quickfix.field.OrdType.FIELD)) {
-                details.add("Missing OrdType(40) in NewOrderSingle message");
+            for (RequiredField field : required.fields) {
+                if (!message.isSetField(field.tag)) {
+                    details.add(ValidationError.MISSING_BODY_FIELD).arg(field.label).arg(required.messageName);
+                }
             }
             
         } catch (FieldNotFound e) {
-            details.add("NewOrderSingle message validation error: " + e.getMessage());
+            details.add(ValidationError.MSG_TYPE_ERROR).arg(e.getMessage());
         }
     }
     
-    private void validateExecutionReportMessage(Message message, List<String> details) {
-        try {
-            if (!message.isSetField(quickfix.field.OrderID.FIELD)) {
-                details.add("Missing OrderID(37) in ExecutionReport message");
-            }
-            
-            if (!message.isSetField(quickfix.field.ExecID.FIELD)) {
-                details.add("Missing ExecID(17) in ExecutionReport message");
-            }
-            
-            if (!message.isSetField(quickfix.field.ExecType.FIELD)) {
-                details.add("Missing ExecType(150) in ExecutionReport message");
-            }
-            
-            if (!message.isSetField(quickfix.field.OrdStatus.FIELD)) {
-                details.add("Missing OrdStatus(39) in ExecutionReport message");
+    private void validateTrailer(Message message, ValidationDetails details) {
+        if (!message.getTrailer().isSetField(CheckSum.FIELD)) {
+            details.add(ValidationError.MISSING_CHECKSUM);
+        }
+    }
+
+    private static RequiredFields requiredFieldsOf(String msgType) {
+        for (RequiredFields required : REQUIRED_BODY_FIELDS) {
+            if (required.msgType.equals(msgType)) {
+                return required;
             }
-            
-        } catch (FieldNotFound e) {
-            details.add("ExecutionReport message validation error: " + e.getMessage());
         }
+        return null;
     }
     
     @Override
@@ -193,4 +158,32 @@ public class SyntaxValidator implements MessageValidator {
     public int getPriority() {
         return 1; // 高优先级，最先执行
     }
+
+    /**
+     * 必需字段
+     */
+    private static final class RequiredField {
+        private final int tag;
+        private final String label;
+
+        RequiredField(int tag, String name) {
+            this.tag = tag;
+            this.label = name + "(" + tag + ")";
+        }
+    }
+
+    /**
+     * 某一消息类型的必需消息体字段
+     */
+    private static final class RequiredFields {
+        private final String msgType;
+        private final String messageName;
+        private final RequiredField[] fields;
+
+        RequiredFields(String msgType, String messageName, RequiredField... fields) {
+            this.msgType = msgType;
+            this.messageName = messageName;
+            this.fields = fields;
+        }
+    }
 }
\ No newline at end of file
@@ -1,16 +1,44 @@
 package com.quickfix.testtool.message.validation;
 
+import com.quickfix.testtool.core.engine.ExecutionMode;
+import com.quickfix.testtool.message.RawFixMessage;
+import quickfix.FieldNotFound;
+import quickfix.InvalidMessage;
 import quickfix.Message;
+import quickfix.field.MsgType;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 验证器链
+ * 注册时按各验证器声明的MsgType建立分发表，每条消息只经过关注该类型的验证器，
+ * 并为每个验证器累计调用次数和耗时。
+ * 开启并行模式后，语法验证通过的消息由其余验证器在有界线程池中并行读取，结果仍按优先级顺序返回；
+ * 声明了顺序键的有状态验证器对同一键始终串行执行
  */
 public class ValidationChain {
-    private final List<MessageValidator> validators = new ArrayList<>();
+    private static final Registration[] NONE = new Registration[0];
+    // 优先级不高于此值的验证器（语法验证）在调用线程上先行执行，失败时不再分发
+    private static final int SYNTAX_STAGE_PRIORITY = 1;
+    private static final int ORDERING_STRIPES = 64;
+    
+    private final List<Registration> registrations = new ArrayList<>();
+    // 按注册顺序编号的验证器，批量结果中的验证器编号即下标
+    private volatile Registration[] registrationsById = NONE;
+    // MsgType -> 按优先级排列的验证器；未列出的类型只经过关注所有类型的验证器
+    private volatile Map<String, Registration[]> dispatch = Collections.emptyMap();
+    private volatile Registration[] anyType = NONE;
+    // 按顺序键分段的锁，同一键的有状态验证互斥
+    private final ReentrantLock[] orderingLocks = new ReentrantLock[ORDERING_STRIPES];
+    private volatile ExecutorService parallelExecutor;
     
     public ValidationChain() {
+        for (int i = 0; i < ORDERING_STRIPES; i++) {
+            orderingLocks[i] = new ReentrantLock();
+        }
         // 按优先级排序添加验证器
         registerValidator(new SyntaxValidator());
         registerValidator(new FieldValueValidator());
@@ -18,20 +46,314 @@ public class ValidationChain {
         registerValidator(new TimingValidator());
     }
     
-    public void registerValidator(MessageValidator validator) {
-        validators.add(validator);
-        validators.sort(Comparator.comparingInt(MessageValidator::getPriority));
+    public synchronized void registerValidator(MessageValidator validator) {
+        Registration added = new Registration(registrationsById.length, validator, orderingLocks);
+        registrationsById = Arrays.copyOf(registrationsById, added.id + 1);
+        registrationsById[added.id] = added;
+        registrations.add(added);
+        registrations.sort(Comparator.comparingInt(registration -> registration.validator.getPriority()));
+        
+        Set<String> messageTypes = new HashSet<>();
+        for (Registration registration : registrations) {
+            messageTypes.addAll(registration.messageTypes);
+        }
+        Map<String, Registration[]> index = new HashMap<>();
+        for (String msgType : messageTypes) {
+            index.put(msgType, registrations.stream()
+                    .filter(registration -> registration.accepts(msgType))
+                    .toArray(Registration[]::new));
+        }
+        anyType = registrations.stream()
+                .filter(registration -> registration.messageTypes.isEmpty())
+                .toArray(Registration[]::new);
+        dispatch = index;
+    }
+    
+    /**
+     * 开启并行模式，parallelism为验证线程数。各验证器耗时较长时才值得开启，
+     * 轻量验证器的分发开销可能超过并行收益
+     */
+    public synchronized void enableParallel(int parallelism) {
+        if (parallelExecutor != null) {
+            parallelExecutor.shutdown();
+        }
+        parallelExecutor = ExecutionMode.current().newFixedExecutor("validation", Math.max(1, parallelism));
+    }
+    
+    public boolean isParallel() {
+        return parallelExecutor != null;
+    }
+    
+    /**
+     * 关闭并行模式的线程池，之后恢复顺序执行
+     */
+    public synchronized void shutdown() {
+        if (parallelExecutor != null) {
+            parallelExecutor.shutdown();
+            parallelExecutor = null;
+        }
     }
     
     public List<ValidationResult> validate(Message message, ValidationContext context) {
-        List<ValidationResult> results = new ArrayList<>();
+        Registration[] chain = registrationsFor(msgTypeOf(message));
+        ExecutorService executor = parallelExecutor;
+        if (executor != null) {
+            return validateParallel(chain, message, context, executor);
+        }
+        List<ValidationResult> results = new ArrayList<>(chain.length);
         
-        for (MessageValidator validator : validators) {
-            ValidationResult result = validator.validate(message, context);
+        for (Registration registration : chain) {
+            ValidationResult result = registration.validate(message, context);
             results.add(result);
             
             // 如果语法验证失败，跳过后续验证
-            if (!result.isValid() && result.getLevel() == ValidationLevel.SYNTAX) {
+            if (stopsChain(registration, result)) {
+                break;
+            }
+        }
+        
+        return results;
+    }
+    
+    private List<ValidationResult> validateParallel(Registration[] chain, Message message, ValidationContext context,
+                                                    ExecutorService executor) {
+        List<ValidationResult> results = new ArrayList<>(chain.length);
+        int next = 0;
+        for (; next < chain.length && chain[next].validator.getPriority() <= SYNTAX_STAGE_PRIORITY; next++) {
+            ValidationResult result = chain[next].validate(message, context);
+            results.add(result);
+            if (!result.isValid()) {
+                return results;
+            }
+        }
+        if (chain.length - next < 2) {
+            for (; next < chain.length; next++) {
+                results.add(chain[next].validate(message, context));
+            }
+            return results;
+        }
+        
+        // 除第一个外的验证器分发到线程池，第一个在调用线程上执行，然后按优先级顺序汇合
+        List<CompletableFuture<ValidationResult>> pending = new ArrayList<>(chain.length - next - 1);
+        for (int i = next + 1; i < chain.length; i++) {
+            Registration registration = chain[i];
+            pending.add(CompletableFuture.supplyAsync(() -> registration.validate(message, context), executor)
+                    .exceptionally(e -> failed(registration, e)));
+        }
+        results.add(chain[next].validate(message, context));
+        for (CompletableFuture<ValidationResult> future : pending) {
+            results.add(future.join());
+        }
+        return results;
+    }
+    
+    /**
+     * 批量验证一段消息，只把失败写入结果缓冲区：行内为firstIndex起算的消息序号、验证器编号和错误码。
+     * 整批共用一个验证上下文。开启并行模式时，语法验证在调用线程上先行完成，
+     * 其余每个验证器在线程池中按消息顺序处理整批，有状态验证器看到的消息顺序不变
+     */
+    public void validateBatch(List<Message> messages, long firstIndex, ValidationContext context,
+                              ValidationResultBuffer results) {
+        ExecutorService executor = parallelExecutor;
+        if (executor != null && messages.size() > 1) {
+            validateBatchParallel(messages, firstIndex, context, results, executor);
+            return;
+        }
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            results.messageValidated();
+            for (Registration registration : registrationsFor(msgTypeOf(message))) {
+                ValidationResult result = registration.validate(message, context);
+                if (!result.isValid()) {
+                    results.addFailure(firstIndex + i, registration.id, result);
+                    if (stopsChain(registration, result)) {
+                        break;
+                    }
+                }
+            }
+        }
+    }
+    
+    private void validateBatchParallel(List<Message> messages, long firstIndex, ValidationContext context,
+                                       ValidationResultBuffer results, ExecutorService executor) {
+        int count = messages.size();
+        Registration[][] chains = new Registration[count][];
+        ValidationResult[][] outcomes = new ValidationResult[count][];
+        // 语法验证阶段结束的位置，失败的消息不再交给其余验证器
+        int[] stageEnds = new int[count];
+        for (int i = 0; i < count; i++) {
+            Registration[] chain = registrationsFor(msgTypeOf(messages.get(i)));
+            chains[i] = chain;
+            outcomes[i] = new ValidationResult[chain.length];
+            int next = 0;
+            boolean passed = true;
+            for (; next < chain.length && chain[next].validator.getPriority() <= SYNTAX_STAGE_PRIORITY; next++) {
+                ValidationResult result = chain[next].validate(messages.get(i), context);
+                outcomes[i][next] = result;
+                if (!result.isValid()) {
+                    passed = false;
+                    break;
+                }
+            }
+            stageEnds[i] = passed ? next : chain.length;
+        }
+        completeBatch(messages, chains, outcomes, stageEnds, firstIndex, context, results, executor);
+    }
+    
+    /**
+     * 批量验证原始报文，结果写法同validateBatch。支持原始报文的语法阶段直接扫描字节，
+     * 只有通过语法阶段且仍有验证器需要结构化消息的报文才完整解析；并行模式下解析在调用线程上完成，
+     * 其余验证器在线程池中读取解析结果。返回无法完整解析的报文数
+     */
+    public int validateRawBatch(List<RawFixMessage> messages, long firstIndex, ValidationContext context,
+                                ValidationResultBuffer results) {
+        ExecutorService executor = messages.size() > 1 ? parallelExecutor : null;
+        int count = messages.size();
+        int unparsable = 0;
+        Registration[][] chains = new Registration[count][];
+        ValidationResult[][] outcomes = new ValidationResult[count][];
+        int[] stageEnds = new int[count];
+        Message[] parsed = new Message[count];
+        for (int i = 0; i < count; i++) {
+            RawFixMessage raw = messages.get(i);
+            Registration[] chain = registrationsFor(raw.getString(MsgType.FIELD));
+            chains[i] = chain;
+            outcomes[i] = new ValidationResult[chain.length];
+            stageEnds[i] = chain.length;
+            int next = 0;
+            boolean stopped = false;
+            for (; next < chain.length && chain[next].validator instanceof RawMessageValidator; next++) {
+                ValidationResult result = chain[next].validate(raw, context);
+                outcomes[i][next] = result;
+                if (stopsChain(chain[next], result)) {
+                    stopped = true;
+                    break;
+                }
+            }
+            if (stopped || next == chain.length) {
+                continue;
+            }
+            
+            try {
+                parsed[i] = raw.toMessage();
+            } catch (InvalidMessage e) {
+                unparsable++;
+                continue;
+            }
+            if (executor != null) {
+                stageEnds[i] = next;
+                continue;
+            }
+            for (; next < chain.length; next++) {
+                ValidationResult result = chain[next].validate(parsed[i], context);
+                outcomes[i][next] = result;
+                if (stopsChain(chain[next], result)) {
+                    break;
+                }
+            }
+        }
+        completeBatch(Arrays.asList(parsed), chains, outcomes, stageEnds, firstIndex, context, results, executor);
+        return unparsable;
+    }
+    
+    /**
+     * 把各消息stageEnds之后的验证器按验证器分发到线程池，每个验证器按消息顺序处理整批，
+     * 然后按消息和优先级顺序写出失败
+     */
+    private void completeBatch(List<Message> messages, Registration[][] chains, ValidationResult[][] outcomes,
+                               int[] stageEnds, long firstIndex, ValidationContext context,
+                               ValidationResultBuffer results, ExecutorService executor) {
+        int count = messages.size();
+        Set<Registration> remaining = new LinkedHashSet<>();
+        for (int i = 0; i < count; i++) {
+            for (int j = stageEnds[i]; j < chains[i].length; j++) {
+                remaining.add(chains[i][j]);
+            }
+        }
+        
+        List<CompletableFuture<Void>> pending = new ArrayList<>(remaining.size());
+        for (Registration registration : remaining) {
+            pending.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < count; i++) {
+                    Registration[] chain = chains[i];
+                    for (int j = stageEnds[i]; j < chain.length; j++) {
+                        if (chain[j] == registration) {
+                            outcomes[i][j] = validateQuietly(registration, messages.get(i), context);
+                            break;
+                        }
+                    }
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        
+        for (int i = 0; i < count; i++) {
+            results.messageValidated();
+            for (int j = 0; j < chains[i].length; j++) {
+                ValidationResult result = outcomes[i][j];
+                if (result != null && !result.isValid()) {
+                    results.addFailure(firstIndex + i, chains[i][j].id, result);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 语法阶段的验证器失败时跳过后续验证，按验证器优先级判断，与结果级别无关
+     */
+    private static boolean stopsChain(Registration registration, ValidationResult result) {
+        return !result.isValid() && registration.validator.getPriority() <= SYNTAX_STAGE_PRIORITY;
+    }
+    
+    private static ValidationResult validateQuietly(Registration registration, Message message,
+                                                    ValidationContext context) {
+        try {
+            return registration.validate(message, context);
+        } catch (RuntimeException e) {
+            return failed(registration, e);
+        }
+    }
+    
+    /**
+     * 批量结果中验证器编号对应的名称
+     */
+    public String getValidatorName(int validatorId) {
+        return registrationsById[validatorId].validator.getName();
+    }
+    
+    private static ValidationResult failed(Registration registration, Throwable error) {
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        return ValidationResult.failure(registration.validator.getName() + " failed",
+                List.of(String.valueOf(cause.getMessage())));
+    }
+    
+    /**
+     * 验证原始报文：支持原始报文的验证器直接扫描字节，
+     * 其余验证器第一次需要时才完整解析为quickfix.Message
+     */
+    public List<ValidationResult> validate(RawFixMessage raw, ValidationContext context) {
+        Registration[] chain = registrationsFor(raw.getString(MsgType.FIELD));
+        List<ValidationResult> results = new ArrayList<>(chain.length);
+        Message message = null;
+        
+        for (Registration registration : chain) {
+            ValidationResult result;
+            if (registration.validator instanceof RawMessageValidator) {
+                result = registration.validate(raw, context);
+            } else {
+                if (message == null) {
+                    try {
+                        message = raw.toMessage();
+                    } catch (InvalidMessage e) {
+                        results.add(ValidationResult.failure("Message parsing failed", List.of(e.getMessage())));
+                        break;
+                    }
+                }
+                result = registration.validate(message, context);
+            }
+            results.add(result);
+            
+            if (stopsChain(registration, result)) {
                 break;
             }
         }
@@ -40,8 +362,93 @@ public class ValidationChain {
     }
     
     public boolean validateAll(Message message, ValidationContext context) {
-        return validate(message, context).stream()
-                .allMatch(ValidationResult::isValid);
+        for (ValidationResult result : validate(message, context)) {
+            if (!result.isValid()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 各验证器的调用次数和耗时，按执行顺序排列
+     */
+    public synchronized List<ValidatorStatistics> getStatistics() {
+        List<ValidatorStatistics> statistics = new ArrayList<>(registrations.size());
+        for (Registration registration : registrations) {
+            statistics.add(registration.statistics);
+        }
+        return statistics;
+    }
+    
+    public synchronized void resetStatistics() {
+        registrations.forEach(registration -> registration.statistics.reset());
+    }
+    
+    private Registration[] registrationsFor(String msgType) {
+        if (msgType == null) {
+            return anyType;
+        }
+        Registration[] chain = dispatch.get(msgType);
+        return chain != null ? chain : anyType;
+    }
+    
+    private static String msgTypeOf(Message message) {
+        try {
+            return message.getHeader().getString(MsgType.FIELD);
+        } catch (FieldNotFound e) {
+            // 缺少MsgType时仍交给关注所有类型的验证器（包括语法验证）处理
+            return null;
+        }
+    }
+    
+    /**
+     * 已注册的验证器及其声明的类型和统计
+     */
+    private static final class Registration {
+        private final int id;
+        private final MessageValidator validator;
+        private final Set<String> messageTypes;
+        private final ValidatorStatistics statistics;
+        private final ReentrantLock[] orderingLocks;
+        
+        Registration(int id, MessageValidator validator, ReentrantLock[] orderingLocks) {
+            this.id = id;
+            this.validator = validator;
+            this.messageTypes = validator.getMessageTypes();
+            this.statistics = new ValidatorStatistics(validator.getName());
+            this.orderingLocks = orderingLocks;
+        }
+        
+        boolean accepts(String msgType) {
+            return messageTypes.isEmpty() || messageTypes.contains(msgType);
+        }
+        
+        ValidationResult validate(Message message, ValidationContext context) {
+            String orderingKey = validator.getOrderingKey(message);
+            long start = System.nanoTime();
+            ValidationResult result;
+            if (orderingKey == null) {
+                result = validator.validate(message, context);
+            } else {
+                ReentrantLock lock = orderingLocks[(orderingKey.hashCode() & 0x7fffffff) % orderingLocks.length];
+                lock.lock();
+                try {
+                    result = validator.validate(message, context);
+                } finally {
+                    lock.unlock();
+                }
+            }
+            statistics.record(System.nanoTime() - start, result.isValid());
+            return result;
+        }
+        
+        ValidationResult validate(RawFixMessage raw, ValidationContext context) {
+            long start = System.nanoTime();
+            ValidationResult result = ((RawMessageValidator) validator).validate(raw, context);
+            statistics.record(System.nanoTime() - start, result.isValid());
+            return result;
+        }
     }
 }
 
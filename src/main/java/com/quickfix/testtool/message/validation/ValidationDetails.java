@@ -0,0 +1,183 @@
+package com.quickfix.testtool.message.validation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 结构化的失败明细
+ * 每条明细为错误码加参数，参数按类型保存在基本类型数组中，不装箱、不拼接字符串。
+ * 验证器通过begin()取得本线程复用的缓冲区记录明细，失败时由toResult()复制为紧凑快照；
+ * 可读文本在生成报告时才由render()渲染。缓冲区不可嵌套使用：toResult()之前不得再调用begin()
+ */
+public final class ValidationDetails {
+    private static final ThreadLocal<ValidationDetails> BUFFERS = ThreadLocal.withInitial(() -> new ValidationDetails(8));
+
+    static final byte LONG = 0;
+    static final byte DOUBLE = 1;
+    static final byte CHAR = 2;
+    static final byte OBJECT = 3;
+
+    private ValidationError[] errors;
+    // 第i条明细的参数从argOffsets[i]开始
+    private int[] argOffsets;
+    private int count;
+
+    private byte[] argTypes;
+    private long[] argValues;
+    private Object[] argObjects;
+    private int argCount;
+
+    private ValidationDetails(int capacity) {
+        errors = new ValidationError[capacity];
+        argOffsets = new int[capacity];
+        argTypes = new byte[capacity * 2];
+        argValues = new long[capacity * 2];
+        argObjects = new Object[capacity * 2];
+    }
+
+    /**
+     * 取得本线程的缓冲区并清空
+     */
+    public static ValidationDetails begin() {
+        ValidationDetails details = BUFFERS.get();
+        details.clear();
+        return details;
+    }
+
+    private void clear() {
+        Arrays.fill(argObjects, 0, argCount, null);
+        count = 0;
+        argCount = 0;
+    }
+
+    /**
+     * 追加一条明细，随后的arg()调用为其参数
+     */
+    public ValidationDetails add(ValidationError error) {
+        if (count == errors.length) {
+            errors = Arrays.copyOf(errors, count * 2);
+            argOffsets = Arrays.copyOf(argOffsets, count * 2);
+        }
+        errors[count] = error;
+        argOffsets[count] = argCount;
+        count++;
+        return this;
+    }
+
+    public ValidationDetails arg(long value) {
+        return arg(LONG, value, null);
+    }
+
+    public ValidationDetails arg(double value) {
+        return arg(DOUBLE, Double.doubleToRawLongBits(value), null);
+    }
+
+    public ValidationDetails arg(char value) {
+        return arg(CHAR, value, null);
+    }
+
+    public ValidationDetails arg(Object value) {
+        return arg(OBJECT, 0L, value);
+    }
+
+    private ValidationDetails arg(byte type, long value, Object object) {
+        if (argCount == argTypes.length) {
+            int capacity = argCount * 2;
+            argTypes = Arrays.copyOf(argTypes, capacity);
+            argValues = Arrays.copyOf(argValues, capacity);
+            argObjects = Arrays.copyOf(argObjects, capacity);
+        }
+        argTypes[argCount] = type;
+        argValues[argCount] = value;
+        argObjects[argCount] = object;
+        argCount++;
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public ValidationError getError(int index) {
+        return errors[index];
+    }
+
+    /**
+     * 没有明细时返回共享的成功结果，否则返回带明细快照的失败结果
+     */
+    public ValidationResult toResult(String message) {
+        return count == 0 ? ValidationResult.success() : ValidationResult.failure(message, snapshot());
+    }
+
+    private ValidationDetails snapshot() {
+        ValidationDetails copy = new ValidationDetails(0);
+        copy.errors = Arrays.copyOf(errors, count);
+        copy.argOffsets = Arrays.copyOf(argOffsets, count);
+        copy.count = count;
+        copy.argTypes = Arrays.copyOf(argTypes, argCount);
+        copy.argValues = Arrays.copyOf(argValues, argCount);
+        copy.argObjects = Arrays.copyOf(argObjects, argCount);
+        copy.argCount = argCount;
+        return copy;
+    }
+
+    /**
+     * 渲染第index条明细的可读文本
+     */
+    public String render(int index) {
+        return render(errors[index], argTypes, argValues, argObjects, argStart(index), argEnd(index));
+    }
+
+    /**
+     * 用列式保存的参数渲染错误码模板，结果缓冲区与本类共用
+     */
+    static String render(ValidationError error, byte[] types, long[] values, Object[] objects, int from, int to) {
+        if (from == to) {
+            return error.getTemplate();
+        }
+        Object[] args = new Object[to - from];
+        for (int i = from; i < to; i++) {
+            switch (types[i]) {
+                case LONG: args[i - from] = values[i]; break;
+                case DOUBLE: args[i - from] = Double.longBitsToDouble(values[i]); break;
+                case CHAR: args[i - from] = (char) values[i]; break;
+                default: args[i - from] = objects[i]; break;
+            }
+        }
+        return String.format(error.getTemplate(), args);
+    }
+
+    int argStart(int index) {
+        return argOffsets[index];
+    }
+
+    int argEnd(int index) {
+        return index + 1 < count ? argOffsets[index + 1] : argCount;
+    }
+
+    byte argType(int arg) {
+        return argTypes[arg];
+    }
+
+    long argValue(int arg) {
+        return argValues[arg];
+    }
+
+    Object argObject(int arg) {
+        return argObjects[arg];
+    }
+
+    public List<String> render() {
+        List<String> rendered = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rendered.add(render(i));
+        }
+        return Collections.unmodifiableList(rendered);
+    }
+}
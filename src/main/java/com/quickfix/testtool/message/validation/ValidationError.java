@@ -0,0 +1,72 @@
+package com.quickfix.testtool.message.validation;
+
+/**
+ * 验证失败明细的错误码
+ * 模板按String.format格式书写，只在生成报告时用记录的参数渲染
+ */
+public enum ValidationError {
+    // 通用
+    VALIDATION_ERROR("%s validation error: %s"),
+    UNEXPECTED_ERROR("Unexpected error: %s"),
+    REQUIRED_FIELD_MISSING("Required field missing: %s"),
+    REQUIRED_FIELD_MISSING_IN("Required field missing in %s: %s"),
+    FIELD_MISSING("%s field missing: %s"),
+
+    // 语法
+    MALFORMED_MESSAGE("%s"),
+    MISSING_HEADER_FIELD("Missing %s in header"),
+    INVALID_HEADER_ORDER("Header must start with BeginString(8), BodyLength(9), MsgType(35) and end with CheckSum(10)"),
+    BODY_LENGTH_MISMATCH("BodyLength(9) mismatch: declared %d, actual %d"),
+    MISSING_BODY_FIELD("Missing %s in %s message"),
+    MISSING_CHECKSUM("Missing CheckSum(10) in trailer"),
+    CHECKSUM_MISMATCH("CheckSum(10) mismatch: declared %d, actual %d"),
+    MSG_TYPE_ERROR("Message type validation error: %s"),
+
+    // 业务逻辑
+    NON_POSITIVE_ORDER_QTY("Order quantity must be positive: %s"),
+    NON_POSITIVE_PRICE("Price must be positive for limit/stop orders: %s"),
+    PRICE_REQUIRED("Price is required for limit/stop orders"),
+    INVALID_SIDE("Invalid side value: %s"),
+    INVALID_EXEC_TYPE_ORD_STATUS("Invalid ExecType/OrdStatus combination: %c/%c"),
+    LAST_SHARES_EXCEED_ORDER_QTY("Last shares (%f) exceeds order quantity (%f)"),
+    NON_POSITIVE_LAST_PX("Last price must be positive: %s"),
+    NON_POSITIVE_CANCEL_QTY("Cancel quantity must be positive: %s"),
+    MISSING_ORIG_CL_ORD_ID("Missing OrigClOrdID(41) in OrderCancelRequest"),
+
+    // 订单生命周期
+    DUPLICATE_ORDER_ID("Duplicate order ID: %s"),
+    ORIGINAL_ORDER_NOT_FOUND("Original order not found: %s"),
+    NOT_CANCELLABLE("Order cannot be cancelled in status: %s"),
+    NOT_MODIFIABLE("Order cannot be modified in status: %s"),
+    NON_POSITIVE_NEW_QTY("New quantity must be positive: %s"),
+    ORDER_QTY_INCREASED("Cannot increase order quantity: %s > %s"),
+    ORDER_NOT_FOUND("Order not found for execution report: %s"),
+    INVALID_STATUS_TRANSITION("Invalid status transition: %c -> %c"),
+    INVALID_EXEC_TYPE("Invalid ExecType %c for OrdStatus %c in lifecycle %s"),
+    NEGATIVE_LAST_SHARES("Last shares must be non-negative: %s"),
+    CUM_QTY_EXCEEDS_ORDER_QTY("Cumulative quantity exceeds original quantity: %s > %s"),
+    CUM_QTY_MISMATCH("Cumulative quantity calculation mismatch"),
+
+    // 合规
+    INVALID_SENDER("Invalid sender: %s"),
+    INVALID_TARGET("Invalid target: %s"),
+    AUTHENTICATION_FIELDS_MISSING("Authentication fields missing: %s"),
+    ORDER_SIZE_BELOW_MIN("Order size below minimum: %s < %s"),
+    ORDER_SIZE_ABOVE_MAX("Order size exceeds maximum: %s > %s"),
+    PRICE_BELOW_MIN("Price below minimum: %s < %s"),
+    PRICE_ABOVE_MAX("Price exceeds maximum: %s > %s"),
+    INVALID_TRANSACT_TIME("Invalid TransactTime: %s"),
+    OUTSIDE_CALENDAR_RANGE("TransactTime outside trading calendar range: %s"),
+    OUTSIDE_TRADING_HOURS("Order placed outside trading hours: %s (%s)"),
+    INVALID_SYMBOL("Invalid symbol: %s");
+
+    private final String template;
+
+    ValidationError(String template) {
+        this.template = template;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+}
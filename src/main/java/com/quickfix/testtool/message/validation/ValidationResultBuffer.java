@@ -0,0 +1,126 @@
+package com.quickfix.testtool.message.validation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 批量验证的列式结果缓冲区
+ * 每条失败明细一行：消息序号、验证器编号、错误码（ValidationError序号）三列，
+ * 明细参数按类型复制到缓冲区自己的参数列中，不保留ValidationResult对象；可读文本在render()时才生成。
+ * 只有字符串明细的失败结果按VALIDATION_ERROR记录，参数为失败描述和明细文本。
+ * clear()后可在下一批复用已分配的数组
+ */
+public class ValidationResultBuffer {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final ValidationError[] ERRORS = ValidationError.values();
+
+    private long[] messageIndexes = new long[INITIAL_CAPACITY];
+    private int[] validatorIds = new int[INITIAL_CAPACITY];
+    private int[] errorCodes = new int[INITIAL_CAPACITY];
+    // 第row行的参数从argOffsets[row]开始
+    private int[] argOffsets = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private byte[] argTypes = new byte[INITIAL_CAPACITY * 2];
+    private long[] argValues = new long[INITIAL_CAPACITY * 2];
+    private Object[] argObjects = new Object[INITIAL_CAPACITY * 2];
+    private int argCount;
+
+    private long messageCount;
+
+    void messageValidated() {
+        messageCount++;
+    }
+
+    void addFailure(long messageIndex, int validatorId, ValidationResult failure) {
+        ValidationDetails details = failure.getStructuredDetails();
+        if (details != null) {
+            for (int i = 0; i < details.size(); i++) {
+                addRow(messageIndex, validatorId, details.getError(i));
+                for (int arg = details.argStart(i); arg < details.argEnd(i); arg++) {
+                    addArg(details.argType(arg), details.argValue(arg), details.argObject(arg));
+                }
+            }
+            return;
+        }
+        List<String> texts = failure.getDetails();
+        if (texts == null || texts.isEmpty()) {
+            addRow(messageIndex, validatorId, ValidationError.VALIDATION_ERROR);
+            addArg(ValidationDetails.OBJECT, 0L, failure.getMessage());
+            addArg(ValidationDetails.OBJECT, 0L, "");
+            return;
+        }
+        for (String text : texts) {
+            addRow(messageIndex, validatorId, ValidationError.VALIDATION_ERROR);
+            addArg(ValidationDetails.OBJECT, 0L, failure.getMessage());
+            addArg(ValidationDetails.OBJECT, 0L, text);
+        }
+    }
+
+    private void addRow(long messageIndex, int validatorId, ValidationError error) {
+        if (size == messageIndexes.length) {
+            int capacity = size * 2;
+            messageIndexes = Arrays.copyOf(messageIndexes, capacity);
+            validatorIds = Arrays.copyOf(validatorIds, capacity);
+            errorCodes = Arrays.copyOf(errorCodes, capacity);
+            argOffsets = Arrays.copyOf(argOffsets, capacity);
+        }
+        messageIndexes[size] = messageIndex;
+        validatorIds[size] = validatorId;
+        errorCodes[size] = error.ordinal();
+        argOffsets[size] = argCount;
+        size++;
+    }
+
+    private void addArg(byte type, long value, Object object) {
+        if (argCount == argTypes.length) {
+            int capacity = argCount * 2;
+            argTypes = Arrays.copyOf(argTypes, capacity);
+            argValues = Arrays.copyOf(argValues, capacity);
+            argObjects = Arrays.copyOf(argObjects, capacity);
+        }
+        argTypes[argCount] = type;
+        argValues[argCount] = value;
+        argObjects[argCount] = object;
+        argCount++;
+    }
+
+    /**
+     * 清空结果行和消息计数，保留已分配的数组
+     */
+    public void clear() {
+        Arrays.fill(argObjects, 0, argCount, null);
+        size = 0;
+        argCount = 0;
+        messageCount = 0;
+    }
+
+    public int size() { return size; }
+    public long getMessageCount() { return messageCount; }
+    public long getMessageIndex(int row) { return messageIndexes[row]; }
+    public int getValidatorId(int row) { return validatorIds[row]; }
+    public int getErrorCode(int row) { return errorCodes[row]; }
+
+    public ValidationError getError(int row) {
+        return ERRORS[errorCodes[row]];
+    }
+
+    /**
+     * 渲染失败行的可读明细
+     */
+    public String render(int row) {
+        int to = row + 1 < size ? argOffsets[row + 1] : argCount;
+        return ValidationDetails.render(getError(row), argTypes, argValues, argObjects, argOffsets[row], to);
+    }
+
+    /**
+     * 按错误码统计失败行数，下标为ValidationError序号
+     */
+    public int[] countByErrorCode() {
+        int[] counts = new int[ERRORS.length];
+        for (int i = 0; i < size; i++) {
+            counts[errorCodes[i]]++;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,47 @@
+package com.quickfix.testtool.message.validation;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个验证器在验证链中的调用计数和累计耗时
+ */
+public class ValidatorStatistics {
+    private final String name;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    
+    ValidatorStatistics(String name) {
+        this.name = name;
+    }
+    
+    void record(long elapsedNanos, boolean valid) {
+        invocations.increment();
+        totalNanos.add(elapsedNanos);
+        if (!valid) {
+            failures.increment();
+        }
+    }
+    
+    void reset() {
+        invocations.reset();
+        failures.reset();
+        totalNanos.reset();
+    }
+    
+    public String getName() { return name; }
+    public long getInvocations() { return invocations.sum(); }
+    public long getFailures() { return failures.sum(); }
+    public long getTotalNanos() { return totalNanos.sum(); }
+    
+    public double getAverageNanos() {
+        long count = invocations.sum();
+        return count == 0 ? 0 : totalNanos.sum() / (double) count;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s: %d calls, %d failures, avg %.0f ns", name, getInvocations(), getFailures(),
+                getAverageNanos());
+    }
+}
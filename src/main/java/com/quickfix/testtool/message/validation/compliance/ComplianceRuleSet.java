@@ -0,0 +1,264 @@
+package com.quickfix.testtool.message.validation.compliance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 编译后的合规规则集
+ * 由JSON定义编译而成：每种MsgType对应一个不可变的规则数组（已包含"*"通用规则），
+ * 品种及限额参考数据保存在SymbolIndex中。实例不可变，重新加载时整体替换
+ *
+ * 定义格式：
+ * {
+ *   "name": "default",
+ *   "rules": {"*": ["BASIC_AUTHENTICATION"], "D": ["ORDER_SIZE_LIMIT", ...], ...},
+ *   "defaultLimits": {"minQty": 100, "maxQty": 1000000, "minPrice": 0.01, "maxPrice": 10000},
+ *   "symbols": [{"symbol": "AAPL", "maxQty": 500000}, ...],
+ *   "symbolFile": "symbols.csv",         可选，相对于规则文件所在目录
+ *   "tradingCalendar": {...},            TRADING_HOURS规则使用的交易日历，格式见TradingCalendar
+ *   "calendarFile": "calendar.json"      可选，代替内联的tradingCalendar
+ * }
+ */
+public final class ComplianceRuleSet {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ComplianceRuleSet.class);
+
+    public static final String RULES_PROPERTY = "testtool.compliance.rules";
+    static final String DEFAULT_RESOURCE = "/compliance/default-rules.json";
+    private static final String ALL_TYPES = "*";
+
+    private final String name;
+    private final SymbolIndex symbols;
+    private final TradingCalendar calendar;
+    private final Map<String, ComplianceRule[]> rulesByMsgType;
+    private final ComplianceRule[] commonRules;
+
+    private ComplianceRuleSet(Definition definition, Path baseDir) throws IOException {
+        this.name = definition.getName() != null ? definition.getName() : "unnamed";
+        this.symbols = buildSymbols(definition, baseDir);
+        this.calendar = buildCalendar(definition, baseDir);
+
+        Map<String, ComplianceRule> instances = new HashMap<>();
+        Map<String, List<String>> ruleNames = definition.getRules() != null
+                ? definition.getRules() : Collections.emptyMap();
+        List<ComplianceRule> common = new ArrayList<>();
+        for (String ruleName : ruleNames.getOrDefault(ALL_TYPES, Collections.emptyList())) {
+            common.add(instances.computeIfAbsent(ruleName, this::createRule));
+        }
+        this.commonRules = common.toArray(new ComplianceRule[0]);
+
+        Map<String, ComplianceRule[]> byMsgType = new HashMap<>();
+        ruleNames.forEach((msgType, names) -> {
+            if (!ALL_TYPES.equals(msgType)) {
+                List<ComplianceRule> rules = new ArrayList<>(common);
+                for (String ruleName : names) {
+                    rules.add(instances.computeIfAbsent(ruleName, this::createRule));
+                }
+                byMsgType.put(msgType, rules.toArray(new ComplianceRule[0]));
+            }
+        });
+        this.rulesByMsgType = Collections.unmodifiableMap(byMsgType);
+    }
+
+    /**
+     * 默认规则集：指定了testtool.compliance.rules时从该文件加载，否则使用内置定义
+     */
+    public static ComplianceRuleSet loadDefault() {
+        String file = System.getProperty(RULES_PROPERTY);
+        return file != null ? load(Path.of(file)) : loadResource(DEFAULT_RESOURCE);
+    }
+
+    public static ComplianceRuleSet load(Path file) {
+        try {
+            Definition definition = new ObjectMapper().readValue(file.toFile(), Definition.class);
+            return compile(definition, file.toAbsolutePath().getParent());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load compliance rules: " + file, e);
+        }
+    }
+
+    static ComplianceRuleSet loadResource(String resource) {
+        try (InputStream input = ComplianceRuleSet.class.getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IllegalStateException("Compliance rules resource not found: " + resource);
+            }
+            return compile(new ObjectMapper().readValue(input, Definition.class), null);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load compliance rules: " + resource, e);
+        }
+    }
+
+    /**
+     * 编译规则集，baseDir用于解析相对路径的symbolFile，可为null
+     */
+    public static ComplianceRuleSet compile(Definition definition, Path baseDir) throws IOException {
+        ComplianceRuleSet ruleSet = new ComplianceRuleSet(definition, baseDir);
+        log.info("Compiled compliance rules: {} ({} message types, {} symbols)",
+                ruleSet.name, ruleSet.rulesByMsgType.size(), ruleSet.symbols.size());
+        return ruleSet;
+    }
+
+    private static SymbolIndex buildSymbols(Definition definition, Path baseDir) throws IOException {
+        Limits limits = definition.getDefaultLimits() != null ? definition.getDefaultLimits() : new Limits();
+        SymbolIndex.Builder builder = SymbolIndex.builder(limits.toIndexLimits());
+        if (definition.getSymbolFile() != null) {
+            Path file = Path.of(definition.getSymbolFile());
+            builder.addCsv(baseDir != null && !file.isAbsolute() ? baseDir.resolve(file) : file);
+        }
+        if (definition.getSymbols() != null) {
+            for (SymbolDefinition symbol : definition.getSymbols()) {
+                builder.add(symbol.getSymbol(), value(symbol.getMinQty()), value(symbol.getMaxQty()),
+                        value(symbol.getMinPrice()), value(symbol.getMaxPrice()));
+            }
+        }
+        return builder.build();
+    }
+
+    private static TradingCalendar buildCalendar(Definition definition, Path baseDir) throws IOException {
+        TradingCalendar.Definition calendar = definition.getTradingCalendar();
+        if (definition.getCalendarFile() != null) {
+            Path file = Path.of(definition.getCalendarFile());
+            file = baseDir != null && !file.isAbsolute() ? baseDir.resolve(file) : file;
+            calendar = new ObjectMapper().readValue(file.toFile(), TradingCalendar.Definition.class);
+        }
+        return calendar != null ? TradingCalendar.compile(calendar) : null;
+    }
+
+    private ComplianceRule createRule(String ruleName) {
+        switch (ruleName) {
+            case "BASIC_AUTHENTICATION": return new BasicAuthenticationRule();
+            case "ORDER_SIZE_LIMIT": return new OrderSizeLimitRule(symbols);
+            case "PRICE_LIMIT": return new PriceLimitRule(symbols);
+            case "TRADING_HOURS":
+                if (calendar == null) {
+                    throw new IllegalArgumentException("TRADING_HOURS rule requires a trading calendar");
+                }
+                return new TradingHoursRule(calendar);
+            case "SYMBOL_VALIDATION": return new SymbolValidationRule(symbols);
+            case "CANCEL_PERMISSION": return new CancelPermissionRule();
+            case "MODIFY_PERMISSION": return new ModifyPermissionRule();
+            default: throw new IllegalArgumentException("Unknown compliance rule: " + ruleName);
+        }
+    }
+
+    /**
+     * 消息类型适用的规则，未单独配置的类型只适用通用规则
+     */
+    ComplianceRule[] rulesFor(String msgType) {
+        ComplianceRule[] rules = rulesByMsgType.get(msgType);
+        return rules != null ? rules : commonRules;
+    }
+
+    /**
+     * 单独配置了规则的MsgType，不含"*"
+     */
+    public Set<String> getMessageTypes() {
+        return rulesByMsgType.keySet();
+    }
+
+    public String getName() { return name; }
+    public SymbolIndex getSymbols() { return symbols; }
+    public TradingCalendar getCalendar() { return calendar; }
+
+    private static double value(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    /**
+     * 规则集定义
+     */
+    public static class Definition {
+        private String name;
+        private Map<String, List<String>> rules;
+        private Limits defaultLimits;
+        private List<SymbolDefinition> symbols;
+        private String symbolFile;
+        private TradingCalendar.Definition tradingCalendar;
+        private String calendarFile;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public Map<String, List<String>> getRules() { return rules; }
+        public void setRules(Map<String, List<String>> rules) { this.rules = rules; }
+
+        public Limits getDefaultLimits() { return defaultLimits; }
+        public void setDefaultLimits(Limits defaultLimits) { this.defaultLimits = defaultLimits; }
+
+        public List<SymbolDefinition> getSymbols() { return symbols; }
+        public void setSymbols(List<SymbolDefinition> symbols) { this.symbols = symbols; }
+
+        public String getSymbolFile() { return symbolFile; }
+        public void setSymbolFile(String symbolFile) { this.symbolFile = symbolFile; }
+
+        public TradingCalendar.Definition getTradingCalendar() { return tradingCalendar; }
+        public void setTradingCalendar(TradingCalendar.Definition tradingCalendar) { this.tradingCalendar = tradingCalendar; }
+
+        public String getCalendarFile() { return calendarFile; }
+        public void setCalendarFile(String calendarFile) { this.calendarFile = calendarFile; }
+    }
+
+    /**
+     * 默认限额，未配置的项不限制
+     */
+    public static class Limits {
+        private Double minQty;
+        private Double maxQty;
+        private Double minPrice;
+        private Double maxPrice;
+
+        SymbolIndex.Limits toIndexLimits() {
+            return new SymbolIndex.Limits(
+                    minQty != null ? minQty : 0.0,
+                    maxQty != null ? maxQty : Double.MAX_VALUE,
+                    minPrice != null ? minPrice : 0.0,
+                    maxPrice != null ? maxPrice : Double.MAX_VALUE);
+        }
+
+        public Double getMinQty() { return minQty; }
+        public void setMinQty(Double minQty) { this.minQty = minQty; }
+
+        public Double getMaxQty() { return maxQty; }
+        public void setMaxQty(Double maxQty) { this.maxQty = maxQty; }
+
+        public Double getMinPrice() { return minPrice; }
+        public void setMinPrice(Double minPrice) { this.minPrice = minPrice; }
+
+        public Double getMaxPrice() { return maxPrice; }
+        public void setMaxPrice(Double maxPrice) { this.maxPrice = maxPrice; }
+    }
+
+    /**
+     * 单个品种的参考数据，未配置的限额使用默认限额
+     */
+    public static class SymbolDefinition {
+        private String symbol;
+        private Double minQty;
+        private Double maxQty;
+        private Double minPrice;
+        private Double maxPrice;
+
+        public String getSymbol() { return symbol; }
+        public void setSymbol(String symbol) { this.symbol = symbol; }
+
+        public Double getMinQty() { return minQty; }
+        public void setMinQty(Double minQty) { this.minQty = minQty; }
+
+        public Double getMaxQty() { return maxQty; }
+        public void setMaxQty(Double maxQty) { this.maxQty = maxQty; }
+
+        public Double getMinPrice() { return minPrice; }
+        public void setMinPrice(Double minPrice) { this.minPrice = minPrice; }
+
+        public Double getMaxPrice() { return maxPrice; }
+        public void setMaxPrice(Double maxPrice) { this.maxPrice = maxPrice; }
+    }
+}
@@ -2,89 +2,162 @@ package com.quickfix.testtool.message.validation.compliance;
 
 import quickfix.*;
 import quickfix.field.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 合规性验证器
- * 验证交易合规性要求
+ * 验证交易合规性要求。规则集由ComplianceRuleSet从配置编译，每条消息按MsgType取出预先编译的规则数组；
+ * reload()在后台编译新规则集后整体替换引用，验证线程不加锁、不停顿。
+ * 验证链只把订单类消息及创建时规则集单独配置的类型分发给本验证器，"*"通用规则也只对这些类型生效
  */
 public class ComplianceValidator implements MessageValidator {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ComplianceValidator.class);
-    
-    // 合规规则配置
-    private final Map<String, ComplianceRule> rules = new HashMap<>();
-    
+
+    // 大于0时按该间隔检查规则文件修改时间并自动重新加载
+    public static final String RELOAD_INTERVAL_PROPERTY = "testtool.compliance.reloadIntervalMillis";
+
+    private static final Set<String> ORDER_FLOW_TYPES = Set.of(MsgType.ORDER_SINGLE, MsgType.ORDER_CANCEL_REQUEST,
+            MsgType.ORDER_CANCEL_REPLACE_REQUEST, MsgType.EXECUTION_REPORT);
+
+    // 规则文件，为null时使用内置定义
+    private final Path source;
+    private volatile ComplianceRuleSet ruleSet;
+    // 注册到验证链时的分发类型，重新加载不改变
+    private final Set<String> messageTypes;
+    private volatile long sourceModified;
+    private ScheduledExecutorService reloader;
+
     public ComplianceValidator() {
-        initializeRules();
+        this(System.getProperty(ComplianceRuleSet.RULES_PROPERTY) != null
+                ? Path.of(System.getProperty(ComplianceRuleSet.RULES_PROPERTY)) : null);
+        long interval = Long.getLong(RELOAD_INTERVAL_PROPERTY, 0L);
+        if (source != null && interval > 0) {
+            startAutoReload(interval);
+        }
     }
-    
+
+    public ComplianceValidator(Path source) {
+        this.source = source;
+        this.sourceModified = lastModified();
+        this.ruleSet = source != null ? ComplianceRuleSet.load(source)
+                : ComplianceRuleSet.loadResource(ComplianceRuleSet.DEFAULT_RESOURCE);
+        this.messageTypes = messageTypesOf(ruleSet);
+    }
+
+    public ComplianceValidator(ComplianceRuleSet ruleSet) {
+        this.source = null;
+        this.ruleSet = ruleSet;
+        this.messageTypes = messageTypesOf(ruleSet);
+    }
+
+    private static Set<String> messageTypesOf(ComplianceRuleSet ruleSet) {
+        Set<String> types = new HashSet<>(ORDER_FLOW_TYPES);
+        types.addAll(ruleSet.getMessageTypes());
+        return Collections.unmodifiableSet(types);
+    }
+
     @Override
     public ValidationResult validate(Message message, ValidationContext context) {
-        List<String> details = new ArrayList<>();
-        
+        ValidationDetails details = ValidationDetails.begin();
+
         try {
             String msgType = message.getHeader().getString(MsgType.FIELD);
-            
-            // 根据消息类型应用相应的合规规则
-            List<ComplianceRule> applicableRules = getApplicableRules(msgType);
-            
-            for (ComplianceRule rule : applicableRules) {
-                ValidationResult result = rule.validate(message, context);
-                if (!result.isValid()) {
-                    details.addAll(result.getDetails());
-                }
+
+            // 根据消息类型应用预先编译的合规规则，各规则的违规明细记录在同一缓冲区中
+            for (ComplianceRule rule : ruleSet.rulesFor(msgType)) {
+                rule.validate(message, context, details);
             }
-            
-            return details.isEmpty() ? ValidationResult.success() : 
-                   ValidationResult.failure("Compliance validation failed", details);
-            
+
         } catch (Exception e) {
-            details.add("Compliance validation error: " + e.getMessage());
-            return ValidationResult.failure("Compliance validation failed", details);
+            details.add(ValidationError.VALIDATION_ERROR).arg("Compliance").arg(e.getMessage());
         }
+        return details.toResult("Compliance validation failed");
     }
-    
-    private List<ComplianceRule> getApplicableRules(String msgType) {
-        List<ComplianceRule> applicableRules = new ArrayList<>();
-        
-        // 所有消息都需要基础合规检查
-        applicableRules.add(rules.get("BASIC_AUTHENTICATION"));
-        
-        // 根据消息类型添加特定规则
-        switch (msgType) {
-            case MsgType.NEW_ORDER_SINGLE:
-                applicableRules.add(rules.get("ORDER_SIZE_LIMIT"));
-                applicableRules.add(rules.get("PRICE_LIMIT"));
-                applicableRules.add(rules.get("TRADING_HOURS"));
-                applicableRules.add(rules.get("SYMBOL_VALIDATION"));
-                break;
-            case MsgType.ORDER_CANCEL_REQUEST:
-                applicableRules.add(rules.get("CANCEL_PERMISSION"));
-                break;
-            case MsgType.ORDER_CANCEL_REPLACE_REQUEST:
-                applicableRules.add(rules.get("MODIFY_PERMISSION"));
-                applicableRules.add(rules.get("ORDER_SIZE_LIMIT"));
-                break;
+
+    /**
+     * 重新加载规则文件并替换当前规则集，加载失败时保留原规则集
+     */
+    public boolean reload() {
+        if (source == null) {
+            return false;
+        }
+        // 加载失败也记录修改时间，文件再次修改前不重复尝试
+        long modified = lastModified();
+        try {
+            ComplianceRuleSet loaded = ComplianceRuleSet.load(source);
+            if (!messageTypes.containsAll(loaded.getMessageTypes())) {
+                log.warn("Compliance rules {} configure message types outside {}; re-register the validator "
+                        + "to apply them", loaded.getName(), messageTypes);
+            }
+            ruleSet = loaded;
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Failed to reload compliance rules, keeping {}", ruleSet.getName(), e);
+            return false;
+        } finally {
+            sourceModified = modified;
         }
-        
-        return applicableRules;
     }
-    
-    private void initializeRules() {
-        rules.put("BASIC_AUTHENTICATION", new BasicAuthenticationRule());
-        rules.put("ORDER_SIZE_LIMIT", new OrderSizeLimitRule());
-        rules.put("PRICE_LIMIT", new PriceLimitRule());
-        rules.put("TRADING_HOURS", new TradingHoursRule());
-        rules.put("SYMBOL_VALIDATION", new SymbolValidationRule());
-        rules.put("CANCEL_PERMISSION", new CancelPermissionRule());
-        rules.put("MODIFY_PERMISSION", new ModifyPermissionRule());
+
+    /**
+     * 规则文件修改过时重新加载
+     */
+    public boolean reloadIfModified() {
+        return source != null && lastModified() != sourceModified && reload();
     }
-    
+
+    /**
+     * 按固定间隔检查规则文件，检查在单独的守护线程中进行
+     */
+    public synchronized void startAutoReload(long intervalMillis) {
+        if (reloader != null || source == null) {
+            return;
+        }
+        reloader = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "compliance-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reloader.scheduleWithFixedDelay(this::reloadIfModified, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+        log.info("Watching compliance rules {} every {}ms", source, intervalMillis);
+    }
+
+    public synchronized void stopAutoReload() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+            reloader = null;
+        }
+    }
+
+    private long lastModified() {
+        try {
+            return source != null ? Files.getLastModifiedTime(source).toMillis() : 0L;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    public ComplianceRuleSet getRuleSet() {
+        return ruleSet;
+    }
+
+    @Override
+    public Set<String> getMessageTypes() {
+        return messageTypes;
+    }
+
     @Override
     public String getName() {
         return "ComplianceValidator";
     }
-    
+
     @Override
     public int getPriority() {
         return 6;
@@ -95,7 +168,10 @@ public class ComplianceValidator implements MessageValidator {
  * 合规规则接口
  */
 interface ComplianceRule {
-    ValidationResult validate(Message message, ValidationContext context);
+    /**
+     * 检查消息，违规明细追加到details
+     */
+    void validate(Message message, ValidationContext context, ValidationDetails details);
     String getRuleName();
 }
 
@@ -104,28 +180,23 @@ interface ComplianceRule {
  */
 class BasicAuthenticationRule implements ComplianceRule {
     @Override
-    public ValidationResult validate(Message message, ValidationContext context) {
-        List<String> details = new ArrayList<>();
-        
+    public void validate(Message message, ValidationContext context, ValidationDetails details) {
         try {
             // 验证发送方身份
             String senderCompId = message.getHeader().getString(SenderCompID.FIELD);
             if (!isValidSender(senderCompId)) {
-                details.add("Invalid sender: " + senderCompId);
+                details.add(ValidationError.INVALID_SENDER).arg(senderCompId);
             }
             
             // 验证目标方身份
             String targetCompId = message.getHeader().getString(TargetCompID.FIELD);
             if (!isValidTarget(targetCompId)) {
-                details.add("Invalid target: " + targetCompId);
+                details.add(ValidationError.INVALID_TARGET).arg(targetCompId);
             }
             
         } catch (FieldNotFound e) {
-            details.add("Authentication fields missing: " + e.getMessage());
+            details.add(ValidationError.AUTHENTICATION_FIELDS_MISSING).arg(e.getMessage());
         }
-        
-        return details.isEmpty() ? ValidationResult.success() : 
-               ValidationResult.failure("Authentication failed", details);
     }
     
     private boolean isValidSender(String senderCompId) {
@@ -146,34 +217,36 @@ class BasicAuthenticationRule implements ComplianceRule {
 
 /**
  * 订单数量限制规则
+ * 限额按品种从参考数据中查找，未登记的品种使用默认限额
  */
 class OrderSizeLimitRule implements ComplianceRule {
-    private static final double MIN_ORDER_SIZE = 100.0;
-    private static final double MAX_ORDER_SIZE = 1000000.0;
-    
+    private final SymbolIndex symbols;
+
+    OrderSizeLimitRule(SymbolIndex symbols) {
+        this.symbols = symbols;
+    }
+
     @Override
-    public ValidationResult validate(Message message, ValidationContext context) {
-        List<String> details = new ArrayList<>();
-        
+    public void validate(Message message, ValidationContext context, ValidationDetails details) {
         try {
             if (message.isSetField(OrderQty.FIELD)) {
                 double orderQty = message.getDouble(OrderQty.FIELD);
+                int slot = message.isSetField(Symbol.FIELD) ? symbols.indexOf(message.getString(Symbol.FIELD)) : -1;
+                double minOrderSize = symbols.getMinQty(slot);
+                double maxOrderSize = symbols.getMaxQty(slot);
                 
-                if (orderQty < MIN_ORDER_SIZE) {
-                    details.add("Order size below minimum: " + orderQty + " < " + MIN_ORDER_SIZE);
+                if (orderQty < minOrderSize) {
+                    details.add(ValidationError.ORDER_SIZE_BELOW_MIN).arg(orderQty).arg(minOrderSize);
                 }
                 
-                if (orderQty > MAX_ORDER_SIZE) {
-                    details.add("Order size exceeds maximum: " + orderQty + " > " + MAX_ORDER_SIZE);
+                if (orderQty > maxOrderSize) {
+                    details.add(ValidationError.ORDER_SIZE_ABOVE_MAX).arg(orderQty).arg(maxOrderSize);
                 }
             }
             
         } catch (FieldNotFound e) {
-            details.add("OrderQty field missing: " + e.getMessage());
+            details.add(ValidationError.FIELD_MISSING).arg("OrderQty").arg(e.getMessage());
         }
-        
-        return details.isEmpty() ? ValidationResult.success() : 
-               ValidationResult.failure("Order size limit violated", details);
     }
     
     @Override
@@ -184,34 +257,36 @@ class OrderSizeLimitRule implements ComplianceRule {
 
 /**
  * 价格限制规则
+ * 限额按品种从参考数据中查找，未登记的品种使用默认限额
  */
 class PriceLimitRule implements ComplianceRule {
-    private static final double MIN_PRICE = 0.01;
-    private static final double MAX_PRICE = 10000.0;
-    
+    private final SymbolIndex symbols;
+
+    PriceLimitRule(SymbolIndex symbols) {
+        this.symbols = symbols;
+    }
+
     @Override
-    public ValidationResult validate(Message message, ValidationContext context) {
-        List<String> details = new ArrayList<>();
-        
+    public void validate(Message message, ValidationContext context, ValidationDetails details) {
         try {
             if (message.isSetField(Price.FIELD)) {
                 double price = message.getDouble(Price.FIELD);
+                int slot = message.isSetField(Symbol.FIELD) ? symbols.indexOf(message.getString(Symbol.FIELD)) : -1;
+                double minPrice = symbols.getMinPrice(slot);
+                double maxPrice = symbols.getMaxPrice(slot);
                 
-                if (price < MIN_PRICE) {
-                    details.add("Price below minimum: " + price + " < " + MIN_PRICE);
+                if (price < minPrice) {
+                    details.add(ValidationError.PRICE_BELOW_MIN).arg(price).arg(minPrice);
                 }
                 
-                if (price > MAX_PRICE) {
-                    details.add("Price exceeds maximum: " + price + " > " + MAX_PRICE);
+                if (price > maxPrice) {
+                    details.add(ValidationError.PRICE_ABOVE_MAX).arg(price).arg(maxPrice);
                 }
             }
             
         } catch (FieldNotFound e) {
-            details.add("Price field missing: " + e.getMessage());
+            details.add(ValidationError.FIELD_MISSING).arg("Price").arg(e.getMessage());
         }
-        
-        return details.isEmpty() ? ValidationResult.success() : 
-               ValidationResult.failure("Price limit violated", details);
     }
     
     @Override
@@ -222,36 +297,48 @@ class PriceLimitRule implements ComplianceRule {
 
 /**
  * 交易时间规则
+ * TransactTime直接解析为UTC毫秒，按ExDestination或SecurityExchange对应场所的交易日历判断，
+ * 通过时不创建对象
  */
 class TradingHoursRule implements ComplianceRule {
-    private static final int OPEN_HOUR = 9;
-    private static final int CLOSE_HOUR = 17;
-    
+    private final TradingCalendar calendar;
+
+    TradingHoursRule(TradingCalendar calendar) {
+        this.calendar = calendar;
+    }
+
     @Override
-    public ValidationResult validate(Message message, ValidationContext context) {
-        List<String> details = new ArrayList<>();
-        
+    public void validate(Message message, ValidationContext context, ValidationDetails details) {
         try {
             if (message.isSetField(TransactTime.FIELD)) {
-                java.util.Date transactTime = message.getUtcTimeStamp(TransactTime.FIELD);
-                java.util.Calendar calendar = java.util.Calendar.getInstance();
-                calendar.setTime(transactTime);
-                
-                int hour = calendar.get(java.util.Calendar.HOUR_OF_DAY);
-                
-                if (hour < OPEN_HOUR || hour >= CLOSE_HOUR) {
-                    details.add("Order placed outside trading hours: " + hour);
+                String transactTime = message.getString(TransactTime.FIELD);
+                long epochMillis = TradingCalendar.parseUtcTimestamp(transactTime);
+
+                if (epochMillis == Long.MIN_VALUE) {
+                    details.add(ValidationError.INVALID_TRANSACT_TIME).arg(transactTime);
+                } else if (!calendar.covers(epochMillis)) {
+                    details.add(ValidationError.OUTSIDE_CALENDAR_RANGE).arg(transactTime);
+                } else {
+                    String venue = venueOf(message);
+                    if (!calendar.isOpen(venue, epochMillis)) {
+                        details.add(ValidationError.OUTSIDE_TRADING_HOURS).arg(transactTime)
+                                .arg(calendar.hasVenue(venue) ? venue : calendar.getDefaultVenue());
+                    }
                 }
             }
-            
+
         } catch (FieldNotFound e) {
-            details.add("TransactTime field missing: " + e.getMessage());
+            details.add(ValidationError.FIELD_MISSING).arg("TransactTime").arg(e.getMessage());
         }
-        
-        return details.isEmpty() ? ValidationResult.success() : 
-               ValidationResult.failure("Trading hours violation", details);
     }
-    
+
+    private static String venueOf(Message message) throws FieldNotFound {
+        if (message.isSetField(ExDestination.FIELD)) {
+            return message.getString(ExDestination.FIELD);
+        }
+        return message.isSetField(SecurityExchange.FIELD) ? message.getString(SecurityExchange.FIELD) : null;
+    }
+
     @Override
     public String getRuleName() {
         return "TradingHoursRule";
@@ -262,27 +349,26 @@ class TradingHoursRule implements ComplianceRule {
  * 交易品种验证规则
  */
 class SymbolValidationRule implements ComplianceRule {
-    private static final Set<String> VALID_SYMBOLS = Set.of("AAPL", "GOOGL", "MSFT", "TSLA", "AMZN");
+    private final SymbolIndex symbols;
+
+    SymbolValidationRule(SymbolIndex symbols) {
+        this.symbols = symbols;
+    }
     
     @Override
-    public ValidationResult validate(Message message, ValidationContext context) {
-        List<String> details = new ArrayList<>();
-        
+    public void validate(Message message, ValidationContext context, ValidationDetails details) {
         try {
             if (message.isSetField(Symbol.FIELD)) {
                 String symbol = message.getString(Symbol.FIELD);
                 
-                if (!VALID_SYMBOLS.contains(symbol)) {
-                    details.add("Invalid symbol: " + symbol);
+                if (!symbols.contains(symbol)) {
+                    details.add(ValidationError.INVALID_SYMBOL).arg(symbol);
                 }
             }
             
         } catch (FieldNotFound e) {
-            details.add("Symbol field missing: " + e.getMessage());
+            details.add(ValidationError.FIELD_MISSING).arg("Symbol").arg(e.getMessage());
         }
-        
-        return details.isEmpty() ? ValidationResult.success() : 
-               ValidationResult.failure("Symbol validation failed", details);
     }
     
     @Override
@@ -296,9 +382,8 @@ class SymbolValidationRule implements ComplianceRule {
  */
 class CancelPermissionRule implements ComplianceRule {
     @Override
-    public ValidationResult validate(Message message, ValidationContext context) {
+    public void validate(Message message, ValidationContext context, ValidationDetails details) {
         // 实现取消权限检查
-        return ValidationResult.success();
     }
     
     @Override
@@ -312,9 +397,8 @@ class CancelPermissionRule implements ComplianceRule {
  */
 class ModifyPermissionRule implements ComplianceRule {
     @Override
-    public ValidationResult validate(Message message, ValidationContext context) {
+    public void validate(Message message, ValidationContext context, ValidationDetails details) {
         // 实现修改权限检查
-        return ValidationResult.success();
     }
     
     @Override
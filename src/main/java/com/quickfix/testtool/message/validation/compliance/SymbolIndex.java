@@ -0,0 +1,178 @@
+package com.quickfix.testtool.message.validation.compliance;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * 品种参考数据索引
+ * 品种代码及数量、价格限额按列保存在数组中，线性探测的开放寻址表（装载因子不超过0.5）；
+ * 构建后只读，可被多个验证线程无锁读取。未单独配置的限额在构建时填入默认值
+ */
+public final class SymbolIndex {
+    private final String[] symbols;
+    private final int[] hashes;
+    private final double[] minQty;
+    private final double[] maxQty;
+    private final double[] minPrice;
+    private final double[] maxPrice;
+    private final int mask;
+    private final int size;
+    private final Limits defaults;
+
+    private SymbolIndex(Builder builder) {
+        int capacity = Integer.highestOneBit(Math.max(8, builder.size * 2) - 1) << 1;
+        this.symbols = new String[capacity];
+        this.hashes = new int[capacity];
+        this.minQty = new double[capacity];
+        this.maxQty = new double[capacity];
+        this.minPrice = new double[capacity];
+        this.maxPrice = new double[capacity];
+        this.mask = capacity - 1;
+        this.defaults = builder.defaults;
+
+        int count = 0;
+        for (int i = 0; i < builder.size; i++) {
+            String symbol = builder.symbols[i];
+            int hash = hash(symbol);
+            int slot = hash & mask;
+            while (symbols[slot] != null && !symbols[slot].equals(symbol)) {
+                slot = (slot + 1) & mask;
+            }
+            if (symbols[slot] == null) {
+                count++;
+            }
+            // 重复的品种以后出现的定义为准
+            symbols[slot] = symbol;
+            hashes[slot] = hash;
+            minQty[slot] = orDefault(builder.limits[i * 4], defaults.minQty);
+            maxQty[slot] = orDefault(builder.limits[i * 4 + 1], defaults.maxQty);
+            minPrice[slot] = orDefault(builder.limits[i * 4 + 2], defaults.minPrice);
+            maxPrice[slot] = orDefault(builder.limits[i * 4 + 3], defaults.maxPrice);
+        }
+        this.size = count;
+    }
+
+    /**
+     * 品种所在槽位，不存在时返回-1
+     */
+    public int indexOf(String symbol) {
+        int hash = hash(symbol);
+        int slot = hash & mask;
+        String candidate;
+        while ((candidate = symbols[slot]) != null) {
+            if (hashes[slot] == hash && candidate.equals(symbol)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public boolean contains(String symbol) {
+        return indexOf(symbol) >= 0;
+    }
+
+    // 按槽位读取限额，slot为-1时返回默认限额
+    public double getMinQty(int slot) { return slot >= 0 ? minQty[slot] : defaults.minQty; }
+    public double getMaxQty(int slot) { return slot >= 0 ? maxQty[slot] : defaults.maxQty; }
+    public double getMinPrice(int slot) { return slot >= 0 ? minPrice[slot] : defaults.minPrice; }
+    public double getMaxPrice(int slot) { return slot >= 0 ? maxPrice[slot] : defaults.maxPrice; }
+
+    public int size() {
+        return size;
+    }
+
+    private static int hash(String symbol) {
+        int h = symbol.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static double orDefault(double value, double defaultValue) {
+        return Double.isNaN(value) ? defaultValue : value;
+    }
+
+    public static Builder builder(Limits defaults) {
+        return new Builder(defaults);
+    }
+
+    /**
+     * 限额，NaN表示未配置
+     */
+    public static final class Limits {
+        final double minQty;
+        final double maxQty;
+        final double minPrice;
+        final double maxPrice;
+
+        public Limits(double minQty, double maxQty, double minPrice, double maxPrice) {
+            this.minQty = minQty;
+            this.maxQty = maxQty;
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+        }
+    }
+
+    public static final class Builder {
+        private final Limits defaults;
+        private String[] symbols = new String[64];
+        private double[] limits = new double[64 * 4];
+        private int size;
+
+        private Builder(Limits defaults) {
+            this.defaults = defaults;
+        }
+
+        public Builder add(String symbol, double minQty, double maxQty, double minPrice, double maxPrice) {
+            if (size == symbols.length) {
+                symbols = Arrays.copyOf(symbols, size * 2);
+                limits = Arrays.copyOf(limits, size * 8);
+            }
+            symbols[size] = symbol;
+            limits[size * 4] = minQty;
+            limits[size * 4 + 1] = maxQty;
+            limits[size * 4 + 2] = minPrice;
+            limits[size * 4 + 3] = maxPrice;
+            size++;
+            return this;
+        }
+
+        /**
+         * 读取CSV参考数据：symbol,minQty,maxQty,minPrice,maxPrice，首行为表头，空白限额使用默认值
+         */
+        public Builder addCsv(Path file) throws IOException {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line = reader.readLine();
+                int lineNumber = 1;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isBlank() || line.startsWith("#")) {
+                        continue;
+                    }
+                    String[] columns = line.split(",", -1);
+                    try {
+                        add(columns[0].trim(), column(columns, 1), column(columns, 2), column(columns, 3),
+                                column(columns, 4));
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Invalid reference data at " + file + ":" + lineNumber, e);
+                    }
+                }
+            }
+            return this;
+        }
+
+        private static double column(String[] columns, int index) {
+            if (index >= columns.length || columns[index].isBlank()) {
+                return Double.NaN;
+            }
+            return Double.parseDouble(columns[index].trim());
+        }
+
+        public SymbolIndex build() {
+            return new SymbolIndex(this);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.quickfix.testtool.message.validation.compliance;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 交易日历
+ * 按场所预先计算日期范围内每个交易日的交易时段，以UTC毫秒边界保存在有序long[]中
+ * （偶数下标为开市、奇数下标为收市，区间左闭右开），判断时间戳是否在交易时段内只需一次二分查找，不创建对象。
+ * 场所可配置时区、交易日、多个时段（收市早于开市表示跨日）、节假日和提前收市的半日市
+ *
+ * 定义格式：
+ * {
+ *   "defaultVenue": "DEFAULT",
+ *   "from": "2020-01-01", "to": "2030-12-31",      可选，缺省为当年前后5年
+ *   "venues": {
+ *     "XNYS": {
+ *       "timeZone": "America/New_York",             可选，缺省为系统时区
+ *       "weekdays": ["MONDAY", ...],                可选，缺省为每天
+ *       "sessions": [{"open": "09:30", "close": "16:00"}],
+ *       "holidays": ["2024-12-25"],
+ *       "halfDays": {"2024-11-29": "13:00"}
+ *     }
+ *   }
+ * }
+ */
+public final class TradingCalendar {
+    private static final int DEFAULT_YEARS = 5;
+
+    private final Map<String, long[]> venues;
+    private final String defaultVenue;
+    private final long[] defaultBounds;
+    private final long rangeStart;
+    private final long rangeEnd;
+
+    private TradingCalendar(Definition definition) {
+        int year = LocalDate.now().getYear();
+        LocalDate from = definition.getFrom() != null ? LocalDate.parse(definition.getFrom())
+                : LocalDate.of(year - DEFAULT_YEARS, 1, 1);
+        LocalDate to = definition.getTo() != null ? LocalDate.parse(definition.getTo())
+                : LocalDate.of(year + DEFAULT_YEARS, 12, 31);
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Trading calendar range ends before it starts: " + from + " - " + to);
+        }
+
+        Map<String, VenueDefinition> venueDefinitions = definition.getVenues() != null
+                ? definition.getVenues() : Collections.emptyMap();
+        Map<String, long[]> compiled = new HashMap<>();
+        venueDefinitions.forEach((name, venue) -> compiled.put(name, compileVenue(name, venue, from, to)));
+        this.venues = Collections.unmodifiableMap(compiled);
+
+        this.defaultVenue = definition.getDefaultVenue() != null ? definition.getDefaultVenue()
+                : venueDefinitions.isEmpty() ? null : venueDefinitions.keySet().iterator().next();
+        if (defaultVenue != null && !venues.containsKey(defaultVenue)) {
+            throw new IllegalArgumentException("Unknown default venue in trading calendar: " + defaultVenue);
+        }
+        this.defaultBounds = defaultVenue != null ? venues.get(defaultVenue) : new long[0];
+        this.rangeStart = from.atStartOfDay(ZoneId.of("UTC")).minusDays(1).toInstant().toEpochMilli();
+        this.rangeEnd = to.atStartOfDay(ZoneId.of("UTC")).plusDays(2).toInstant().toEpochMilli();
+    }
+
+    public static TradingCalendar compile(Definition definition) {
+        return new TradingCalendar(definition);
+    }
+
+    private static long[] compileVenue(String name, VenueDefinition venue, LocalDate from, LocalDate to) {
+        ZoneId zone = venue.getTimeZone() != null ? ZoneId.of(venue.getTimeZone()) : ZoneId.systemDefault();
+        Set<DayOfWeek> weekdays = EnumSet.allOf(DayOfWeek.class);
+        if (venue.getWeekdays() != null) {
+            weekdays = EnumSet.noneOf(DayOfWeek.class);
+            for (String weekday : venue.getWeekdays()) {
+                weekdays.add(DayOfWeek.valueOf(weekday.trim().toUpperCase()));
+            }
+        }
+        Set<LocalDate> holidays = new HashSet<>();
+        if (venue.getHolidays() != null) {
+            for (String holiday : venue.getHolidays()) {
+                holidays.add(LocalDate.parse(holiday));
+            }
+        }
+        Map<LocalDate, LocalTime> halfDays = new HashMap<>();
+        if (venue.getHalfDays() != null) {
+            venue.getHalfDays().forEach((date, close) -> halfDays.put(LocalDate.parse(date), LocalTime.parse(close)));
+        }
+        if (venue.getSessions() == null || venue.getSessions().isEmpty()) {
+            throw new IllegalArgumentException("Venue " + name + " has no trading sessions");
+        }
+
+        // 先收集所有时段[开市, 收市)，排序后合并重叠部分
+        List<long[]> windows = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            if (!weekdays.contains(date.getDayOfWeek()) || holidays.contains(date)) {
+                continue;
+            }
+            long earlyClose = halfDays.containsKey(date)
+                    ? ZonedDateTime.of(date, halfDays.get(date), zone).toInstant().toEpochMilli() : Long.MAX_VALUE;
+            for (Session session : venue.getSessions()) {
+                LocalTime openTime = LocalTime.parse(session.getOpen());
+                LocalTime closeTime = LocalTime.parse(session.getClose());
+                long open = ZonedDateTime.of(date, openTime, zone).toInstant().toEpochMilli();
+                LocalDate closeDate = closeTime.isAfter(openTime) ? date : date.plusDays(1);
+                long close = Math.min(ZonedDateTime.of(closeDate, closeTime, zone).toInstant().toEpochMilli(), earlyClose);
+                if (close > open) {
+                    windows.add(new long[]{open, close});
+                }
+            }
+        }
+        windows.sort((a, b) -> Long.compare(a[0], b[0]));
+
+        long[] bounds = new long[windows.size() * 2];
+        int size = 0;
+        for (long[] window : windows) {
+            if (size > 0 && window[0] <= bounds[size - 1]) {
+                bounds[size - 1] = Math.max(bounds[size - 1], window[1]);
+            } else {
+                bounds[size++] = window[0];
+                bounds[size++] = window[1];
+            }
+        }
+        return Arrays.copyOf(bounds, size);
+    }
+
+    /**
+     * 时间戳是否在默认场所的交易时段内
+     */
+    public boolean isOpen(long epochMillis) {
+        return isOpen(defaultBounds, epochMillis);
+    }
+
+    /**
+     * 时间戳是否在指定场所的交易时段内，未配置的场所按默认场所判断
+     */
+    public boolean isOpen(String venue, long epochMillis) {
+        long[] bounds = venue != null ? venues.get(venue) : null;
+        return isOpen(bounds != null ? bounds : defaultBounds, epochMillis);
+    }
+
+    private static boolean isOpen(long[] bounds, long epochMillis) {
+        int index = Arrays.binarySearch(bounds, epochMillis);
+        if (index >= 0) {
+            // 恰好落在边界上：开市边界属于时段，收市边界不属于
+            return (index & 1) == 0;
+        }
+        return ((-index - 1) & 1) == 1;
+    }
+
+    /**
+     * 时间戳是否在预先计算的日期范围内
+     */
+    public boolean covers(long epochMillis) {
+        return epochMillis >= rangeStart && epochMillis < rangeEnd;
+    }
+
+    public boolean hasVenue(String venue) {
+        return venues.containsKey(venue);
+    }
+
+    public String getDefaultVenue() {
+        return defaultVenue;
+    }
+
+    /**
+     * 解析FIX UTCTimestamp（YYYYMMDD-HH:MM:SS[.sss...]）为UTC毫秒，不创建对象；格式不合法时返回Long.MIN_VALUE
+     */
+    public static long parseUtcTimestamp(CharSequence value) {
+        int length = value.length();
+        if (length < 17 || value.charAt(8) != '-' || value.charAt(11) != ':' || value.charAt(14) != ':') {
+            return Long.MIN_VALUE;
+        }
+        int year = digits(value, 0, 4);
+        int month = digits(value, 4, 2);
+        int day = digits(value, 6, 2);
+        int hour = digits(value, 9, 2);
+        int minute = digits(value, 12, 2);
+        int second = digits(value, 15, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23
+                || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            return Long.MIN_VALUE;
+        }
+        int millis = 0;
+        if (length > 17) {
+            // 小数秒最多9位，按位数换算为毫秒
+            int scale = length - 18;
+            if (value.charAt(17) != '.' || scale < 1 || scale > 9) {
+                return Long.MIN_VALUE;
+            }
+            int fraction = digits(value, 18, scale);
+            if (fraction < 0) {
+                return Long.MIN_VALUE;
+            }
+            for (; scale > 3; scale--) {
+                fraction /= 10;
+            }
+            for (; scale < 3; scale++) {
+                fraction *= 10;
+            }
+            millis = fraction;
+        }
+        return ((epochDay(year, month, day) * 24 + hour) * 60 + minute) * 60_000L + second * 1000L + millis;
+    }
+
+    private static int digits(CharSequence value, int start, int count) {
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    // 公历日期到1970-01-01的天数
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    /**
+     * 日历定义
+     */
+    public static class Definition {
+        private String defaultVenue;
+        private String from;
+        private String to;
+        private Map<String, VenueDefinition> venues;
+
+        public String getDefaultVenue() { return defaultVenue; }
+        public void setDefaultVenue(String defaultVenue) { this.defaultVenue = defaultVenue; }
+
+        public String getFrom() { return from; }
+        public void setFrom(String from) { this.from = from; }
+
+        public String getTo() { return to; }
+        public void setTo(String to) { this.to = to; }
+
+        public Map<String, VenueDefinition> getVenues() { return venues; }
+        public void setVenues(Map<String, VenueDefinition> venues) { this.venues = venues; }
+    }
+
+    /**
+     * 场所定义
+     */
+    public static class VenueDefinition {
+        private String timeZone;
+        private List<String> weekdays;
+        private List<Session> sessions;
+        private List<String> holidays;
+        private Map<String, String> halfDays;
+
+        public String getTimeZone() { return timeZone; }
+        public void setTimeZone(String timeZone) { this.timeZone = timeZone; }
+
+        public List<String> getWeekdays() { return weekdays; }
+        public void setWeekdays(List<String> weekdays) { this.weekdays = weekdays; }
+
+        public List<Session> getSessions() { return sessions; }
+        public void setSessions(List<Session> sessions) { this.sessions = sessions; }
+
+        public List<String> getHolidays() { return holidays; }
+        public void setHolidays(List<String> holidays) { this.holidays = holidays; }
+
+        public Map<String, String> getHalfDays() { return halfDays; }
+        public void setHalfDays(Map<String, String> halfDays) { this.halfDays = halfDays; }
+    }
+
+    /**
+     * 交易时段，时间为场所当地时间
+     */
+    public static class Session {
+        private String open;
+        private String close;
+
+        public String getOpen() { return open; }
+        public void setOpen(String open) { this.open = open; }
+
+        public String getClose() { return close; }
+        public void setClose(String close) { this.close = close; }
+    }
+}
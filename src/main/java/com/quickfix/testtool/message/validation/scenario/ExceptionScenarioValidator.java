@@ -10,6 +10,9 @@ import java.util.*;
  */
 public class ExceptionScenarioValidator implements MessageValidator {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ExceptionScenarioValidator.class);
+    // 字段类型、枚举和数值范围检查涉及的订单类消息及其响应
+    private static final Set<String> MESSAGE_TYPES = Set.of(MsgType.ORDER_SINGLE, MsgType.ORDER_CANCEL_REQUEST,
+            MsgType.ORDER_CANCEL_REPLACE_REQUEST, MsgType.EXECUTION_REPORT, MsgType.ORDER_CANCEL_REJECT);
     
     // 异常场景配置
     private final Map<String, ExceptionScenario> scenarios = new HashMap<>();
@@ -248,6 +251,11 @@ public class ExceptionScenarioValidator implements MessageValidator {
         scenarios.put("ENUM_OUT_OF_RANGE", new EnumOutOfRangeScenario());
     }
     
+    @Override
+    public Set<String> getMessageTypes() {
+        return MESSAGE_TYPES;
+    }
+    
     @Override
     public String getName() {
         return "ExceptionScenarioValidator";
@@ -0,0 +1,215 @@
+package com.quickfix.testtool.message.validation.scenario;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译后的订单生命周期
+ * 由JSON定义的OrdStatus状态转换、可撤/可改状态、终结状态以及可选的OrdStatus/ExecType组合
+ * 编译为以状态字符为下标的稠密布尔矩阵，每次判断只读一次数组。
+ * 默认使用类路径下的lifecycles/default.json，可通过-Dtesttool.lifecycle指定场所特有的定义文件
+ *
+ * 定义格式（状态可写单字符代码或名称，如"0"或"NEW"）：
+ * {
+ *   "name": "default",
+ *   "transitions": {"NEW": ["PARTIALLY_FILLED", "FILLED"], ...},
+ *   "cancellable": ["NEW", ...],
+ *   "modifiable": ["NEW", ...],
+ *   "terminal": ["FILLED", ...],
+ *   "execTypes": {"NEW": ["NEW"], ...}          可选，缺省时不检查ExecType
+ * }
+ */
+public final class OrderLifecycle {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(OrderLifecycle.class);
+
+    public static final String LIFECYCLE_PROPERTY = "testtool.lifecycle";
+    private static final String DEFAULT_RESOURCE = "/lifecycles/default.json";
+
+    // FIX状态代码均为ASCII字符
+    private static final int CODES = 128;
+
+    private static final Map<String, Character> ORD_STATUS_NAMES = names(
+            "NEW", '0', "PARTIALLY_FILLED", '1', "FILLED", '2', "DONE_FOR_DAY", '3', "CANCELED", '4',
+            "REPLACED", '5', "PENDING_CANCEL", '6', "STOPPED", '7', "REJECTED", '8', "SUSPENDED", '9',
+            "PENDING_NEW", 'A', "CALCULATED", 'B', "EXPIRED", 'C', "ACCEPTED_FOR_BIDDING", 'D',
+            "PENDING_REPLACE", 'E');
+    private static final Map<String, Character> EXEC_TYPE_NAMES = names(
+            "NEW", '0', "PARTIAL_FILL", '1', "FILL", '2', "DONE_FOR_DAY", '3', "CANCELED", '4',
+            "REPLACED", '5', "PENDING_CANCEL", '6', "STOPPED", '7', "REJECTED", '8', "SUSPENDED", '9',
+            "PENDING_NEW", 'A', "CALCULATED", 'B', "EXPIRED", 'C', "RESTATED", 'D', "PENDING_REPLACE", 'E',
+            "TRADE", 'F', "TRADE_CORRECT", 'G', "TRADE_CANCEL", 'H', "ORDER_STATUS", 'I');
+
+    private final String name;
+    // [from * CODES + to]
+    private final boolean[] transitions = new boolean[CODES * CODES];
+    private final boolean[] cancellable = new boolean[CODES];
+    private final boolean[] modifiable = new boolean[CODES];
+    private final boolean[] terminal = new boolean[CODES];
+    // [ordStatus * CODES + execType]，未定义时为null
+    private final boolean[] execTypes;
+
+    private OrderLifecycle(Definition definition) {
+        this.name = definition.getName() != null ? definition.getName() : "unnamed";
+        if (definition.getTransitions() != null) {
+            definition.getTransitions().forEach((from, targets) -> {
+                char fromStatus = code(from, ORD_STATUS_NAMES);
+                for (String to : targets) {
+                    transitions[fromStatus * CODES + code(to, ORD_STATUS_NAMES)] = true;
+                }
+            });
+        }
+        mark(cancellable, definition.getCancellable());
+        mark(modifiable, definition.getModifiable());
+        mark(terminal, definition.getTerminal());
+
+        if (definition.getExecTypes() != null && !definition.getExecTypes().isEmpty()) {
+            execTypes = new boolean[CODES * CODES];
+            definition.getExecTypes().forEach((status, types) -> {
+                char ordStatus = code(status, ORD_STATUS_NAMES);
+                for (String type : types) {
+                    execTypes[ordStatus * CODES + code(type, EXEC_TYPE_NAMES)] = true;
+                }
+            });
+        } else {
+            execTypes = null;
+        }
+    }
+
+    /**
+     * 默认生命周期：指定了testtool.lifecycle时从该文件加载，否则使用内置定义
+     */
+    public static OrderLifecycle defaultLifecycle() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    public static OrderLifecycle load(Path file) {
+        try {
+            return compile(new ObjectMapper().readValue(file.toFile(), Definition.class));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load order lifecycle: " + file, e);
+        }
+    }
+
+    public static OrderLifecycle compile(Definition definition) {
+        OrderLifecycle lifecycle = new OrderLifecycle(definition);
+        log.info("Compiled order lifecycle: {}", lifecycle.name);
+        return lifecycle;
+    }
+
+    private static OrderLifecycle loadResource(String resource) {
+        try (InputStream input = OrderLifecycle.class.getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IllegalStateException("Order lifecycle resource not found: " + resource);
+            }
+            return compile(new ObjectMapper().readValue(input, Definition.class));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load order lifecycle: " + resource, e);
+        }
+    }
+
+    public boolean isValidTransition(char from, char to) {
+        return from < CODES && to < CODES && transitions[from * CODES + to];
+    }
+
+    public boolean isCancellable(char status) {
+        return status < CODES && cancellable[status];
+    }
+
+    public boolean isModifiable(char status) {
+        return status < CODES && modifiable[status];
+    }
+
+    public boolean isTerminal(char status) {
+        return status < CODES && terminal[status];
+    }
+
+    /**
+     * 是否定义了OrdStatus/ExecType组合
+     */
+    public boolean checksExecTypes() {
+        return execTypes != null;
+    }
+
+    /**
+     * OrdStatus与ExecType组合是否合法，未定义组合表时总是合法
+     */
+    public boolean isValidExecType(char ordStatus, char execType) {
+        return execTypes == null || (ordStatus < CODES && execType < CODES && execTypes[ordStatus * CODES + execType]);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private static void mark(boolean[] table, List<String> statuses) {
+        if (statuses != null) {
+            for (String status : statuses) {
+                table[code(status, ORD_STATUS_NAMES)] = true;
+            }
+        }
+    }
+
+    private static char code(String token, Map<String, Character> names) {
+        String trimmed = token.trim();
+        Character named = names.get(trimmed.toUpperCase());
+        if (named != null) {
+            return named;
+        }
+        if (trimmed.length() == 1 && trimmed.charAt(0) < CODES) {
+            return trimmed.charAt(0);
+        }
+        throw new IllegalArgumentException("Unknown status code in order lifecycle: " + token);
+    }
+
+    private static Map<String, Character> names(Object... pairs) {
+        Map<String, Character> names = new HashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            names.put((String) pairs[i], (Character) pairs[i + 1]);
+        }
+        return Collections.unmodifiableMap(names);
+    }
+
+    private static final class DefaultHolder {
+        private static final OrderLifecycle INSTANCE = System.getProperty(LIFECYCLE_PROPERTY) != null
+                ? load(Paths.get(System.getProperty(LIFECYCLE_PROPERTY)))
+                : loadResource(DEFAULT_RESOURCE);
+    }
+
+    /**
+     * 生命周期定义
+     */
+    public static class Definition {
+        private String name;
+        private Map<String, List<String>> transitions;
+        private List<String> cancellable;
+        private List<String> modifiable;
+        private List<String> terminal;
+        private Map<String, List<String>> execTypes;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public Map<String, List<String>> getTransitions() { return transitions; }
+        public void setTransitions(Map<String, List<String>> transitions) { this.transitions = transitions; }
+
+        public List<String> getCancellable() { return cancellable; }
+        public void setCancellable(List<String> cancellable) { this.cancellable = cancellable; }
+
+        public List<String> getModifiable() { return modifiable; }
+        public void setModifiable(List<String> modifiable) { this.modifiable = modifiable; }
+
+        public List<String> getTerminal() { return terminal; }
+        public void setTerminal(List<String> terminal) { this.terminal = terminal; }
+
+        public Map<String, List<String>> getExecTypes() { return execTypes; }
+        public void setExecTypes(Map<String, List<String>> execTypes) { this.execTypes = execTypes; }
+    }
+}
@@ -3,7 +3,6 @@ package com.quickfix.testtool.message.validation.scenario;
 import quickfix.*;
 import quickfix.field.*;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 订单生命周期验证器
@@ -12,18 +11,37 @@ import java.util.concurrent.ConcurrentHashMap;
 public class OrderLifecycleValidator implements MessageValidator {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(OrderLifecycleValidator.class);
     
-    // 订单状态跟踪
-    private final Map<String, OrderState> orderStates = new ConcurrentHashMap<>();
+    private static final Set<String> MESSAGE_TYPES = Set.of(MsgType.ORDER_SINGLE, MsgType.ORDER_CANCEL_REQUEST,
+            MsgType.ORDER_CANCEL_REPLACE_REQUEST, MsgType.EXECUTION_REPORT);
+    private static final int MAX_CHAIN_DEPTH = 64;
+    
+    // 状态转换规则，可按场所替换
+    private final OrderLifecycle lifecycle;
+    // 订单状态跟踪，终结订单退役、空闲订单过期，可选堆外保存
+    private final OrderStateStore orderStates;
+    
+    public OrderLifecycleValidator() {
+        this(OrderLifecycle.defaultLifecycle());
+    }
+    
+    public OrderLifecycleValidator(OrderLifecycle lifecycle) {
+        this(lifecycle, new OrderStateStore(lifecycle));
+    }
+    
+    public OrderLifecycleValidator(OrderLifecycle lifecycle, OrderStateStore orderStates) {
+        this.lifecycle = lifecycle;
+        this.orderStates = orderStates;
+    }
     
     @Override
     public ValidationResult validate(Message message, ValidationContext context) {
-        List<String> details = new ArrayList<>();
+        ValidationDetails details = ValidationDetails.begin();
         
         try {
             String msgType = message.getHeader().getString(MsgType.FIELD);
             
             switch (msgType) {
-                case MsgType.NEW_ORDER_SINGLE:
+                case MsgType.ORDER_SINGLE:
                     return validateNewOrder(message, details);
                 case MsgType.ORDER_CANCEL_REQUEST:
                     return validateCancelRequest(message, details);
@@ -36,19 +54,19 @@ public class OrderLifecycleValidator implements MessageValidator {
             }
             
         } catch (Exception e) {
-            details.add("Order lifecycle validation error: " + e.getMessage());
-            return ValidationResult.failure("Order lifecycle validation failed", details);
+            details.add(ValidationError.VALIDATION_ERROR).arg("Order lifecycle").arg(e.getMessage());
+            return details.toResult("Order lifecycle validation failed");
         }
     }
     
-    private ValidationResult validateNewOrder(Message message, List<String> details) {
+    private ValidationResult validateNewOrder(Message message, ValidationDetails details) {
         try {
             String clOrdId = message.getString(ClOrdID.FIELD);
             
             // 检查订单ID是否已存在
-            if (orderStates.containsKey(clOrdId)) {
-                details.add("Duplicate order ID: " + clOrdId);
-                return ValidationResult.failure("New order validation failed", details);
+            if (orderStates.contains(clOrdId)) {
+                details.add(ValidationError.DUPLICATE_ORDER_ID).arg(clOrdId);
+                return details.toResult("New order validation failed");
             }
             
             // 创建新的订单状态
@@ -59,18 +77,18 @@ public class OrderLifecycleValidator implements MessageValidator {
             state.setStatus(OrdStatus.NEW);
             state.setTimestamp(System.currentTimeMillis());
             
-            orderStates.put(clOrdId, state);
+            orderStates.put(state);
             
             log.info("Created new order: {}", clOrdId);
             return ValidationResult.success();
             
         } catch (FieldNotFound e) {
-            details.add("Required field missing in new order: " + e.getMessage());
-            return ValidationResult.failure("New order validation failed", details);
+            details.add(ValidationError.REQUIRED_FIELD_MISSING_IN).arg("new order").arg(e.getMessage());
+            return details.toResult("New order validation failed");
         }
     }
     
-    private ValidationResult validateCancelRequest(Message message, List<String> details) {
+    private ValidationResult validateCancelRequest(Message message, ValidationDetails details) {
         try {
             String clOrdId = message.getString(ClOrdID.FIELD);
             String origClOrdId = message.getString(OrigClOrdID.FIELD);
@@ -78,14 +96,14 @@ public class OrderLifecycleValidator implements MessageValidator {
             // 检查原始订单是否存在
             OrderState originalState = orderStates.get(origClOrdId);
             if (originalState == null) {
-                details.add("Original order not found: " + origClOrdId);
-                return ValidationResult.failure("Cancel request validation failed", details);
+                details.add(ValidationError.ORIGINAL_ORDER_NOT_FOUND).arg(origClOrdId);
+                return details.toResult("Cancel request validation failed");
             }
             
             // 检查订单状态是否允许取消
-            if (!isCancellable(originalState.getStatus())) {
-                details.add("Order cannot be cancelled in status: " + originalState.getStatus());
-                return ValidationResult.failure("Cancel request validation failed", details);
+            if (!lifecycle.isCancellable(originalState.getStatus())) {
+                details.add(ValidationError.NOT_CANCELLABLE).arg(originalState.getStatus());
+                return details.toResult("Cancel request validation failed");
             }
             
             // 创建取消订单状态
@@ -94,18 +112,18 @@ public class OrderLifecycleValidator implements MessageValidator {
             cancelState.setStatus(OrdStatus.PENDING_CANCEL);
             cancelState.setTimestamp(System.currentTimeMillis());
             
-            orderStates.put(clOrdId, cancelState);
+            orderStates.put(cancelState);
             
             log.info("Created cancel request: {} for order: {}", clOrdId, origClOrdId);
             return ValidationResult.success();
             
         } catch (FieldNotFound e) {
-            details.add("Required field missing in cancel request: " + e.getMessage());
-            return ValidationResult.failure("Cancel request validation failed", details);
+            details.add(ValidationError.REQUIRED_FIELD_MISSING_IN).arg("cancel request").arg(e.getMessage());
+            return details.toResult("Cancel request validation failed");
         }
     }
     
-    private ValidationResult validateModifyRequest(Message message, List<String> details) {
+    private ValidationResult validateModifyRequest(Message message, ValidationDetails details) {
         try {
             String clOrdId = message.getString(ClOrdID.FIELD);
             String origClOrdId = message.getString(OrigClOrdID.FIELD);
@@ -113,14 +131,14 @@ public class OrderLifecycleValidator implements MessageValidator {
             // 检查原始订单是否存在
             OrderState originalState = orderStates.get(origClOrdId);
             if (originalState == null) {
-                details.add("Original order not found: " + origClOrdId);
-                return ValidationResult.failure("Modify request validation failed", details);
+                details.add(ValidationError.ORIGINAL_ORDER_NOT_FOUND).arg(origClOrdId);
+                return details.toResult("Modify request validation failed");
             }
             
             // 检查订单状态是否允许修改
-            if (!isModifiable(originalState.getStatus())) {
-                details.add("Order cannot be modified in status: " + originalState.getStatus());
-                return ValidationResult.failure("Modify request validation failed", details);
+            if (!lifecycle.isModifiable(originalState.getStatus())) {
+                details.add(ValidationError.NOT_MODIFIABLE).arg(originalState.getStatus());
+                return details.toResult("Modify request validation failed");
             }
             
             // 验证修改参数的合理性
@@ -128,13 +146,13 @@ public class OrderLifecycleValidator implements MessageValidator {
             double originalQty = originalState.getOriginalQty();
             
             if (newQty <= 0) {
-                details.add("New quantity must be positive: " + newQty);
-                return ValidationResult.failure("Modify request validation failed", details);
+                details.add(ValidationError.NON_POSITIVE_NEW_QTY).arg(newQty);
+                return details.toResult("Modify request validation failed");
             }
             
             if (newQty > originalQty) {
-                details.add("Cannot increase order quantity: " + newQty + " > " + originalQty);
-                return ValidationResult.failure("Modify request validation failed", details);
+                details.add(ValidationError.ORDER_QTY_INCREASED).arg(newQty).arg(originalQty);
+                return details.toResult("Modify request validation failed");
             }
             
             // 创建修改订单状态
@@ -145,18 +163,18 @@ public class OrderLifecycleValidator implements MessageValidator {
             modifyState.setStatus(OrdStatus.PENDING_REPLACE);
             modifyState.setTimestamp(System.currentTimeMillis());
             
-            orderStates.put(clOrdId, modifyState);
+            orderStates.put(modifyState);
             
             log.info("Created modify request: {} for order: {}", clOrdId, origClOrdId);
             return ValidationResult.success();
             
         } catch (FieldNotFound e) {
-            details.add("Required field missing in modify request: " + e.getMessage());
-            return ValidationResult.failure("Modify request validation failed", details);
+            details.add(ValidationError.REQUIRED_FIELD_MISSING_IN).arg("modify request").arg(e.getMessage());
+            return details.toResult("Modify request validation failed");
         }
     }
     
-    private ValidationResult validateExecutionReport(Message message, List<String> details) {
+    private ValidationResult validateExecutionReport(Message message, ValidationDetails details) {
         try {
             String clOrdId = message.getString(ClOrdID.FIELD);
             String orderId = message.getString(OrderID.FIELD);
@@ -166,15 +184,19 @@ public class OrderLifecycleValidator implements MessageValidator {
             // 查找对应的订单状态
             OrderState orderState = findOrderState(clOrdId);
             if (orderState == null) {
-                details.add("Order not found for execution report: " + clOrdId);
-                return ValidationResult.failure("Execution report validation failed", details);
+                details.add(ValidationError.ORDER_NOT_FOUND).arg(clOrdId);
+                return details.toResult("Execution report validation failed");
             }
             
             // 验证状态转换的合理性
-            if (!isValidStatusTransition(orderState.getStatus(), ordStatus)) {
-                details.add(String.format("Invalid status transition: %c -> %c", 
-                        orderState.getStatus(), ordStatus));
-                return ValidationResult.failure("Execution report validation failed", details);
+            if (!lifecycle.isValidTransition(orderState.getStatus(), ordStatus)) {
+                details.add(ValidationError.INVALID_STATUS_TRANSITION).arg(orderState.getStatus()).arg(ordStatus);
+                return details.toResult("Execution report validation failed");
+            }
+            
+            if (!lifecycle.isValidExecType(ordStatus, execType)) {
+                details.add(ValidationError.INVALID_EXEC_TYPE).arg(execType).arg(ordStatus).arg(lifecycle.getName());
+                return details.toResult("Execution report validation failed");
             }
             
             // 验证成交数量的合理性
@@ -184,16 +206,15 @@ public class OrderLifecycleValidator implements MessageValidator {
                 double originalQty = orderState.getOriginalQty();
                 
                 if (lastShares < 0) {
-                    details.add("Last shares must be non-negative: " + lastShares);
+                    details.add(ValidationError.NEGATIVE_LAST_SHARES).arg(lastShares);
                 }
                 
                 if (cumulativeQty > originalQty) {
-                    details.add("Cumulative quantity exceeds original quantity: " + 
-                            cumulativeQty + " > " + originalQty);
+                    details.add(ValidationError.CUM_QTY_EXCEEDS_ORDER_QTY).arg(cumulativeQty).arg(originalQty);
                 }
                 
                 if (Math.abs(cumulativeQty - (orderState.getCumulativeQty() + lastShares)) > 0.001) {
-                    details.add("Cumulative quantity calculation mismatch");
+                    details.add(ValidationError.CUM_QTY_MISMATCH);
                 }
             }
             
@@ -201,7 +222,7 @@ public class OrderLifecycleValidator implements MessageValidator {
             if (message.isSetField(LastPx.FIELD)) {
                 double lastPx = message.getDouble(LastPx.FIELD);
                 if (lastPx <= 0) {
-                    details.add("Last price must be positive: " + lastPx);
+                    details.add(ValidationError.NON_POSITIVE_LAST_PX).arg(lastPx);
                 }
             }
             
@@ -212,13 +233,14 @@ public class OrderLifecycleValidator implements MessageValidator {
                 orderState.setCumulativeQty(message.getDouble(CumQty.FIELD));
             }
             orderState.setLastUpdateTime(System.currentTimeMillis());
+            orderStates.put(orderState);
             
             log.info("Updated order state: {} -> {}", clOrdId, ordStatus);
             return ValidationResult.success();
             
         } catch (FieldNotFound e) {
-            details.add("Required field missing in execution report: " + e.getMessage());
-            return ValidationResult.failure("Execution report validation failed", details);
+            details.add(ValidationError.REQUIRED_FIELD_MISSING_IN).arg("execution report").arg(e.getMessage());
+            return details.toResult("Execution report validation failed");
         }
     }
     
@@ -229,41 +251,47 @@ public class OrderLifecycleValidator implements MessageValidator {
             return state;
         }
         
-        // 查找关联的原始订单
-        for (OrderState order : orderStates.values()) {
-            if (clOrdId.equals(order.getOriginalOrderId())) {
-                return order;
-            }
-        }
-        
-        return null;
+        // 查找以该订单为原订单的撤单或改单
+        return orderStates.findByOriginalOrderId(clOrdId);
     }
     
-    private boolean isCancellable(char status) {
-        return status == OrdStatus.NEW || 
-               status == OrdStatus.PARTIALLY_FILLED || 
-               status == OrdStatus.PENDING_CANCEL;
+    @Override
+    public Set<String> getMessageTypes() {
+        return MESSAGE_TYPES;
     }
     
-    private boolean isModifiable(char status) {
-        return status == OrdStatus.NEW || 
-               status == OrdStatus.PARTIALLY_FILLED || 
-               status == OrdStatus.PENDING_REPLACE;
+    /**
+     * 撤单、改单及其回报归到订单链的根ClOrdID，使同一订单链上的状态读写串行：
+     * 先取OrigClOrdID（没有时取ClOrdID），再沿已记录的原订单号回溯到链首
+     */
+    @Override
+    public String getOrderingKey(Message message) {
+        try {
+            String key;
+            if (message.isSetField(OrigClOrdID.FIELD)) {
+                key = message.getString(OrigClOrdID.FIELD);
+            } else if (message.isSetField(ClOrdID.FIELD)) {
+                key = message.getString(ClOrdID.FIELD);
+            } else {
+                return "";
+            }
+            return rootClOrdId(key);
+        } catch (FieldNotFound e) {
+            return "";
+        }
     }
     
-    private boolean isValidStatusTransition(char fromStatus, char toStatus) {
-        // 定义合法的状态转换
-        Map<Character, Set<Character>> validTransitions = Map.of(
-            OrdStatus.NEW, Set.of(OrdStatus.NEW, OrdStatus.PARTIALLY_FILLED, OrdStatus.FILLED, 
-                                 OrdStatus.CANCELED, OrdStatus.PENDING_CANCEL, OrdStatus.PENDING_REPLACE),
-            OrdStatus.PARTIALLY_FILLED, Set.of(OrdStatus.PARTIALLY_FILLED, OrdStatus.FILLED, 
-                                              OrdStatus.CANCELED, OrdStatus.PENDING_CANCEL, OrdStatus.PENDING_REPLACE),
-            OrdStatus.PENDING_CANCEL, Set.of(OrdStatus.CANCELED, OrdStatus.PARTIALLY_FILLED),
-            OrdStatus.PENDING_REPLACE, Set.of(OrdStatus.REPLACED, OrdStatus.PARTIALLY_FILLED)
-        );
-        
-        Set<Character> validTargets = validTransitions.getOrDefault(fromStatus, Set.of());
-        return validTargets.contains(toStatus);
+    private String rootClOrdId(String clOrdId) {
+        String root = clOrdId;
+        // 限制回溯深度，防止异常数据形成环
+        for (int depth = 0; depth < MAX_CHAIN_DEPTH; depth++) {
+            OrderState state = orderStates.get(root);
+            if (state == null || state.getOriginalOrderId() == null) {
+                break;
+            }
+            root = state.getOriginalOrderId();
+        }
+        return root;
     }
     
     @Override
@@ -276,6 +304,10 @@ public class OrderLifecycleValidator implements MessageValidator {
         return 4;
     }
     
+    public OrderStateStore getOrderStates() {
+        return orderStates;
+    }
+    
     /**
      * 订单状态类
      */
@@ -0,0 +1,618 @@
+package com.quickfix.testtool.message.validation.scenario;
+
+import com.quickfix.testtool.message.validation.scenario.OrderLifecycleValidator.OrderState;
+import quickfix.field.OrdStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 订单状态存储
+ * 按ClOrdID哈希分段，每段独立加锁；订单进入生命周期定义的终结状态（默认为成交、撤销、被替换、拒绝、过期）后
+ * 经过宽限期退役，撤单或改单被接受后原订单同样退役；超过空闲时限未更新的订单和超出容量时最久未访问的订单也会被淘汰。
+ * 堆外模式下订单以定长记录保存在直接内存的开放寻址表中，堆上不保留每笔订单的对象，
+ * 用于千万级在途订单的浸泡测试；标识超过定长或含ISO-8859-1以外字符的记录退回堆内保存
+ */
+public class OrderStateStore {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(OrderStateStore.class);
+
+    public static final String OFF_HEAP_PROPERTY = "testtool.orderState.offHeap";
+    public static final String CAPACITY_PROPERTY = "testtool.orderState.capacity";
+    public static final String RETIRE_GRACE_PROPERTY = "testtool.orderState.retireGraceMillis";
+    public static final String IDLE_TTL_PROPERTY = "testtool.orderState.idleTtlMillis";
+
+    private static final int DEFAULT_CAPACITY = 1_000_000;
+    private static final long DEFAULT_RETIRE_GRACE_MILLIS = 60_000;
+    private static final int SHARD_BITS = 4;
+    // 撤单、改单记录原订单到新订单的链接，键加上SOH前缀以免与ClOrdID冲突
+    private static final char LINK_PREFIX = '\u0001';
+
+    private final OrderLifecycle lifecycle;
+    private final Shard[] shards;
+    private final long retireGraceMillis;
+    private final long idleTtlMillis;
+    private final boolean offHeap;
+    private final LongAdder retired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public OrderStateStore(OrderLifecycle lifecycle) {
+        this(lifecycle, Boolean.getBoolean(OFF_HEAP_PROPERTY), Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY),
+                Long.getLong(RETIRE_GRACE_PROPERTY, DEFAULT_RETIRE_GRACE_MILLIS), Long.getLong(IDLE_TTL_PROPERTY, 0L));
+    }
+
+    /**
+     * @param capacity 最多保存的订单数（含撤单、改单链接）
+     * @param retireGraceMillis 终结状态订单保留的宽限期
+     * @param idleTtlMillis 未更新订单的存活时限，0表示不按空闲淘汰
+     */
+    public OrderStateStore(OrderLifecycle lifecycle, boolean offHeap, int capacity, long retireGraceMillis,
+                           long idleTtlMillis) {
+        this.lifecycle = lifecycle;
+        this.offHeap = offHeap;
+        this.retireGraceMillis = retireGraceMillis;
+        this.idleTtlMillis = idleTtlMillis;
+        int shardCapacity = Math.max(16, capacity >> SHARD_BITS);
+        this.shards = new Shard[1 << SHARD_BITS];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = offHeap ? new OffHeapShard(shardCapacity) : new HeapShard(shardCapacity);
+        }
+        log.info("Order state store: {} mode, capacity {}, retire grace {} ms, idle TTL {} ms",
+                offHeap ? "off-heap" : "heap", (long) shardCapacity << SHARD_BITS, retireGraceMillis, idleTtlMillis);
+    }
+
+    /**
+     * 返回订单状态；堆外模式下返回副本，修改后需调用put写回
+     */
+    public OrderState get(String clOrdId) {
+        int hash = hash(clOrdId);
+        Shard shard = shardFor(hash);
+        shard.lock.lock();
+        try {
+            return shard.get(clOrdId, hash);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    public boolean contains(String clOrdId) {
+        return get(clOrdId) != null;
+    }
+
+    /**
+     * 保存订单状态，撤单和改单同时登记原订单到本订单的链接；
+     * 撤单或改单离开待定状态（已被接受）时，原订单在宽限期后退役
+     */
+    public void put(OrderState state) {
+        long now = System.currentTimeMillis();
+        long retireAt = lifecycle.isTerminal(state.getStatus()) ? now + retireGraceMillis : 0;
+        store(state.getClOrdId(), state, now, retireAt);
+
+        if (state.getOriginalOrderId() != null) {
+            OrderState link = new OrderState(LINK_PREFIX + state.getOriginalOrderId());
+            link.setOriginalOrderId(state.getClOrdId());
+            link.setStatus(state.getStatus());
+            store(link.getClOrdId(), link, now, retireAt);
+            if (isAccepted(state.getStatus())) {
+                retire(state.getOriginalOrderId(), now + retireGraceMillis);
+            }
+        }
+    }
+
+    private static boolean isAccepted(char status) {
+        return status != OrdStatus.PENDING_CANCEL && status != OrdStatus.PENDING_REPLACE
+                && status != OrdStatus.REJECTED;
+    }
+
+    /**
+     * 为尚未排期的订单设置退役时刻，订单不存在时忽略
+     */
+    private void retire(String key, long retireAt) {
+        int hash = hash(key);
+        Shard shard = shardFor(hash);
+        shard.lock.lock();
+        try {
+            shard.retire(key, hash, retireAt);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * 按原订单查找最近一次撤单或改单的订单状态
+     */
+    public OrderState findByOriginalOrderId(String originalOrderId) {
+        OrderState link = get(LINK_PREFIX + originalOrderId);
+        return link != null ? get(link.getOriginalOrderId()) : null;
+    }
+
+    private void store(String key, OrderState state, long now, long retireAt) {
+        int hash = hash(key);
+        Shard shard = shardFor(hash);
+        shard.lock.lock();
+        try {
+            shard.sweep(now);
+            shard.put(key, hash, state, now, retireAt);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                size += shard.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public long getRetiredCount() { return retired.sum(); }
+    public long getEvictedCount() { return evicted.sum(); }
+    public boolean isOffHeap() { return offHeap; }
+
+    public void clear() {
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                shard.clear();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    private boolean isExpired(long touchedAt, long retireAt, long now) {
+        return (retireAt != 0 && retireAt <= now) || (idleTtlMillis > 0 && touchedAt + idleTtlMillis <= now);
+    }
+
+    private Shard shardFor(int hash) {
+        return shards[hash >>> (32 - SHARD_BITS)];
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h != 0 ? h : 1;
+    }
+
+    /**
+     * 分段，调用方持有段锁
+     */
+    private abstract static class Shard {
+        final ReentrantLock lock = new ReentrantLock();
+
+        abstract OrderState get(String key, int hash);
+        abstract void put(String key, int hash, OrderState state, long now, long retireAt);
+        abstract void retire(String key, int hash, long retireAt);
+        abstract void sweep(long now);
+        abstract int size();
+        abstract void clear();
+    }
+
+    /**
+     * 堆内分段：按访问顺序排列的表，超出容量淘汰最久未访问的订单，终结订单按退役时刻排队
+     */
+    private final class HeapShard extends Shard {
+        private final LinkedHashMap<String, Record> records;
+        // 排队时记下退役时刻，宽限期固定时队列按该时刻有序，不受记录之后改动的影响
+        private final ArrayDeque<Retirement> retiring = new ArrayDeque<>();
+
+        HeapShard(int capacity) {
+            this.records = new LinkedHashMap<String, Record>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Record> eldest) {
+                    if (size() > capacity) {
+                        evicted.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        @Override
+        OrderState get(String key, int hash) {
+            Record record = records.get(key);
+            return record != null ? record.state : null;
+        }
+
+        @Override
+        void put(String key, int hash, OrderState state, long now, long retireAt) {
+            Record record = records.get(key);
+            if (record == null) {
+                record = new Record(key);
+                records.put(key, record);
+            }
+            record.state = state;
+            record.touchedAt = now;
+            if (retireAt == 0) {
+                record.retireAt = 0;
+            } else {
+                schedule(record, retireAt);
+            }
+        }
+
+        @Override
+        void retire(String key, int hash, long retireAt) {
+            Record record = records.get(key);
+            if (record != null) {
+                schedule(record, retireAt);
+            }
+        }
+
+        private void schedule(Record record, long retireAt) {
+            if (record.retireAt == 0) {
+                record.retireAt = retireAt;
+                retiring.addLast(new Retirement(record, retireAt));
+            }
+        }
+
+        @Override
+        void sweep(long now) {
+            // 状态被改回、重新排期或记录已替换的过时条目直接丢弃
+            while (!retiring.isEmpty() && retiring.peekFirst().retireAt <= now) {
+                Retirement retirement = retiring.pollFirst();
+                Record record = retirement.record;
+                if (record.retireAt == retirement.retireAt && records.get(record.key) == record) {
+                    records.remove(record.key);
+                    retired.increment();
+                }
+            }
+            if (idleTtlMillis > 0) {
+                Iterator<Record> eldest = records.values().iterator();
+                while (eldest.hasNext()) {
+                    Record record = eldest.next();
+                    if (record.touchedAt + idleTtlMillis > now) {
+                        break;
+                    }
+                    eldest.remove();
+                    evicted.increment();
+                }
+            }
+        }
+
+        @Override
+        int size() {
+            return records.size();
+        }
+
+        @Override
+        void clear() {
+            records.clear();
+            retiring.clear();
+        }
+    }
+
+    private static final class Record {
+        private final String key;
+        private OrderState state;
+        private long touchedAt;
+        private long retireAt;
+
+        Record(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final class Retirement {
+        private final Record record;
+        private final long retireAt;
+
+        Retirement(Record record, long retireAt) {
+            this.record = record;
+            this.retireAt = retireAt;
+        }
+    }
+
+    /**
+     * 堆外分段：直接内存中的线性探测哈希表，删除时后移补位不留墓碑；
+     * 每次写入推进时钟指针检查少量槽位，回收到期记录，表满时在指针附近抽样淘汰最久未访问的记录
+     */
+    private final class OffHeapShard extends Shard {
+        private static final int MAX_ID_LENGTH = 40;
+        private static final int SWEEP_BUDGET = 4;
+        private static final int FULL_SWEEP_BUDGET = 64;
+        private static final int EVICTION_SAMPLES = 16;
+
+        // 定长记录布局，hash为0表示空槽
+        private static final int HASH = 0;
+        private static final int SIDE = 4;
+        private static final int STATUS = 6;
+        private static final int KEY_LENGTH = 8;
+        private static final int ORDER_ID_LENGTH = 9;
+        private static final int ORIGINAL_ORDER_ID_LENGTH = 10;
+        private static final int TIMESTAMP = 16;
+        private static final int LAST_UPDATE_TIME = 24;
+        private static final int TOUCHED_AT = 32;
+        private static final int RETIRE_AT = 40;
+        private static final int ORIGINAL_QTY = 48;
+        private static final int MODIFIED_QTY = 56;
+        private static final int CUMULATIVE_QTY = 64;
+        private static final int ORIGINAL_PRICE = 72;
+        private static final int MODIFIED_PRICE = 80;
+        private static final int KEY = 88;
+        private static final int ORDER_ID = KEY + MAX_ID_LENGTH;
+        private static final int ORIGINAL_ORDER_ID = ORDER_ID + MAX_ID_LENGTH;
+        private static final int SLOT_SIZE = ORIGINAL_ORDER_ID + MAX_ID_LENGTH;
+
+        private final ByteBuffer slots;
+        private final int mask;
+        private final int maxEntries;
+        private final HeapShard oversized;
+        private int size;
+        private int clockHand;
+
+        OffHeapShard(int capacity) {
+            int slotCount = Integer.highestOneBit(Math.max(16, (int) Math.min(1 << 30, capacity * 4L / 3)) - 1) << 1;
+            this.slots = ByteBuffer.allocateDirect(Math.multiplyExact(slotCount, SLOT_SIZE));
+            this.mask = slotCount - 1;
+            this.maxEntries = Math.min(capacity, slotCount * 3 / 4);
+            this.oversized = new HeapShard(capacity);
+        }
+
+        @Override
+        OrderState get(String key, int hash) {
+            if (!fits(key)) {
+                return oversized.get(key, hash);
+            }
+            int slot = find(key, hash);
+            return slot >= 0 ? read(slot * SLOT_SIZE, key) : oversized.get(key, hash);
+        }
+
+        @Override
+        void put(String key, int hash, OrderState state, long now, long retireAt) {
+            if (!fits(key) || !fits(state.getOrderId()) || !fits(state.getOriginalOrderId())) {
+                int slot = fits(key) ? find(key, hash) : -1;
+                if (slot >= 0) {
+                    remove(slot);
+                }
+                oversized.put(key, hash, state, now, retireAt);
+                return;
+            }
+
+            if (oversized.size() > 0) {
+                oversized.records.remove(key);
+            }
+            int slot = find(key, hash);
+            if (slot < 0) {
+                if (size >= maxEntries) {
+                    makeRoom(now);
+                }
+                slot = hash & mask;
+                while (slots.getInt(slot * SLOT_SIZE + HASH) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                size++;
+                int base = slot * SLOT_SIZE;
+                slots.putInt(base + HASH, hash);
+                writeId(base + KEY, base + KEY_LENGTH, key);
+                // 复用的槽位仍留有已删除记录的时间戳，新记录不能继承其退役时刻
+                slots.putLong(base + TOUCHED_AT, 0);
+                slots.putLong(base + RETIRE_AT, 0);
+            }
+            write(slot * SLOT_SIZE, state, now, retireAt);
+        }
+
+        @Override
+        void retire(String key, int hash, long retireAt) {
+            int slot = fits(key) ? find(key, hash) : -1;
+            if (slot < 0) {
+                oversized.retire(key, hash, retireAt);
+                return;
+            }
+            int base = slot * SLOT_SIZE;
+            if (slots.getLong(base + RETIRE_AT) == 0) {
+                slots.putLong(base + RETIRE_AT, retireAt);
+            }
+        }
+
+        /**
+         * 标识能否按字节保存在定长字段中：不超过定长且只含ISO-8859-1字符
+         */
+        private boolean fits(String id) {
+            if (id == null) {
+                return true;
+            }
+            if (id.length() > MAX_ID_LENGTH) {
+                return false;
+            }
+            for (int i = 0; i < id.length(); i++) {
+                if (id.charAt(i) > 0xFF) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int find(String key, int hash) {
+            int slot = hash & mask;
+            while (true) {
+                int base = slot * SLOT_SIZE;
+                int slotHash = slots.getInt(base + HASH);
+                if (slotHash == 0) {
+                    return -1;
+                }
+                if (slotHash == hash && idEquals(base + KEY, base + KEY_LENGTH, key)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        @Override
+        void sweep(long now) {
+            sweep(now, SWEEP_BUDGET);
+            oversized.sweep(now);
+        }
+
+        private void sweep(long now, int budget) {
+            for (int i = 0; i < budget && size > 0; i++) {
+                int base = clockHand * SLOT_SIZE;
+                if (slots.getInt(base + HASH) != 0
+                        && isExpired(slots.getLong(base + TOUCHED_AT), slots.getLong(base + RETIRE_AT), now)) {
+                    boolean retiring = slots.getLong(base + RETIRE_AT) != 0;
+                    // 后移补位可能把后面的记录移入当前槽，指针停留以便下次再检查
+                    remove(clockHand);
+                    (retiring ? retired : evicted).increment();
+                } else {
+                    clockHand = (clockHand + 1) & mask;
+                }
+            }
+        }
+
+        private void makeRoom(long now) {
+            sweep(now, FULL_SWEEP_BUDGET);
+            if (size < maxEntries) {
+                return;
+            }
+            int victim = -1;
+            long oldest = Long.MAX_VALUE;
+            int slot = clockHand;
+            for (int seen = 0, scanned = 0; seen < EVICTION_SAMPLES && scanned <= mask; scanned++) {
+                int base = slot * SLOT_SIZE;
+                if (slots.getInt(base + HASH) != 0) {
+                    seen++;
+                    long touchedAt = slots.getLong(base + TOUCHED_AT);
+                    if (touchedAt < oldest) {
+                        oldest = touchedAt;
+                        victim = slot;
+                    }
+                }
+                slot = (slot + 1) & mask;
+            }
+            clockHand = slot;
+            if (victim >= 0) {
+                remove(victim);
+                evicted.increment();
+            }
+        }
+
+        /**
+         * 删除槽位并把同一探测链上的后续记录前移，保持查找不被空槽截断
+         */
+        private void remove(int slot) {
+            int hole = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                int nextHash = slots.getInt(next * SLOT_SIZE + HASH);
+                if (nextHash == 0) {
+                    break;
+                }
+                int home = nextHash & mask;
+                // 记录的起始位置不在(hole, next]区间内时可以前移到hole
+                boolean stays = hole <= next ? (home > hole && home <= next) : (home > hole || home <= next);
+                if (!stays) {
+                    copySlot(next, hole);
+                    hole = next;
+                }
+            }
+            slots.putInt(hole * SLOT_SIZE + HASH, 0);
+            size--;
+        }
+
+        private void copySlot(int from, int to) {
+            int source = from * SLOT_SIZE;
+            int target = to * SLOT_SIZE;
+            for (int i = 0; i < SLOT_SIZE; i += 8) {
+                slots.putLong(target + i, slots.getLong(source + i));
+            }
+        }
+
+        private void write(int base, OrderState state, long now, long retireAt) {
+            slots.putChar(base + SIDE, state.getSide());
+            slots.putChar(base + STATUS, state.getStatus());
+            slots.putLong(base + TIMESTAMP, state.getTimestamp());
+            slots.putLong(base + LAST_UPDATE_TIME, state.getLastUpdateTime());
+            slots.putLong(base + TOUCHED_AT, now);
+            if (retireAt == 0 || slots.getLong(base + RETIRE_AT) == 0) {
+                slots.putLong(base + RETIRE_AT, retireAt);
+            }
+            slots.putDouble(base + ORIGINAL_QTY, state.getOriginalQty());
+            slots.putDouble(base + MODIFIED_QTY, state.getModifiedQty());
+            slots.putDouble(base + CUMULATIVE_QTY, state.getCumulativeQty());
+            slots.putDouble(base + ORIGINAL_PRICE, state.getOriginalPrice());
+            slots.putDouble(base + MODIFIED_PRICE, state.getModifiedPrice());
+            writeId(base + ORDER_ID, base + ORDER_ID_LENGTH, state.getOrderId());
+            writeId(base + ORIGINAL_ORDER_ID, base + ORIGINAL_ORDER_ID_LENGTH, state.getOriginalOrderId());
+        }
+
+        private OrderState read(int base, String key) {
+            OrderState state = new OrderState(key);
+            state.setSide(slots.getChar(base + SIDE));
+            state.setStatus(slots.getChar(base + STATUS));
+            state.setTimestamp(slots.getLong(base + TIMESTAMP));
+            state.setLastUpdateTime(slots.getLong(base + LAST_UPDATE_TIME));
+            state.setOriginalQty(slots.getDouble(base + ORIGINAL_QTY));
+            state.setModifiedQty(slots.getDouble(base + MODIFIED_QTY));
+            state.setCumulativeQty(slots.getDouble(base + CUMULATIVE_QTY));
+            state.setOriginalPrice(slots.getDouble(base + ORIGINAL_PRICE));
+            state.setModifiedPrice(slots.getDouble(base + MODIFIED_PRICE));
+            state.setOrderId(readId(base + ORDER_ID, base + ORDER_ID_LENGTH));
+            state.setOriginalOrderId(readId(base + ORIGINAL_ORDER_ID, base + ORIGINAL_ORDER_ID_LENGTH));
+            return state;
+        }
+
+        /**
+         * 标识按ISO-8859-1逐字节保存（写入前已由fits检查），长度字段0xFF表示null
+         */
+        private void writeId(int offset, int lengthOffset, String id) {
+            if (id == null) {
+                slots.put(lengthOffset, (byte) 0xFF);
+                return;
+            }
+            slots.put(lengthOffset, (byte) id.length());
+            for (int i = 0; i < id.length(); i++) {
+                slots.put(offset + i, (byte) id.charAt(i));
+            }
+        }
+
+        private String readId(int offset, int lengthOffset) {
+            int length = slots.get(lengthOffset) & 0xFF;
+            if (length == 0xFF) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = slots.get(offset + i);
+            }
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+
+        private boolean idEquals(int offset, int lengthOffset, String id) {
+            if ((slots.get(lengthOffset) & 0xFF) != id.length()) {
+                return false;
+            }
+            for (int i = 0; i < id.length(); i++) {
+                if (slots.get(offset + i) != (byte) id.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        int size() {
+            return size + oversized.size();
+        }
+
+        @Override
+        void clear() {
+            for (int slot = 0; slot <= mask; slot++) {
+                slots.putInt(slot * SLOT_SIZE + HASH, 0);
+            }
+            size = 0;
+            clockHand = 0;
+            oversized.clear();
+        }
+    }
+}
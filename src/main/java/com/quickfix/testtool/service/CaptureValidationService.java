@@ -0,0 +1,153 @@
+package com.quickfix.testtool.service;
+
+import com.quickfix.testtool.message.RawFixMessage;
+import com.quickfix.testtool.message.validation.ValidationChain;
+import com.quickfix.testtool.message.validation.ValidationContext;
+import com.quickfix.testtool.message.validation.ValidationError;
+import com.quickfix.testtool.message.validation.ValidationLevel;
+import com.quickfix.testtool.message.validation.ValidationResultBuffer;
+import com.quickfix.testtool.message.validation.ValidatorFactory;
+import com.quickfix.testtool.message.validation.ValidatorStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * 会话抓包的事后验证服务
+ * 逐行读取FIX日志（每行一条报文，允许带时间戳等前缀），按块调用ValidationChain.validateRawBatch，
+ * 语法验证直接扫描原始报文，只有需要结构化验证器的报文才完整解析；
+ * 失败按错误码计数，只有前若干条失败渲染为文本，报告附带各验证器的调用统计
+ */
+public class CaptureValidationService {
+    private static final Logger log = LoggerFactory.getLogger(CaptureValidationService.class);
+
+    public static final String BATCH_SIZE_PROPERTY = "testtool.capture.batchSize";
+    public static final String PARALLELISM_PROPERTY = "testtool.capture.parallelism";
+    private static final int DEFAULT_BATCH_SIZE = 4096;
+    private static final int MAX_SAMPLES = 100;
+    private static final String BEGIN_STRING_PREFIX = "8=FIX";
+
+    private final ValidationChain chain;
+    private final int batchSize;
+
+    public CaptureValidationService() {
+        this(ValidatorFactory.createDefaultChain(), Integer.getInteger(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE),
+                Integer.getInteger(PARALLELISM_PROPERTY, 1));
+    }
+
+    /**
+     * @param parallelism 大于1时开启验证链的并行模式
+     */
+    public CaptureValidationService(ValidationChain chain, int batchSize, int parallelism) {
+        this.chain = chain;
+        this.batchSize = Math.max(1, batchSize);
+        if (parallelism > 1) {
+            chain.enableParallel(parallelism);
+        }
+    }
+
+    public Report validate(Path capture) throws IOException {
+        chain.resetStatistics();
+        Report report = new Report();
+        ValidationResultBuffer buffer = new ValidationResultBuffer();
+        ValidationContext context = new ValidationContext(null, null, ValidationLevel.BUSINESS);
+        // 扫描器在各批之间复用，每行只复制一次字节
+        List<RawFixMessage> scanners = new ArrayList<>(batchSize);
+        List<RawFixMessage> batch = new ArrayList<>(batchSize);
+        long firstIndex = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(capture, StandardCharsets.ISO_8859_1)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int start = line.indexOf(BEGIN_STRING_PREFIX);
+                if (start < 0) {
+                    continue;
+                }
+                if (scanners.size() == batch.size()) {
+                    scanners.add(new RawFixMessage());
+                }
+                byte[] bytes = line.getBytes(StandardCharsets.ISO_8859_1);
+                batch.add(scanners.get(batch.size()).wrap(bytes, start, bytes.length - start));
+                if (batch.size() == batchSize) {
+                    flush(batch, firstIndex, context, buffer, report);
+                    firstIndex += batchSize;
+                }
+            }
+        }
+        flush(batch, firstIndex, context, buffer, report);
+        report.statistics = chain.getStatistics();
+        log.info("Validated {} messages from {}: {} failures, {} unparsable", report.messageCount, capture,
+                report.failureCount, report.unparsable);
+        return report;
+    }
+
+    private void flush(List<RawFixMessage> batch, long firstIndex, ValidationContext context, ValidationResultBuffer buffer,
+                       Report report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        report.unparsable += chain.validateRawBatch(batch, firstIndex, context, buffer);
+        report.messageCount += buffer.getMessageCount();
+        report.failureCount += buffer.size();
+        int[] counts = buffer.countByErrorCode();
+        for (int code = 0; code < counts.length; code++) {
+            report.countsByError[code] += counts[code];
+        }
+        // 明细只为样本行渲染
+        for (int row = 0; row < buffer.size() && report.samples.size() < MAX_SAMPLES; row++) {
+            report.samples.add("#" + buffer.getMessageIndex(row) + " "
+                    + chain.getValidatorName(buffer.getValidatorId(row)) + ": " + buffer.render(row));
+        }
+        buffer.clear();
+        batch.clear();
+    }
+
+    /**
+     * 关闭验证链的并行线程池
+     */
+    public void shutdown() {
+        chain.shutdown();
+    }
+
+    /**
+     * 抓包验证报告
+     */
+    public static class Report {
+        private long messageCount;
+        private long failureCount;
+        private long unparsable;
+        private final long[] countsByError = new long[ValidationError.values().length];
+        private final List<String> samples = new ArrayList<>();
+        private List<ValidatorStatistics> statistics = Collections.emptyList();
+
+        public long getMessageCount() { return messageCount; }
+        public long getFailureCount() { return failureCount; }
+        public long getUnparsableCount() { return unparsable; }
+        public List<String> getSamples() { return samples; }
+        public List<ValidatorStatistics> getStatistics() { return statistics; }
+
+        public boolean hasFailures() {
+            return failureCount > 0 || unparsable > 0;
+        }
+
+        /**
+         * 出现过的错误码及次数
+         */
+        public Map<String, Long> getCountsByError() {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            ValidationError[] errors = ValidationError.values();
+            for (int code = 0; code < countsByError.length; code++) {
+                if (countsByError[code] > 0) {
+                    counts.put(errors[code].name(), countsByError[code]);
+                }
+            }
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.quickfix.testtool.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * 性能基线存储服务
+ * 每个场景的最近若干次性能样本以JSON形式保存在场景目录下的baselines子目录中
+ */
+public class PerformanceBaselineStore {
+    private static final Logger log = LoggerFactory.getLogger(PerformanceBaselineStore.class);
+    private static final String BASELINES_DIR = "scenarios/baselines";
+    private static final String JSON_EXTENSION = ".json";
+
+    public static final String WINDOW_PROPERTY = "testtool.baseline.window";
+    private static final int DEFAULT_WINDOW = 20;
+
+    private final ObjectMapper objectMapper;
+    private final Path baselinesPath;
+    private final int window;
+
+    public PerformanceBaselineStore() {
+        this(Paths.get(BASELINES_DIR), Integer.getInteger(WINDOW_PROPERTY, DEFAULT_WINDOW));
+    }
+
+    public PerformanceBaselineStore(Path baselinesPath, int window) {
+        this.objectMapper = new ObjectMapper();
+        this.baselinesPath = baselinesPath;
+        this.window = Math.max(1, window);
+    }
+
+    /**
+     * 加载场景的基线样本，不存在时返回空列表
+     */
+    public List<PerformanceSample> load(String scenarioId) {
+        File file = baselinesPath.resolve(scenarioId + JSON_EXTENSION).toFile();
+        if (!file.exists()) {
+            return Collections.emptyList();
+        }
+        try {
+            Baseline baseline = objectMapper.readValue(file, Baseline.class);
+            return baseline.getSamples() != null ? baseline.getSamples() : Collections.emptyList();
+        } catch (IOException e) {
+            log.error("Failed to load baseline: {}", scenarioId, e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 追加样本并只保留最近window个
+     */
+    public void append(String scenarioId, List<PerformanceSample> samples) {
+        List<PerformanceSample> merged = new ArrayList<>(load(scenarioId));
+        merged.addAll(samples);
+        if (merged.size() > window) {
+            merged = new ArrayList<>(merged.subList(merged.size() - window, merged.size()));
+        }
+
+        Baseline baseline = new Baseline();
+        baseline.setScenarioId(scenarioId);
+        baseline.setSamples(merged);
+        try {
+            Files.createDirectories(baselinesPath);
+            File file = baselinesPath.resolve(scenarioId + JSON_EXTENSION).toFile();
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, baseline);
+            log.info("Updated baseline for {} ({} samples)", scenarioId, merged.size());
+        } catch (IOException e) {
+            log.error("Failed to save baseline: {}", scenarioId, e);
+            throw new RuntimeException("Failed to save baseline", e);
+        }
+    }
+
+    public static class Baseline {
+        private String scenarioId;
+        private List<PerformanceSample> samples;
+
+        public String getScenarioId() { return scenarioId; }
+        public void setScenarioId(String scenarioId) { this.scenarioId = scenarioId; }
+
+        public List<PerformanceSample> getSamples() { return samples; }
+        public void setSamples(List<PerformanceSample> samples) { this.samples = samples; }
+    }
+}
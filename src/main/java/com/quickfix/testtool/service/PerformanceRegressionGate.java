@@ -0,0 +1,180 @@
+package com.quickfix.testtool.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 性能回归判定
+ * 对p99延迟和吞吐量分别比较本次多次执行的样本与基线样本：中位数变差超过阈值，
+ * 且单侧Mann-Whitney U检验显著（两边样本均不少于3个时）才判定为回归；
+ * 样本不足时退化为阈值比较，并要求本次中位数差于全部基线样本
+ */
+public class PerformanceRegressionGate {
+    private static final Logger log = LoggerFactory.getLogger(PerformanceRegressionGate.class);
+
+    public static final String P99_THRESHOLD_PROPERTY = "testtool.regression.p99Threshold";
+    public static final String THROUGHPUT_THRESHOLD_PROPERTY = "testtool.regression.throughputThreshold";
+    public static final String ALPHA_PROPERTY = "testtool.regression.alpha";
+
+    private static final int MIN_TEST_SAMPLES = 3;
+
+    private final double p99Threshold;
+    private final double throughputThreshold;
+    private final double alpha;
+
+    public PerformanceRegressionGate() {
+        this(doubleProperty(P99_THRESHOLD_PROPERTY, 0.10), doubleProperty(THROUGHPUT_THRESHOLD_PROPERTY, 0.10),
+                doubleProperty(ALPHA_PROPERTY, 0.05));
+    }
+
+    /**
+     * @param p99Threshold p99允许变慢的比例，如0.10表示10%
+     * @param throughputThreshold 吞吐量允许下降的比例
+     * @param alpha 显著性水平
+     */
+    public PerformanceRegressionGate(double p99Threshold, double throughputThreshold, double alpha) {
+        this.p99Threshold = p99Threshold;
+        this.throughputThreshold = throughputThreshold;
+        this.alpha = alpha;
+    }
+
+    public Verdict evaluate(List<PerformanceSample> baseline, List<PerformanceSample> current) {
+        Verdict verdict = new Verdict(!baseline.isEmpty() && !current.isEmpty());
+        if (!verdict.hasBaseline()) {
+            return verdict;
+        }
+        compare(verdict, "p99 latency", baseline, current, PerformanceSample::getP99Micros, true, p99Threshold);
+        compare(verdict, "throughput", baseline, current, PerformanceSample::getThroughput, false, throughputThreshold);
+        return verdict;
+    }
+
+    private void compare(Verdict verdict, String metric, List<PerformanceSample> baselineSamples,
+                         List<PerformanceSample> currentSamples, ToDoubleFunction<PerformanceSample> extractor,
+                         boolean higherIsWorse, double threshold) {
+        double[] baseline = baselineSamples.stream().mapToDouble(extractor).toArray();
+        double[] current = currentSamples.stream().mapToDouble(extractor).toArray();
+        double baselineMedian = median(baseline);
+        double currentMedian = median(current);
+        if (baselineMedian <= 0) {
+            return;
+        }
+
+        double ratio = currentMedian / baselineMedian;
+        boolean degraded = higherIsWorse ? ratio > 1 + threshold : ratio < 1 - threshold;
+        String detail;
+        boolean regression;
+
+        if (baseline.length >= MIN_TEST_SAMPLES && current.length >= MIN_TEST_SAMPLES) {
+            double pValue = mannWhitneyPValue(baseline, current, higherIsWorse);
+            regression = degraded && pValue < alpha;
+            detail = String.format("%s: median %.1f -> %.1f (%+.1f%%), p=%.4f", metric, baselineMedian,
+                    currentMedian, (ratio - 1) * 100, pValue);
+        } else {
+            double bound = higherIsWorse ? Arrays.stream(baseline).max().getAsDouble()
+                    : Arrays.stream(baseline).min().getAsDouble();
+            boolean outsideRange = higherIsWorse ? currentMedian > bound : currentMedian < bound;
+            regression = degraded && outsideRange;
+            detail = String.format("%s: median %.1f -> %.1f (%+.1f%%), too few samples for significance test",
+                    metric, baselineMedian, currentMedian, (ratio - 1) * 100);
+        }
+
+        log.info("{}{}", regression ? "REGRESSION " : "", detail);
+        verdict.add(detail, regression);
+    }
+
+    /**
+     * 单侧Mann-Whitney U检验（正态近似，含结校正和连续性校正），
+     * 返回本次样本随机地差于基线的p值
+     */
+    static double mannWhitneyPValue(double[] baseline, double[] current, boolean higherIsWorse) {
+        int n1 = current.length;
+        int n2 = baseline.length;
+        double u = 0;
+        for (double c : current) {
+            for (double b : baseline) {
+                if (c == b) {
+                    u += 0.5;
+                } else if (higherIsWorse ? c > b : c < b) {
+                    u += 1;
+                }
+            }
+        }
+
+        double[] all = new double[n1 + n2];
+        System.arraycopy(current, 0, all, 0, n1);
+        System.arraycopy(baseline, 0, all, n1, n2);
+        Arrays.sort(all);
+        double tieSum = 0;
+        for (int i = 0; i < all.length; ) {
+            int j = i;
+            while (j < all.length && all[j] == all[i]) {
+                j++;
+            }
+            double t = j - i;
+            tieSum += t * t * t - t;
+            i = j;
+        }
+
+        int n = n1 + n2;
+        double variance = n1 * (double) n2 / 12.0 * ((n + 1) - tieSum / (n * (double) (n - 1)));
+        if (variance <= 0) {
+            return 1.0;
+        }
+        double z = (u - n1 * (double) n2 / 2.0 - 0.5) / Math.sqrt(variance);
+        return 1.0 - normalCdf(z);
+    }
+
+    private static double normalCdf(double z) {
+        // Abramowitz-Stegun 7.1.26，误差小于1.5e-7
+        double x = Math.abs(z) / Math.sqrt(2);
+        double t = 1 / (1 + 0.3275911 * x);
+        double erf = 1 - (((((1.061405429 * t - 1.453152027) * t) + 1.421413741) * t - 0.284496736) * t
+                + 0.254829592) * t * Math.exp(-x * x);
+        return z >= 0 ? 0.5 * (1 + erf) : 0.5 * (1 - erf);
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid {} value: {}", name, value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 判定结果
+     */
+    public static class Verdict {
+        private final boolean hasBaseline;
+        private final List<String> findings = new ArrayList<>();
+        private boolean regression;
+
+        Verdict(boolean hasBaseline) {
+            this.hasBaseline = hasBaseline;
+        }
+
+        void add(String finding, boolean isRegression) {
+            findings.add(finding);
+            regression |= isRegression;
+        }
+
+        public boolean hasBaseline() { return hasBaseline; }
+        public boolean isRegression() { return regression; }
+        public List<String> getFindings() { return new ArrayList<>(findings); }
+    }
+}
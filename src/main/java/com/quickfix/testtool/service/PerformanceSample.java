@@ -0,0 +1,58 @@
+package com.quickfix.testtool.service;
+
+import com.quickfix.testtool.core.engine.TestResult;
+import com.quickfix.testtool.core.metrics.LatencyHistogram;
+
+/**
+ * 单次场景执行的性能样本
+ */
+public class PerformanceSample {
+    private long timestamp;
+    private double p99Micros;
+    private double throughput;
+    private long messageCount;
+
+    public PerformanceSample() {
+    }
+
+    public PerformanceSample(long timestamp, double p99Micros, double throughput, long messageCount) {
+        this.timestamp = timestamp;
+        this.p99Micros = p99Micros;
+        this.throughput = throughput;
+        this.messageCount = messageCount;
+    }
+
+    /**
+     * 从执行结果提取样本：有开环负载步骤时使用修正协调遗漏后的响应时间；
+     * 吞吐量取负载步骤每秒收到的匹配响应数，没有负载步骤时为整个场景每秒完成的往返次数；
+     * 没有延迟数据时返回null
+     */
+    public static PerformanceSample from(TestResult result) {
+        LatencyHistogram latency = result.getLatency().getOverallCorrected();
+        if (latency.getTotalCount() == 0) {
+            latency = result.getLatency().getOverall();
+        }
+        if (latency.getTotalCount() == 0) {
+            return null;
+        }
+        double throughput = result.getLatency().getThroughput();
+        if (throughput == 0) {
+            throughput = latency.getTotalCount() / (Math.max(1, result.getDuration()) / 1000.0);
+        }
+        return new PerformanceSample(System.currentTimeMillis(), latency.getValueAtPercentile(99) / 1000.0,
+                throughput, latency.getTotalCount());
+    }
+
+    // Getters and setters
+    public long getTimestamp() { return timestamp; }
+    public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+
+    public double getP99Micros() { return p99Micros; }
+    public void setP99Micros(double p99Micros) { this.p99Micros = p99Micros; }
+
+    public double getThroughput() { return throughput; }
+    public void setThroughput(double throughput) { this.throughput = throughput; }
+
+    public long getMessageCount() { return messageCount; }
+    public void setMessageCount(long messageCount) { this.messageCount = messageCount; }
+}
@@ -1,5 +1,6 @@
 package com.quickfix.testtool.service;
 
+import com.quickfix.testtool.core.engine.ParallelScenarioExecutor;
 import com.quickfix.testtool.core.engine.TestEngine;
 import com.quickfix.testtool.core.engine.TestResult;
 import com.quickfix.testtool.core.model.TestScenario;
@@ -19,11 +20,13 @@ public class ScenarioManager {
     
     private final JsonScenarioStorage storage;
     private final TestEngine testEngine;
+    private final ParallelScenarioExecutor suiteExecutor;
     private final Map<String, ExecutionRecord> executions = new ConcurrentHashMap<>();
     
     public ScenarioManager(TestEngine testEngine) {
         this.storage = new JsonScenarioStorage();
         this.testEngine = testEngine;
+        this.suiteExecutor = new ParallelScenarioExecutor(testEngine);
     }
     
     /**
@@ -86,19 +89,13 @@ public class ScenarioManager {
         }
         
         TestScenario scenario = scenarioOpt.get();
-        String executionId = UUID.randomUUID().toString();
-        
-        ExecutionRecord record = new ExecutionRecord();
-        record.executionId = executionId;
-        record.scenarioId = scenarioId;
-        record.status = "RUNNING";
-        record.startTime = LocalDateTime.now();
-        executions.put(executionId, record);
+        ExecutionRecord record = createRecord(scenarioId, "RUNNING");
+        String executionId = record.executionId;
         
         if (async) {
             CompletableFuture.runAsync(() -> {
                 executeAndRecord(record, scenario);
-            });
+            }, testEngine.getScenarioExecutor());
         } else {
             executeAndRecord(record, scenario);
         }
@@ -106,6 +103,42 @@ public class ScenarioManager {
         return executionId;
     }
     
+    /**
+     * 并行执行一组场景，每个场景使用独立的会话资源，返回各场景的执行ID
+     */
+    public List<String> executeSuite(List<String> scenarioIds) {
+        List<TestScenario> scenarios = new ArrayList<>();
+        for (String scenarioId : scenarioIds) {
+            scenarios.add(storage.loadScenario(scenarioId)
+                    .orElseThrow(() -> new IllegalArgumentException("Scenario not found: " + scenarioId)));
+        }
+        
+        List<String> executionIds = new ArrayList<>();
+        for (TestScenario scenario : scenarios) {
+            ExecutionRecord record = createRecord(scenario.getId(), "QUEUED");
+            executionIds.add(record.executionId);
+            
+            suiteExecutor.submit(scenario, () -> {
+                record.status = "RUNNING";
+                record.startTime = LocalDateTime.now();
+            }).whenComplete((result, error) -> {
+                if (error != null) {
+                    record.status = "FAILED";
+                    record.error = error.getMessage();
+                    log.error("Scenario execution failed: " + record.executionId, error);
+                } else {
+                    record.result = result;
+                    record.status = result.getStatus().name();
+                    log.info("Scenario execution completed: {} - {}", record.executionId, record.status);
+                }
+                record.endTime = LocalDateTime.now();
+            });
+        }
+        
+        log.info("Submitted suite of {} scenarios (parallelism {})", scenarios.size(), suiteExecutor.getParallelism());
+        return executionIds;
+    }
+    
     /**
      * 获取执行状态
      */
@@ -134,6 +167,16 @@ public class ScenarioManager {
         return storage.deleteScenario(id);
     }
     
+    private ExecutionRecord createRecord(String scenarioId, String status) {
+        ExecutionRecord record = new ExecutionRecord();
+        record.executionId = UUID.randomUUID().toString();
+        record.scenarioId = scenarioId;
+        record.status = status;
+        record.startTime = LocalDateTime.now();
+        executions.put(record.executionId, record);
+        return record;
+    }
+    
     private void executeAndRecord(ExecutionRecord record, TestScenario scenario) {
         try {
             TestResult result = testEngine.executeScenario(scenario);
@@ -155,7 +198,7 @@ public class ScenarioManager {
     public static class ExecutionRecord {
         public String executionId;
         public String scenarioId;
-        public String status;
+        public volatile String status;
         public TestResult result;
         public LocalDateTime startTime;
         public LocalDateTime endTime;
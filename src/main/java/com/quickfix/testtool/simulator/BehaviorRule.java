@@ -0,0 +1,404 @@
+package com.quickfix.testtool.simulator;
+
+import quickfix.FieldMap;
+import quickfix.FieldNotFound;
+import quickfix.Message;
+import quickfix.field.*;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 编译后的声明式行为规则：按序号决定优先级（越靠前越优先），条件全部满足时依次生成应答动作
+ * 条件写法（键为tag号）："AAPL"等值、">1000"/">="/"<"/"<="数值比较、"!=X"不等、"*"存在、"!"不存在、数组表示取值之一
+ */
+final class BehaviorRule {
+    static final String ANY_MSG_TYPE = "*";
+
+    final int index;
+    final String name;
+    final String msgType;
+    final Condition[] conditions;
+    private final Action[] actions;
+
+    private BehaviorRule(int index, String name, String msgType, Condition[] conditions, Action[] actions) {
+        this.index = index;
+        this.name = name;
+        this.msgType = msgType;
+        this.conditions = conditions;
+        this.actions = actions;
+    }
+
+    static BehaviorRule compile(int index, Definition definition) {
+        String name = definition.getName() != null ? definition.getName() : "rule-" + index;
+        String msgType = definition.getMsgType() == null || definition.getMsgType().trim().isEmpty()
+                ? ANY_MSG_TYPE : definition.getMsgType().trim();
+        List<Condition> conditions = new ArrayList<>();
+        if (definition.getWhen() != null) {
+            for (Map.Entry<String, Object> entry : definition.getWhen().entrySet()) {
+                int tag;
+                try {
+                    tag = Integer.parseInt(entry.getKey().trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Rule " + name + ": condition key must be a tag number: " + entry.getKey());
+                }
+                conditions.add(Condition.parse(name, tag, entry.getValue()));
+            }
+        }
+        List<ActionDefinition> then = definition.getThen();
+        Action[] actions = new Action[then != null ? then.size() : 0];
+        for (int i = 0; i < actions.length; i++) {
+            actions[i] = Action.compile(name, then.get(i));
+        }
+        return new BehaviorRule(index, name, msgType, conditions.toArray(new Condition[0]), actions);
+    }
+
+    /**
+     * 按动作列表生成应答链，ignore或空动作列表返回null表示不应答
+     */
+    ResponseAction respond(Message request, AtomicLong ids) throws FieldNotFound {
+        OrderState state = new OrderState(request);
+        ResponseAction first = null;
+        ResponseAction last = null;
+        for (Action action : actions) {
+            Message response = action.build(request, state, ids);
+            if (response == null) {
+                continue;
+            }
+            ResponseAction next = new ResponseAction(response, action.delay);
+            if (first == null) {
+                first = next;
+            } else {
+                last.setNext(next);
+            }
+            last = next;
+        }
+        return first;
+    }
+
+    /**
+     * 读取字段值，先查消息体再查消息头，不存在时返回null
+     */
+    static String fieldValue(Message message, int tag) {
+        try {
+            if (message.isSetField(tag)) {
+                return message.getString(tag);
+            }
+            FieldMap header = message.getHeader();
+            return header.isSetField(tag) ? header.getString(tag) : null;
+        } catch (FieldNotFound e) {
+            return null;
+        }
+    }
+
+    enum Operator { EQ, NE, IN, GT, GE, LT, LE, EXISTS, MISSING }
+
+    /**
+     * 单个字段条件，数值比较的操作数在编译时解析
+     */
+    static final class Condition {
+        final int tag;
+        final Operator operator;
+        final String value;
+        private final double number;
+        private final Set<String> values;
+
+        private Condition(int tag, Operator operator, String value, double number, Set<String> values) {
+            this.tag = tag;
+            this.operator = operator;
+            this.value = value;
+            this.number = number;
+            this.values = values;
+        }
+
+        static Condition parse(String rule, int tag, Object expression) {
+            if (expression instanceof List) {
+                Set<String> values = new HashSet<>();
+                for (Object item : (List<?>) expression) {
+                    values.add(String.valueOf(item));
+                }
+                return new Condition(tag, Operator.IN, null, Double.NaN, values);
+            }
+            String text = String.valueOf(expression).trim();
+            if (text.equals("*")) {
+                return new Condition(tag, Operator.EXISTS, null, Double.NaN, null);
+            }
+            if (text.equals("!")) {
+                return new Condition(tag, Operator.MISSING, null, Double.NaN, null);
+            }
+            if (text.startsWith("!=")) {
+                return new Condition(tag, Operator.NE, text.substring(2).trim(), Double.NaN, null);
+            }
+            Operator operator = null;
+            String operand = null;
+            if (text.startsWith(">=")) {
+                operator = Operator.GE;
+                operand = text.substring(2);
+            } else if (text.startsWith("<=")) {
+                operator = Operator.LE;
+                operand = text.substring(2);
+            } else if (text.startsWith(">")) {
+                operator = Operator.GT;
+                operand = text.substring(1);
+            } else if (text.startsWith("<")) {
+                operator = Operator.LT;
+                operand = text.substring(1);
+            }
+            if (operator == null) {
+                String value = text.startsWith("=") ? text.substring(1).trim() : text;
+                return new Condition(tag, Operator.EQ, value, Double.NaN, null);
+            }
+            try {
+                return new Condition(tag, operator, null, Double.parseDouble(operand.trim()), null);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Rule " + rule + ": invalid numeric condition on tag " + tag + ": " + text);
+            }
+        }
+
+        boolean test(Message message) {
+            String actual = fieldValue(message, tag);
+            switch (operator) {
+                case EXISTS:
+                    return actual != null;
+                case MISSING:
+                    return actual == null;
+                case EQ:
+                    return value.equals(actual);
+                case NE:
+                    return actual != null && !value.equals(actual);
+                case IN:
+                    return actual != null && values.contains(actual);
+                default:
+                    if (actual == null) {
+                        return false;
+                    }
+                    double number;
+                    try {
+                        number = Double.parseDouble(actual);
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                    switch (operator) {
+                        case GT: return number > this.number;
+                        case GE: return number >= this.number;
+                        case LT: return number < this.number;
+                        default: return number <= this.number;
+                    }
+            }
+        }
+    }
+
+    enum ActionType { ACK, FILL, CANCEL, REPLACE, REJECT, IGNORE }
+
+    /**
+     * 应答动作：ack确认、fill按比例或数量成交、cancel撤销剩余、replace确认改单、reject拒绝、ignore不应答
+     */
+    static final class Action {
+        final ActionType type;
+        final double percent;
+        final double qty;
+        final double price;
+        final String text;
+        final int delay;
+
+        private Action(ActionType type, double percent, double qty, double price, String text, int delay) {
+            this.type = type;
+            this.percent = percent;
+            this.qty = qty;
+            this.price = price;
+            this.text = text;
+            this.delay = delay;
+        }
+
+        static Action compile(String rule, ActionDefinition definition) {
+            ActionType type;
+            try {
+                type = ActionType.valueOf(String.valueOf(definition.getAction()).trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Rule " + rule + ": unknown action " + definition.getAction());
+            }
+            double percent = definition.getPercent() != null ? definition.getPercent() : 100;
+            if (percent <= 0 || percent > 100) {
+                throw new IllegalArgumentException("Rule " + rule + ": fill percent must be in (0, 100]: " + percent);
+            }
+            return new Action(type, percent,
+                    definition.getQty() != null ? definition.getQty() : 0,
+                    definition.getPrice() != null ? definition.getPrice() : 0,
+                    definition.getText(),
+                    Math.max(0, definition.getDelay()));
+        }
+
+        Message build(Message request, OrderState state, AtomicLong ids) throws FieldNotFound {
+            String msgType = request.getHeader().getString(MsgType.FIELD);
+            boolean cancelRequest = MsgType.ORDER_CANCEL_REQUEST.equals(msgType)
+                    || MsgType.ORDER_CANCEL_REPLACE_REQUEST.equals(msgType);
+            switch (type) {
+                case IGNORE:
+                    return null;
+                case REJECT:
+                    if (cancelRequest) {
+                        return cancelReject(request, msgType, state);
+                    }
+                    state.leaves = 0;
+                    state.status = OrdStatus.REJECTED;
+                    return executionReport(request, state, ExecType.REJECTED, ids);
+                case FILL: {
+                    double fillQty = Math.min(state.leaves, qty > 0 ? qty : state.orderQty * percent / 100);
+                    if (fillQty <= 0) {
+                        return null;
+                    }
+                    double fillPx = price > 0 ? price : state.price;
+                    state.avgPx = (state.avgPx * state.cum + fillPx * fillQty) / (state.cum + fillQty);
+                    state.cum += fillQty;
+                    state.leaves -= fillQty;
+                    state.status = state.leaves > 0 ? OrdStatus.PARTIALLY_FILLED : OrdStatus.FILLED;
+                    Message report = executionReport(request, state, ExecType.TRADE, ids);
+                    report.setDouble(LastQty.FIELD, fillQty);
+                    report.setDouble(LastPx.FIELD, fillPx);
+                    return report;
+                }
+                case CANCEL:
+                    state.leaves = 0;
+                    state.status = OrdStatus.CANCELED;
+                    return executionReport(request, state, ExecType.CANCELED, ids);
+                case REPLACE:
+                    state.status = state.cum > 0 ? OrdStatus.PARTIALLY_FILLED : OrdStatus.NEW;
+                    return executionReport(request, state, ExecType.REPLACED, ids);
+                default:
+                    state.status = OrdStatus.NEW;
+                    return executionReport(request, state, ExecType.NEW, ids);
+            }
+        }
+
+        private Message executionReport(Message request, OrderState state, char execType, AtomicLong ids) {
+            Message report = new Message();
+            report.getHeader().setString(MsgType.FIELD, MsgType.EXECUTION_REPORT);
+            report.setString(OrderID.FIELD, state.orderId(ids));
+            report.setString(ExecID.FIELD, Long.toString(ids.incrementAndGet()));
+            copy(request, report, ClOrdID.FIELD);
+            copy(request, report, OrigClOrdID.FIELD);
+            copy(request, report, Symbol.FIELD);
+            copy(request, report, Side.FIELD);
+            copy(request, report, OrdType.FIELD);
+            report.setChar(ExecType.FIELD, execType);
+            report.setChar(OrdStatus.FIELD, state.status);
+            report.setDouble(OrderQty.FIELD, state.orderQty);
+            if (state.price > 0) {
+                report.setDouble(Price.FIELD, state.price);
+            }
+            report.setDouble(LeavesQty.FIELD, state.leaves);
+            report.setDouble(CumQty.FIELD, state.cum);
+            report.setDouble(AvgPx.FIELD, state.avgPx);
+            if (text != null) {
+                report.setString(Text.FIELD, text);
+            }
+            report.setUtcTimeStamp(TransactTime.FIELD, LocalDateTime.now(ZoneOffset.UTC));
+            return report;
+        }
+
+        private Message cancelReject(Message request, String msgType, OrderState state) {
+            Message reject = new Message();
+            reject.getHeader().setString(MsgType.FIELD, MsgType.ORDER_CANCEL_REJECT);
+            reject.setString(OrderID.FIELD, "NONE");
+            copy(request, reject, ClOrdID.FIELD);
+            copy(request, reject, OrigClOrdID.FIELD);
+            reject.setChar(OrdStatus.FIELD, OrdStatus.REJECTED);
+            reject.setChar(CxlRejResponseTo.FIELD, MsgType.ORDER_CANCEL_REQUEST.equals(msgType)
+                    ? CxlRejResponseTo.ORDER_CANCEL_REQUEST : CxlRejResponseTo.ORDER_CANCEL_REPLACE_REQUEST);
+            if (text != null) {
+                reject.setString(Text.FIELD, text);
+            }
+            return reject;
+        }
+
+        private static void copy(Message from, Message to, int tag) {
+            String value = fieldValue(from, tag);
+            if (value != null) {
+                to.setString(tag, value);
+            }
+        }
+    }
+
+    /**
+     * 一条应答链内累计的订单状态
+     */
+    private static final class OrderState {
+        final double orderQty;
+        final double price;
+        double leaves;
+        double cum;
+        double avgPx;
+        char status = OrdStatus.NEW;
+        private String orderId;
+
+        OrderState(Message request) {
+            String qty = fieldValue(request, OrderQty.FIELD);
+            String px = fieldValue(request, Price.FIELD);
+            orderQty = qty != null ? Double.parseDouble(qty) : 0;
+            price = px != null ? Double.parseDouble(px) : 0;
+            leaves = orderQty;
+        }
+
+        String orderId(AtomicLong ids) {
+            if (orderId == null) {
+                orderId = Long.toString(ids.incrementAndGet());
+            }
+            return orderId;
+        }
+    }
+
+    /**
+     * 场景配置中的规则定义
+     */
+    public static class Definition {
+        private String name;
+        private String msgType;
+        private Map<String, Object> when;
+        private List<ActionDefinition> then;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public String getMsgType() { return msgType; }
+        public void setMsgType(String msgType) { this.msgType = msgType; }
+
+        public Map<String, Object> getWhen() { return when; }
+        public void setWhen(Map<String, Object> when) { this.when = when; }
+
+        public List<ActionDefinition> getThen() { return then; }
+        public void setThen(List<ActionDefinition> then) { this.then = then; }
+    }
+
+    public static class ActionDefinition {
+        private String action;
+        private Double percent;
+        private Double qty;
+        private Double price;
+        private String text;
+        private int delay;
+
+        public String getAction() { return action; }
+        public void setAction(String action) { this.action = action; }
+
+        public Double getPercent() { return percent; }
+        public void setPercent(Double percent) { this.percent = percent; }
+
+        public Double getQty() { return qty; }
+        public void setQty(Double qty) { this.qty = qty; }
+
+        public Double getPrice() { return price; }
+        public void setPrice(Double price) { this.price = price; }
+
+        public String getText() { return text; }
+        public void setText(String text) { this.text = text; }
+
+        public int getDelay() { return delay; }
+        public void setDelay(int delay) { this.delay = delay; }
+    }
+}
@@ -1,36 +1,137 @@
 package com.quickfix.testtool.simulator;
 
+import com.quickfix.testtool.simulator.marketdata.MarketDataMessage;
+import com.quickfix.testtool.simulator.marketdata.MarketDataPublisher;
+import com.quickfix.testtool.simulator.matching.MatchingCounterparty;
+import com.quickfix.testtool.simulator.store.StoreType;
+import com.quickfix.testtool.simulator.timing.LatencyDistribution;
+import com.quickfix.testtool.simulator.timing.TimerWheel;
 import quickfix.*;
 import quickfix.field.MsgType;
+import quickfix.mina.acceptor.DynamicAcceptorSessionProvider;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public interface FIXSimulator {
     void start() throws ConfigError;
     void stop();
     void sendMessage(Message message) throws SessionNotFound;
     void setBehavior(BehaviorConfiguration config);
+    SessionID getSessionId();
+    Message getLastReceivedMessage();
+    InboundMessageBus getMessageBus();
+    MessageJournal getJournal();
 }
 
 // Acceptor模拟器实现
+// 除配置文件中的固定会话外，AcceptorTemplate=Y的会话段作为模板，按连接方的CompID动态创建会话；
+// 所有会话共用一个QuickFIX/J事件线程，应答在按会话散列的共享工作线程池上生成和发送
 class AcceptorSimulator implements quickfix.Application, FIXSimulator {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(AcceptorSimulator.class);
     
     private SocketAcceptor acceptor;
+    private LoopbackTransport loopback;
+    private Application loopbackPeer = new ApplicationAdapter();
     private SessionSettings settings;
     private BehaviorConfiguration behavior;
-    private final Map<String, Object> sessionData = new ConcurrentHashMap<>();
+    // 首个创建的会话，单会话场景的默认目标
+    private volatile SessionID sessionId;
+    private final Set<SessionID> sessionIds = ConcurrentHashMap.newKeySet();
+    private final InboundMessageBus messageBus = new InboundMessageBus();
+    private volatile MessageJournal journal = new MessageJournal();
+    // 按对端TargetCompID指定的会话行为，未指定时使用默认行为
+    private final Map<String, BehaviorConfiguration> sessionBehaviors = new ConcurrentHashMap<>();
+    private volatile SessionWorkers workers;
+    private final SessionAllocator.SessionAllocation allocation;
+    private StoreType storeType;
+    // 内置撮合对手方，启用后接管订单类消息
+    private volatile MatchingCounterparty counterparty;
+    // 应答附加延迟分布及延迟应答的时间轮
+    private LatencyDistribution responseLatency;
+    private volatile TimerWheel responseTimer;
+    // 各会话已调度应答的发送时刻，保证同一会话的应答按产生顺序发出
+    private final Map<SessionID, ReplyOrder> replyOrders = new ConcurrentHashMap<>();
+    
+    public AcceptorSimulator() {
+        this(null);
+    }
+    
+    /**
+     * 使用独立的端口、CompID和存储目录创建模拟器，用于并行执行
+     */
+    public AcceptorSimulator(SessionAllocator.SessionAllocation allocation) {
+        this.allocation = allocation;
+    }
     
     @Override
     public void start() throws ConfigError {
         settings = new SessionSettings("config/acceptor.cfg");
-        MessageStoreFactory storeFactory = new FileStoreFactory(settings);
-        LogFactory logFactory = new FileLogFactory(settings);
+        if (allocation != null) {
+            settings = allocation.apply(settings);
+        }
+        // 所有会话的回调共用QuickFIX/J的I/O线程，不允许单个步骤游标阻塞写入
+        journal = MessageJournal.fromSettings(settings, false);
+        // 场景未指定存储类型时读取配置文件中的StoreType，默认文件存储
+        StoreType effectiveStoreType = storeType != null ? storeType : StoreType.fromSettings(settings);
+        MessageStoreFactory storeFactory = effectiveStoreType.createStoreFactory(settings);
+        LogFactory logFactory = effectiveStoreType.createLogFactory(settings);
+        log.info("Using {} message store", effectiveStoreType);
         MessageFactory messageFactory = new DefaultMessageFactory();
+        startResponseTimer();
+        workers = SessionWorkers.fromSettings(settings);
+        
+        // 进程内回环传输，不占用TCP端口
+        if (LoopbackTransport.isEnabled(settings)) {
+            SessionID sessionId = settings.sectionIterator().next();
+            loopback = new LoopbackTransport(settings, sessionId, this, loopbackPeer, storeFactory, logFactory);
+            loopback.start();
+            log.info("Acceptor simulator started with loopback transport");
+            return;
+        }
         
         acceptor = new SocketAcceptor(this, storeFactory, settings, logFactory, messageFactory);
+        configureDynamicSessions(storeFactory, logFactory, messageFactory);
         acceptor.start();
-        log.info("Acceptor simulator started");
+        log.info("Acceptor simulator started with {} worker threads", workers.size());
+    }
+    
+    /**
+     * 为每个模板会话所在的监听地址注册动态会话提供者，模板的TargetCompID等可用*通配
+     */
+    private void configureDynamicSessions(MessageStoreFactory storeFactory, LogFactory logFactory,
+                                          MessageFactory messageFactory) throws ConfigError {
+        Map<InetSocketAddress, List<DynamicAcceptorSessionProvider.TemplateMapping>> mappings = new HashMap<>();
+        try {
+            Iterator<SessionID> sections = settings.sectionIterator();
+            while (sections.hasNext()) {
+                SessionID templateId = sections.next();
+                if (!settings.isSetting(templateId, Acceptor.SETTING_ACCEPTOR_TEMPLATE)
+                        || !settings.getBool(templateId, Acceptor.SETTING_ACCEPTOR_TEMPLATE)) {
+                    continue;
+                }
+                String host = settings.isSetting(templateId, Acceptor.SETTING_SOCKET_ACCEPT_ADDRESS)
+                        ? settings.getString(templateId, Acceptor.SETTING_SOCKET_ACCEPT_ADDRESS) : "0.0.0.0";
+                int port = (int) settings.getLong(templateId, Acceptor.SETTING_SOCKET_ACCEPT_PORT);
+                mappings.computeIfAbsent(new InetSocketAddress(host, port), k -> new ArrayList<>())
+                        .add(new DynamicAcceptorSessionProvider.TemplateMapping(templateId, templateId));
+            }
+        } catch (FieldConvertError e) {
+            throw new ConfigError("Invalid acceptor template: " + e.getMessage());
+        }
+        for (Map.Entry<InetSocketAddress, List<DynamicAcceptorSessionProvider.TemplateMapping>> entry : mappings.entrySet()) {
+            acceptor.setSessionProvider(entry.getKey(), new DynamicAcceptorSessionProvider(settings, entry.getValue(),
+                    this, storeFactory, logFactory, messageFactory));
+            log.info("Dynamic sessions enabled on {} for {}", entry.getKey(), entry.getValue());
+        }
     }
     
     @Override
@@ -39,11 +140,62 @@ class AcceptorSimulator implements quickfix.Application, FIXSimulator {
             acceptor.stop();
             log.info("Acceptor simulator stopped");
         }
+        if (loopback != null) {
+            loopback.stop();
+            loopback = null;
+            log.info("Acceptor simulator stopped");
+        }
+        SessionWorkers pool = workers;
+        if (pool != null) {
+            workers = null;
+            pool.stop();
+        }
+        TimerWheel timer = responseTimer;
+        if (timer != null) {
+            responseTimer = null;
+            long dropped = timer.stop();
+            if (dropped > 0) {
+                log.warn("Dropped {} delayed responses on stop", dropped);
+            }
+        }
+        replyOrders.clear();
+        messageBus.clear();
+        journal.close();
+    }
+    
+    /**
+     * 场景未指定延迟时读取配置文件中的ResponseLatency
+     */
+    private void startResponseTimer() throws ConfigError {
+        if (responseLatency == null && settings.isSetting(LatencyDistribution.SETTING_RESPONSE_LATENCY)) {
+            try {
+                responseLatency = LatencyDistribution.parse(settings.getString(LatencyDistribution.SETTING_RESPONSE_LATENCY));
+            } catch (IllegalArgumentException e) {
+                throw new ConfigError(e.getMessage());
+            }
+        }
+        if (responseLatency != null) {
+            log.info("Using {} response latency", responseLatency);
+        }
+        TimerWheel timer = new TimerWheel("response-timer");
+        timer.start();
+        responseTimer = timer;
     }
     
     @Override
     public void sendMessage(Message message) throws SessionNotFound {
-        // 实现消息发送逻辑
+        SessionID current = sessionId;
+        if (current == null) {
+            throw new SessionNotFound("Simulator session has not been created");
+        }
+        Session.sendToTarget(message, current);
+    }
+    
+    /**
+     * 向指定会话发送消息，多会话时使用
+     */
+    public void sendMessage(SessionID target, Message message) throws SessionNotFound {
+        Session.sendToTarget(message, target);
     }
     
     @Override
@@ -51,10 +203,92 @@ class AcceptorSimulator implements quickfix.Application, FIXSimulator {
         this.behavior = config;
     }
     
+    /**
+     * 为TargetCompID为指定值的会话（含动态会话）设置独立行为
+     */
+    public void setSessionBehavior(String targetCompId, BehaviorConfiguration config) {
+        if (config == null) {
+            sessionBehaviors.remove(targetCompId);
+        } else {
+            sessionBehaviors.put(targetCompId, config);
+        }
+    }
+    
+    private BehaviorConfiguration behaviorFor(SessionID sessionId) {
+        BehaviorConfiguration config = sessionBehaviors.isEmpty() ? null : sessionBehaviors.get(sessionId.getTargetCompID());
+        return config != null ? config : behavior;
+    }
+    
+    /**
+     * 设置消息存储类型，需在start()之前调用
+     */
+    public void setStoreType(StoreType storeType) {
+        this.storeType = storeType;
+    }
+    
+    /**
+     * 设置应答延迟分布，叠加在ResponseAction自身的延迟之上，需在start()之前调用
+     */
+    public void setResponseLatency(LatencyDistribution responseLatency) {
+        this.responseLatency = responseLatency;
+    }
+    
+    /**
+     * 启用内置撮合引擎作为对手方：新单、撤单、改单按价格-时间优先撮合并回报，不再交给行为配置；
+     * 撮合在会话工作线程上执行，回报与行为应答一样按应答延迟发送
+     */
+    public void enableMatchingEngine() {
+        if (counterparty == null) {
+            counterparty = new MatchingCounterparty(this::sendReport);
+        }
+    }
+    
+    public MatchingCounterparty getMatchingCounterparty() {
+        return counterparty;
+    }
+    
+    /**
+     * 设置回环传输的对端应用（通常为同一JVM内的被测引擎），需在start()之前调用
+     */
+    public void setLoopbackPeer(Application peer) {
+        this.loopbackPeer = peer;
+    }
+    
+    @Override
+    public SessionID getSessionId() {
+        return sessionId;
+    }
+    
+    /**
+     * 已创建的全部会话（含动态会话）
+     */
+    public Set<SessionID> getSessionIds() {
+        return Collections.unmodifiableSet(sessionIds);
+    }
+    
+    @Override
+    public Message getLastReceivedMessage() {
+        return messageBus.getLastReceivedMessage(sessionId);
+    }
+    
+    @Override
+    public InboundMessageBus getMessageBus() {
+        return messageBus;
+    }
+    
+    @Override
+    public MessageJournal getJournal() {
+        return journal;
+    }
+    
     // Application接口实现
     @Override
     public void onCreate(SessionID sessionId) {
         log.info("Session created: {}", sessionId);
+        sessionIds.add(sessionId);
+        if (this.sessionId == null) {
+            this.sessionId = sessionId;
+        }
     }
     
     @Override
@@ -65,36 +299,349 @@ class AcceptorSimulator implements quickfix.Application, FIXSimulator {
     @Override
     public void onLogout(SessionID sessionId) {
         log.info("Session logged out: {}", sessionId);
+        MatchingCounterparty matching = counterparty;
+        if (matching != null) {
+            // 排在该会话已到达的订单之后撤销挂单
+            dispatch(sessionId, () -> matching.onLogout(sessionId));
+        }
     }
     
     @Override
     public void toAdmin(Message message, SessionID sessionId) {
         log.debug("Sending admin message: {}", message);
+        journal.append(sessionId, MessageJournal.Direction.OUTBOUND, message);
     }
     
     @Override
     public void fromAdmin(Message message, SessionID sessionId) {
         log.debug("Received admin message: {}", message);
+        journal.append(sessionId, MessageJournal.Direction.INBOUND, message);
+        messageBus.publish(sessionId, message);
     }
     
     @Override
     public void toApp(Message message, SessionID sessionId) throws DoNotSend {
         log.debug("Sending app message: {}", message);
+        journal.append(sessionId, MessageJournal.Direction.OUTBOUND, message);
     }
     
     @Override
     public void fromApp(Message message, SessionID sessionId) throws FieldNotFound, IncorrectDataFormat, IncorrectTagValue, UnsupportedMessageType {
         log.info("Received app message: {}", message);
-        if (behavior != null) {
-            ResponseAction action = behavior.determineResponse(message);
-            processResponseAction(action, sessionId);
+        journal.append(sessionId, MessageJournal.Direction.INBOUND, message);
+        messageBus.publish(sessionId, message);
+        MatchingCounterparty matching = counterparty;
+        if (matching != null && MatchingCounterparty.handles(message)) {
+            dispatch(sessionId, () -> match(matching, message, sessionId));
+            return;
+        }
+        BehaviorConfiguration config = behaviorFor(sessionId);
+        if (config == null) {
+            return;
+        }
+        dispatch(sessionId, () -> respond(config, message, sessionId));
+    }
+    
+    /**
+     * 交给会话工作线程执行，保持同一会话内的处理顺序；工作线程未启动时在当前线程执行
+     */
+    private void dispatch(SessionID sessionId, Runnable task) {
+        SessionWorkers pool = workers;
+        if (pool != null) {
+            pool.execute(sessionId, task);
+        } else {
+            task.run();
         }
     }
     
+    private void match(MatchingCounterparty matching, Message message, SessionID sessionId) {
+        try {
+            matching.onMessage(message, sessionId);
+        } catch (FieldNotFound | RuntimeException e) {
+            log.error("Matching failed for {}", sessionId, e);
+        }
+    }
+    
+    /**
+     * 撮合回报的发送目标，每条回报单独抽取应答延迟
+     */
+    private void sendReport(Message report, SessionID sessionId) {
+        LatencyDistribution latency = responseLatency;
+        reply(report, sessionId, latency != null ? latency.nextDelayNanos() : 0);
+    }
+    
+    private void respond(BehaviorConfiguration config, Message message, SessionID sessionId) {
+        try {
+            processResponseAction(config.determineResponse(message), sessionId);
+        } catch (RuntimeException e) {
+            log.error("Behavior failed for {}", sessionId, e);
+        }
+    }
+    
+    /**
+     * 应答链上的延迟逐个累加后交给reply发送
+     */
     private void processResponseAction(ResponseAction action, SessionID sessionId) {
-        if (action != null && action.getResponseMessage() != null) {
+        if (action == null) {
+            return;
+        }
+        LatencyDistribution latency = responseLatency;
+        long delayNanos = latency != null ? latency.nextDelayNanos() : 0;
+        for (ResponseAction current = action; current != null; current = current.getNext()) {
+            Message response = current.getResponseMessage();
+            delayNanos += TimeUnit.MILLISECONDS.toNanos(Math.max(0, current.getDelay()));
+            if (response != null) {
+                reply(response, sessionId, delayNanos);
+            }
+        }
+    }
+    
+    /**
+     * 有延迟的应答交给时间轮在到期后发送，不阻塞调用线程。
+     * 每条应答的发送时刻取max(本会话上一条应答的发送时刻, 当前时间+延迟)，
+     * 随机延迟较短的后续应答不会越过前面的应答；本会话仍有未发出的应答时，无延迟的应答也排入时间轮
+     */
+    private void reply(Message response, SessionID sessionId, long delayNanos) {
+        TimerWheel timer = responseTimer;
+        if (timer == null) {
+            sendResponse(response, sessionId);
+            return;
+        }
+        ReplyOrder order = replyOrders.computeIfAbsent(sessionId, id -> new ReplyOrder());
+        // 撮合回报可能在其他会话的工作线程上产生，按会话加锁保持调度顺序
+        synchronized (order) {
+            if (delayNanos <= 0 && order.scheduled.get() == 0) {
+                sendResponse(response, sessionId);
+                return;
+            }
+            long due = System.nanoTime() + delayNanos;
+            if (order.scheduled.get() > 0) {
+                due = Math.max(order.lastDue, due);
+            }
+            order.lastDue = due;
+            order.scheduled.incrementAndGet();
+            timer.scheduleAt(() -> {
+                try {
+                    sendResponse(response, sessionId);
+                } finally {
+                    order.scheduled.decrementAndGet();
+                }
+            }, due);
+        }
+    }
+    
+    private void sendResponse(Message response, SessionID sessionId) {
+        try {
+            Session.sendToTarget(response, sessionId);
+        } catch (SessionNotFound e) {
+            log.error("Failed to send response", e);
+        }
+    }
+    
+    /**
+     * 单个会话的应答排序状态；调度在该对象的锁内进行，计数在应答发出后由时间轮线程递减
+     */
+    private static final class ReplyOrder {
+        private long lastDue;
+        private final AtomicInteger scheduled = new AtomicInteger();
+    }
+}
+
+// Initiator模拟器实现
+// 主动连接被测引擎；配置行情发布后，登录时按场景参数推送快照和增量行情
+class InitiatorSimulator implements quickfix.Application, FIXSimulator {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(InitiatorSimulator.class);
+    
+    private SocketInitiator initiator;
+    private SessionSettings settings;
+    private BehaviorConfiguration behavior;
+    private volatile SessionID sessionId;
+    private final InboundMessageBus messageBus = new InboundMessageBus();
+    private volatile MessageJournal journal = new MessageJournal();
+    private StoreType storeType;
+    // 行情发布参数及当前发布器
+    private volatile MarketDataPublisher.Definition marketData;
+    private volatile MarketDataPublisher publisher;
+    private final SessionAllocator.SessionAllocation allocation;
+    
+    public InitiatorSimulator() {
+        this(null);
+    }
+    
+    /**
+     * 使用独立的连接端口、CompID和存储目录创建模拟器，用于并行执行
+     */
+    public InitiatorSimulator(SessionAllocator.SessionAllocation allocation) {
+        this.allocation = allocation;
+    }
+    
+    @Override
+    public void start() throws ConfigError {
+        settings = new SessionSettings("config/initiator.cfg");
+        if (allocation != null) {
+            settings = allocation.apply(settings);
+        }
+        journal = MessageJournal.fromSettings(settings);
+        StoreType effectiveStoreType = storeType != null ? storeType : StoreType.fromSettings(settings);
+        MessageStoreFactory storeFactory = effectiveStoreType.createStoreFactory(settings);
+        LogFactory logFactory = effectiveStoreType.createLogFactory(settings);
+        log.info("Using {} message store", effectiveStoreType);
+        initiator = new SocketInitiator(this, storeFactory, settings, logFactory, new DefaultMessageFactory());
+        initiator.start();
+        log.info("Initiator simulator started");
+    }
+    
+    @Override
+    public void stop() {
+        stopMarketData();
+        if (initiator != null) {
+            initiator.stop();
+            log.info("Initiator simulator stopped");
+        }
+        messageBus.clear();
+        journal.close();
+    }
+    
+    @Override
+    public void sendMessage(Message message) throws SessionNotFound {
+        SessionID current = sessionId;
+        if (current == null) {
+            throw new SessionNotFound("Simulator session has not been created");
+        }
+        Session.sendToTarget(message, current);
+    }
+    
+    @Override
+    public void setBehavior(BehaviorConfiguration config) {
+        this.behavior = config;
+    }
+    
+    /**
+     * 设置消息存储类型，需在start()之前调用
+     */
+    public void setStoreType(StoreType storeType) {
+        this.storeType = storeType;
+    }
+    
+    /**
+     * 设置行情发布参数，publishOnLogon时在会话登录后自动开始发布
+     */
+    public void setMarketData(MarketDataPublisher.Definition marketData) {
+        this.marketData = marketData;
+    }
+    
+    /**
+     * 在当前会话上开始发布行情，已在发布时不重复启动
+     */
+    public synchronized void startMarketData() {
+        SessionID current = sessionId;
+        MarketDataPublisher.Definition definition = marketData;
+        if (current == null || definition == null || publisher != null) {
+            return;
+        }
+        Session session = Session.lookupSession(current);
+        if (session == null) {
+            return;
+        }
+        publisher = new MarketDataPublisher(definition, current, session::send);
+        publisher.start();
+    }
+    
+    public synchronized void stopMarketData() {
+        MarketDataPublisher current = publisher;
+        if (current != null) {
+            publisher = null;
+            current.stop();
+        }
+    }
+    
+    public MarketDataPublisher getMarketDataPublisher() {
+        return publisher;
+    }
+    
+    @Override
+    public SessionID getSessionId() {
+        return sessionId;
+    }
+    
+    @Override
+    public Message getLastReceivedMessage() {
+        return messageBus.getLastReceivedMessage(sessionId);
+    }
+    
+    @Override
+    public InboundMessageBus getMessageBus() {
+        return messageBus;
+    }
+    
+    @Override
+    public MessageJournal getJournal() {
+        return journal;
+    }
+    
+    // Application接口实现
+    @Override
+    public void onCreate(SessionID sessionId) {
+        log.info("Session created: {}", sessionId);
+        if (this.sessionId == null) {
+            this.sessionId = sessionId;
+        }
+    }
+    
+    @Override
+    public void onLogon(SessionID sessionId) {
+        log.info("Session logged on: {}", sessionId);
+        MarketDataPublisher.Definition definition = marketData;
+        if (definition != null && definition.isPublishOnLogon()) {
+            startMarketData();
+        }
+    }
+    
+    @Override
+    public void onLogout(SessionID sessionId) {
+        log.info("Session logged out: {}", sessionId);
+        stopMarketData();
+    }
+    
+    @Override
+    public void toAdmin(Message message, SessionID sessionId) {
+        log.debug("Sending admin message: {}", message);
+        journal.append(sessionId, MessageJournal.Direction.OUTBOUND, message);
+    }
+    
+    @Override
+    public void fromAdmin(Message message, SessionID sessionId) {
+        log.debug("Received admin message: {}", message);
+        journal.append(sessionId, MessageJournal.Direction.INBOUND, message);
+        messageBus.publish(sessionId, message);
+    }
+    
+    @Override
+    public void toApp(Message message, SessionID sessionId) throws DoNotSend {
+        // 行情报文复用同一实例且数量巨大，不写入日志
+        if (message instanceof MarketDataMessage) {
+            return;
+        }
+        log.debug("Sending app message: {}", message);
+        journal.append(sessionId, MessageJournal.Direction.OUTBOUND, message);
+    }
+    
+    @Override
+    public void fromApp(Message message, SessionID sessionId) throws FieldNotFound, IncorrectDataFormat, IncorrectTagValue, UnsupportedMessageType {
+        log.info("Received app message: {}", message);
+        journal.append(sessionId, MessageJournal.Direction.INBOUND, message);
+        messageBus.publish(sessionId, message);
+        BehaviorConfiguration config = behavior;
+        if (config == null) {
+            return;
+        }
+        ResponseAction action = config.determineResponse(message);
+        for (ResponseAction current = action; current != null; current = current.getNext()) {
+            if (current.getResponseMessage() == null) {
+                continue;
+            }
             try {
-                Session.sendToTarget(action.getResponseMessage(), sessionId);
+                Session.sendToTarget(current.getResponseMessage(), sessionId);
             } catch (SessionNotFound e) {
                 log.error("Failed to send response", e);
             }
@@ -112,7 +659,10 @@ interface BehaviorConfiguration {
 // 响应动作
 class ResponseAction {
     private Message responseMessage;
+    // 应答延迟（毫秒），链上后续动作相对前一动作计算
     private int delay;
+    // 同一请求的后续应答，如部分成交后撤单
+    private ResponseAction next;
     
     public ResponseAction(Message responseMessage, int delay) {
         this.responseMessage = responseMessage;
@@ -121,4 +671,7 @@ class ResponseAction {
     
     public Message getResponseMessage() { return responseMessage; }
     public int getDelay() { return delay; }
+    
+    public ResponseAction getNext() { return next; }
+    public void setNext(ResponseAction next) { this.next = next; }
 }
\ No newline at end of file
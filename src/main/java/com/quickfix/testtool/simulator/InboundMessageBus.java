@@ -0,0 +1,134 @@
+package com.quickfix.testtool.simulator;
+
+import quickfix.Message;
+import quickfix.SessionID;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * 入站消息总线
+ * 由模拟器的fromApp/fromAdmin直接推送消息，等待方注册谓词后在匹配消息到达时立即完成，
+ * 取代基于getLastReceivedMessage的轮询等待。发布时记录到达时刻，等待方可取得消息的实际到达时间
+ */
+public class InboundMessageBus {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(InboundMessageBus.class);
+
+    // 按会话记录最近一条入站消息及其到达时刻
+    private final Map<SessionID, MessageJournal.Entry> lastMessages = new ConcurrentHashMap<>();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private volatile MessageJournal.Entry lastMessage;
+
+    /**
+     * 发布入站消息，唤醒所有匹配的等待方
+     */
+    public void publish(SessionID sessionId, Message message) {
+        MessageJournal.Entry arrival = new MessageJournal.Entry(-1, MessageJournal.Direction.INBOUND,
+                System.currentTimeMillis(), System.nanoTime(), message);
+        if (sessionId != null) {
+            lastMessages.put(sessionId, arrival);
+        }
+        lastMessage = arrival;
+
+        for (Waiter waiter : waiters) {
+            waiter.offer(sessionId, arrival);
+        }
+    }
+
+    /**
+     * 注册等待方，返回在匹配消息到达时完成的Future
+     * 超时后Future以null完成；sessionId为null时匹配任意会话
+     */
+    public CompletableFuture<Message> await(SessionID sessionId, Predicate<Message> predicate, long timeoutMillis) {
+        return awaitEntry(sessionId, predicate, timeoutMillis)
+                .thenApply(arrival -> arrival != null ? arrival.getMessage() : null);
+    }
+
+    /**
+     * 与await相同，完成值为带到达时刻的条目（序号为-1）
+     */
+    public CompletableFuture<MessageJournal.Entry> awaitEntry(SessionID sessionId, Predicate<Message> predicate,
+                                                              long timeoutMillis) {
+        Waiter waiter = register(sessionId, predicate, timeoutMillis);
+
+        // 注册前已到达的最近消息同样参与匹配，与原轮询语义保持一致
+        MessageJournal.Entry latest = sessionId != null ? lastMessages.get(sessionId) : lastMessage;
+        if (latest != null) {
+            waiter.offer(sessionId, latest);
+        }
+
+        return waiter.future;
+    }
+
+    /**
+     * 等待会话的下一条入站消息，不检查注册前已到达的消息；调用方可主动完成返回的Future以注销等待
+     */
+    public CompletableFuture<MessageJournal.Entry> awaitNext(SessionID sessionId, long timeoutMillis) {
+        return register(sessionId, message -> true, timeoutMillis).future;
+    }
+
+    private Waiter register(SessionID sessionId, Predicate<Message> predicate, long timeoutMillis) {
+        Waiter waiter = new Waiter(sessionId, predicate);
+        waiters.add(waiter);
+        waiter.future.whenComplete((message, error) -> waiters.remove(waiter));
+        waiter.future.completeOnTimeout(null, timeoutMillis, TimeUnit.MILLISECONDS);
+        return waiter;
+    }
+
+    public Message getLastReceivedMessage(SessionID sessionId) {
+        MessageJournal.Entry latest = sessionId != null ? lastMessages.get(sessionId) : lastMessage;
+        return latest != null ? latest.getMessage() : null;
+    }
+
+    public Message getLastReceivedMessage() {
+        return getLastReceivedMessage(null);
+    }
+
+    public int getPendingWaiterCount() {
+        return waiters.size();
+    }
+
+    /**
+     * 清除会话状态并取消所有未完成的等待
+     */
+    public void clear() {
+        for (Waiter waiter : waiters) {
+            waiter.future.complete(null);
+        }
+        waiters.clear();
+        lastMessages.clear();
+        lastMessage = null;
+    }
+
+    private static class Waiter {
+        private final SessionID sessionId;
+        private final Predicate<Message> predicate;
+        private final CompletableFuture<MessageJournal.Entry> future = new CompletableFuture<>();
+
+        Waiter(SessionID sessionId, Predicate<Message> predicate) {
+            this.sessionId = sessionId;
+            this.predicate = predicate;
+        }
+
+        void offer(SessionID source, MessageJournal.Entry arrival) {
+            if (future.isDone()) {
+                return;
+            }
+            if (sessionId != null && !sessionId.equals(source)) {
+                return;
+            }
+            try {
+                if (predicate.test(arrival.getMessage())) {
+                    future.complete(arrival);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Message predicate failed: {}", e.getMessage());
+            }
+        }
+    }
+}
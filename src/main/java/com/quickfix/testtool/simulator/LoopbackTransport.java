@@ -0,0 +1,246 @@
+package com.quickfix.testtool.simulator;
+
+import quickfix.*;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 进程内回环传输
+ * 在同一JVM内直接连接模拟器会话与对端会话，编码后的FIX消息通过无锁队列交换，
+ * 会话层（序列号、心跳、重发）仍由QuickFIX/J Session完整处理，不占用TCP端口
+ */
+public class LoopbackTransport {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(LoopbackTransport.class);
+
+    public static final String SETTING_TRANSPORT_TYPE = "TransportType";
+    public static final String TRANSPORT_LOOPBACK = "loopback";
+
+    private static final long TIMER_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long RECONNECT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final SessionSettings settings;
+    private final SessionID acceptorSessionId;
+    private final SessionID initiatorSessionId;
+    private final SessionFactory acceptorFactory;
+    private final SessionFactory initiatorFactory;
+
+    private Session acceptorSession;
+    private Session initiatorSession;
+    private volatile Connection connection;
+    private volatile Thread pumpThread;
+    private volatile boolean running;
+
+    /**
+     * @param acceptorApplication 模拟器侧应用
+     * @param peerApplication 对端（被测引擎）应用，会话层场景可使用ApplicationAdapter
+     */
+    public LoopbackTransport(SessionSettings settings, SessionID acceptorSessionId,
+                             Application acceptorApplication, Application peerApplication,
+                             MessageStoreFactory storeFactory, LogFactory logFactory) {
+        this.settings = settings;
+        this.acceptorSessionId = acceptorSessionId;
+        this.initiatorSessionId = new SessionID(acceptorSessionId.getBeginString(),
+                acceptorSessionId.getTargetCompID(), acceptorSessionId.getSenderCompID(),
+                acceptorSessionId.getSessionQualifier());
+        this.acceptorFactory = new DefaultSessionFactory(acceptorApplication, storeFactory, logFactory,
+                new DefaultMessageFactory());
+        this.initiatorFactory = new DefaultSessionFactory(peerApplication, storeFactory, logFactory,
+                new DefaultMessageFactory());
+    }
+
+    public static boolean isEnabled(SessionSettings settings) {
+        try {
+            return settings.isSetting(SETTING_TRANSPORT_TYPE)
+                    && TRANSPORT_LOOPBACK.equalsIgnoreCase(settings.getString(SETTING_TRANSPORT_TYPE));
+        } catch (ConfigError e) {
+            return false;
+        }
+    }
+
+    public void start() throws ConfigError {
+        // 对端会话配置由模拟器会话镜像而来
+        settings.setString(initiatorSessionId, SessionFactory.SETTING_CONNECTION_TYPE,
+                SessionFactory.INITIATOR_CONNECTION_TYPE);
+        settings.setString(initiatorSessionId, SessionSettings.BEGINSTRING, initiatorSessionId.getBeginString());
+        settings.setString(initiatorSessionId, SessionSettings.SENDERCOMPID, initiatorSessionId.getSenderCompID());
+        settings.setString(initiatorSessionId, SessionSettings.TARGETCOMPID, initiatorSessionId.getTargetCompID());
+
+        acceptorSession = acceptorFactory.create(acceptorSessionId, settings);
+        initiatorSession = initiatorFactory.create(initiatorSessionId, settings);
+
+        running = true;
+        pumpThread = new Thread(this::pump, "loopback-" + acceptorSessionId);
+        pumpThread.setDaemon(true);
+        pumpThread.start();
+        log.info("Loopback transport started: {} <-> {}", acceptorSessionId, initiatorSessionId);
+    }
+
+    public void stop() {
+        running = false;
+        Thread thread = pumpThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        disconnect("Loopback transport stopped");
+        closeQuietly(acceptorSession);
+        closeQuietly(initiatorSession);
+        log.info("Loopback transport stopped: {}", acceptorSessionId);
+    }
+
+    public SessionID getAcceptorSessionId() { return acceptorSessionId; }
+    public SessionID getInitiatorSessionId() { return initiatorSessionId; }
+
+    /**
+     * 单线程驱动两端会话：投递队列中的消息，并按秒触发会话定时器（心跳、超时、重连）
+     */
+    private void pump() {
+        long nextTimer = System.nanoTime();
+        long nextConnect = System.nanoTime();
+
+        while (running) {
+            long now = System.nanoTime();
+            if (connection == null && now >= nextConnect) {
+                if (initiatorSession.isEnabled()) {
+                    connect();
+                }
+                nextConnect = now + RECONNECT_INTERVAL_NANOS;
+            }
+
+            Connection current = connection;
+            boolean delivered = current != null
+                    && (current.deliver(current.toAcceptor, acceptorSession)
+                    | current.deliver(current.toInitiator, initiatorSession));
+
+            if (now >= nextTimer) {
+                tick(acceptorSession);
+                tick(initiatorSession);
+                nextTimer = now + TIMER_INTERVAL_NANOS;
+                // 定时器可能产生心跳或测试请求，立即进入下一轮投递
+                continue;
+            }
+
+            if (!delivered) {
+                LockSupport.parkNanos(this, Math.max(0, nextTimer - System.nanoTime()));
+            }
+        }
+    }
+
+    private void connect() {
+        Connection newConnection = new Connection();
+        connection = newConnection;
+        acceptorSession.setResponder(newConnection.acceptorSide);
+        initiatorSession.setResponder(newConnection.initiatorSide);
+        // 对端会话在next()中检测到Responder后发起Logon
+        tick(initiatorSession);
+        log.debug("Loopback connection established for {}", acceptorSessionId);
+    }
+
+    private void disconnect(String reason) {
+        Connection current = connection;
+        if (current != null && current.open.compareAndSet(true, false)) {
+            connection = null;
+            disconnectQuietly(acceptorSession, reason);
+            disconnectQuietly(initiatorSession, reason);
+        }
+    }
+
+    private void tick(Session session) {
+        try {
+            session.next();
+        } catch (IOException e) {
+            log.error("Session timer failed for {}", session.getSessionID(), e);
+        }
+    }
+
+    private void disconnectQuietly(Session session, String reason) {
+        try {
+            if (session != null && session.hasResponder()) {
+                session.disconnect(reason, false);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to disconnect {}", session.getSessionID(), e);
+        }
+    }
+
+    private void closeQuietly(Session session) {
+        try {
+            if (session != null) {
+                session.close();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close {}", session.getSessionID(), e);
+        }
+    }
+
+    /**
+     * 一次逻辑连接，断开后两端队列一并丢弃
+     */
+    private class Connection {
+        private final Queue<String> toAcceptor = new ConcurrentLinkedQueue<>();
+        private final Queue<String> toInitiator = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean open = new AtomicBoolean(true);
+        private final Responder acceptorSide = new LoopbackResponder(toInitiator);
+        private final Responder initiatorSide = new LoopbackResponder(toAcceptor);
+
+        boolean deliver(Queue<String> queue, Session session) {
+            boolean delivered = false;
+            String raw;
+            while (open.get() && (raw = queue.poll()) != null) {
+                delivered = true;
+                try {
+                    session.next(MessageUtils.parse(session, raw));
+                } catch (Exception e) {
+                    log.error("Failed to deliver loopback message to {}: {}", session.getSessionID(), raw, e);
+                }
+            }
+            return delivered;
+        }
+
+        private class LoopbackResponder implements Responder {
+            private final Queue<String> peerQueue;
+
+            LoopbackResponder(Queue<String> peerQueue) {
+                this.peerQueue = peerQueue;
+            }
+
+            @Override
+            public boolean send(String data) {
+                if (!open.get()) {
+                    return false;
+                }
+                peerQueue.offer(data);
+                Thread thread = pumpThread;
+                if (thread != null && thread != Thread.currentThread()) {
+                    LockSupport.unpark(thread);
+                }
+                return true;
+            }
+
+            @Override
+            public void disconnect() {
+                // 任一端断开即关闭整条连接，对端随之断开
+                if (open.compareAndSet(true, false)) {
+                    connection = null;
+                    disconnectQuietly(this == acceptorSide ? initiatorSession : acceptorSession,
+                            "Loopback peer disconnected");
+                }
+            }
+
+            @Override
+            public String getRemoteAddress() {
+                return "loopback";
+            }
+        }
+    }
+}
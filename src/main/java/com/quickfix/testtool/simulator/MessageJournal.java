@@ -0,0 +1,502 @@
+package com.quickfix.testtool.simulator;
+
+import quickfix.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 会话消息日志
+ * 按SessionID记录所有入站和出站消息的有界无锁环形缓冲区，
+ * 读取方通过序号游标从上次停止的位置继续消费，溢出时按配置策略处理。
+ * 环形缓冲区按块在首次写入时分配，大量空闲的动态会话只占用块索引
+ */
+public class MessageJournal {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(MessageJournal.class);
+
+    public static final String SETTING_CAPACITY = "JournalCapacity";
+    public static final String SETTING_OVERFLOW_POLICY = "JournalOverflowPolicy";
+    public static final String SETTING_SPILL_PATH = "JournalSpillPath";
+    public static final String SETTING_BLOCK_TIMEOUT = "JournalBlockTimeout";
+
+    private static final int DEFAULT_CAPACITY = 65536;
+    // 环形缓冲区的分块大小，必须为2的幂
+    private static final int CHUNK_SIZE = 1024;
+    private static final long DEFAULT_BLOCK_TIMEOUT_MILLIS = 1000;
+    private static final String DEFAULT_SPILL_PATH = "target/data/journal";
+
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Path spillPath;
+    private final long blockTimeoutNanos;
+    private final Map<SessionID, SessionJournal> journals = new ConcurrentHashMap<>();
+
+    public MessageJournal() {
+        this(DEFAULT_CAPACITY, OverflowPolicy.DROP_OLDEST, Paths.get(DEFAULT_SPILL_PATH), DEFAULT_BLOCK_TIMEOUT_MILLIS);
+    }
+
+    public MessageJournal(int capacity, OverflowPolicy overflowPolicy, Path spillPath, long blockTimeoutMillis) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Journal capacity must be positive: " + capacity);
+        }
+        // 容量向上取整为2的幂，便于用掩码定位槽位
+        int rounded = 1;
+        while (rounded < capacity) {
+            rounded <<= 1;
+        }
+        this.capacity = rounded;
+        this.overflowPolicy = overflowPolicy;
+        this.spillPath = spillPath;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+    }
+
+    /**
+     * 从QuickFIX/J配置的[default]段读取日志参数
+     */
+    public static MessageJournal fromSettings(SessionSettings settings) throws ConfigError {
+        return fromSettings(settings, true);
+    }
+
+    /**
+     * @param blockingAllowed 为false时BLOCK策略改为SPILL_TO_DISK，用于写入方是共享I/O线程、不能被单个读取方阻塞的场合
+     */
+    public static MessageJournal fromSettings(SessionSettings settings, boolean blockingAllowed) throws ConfigError {
+        try {
+            int capacity = settings.isSetting(SETTING_CAPACITY)
+                    ? settings.getInt(SETTING_CAPACITY) : DEFAULT_CAPACITY;
+            OverflowPolicy policy = settings.isSetting(SETTING_OVERFLOW_POLICY)
+                    ? OverflowPolicy.valueOf(settings.getString(SETTING_OVERFLOW_POLICY).toUpperCase())
+                    : OverflowPolicy.DROP_OLDEST;
+            if (policy == OverflowPolicy.BLOCK && !blockingAllowed) {
+                log.warn("Journal overflow policy BLOCK would stall the shared I/O thread, using SPILL_TO_DISK instead");
+                policy = OverflowPolicy.SPILL_TO_DISK;
+            }
+            Path spillPath = Paths.get(settings.isSetting(SETTING_SPILL_PATH)
+                    ? settings.getString(SETTING_SPILL_PATH) : DEFAULT_SPILL_PATH);
+            long blockTimeout = settings.isSetting(SETTING_BLOCK_TIMEOUT)
+                    ? settings.getLong(SETTING_BLOCK_TIMEOUT) : DEFAULT_BLOCK_TIMEOUT_MILLIS;
+            return new MessageJournal(capacity, policy, spillPath, blockTimeout);
+        } catch (FieldConvertError | IllegalArgumentException e) {
+            throw new ConfigError("Invalid journal settings: " + e.getMessage());
+        }
+    }
+
+    public long append(SessionID sessionId, Direction direction, Message message) {
+        return session(sessionId).append(direction, message);
+    }
+
+    public SessionJournal session(SessionID sessionId) {
+        return journals.computeIfAbsent(sessionId, id -> new SessionJournal(id));
+    }
+
+    public int getCapacity() { return capacity; }
+    public OverflowPolicy getOverflowPolicy() { return overflowPolicy; }
+
+    public void close() {
+        for (SessionJournal journal : journals.values()) {
+            journal.close();
+        }
+        journals.clear();
+    }
+
+    /**
+     * 消息方向
+     */
+    public enum Direction {
+        INBOUND, OUTBOUND
+    }
+
+    /**
+     * 溢出策略
+     */
+    public enum OverflowPolicy {
+        BLOCK, DROP_OLDEST, SPILL_TO_DISK
+    }
+
+    /**
+     * 日志条目
+     */
+    public static final class Entry {
+        private final long sequence;
+        private final Direction direction;
+        private final long timestamp;
+        private final long nanoTime;
+        private final byte[] raw;
+        private volatile Message message;
+
+        /**
+         * @param timestamp 记录时刻（毫秒）
+         * @param nanoTime 记录时刻的System.nanoTime()，用于计算往返延迟
+         */
+        public Entry(long sequence, Direction direction, long timestamp, long nanoTime, Message message) {
+            this(sequence, direction, timestamp, nanoTime, message, null);
+        }
+
+        /**
+         * 仅保留原始报文的条目，首次取消息时才解析
+         */
+        public Entry(long sequence, Direction direction, long timestamp, long nanoTime, byte[] raw) {
+            this(sequence, direction, timestamp, nanoTime, null, raw);
+        }
+
+        private Entry(long sequence, Direction direction, long timestamp, long nanoTime, Message message, byte[] raw) {
+            this.sequence = sequence;
+            this.direction = direction;
+            this.timestamp = timestamp;
+            this.nanoTime = nanoTime;
+            this.message = message;
+            this.raw = raw;
+        }
+
+        public long getSequence() { return sequence; }
+        public Direction getDirection() { return direction; }
+        public long getTimestamp() { return timestamp; }
+        public long getNanoTime() { return nanoTime; }
+
+        /**
+         * 解析后的消息，原始报文无法解析时返回null
+         */
+        public Message getMessage() {
+            Message parsed = message;
+            if (parsed == null && raw != null) {
+                try {
+                    parsed = MessageUtils.parse(new DefaultMessageFactory(), null,
+                            new String(raw, StandardCharsets.ISO_8859_1));
+                    message = parsed;
+                } catch (InvalidMessage e) {
+                    log.error("Failed to parse journal entry {}", sequence, e);
+                }
+            }
+            return parsed;
+        }
+
+        /**
+         * 原始报文，仅溢出文件读回的条目持有，其他条目返回null
+         */
+        public byte[] getRawMessage() { return raw; }
+    }
+
+    /**
+     * 读取游标，记录下一条待消费的序号
+     */
+    public static final class Cursor {
+        private volatile long next;
+        private volatile long skipped;
+        // 已扫描但未提交的位置，BLOCK策略下扫描过的条目不再阻塞写入
+        private volatile long scanned;
+        // 空闲游标不参与BLOCK策略的写入限流
+        private volatile boolean idle;
+        private long spillOffset;
+
+        public long getNext() { return next; }
+        public long getSkipped() { return skipped; }
+
+        public boolean isIdle() { return idle; }
+        public void setIdle(boolean idle) { this.idle = idle; }
+
+        /**
+         * 记录读取方已扫描到的位置，扫描过但未提交的条目允许被覆盖
+         */
+        public void markScanned(long position) {
+            if (position > scanned) {
+                scanned = position;
+            }
+        }
+
+        /**
+         * 提交消费位置，之后的读取从该序号开始
+         */
+        public void commit(long nextSequence) {
+            if (nextSequence > next) {
+                next = nextSequence;
+            }
+        }
+    }
+
+    /**
+     * 单个会话的环形日志
+     */
+    public class SessionJournal {
+        private final SessionID sessionId;
+        private final int mask = capacity - 1;
+        private final int chunkBits = Integer.numberOfTrailingZeros(Math.min(capacity, CHUNK_SIZE));
+        private final int chunkMask = (1 << chunkBits) - 1;
+        // 槽位按块延迟分配，未写入过的块为null
+        private final AtomicReferenceArray<AtomicReferenceArray<Entry>> chunks =
+                new AtomicReferenceArray<>(capacity >>> chunkBits);
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final List<Cursor> cursors = new CopyOnWriteArrayList<>();
+        private final Cursor stepCursor = newCursor();
+        private volatile SpillFile spillFile;
+        private volatile boolean closed;
+        // BLOCK策略等待超时后不再阻塞写入，直到读取方追上，避免会话线程每条消息都停顿一个超时
+        private volatile boolean blockingSuspended;
+
+        SessionJournal(SessionID sessionId) {
+            this.sessionId = sessionId;
+            // 步骤游标只在等待步骤执行期间限流写入，步骤之间不阻塞会话线程
+            stepCursor.idle = true;
+        }
+
+        public long append(Direction direction, Message message) {
+            if (overflowPolicy == OverflowPolicy.SPILL_TO_DISK) {
+                // 序号分配与溢出写入在同一把锁内完成，溢出文件按序号递增
+                synchronized (this) {
+                    return store(head.getAndIncrement(), direction, message);
+                }
+            }
+            return store(claim(), direction, message);
+        }
+
+        private long store(long sequence, Direction direction, Message message) {
+            int index = (int) (sequence & mask);
+            AtomicReferenceArray<Entry> chunk = chunk(index);
+            Entry previous = chunk.get(index & chunkMask);
+            if (previous != null) {
+                if (overflowPolicy == OverflowPolicy.SPILL_TO_DISK) {
+                    spill(previous);
+                } else {
+                    dropped.incrementAndGet();
+                }
+            }
+            chunk.set(index & chunkMask, new Entry(sequence, direction, System.currentTimeMillis(), System.nanoTime(), message));
+            return sequence;
+        }
+
+        private AtomicReferenceArray<Entry> chunk(int index) {
+            int chunkIndex = index >>> chunkBits;
+            AtomicReferenceArray<Entry> chunk = chunks.get(chunkIndex);
+            if (chunk == null) {
+                chunks.compareAndSet(chunkIndex, null, new AtomicReferenceArray<>(chunkMask + 1));
+                chunk = chunks.get(chunkIndex);
+            }
+            return chunk;
+        }
+
+        private long claim() {
+            if (overflowPolicy != OverflowPolicy.BLOCK) {
+                return head.getAndIncrement();
+            }
+
+            long deadline = 0;
+            while (true) {
+                long sequence = head.get();
+                boolean hasRoom = sequence - minCursorPosition() < capacity;
+                if (hasRoom && blockingSuspended) {
+                    blockingSuspended = false;
+                }
+                if (hasRoom || blockingSuspended || closed) {
+                    if (head.compareAndSet(sequence, sequence + 1)) {
+                        return sequence;
+                    }
+                    continue;
+                }
+                long now = System.nanoTime();
+                if (deadline == 0) {
+                    deadline = now + blockTimeoutNanos;
+                } else if (now > deadline) {
+                    blockingSuspended = true;
+                    log.warn("Journal reader for {} is {} entries behind, overwriting without blocking until it "
+                            + "catches up", sessionId, sequence - minCursorPosition());
+                    continue;
+                }
+                LockSupport.parkNanos(1000);
+            }
+        }
+
+        private long minCursorPosition() {
+            long min = Long.MAX_VALUE;
+            for (Cursor cursor : cursors) {
+                if (!cursor.idle) {
+                    min = Math.min(min, Math.max(cursor.next, cursor.scanned));
+                }
+            }
+            return min == Long.MAX_VALUE ? head.get() : min;
+        }
+
+        /**
+         * 读取游标位置的条目但不提交，条目尚未写入时返回null
+         */
+        public Entry read(Cursor cursor, long sequence) {
+            if (sequence >= head.get()) {
+                return null;
+            }
+
+            int index = (int) (sequence & mask);
+            AtomicReferenceArray<Entry> chunk = chunks.get(index >>> chunkBits);
+            Entry entry = chunk != null ? chunk.get(index & chunkMask) : null;
+            if (entry == null || entry.sequence < sequence) {
+                // 序号已被占用但尚未发布
+                return null;
+            }
+            if (entry.sequence == sequence) {
+                return entry;
+            }
+
+            // 条目已被覆盖
+            SpillFile file = spillFile;
+            if (overflowPolicy == OverflowPolicy.SPILL_TO_DISK && file != null) {
+                Entry spilled = file.read(cursor, sequence);
+                if (spilled != null) {
+                    return spilled;
+                }
+            }
+            long oldest = Math.max(sequence + 1, head.get() - capacity);
+            cursor.skipped += oldest - sequence;
+            cursor.commit(oldest);
+            return read(cursor, oldest);
+        }
+
+        /**
+         * 读取并提交游标的下一条条目
+         */
+        public Entry poll(Cursor cursor) {
+            Entry entry = read(cursor, cursor.next);
+            if (entry != null) {
+                cursor.commit(entry.sequence + 1);
+            }
+            return entry;
+        }
+
+        public Cursor newCursor() {
+            Cursor cursor = new Cursor();
+            cursor.next = head.get();
+            cursors.add(cursor);
+            return cursor;
+        }
+
+        public void releaseCursor(Cursor cursor) {
+            cursors.remove(cursor);
+        }
+
+        /**
+         * 测试步骤共享的游标，每个步骤从上一步停止的位置继续消费
+         */
+        public Cursor stepCursor() {
+            return stepCursor;
+        }
+
+        public SessionID getSessionId() { return sessionId; }
+        public long getHeadSequence() { return head.get(); }
+        public long getDroppedCount() { return dropped.get(); }
+
+        /**
+         * 在append的锁内调用
+         */
+        private void spill(Entry entry) {
+            try {
+                SpillFile file = spillFile;
+                if (file == null) {
+                    file = new SpillFile(sessionId);
+                    spillFile = file;
+                }
+                file.write(entry);
+            } catch (IOException e) {
+                dropped.incrementAndGet();
+                log.error("Failed to spill journal entry {} for {}", entry.sequence, sessionId, e);
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            SpillFile file = spillFile;
+            if (file != null) {
+                file.close();
+            }
+        }
+    }
+
+    /**
+     * 溢出文件，按序号顺序追加被覆盖的条目
+     * 每条记录为定长头（序号、方向、记录时刻、纳秒时刻、报文长度）加原始报文字节，
+     * 报文中的数据字段可以包含换行等任意字节；读取时按长度跳过不需要的记录
+     */
+    private class SpillFile {
+        private static final int HEADER_SIZE = 8 + 1 + 8 + 8 + 4;
+
+        private final Path file;
+        private final DataOutputStream writer;
+        private final byte[] header = new byte[HEADER_SIZE];
+        private RandomAccessFile reader;
+
+        SpillFile(SessionID sessionId) throws IOException {
+            Files.createDirectories(spillPath);
+            this.file = spillPath.resolve(sessionId.toString().replaceAll("[^A-Za-z0-9._-]", "_") + ".journal");
+            this.writer = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+            log.info("Spilling journal overflow to {}", file);
+        }
+
+        synchronized void write(Entry entry) throws IOException {
+            byte[] raw = entry.raw != null ? entry.raw : entry.message.toString().getBytes(StandardCharsets.ISO_8859_1);
+            writer.writeLong(entry.sequence);
+            writer.writeByte(entry.direction.ordinal());
+            writer.writeLong(entry.timestamp);
+            writer.writeLong(entry.nanoTime);
+            writer.writeInt(raw.length);
+            writer.write(raw);
+        }
+
+        synchronized Entry read(Cursor cursor, long sequence) {
+            try {
+                writer.flush();
+                if (reader == null) {
+                    reader = new RandomAccessFile(file.toFile(), "r");
+                }
+
+                // 溢出文件按序号递增写入，从游标上次的位置向后扫描
+                long offset = cursor.spillOffset;
+                long length = reader.length();
+                ByteBuffer fields = ByteBuffer.wrap(header);
+                while (offset + HEADER_SIZE <= length) {
+                    reader.seek(offset);
+                    reader.readFully(header);
+                    long recordSequence = fields.getLong(0);
+                    int rawLength = fields.getInt(HEADER_SIZE - 4);
+                    if (recordSequence >= sequence) {
+                        cursor.spillOffset = offset;
+                        if (recordSequence != sequence) {
+                            return null;
+                        }
+                        // 只保留原始报文，匹配命中后才解析
+                        byte[] raw = new byte[rawLength];
+                        reader.readFully(raw);
+                        return new Entry(recordSequence, Direction.values()[fields.get(8)], fields.getLong(9),
+                                fields.getLong(17), raw);
+                    }
+                    offset += HEADER_SIZE + rawLength;
+                }
+                cursor.spillOffset = offset;
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to read spilled journal entry {}", sequence, e);
+            }
+            return null;
+        }
+
+        synchronized void close() {
+            try {
+                writer.close();
+                if (reader != null) {
+                    reader.close();
+                }
+            } catch (IOException e) {
+                log.warn("Failed to close journal spill file {}", file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.quickfix.testtool.simulator;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import quickfix.FieldNotFound;
+import quickfix.Message;
+import quickfix.field.MsgType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 由场景配置声明的行为规则构成的模拟器行为
+ * 规则编译为决策树：先按MsgType分组，再在每个节点选择被最多规则等值约束的tag分支，
+ * 按字段值散列到子节点；没有该等值条件的规则进入rest分支。匹配时沿值分支与rest分支下降，
+ * 叶子中只剩少量规则逐条检查其余条件，数千条规则的匹配代价取决于树深而非规则数。
+ * 多条规则同时满足时序号最小（配置中最靠前）的规则生效
+ */
+public class RuleBasedBehavior implements BehaviorConfiguration {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(RuleBasedBehavior.class);
+
+    // 叶子节点规则数不超过该值时不再拆分
+    private static final int MAX_LEAF_SIZE = 4;
+
+    private final Map<String, Node> trees;
+    private final Node fallback;
+    private final int ruleCount;
+    private final AtomicLong ids = new AtomicLong();
+
+    private RuleBasedBehavior(Map<String, Node> trees, Node fallback, int ruleCount) {
+        this.trees = trees;
+        this.fallback = fallback;
+        this.ruleCount = ruleCount;
+    }
+
+    /**
+     * 编译场景JSON/YAML中的规则列表
+     */
+    public static RuleBasedBehavior compile(List<Map<String, Object>> rules) {
+        ObjectMapper mapper = new ObjectMapper();
+        List<BehaviorRule.Definition> definitions = new ArrayList<>();
+        if (rules != null) {
+            for (Map<String, Object> rule : rules) {
+                definitions.add(mapper.convertValue(rule, BehaviorRule.Definition.class));
+            }
+        }
+        return compileDefinitions(definitions);
+    }
+
+    /**
+     * 从JSON或YAML文件加载规则列表
+     */
+    public static RuleBasedBehavior load(Path file) throws IOException {
+        List<BehaviorRule.Definition> definitions = new ObjectMapper(new YAMLFactory())
+                .readValue(file.toFile(), new TypeReference<List<BehaviorRule.Definition>>() { });
+        return compileDefinitions(definitions);
+    }
+
+    static RuleBasedBehavior compileDefinitions(List<BehaviorRule.Definition> definitions) {
+        List<BehaviorRule> rules = new ArrayList<>(definitions.size());
+        for (int i = 0; i < definitions.size(); i++) {
+            rules.add(BehaviorRule.compile(i, definitions.get(i)));
+        }
+
+        // 通用规则并入每种MsgType，保持原有顺序
+        Map<String, List<BehaviorRule>> byMsgType = new HashMap<>();
+        List<BehaviorRule> common = new ArrayList<>();
+        for (BehaviorRule rule : rules) {
+            if (BehaviorRule.ANY_MSG_TYPE.equals(rule.msgType)) {
+                common.add(rule);
+            } else {
+                byMsgType.computeIfAbsent(rule.msgType, k -> new ArrayList<>());
+            }
+        }
+        for (BehaviorRule rule : rules) {
+            if (BehaviorRule.ANY_MSG_TYPE.equals(rule.msgType)) {
+                for (List<BehaviorRule> group : byMsgType.values()) {
+                    group.add(rule);
+                }
+            } else {
+                byMsgType.get(rule.msgType).add(rule);
+            }
+        }
+
+        Map<String, Node> trees = new HashMap<>();
+        for (Map.Entry<String, List<BehaviorRule>> entry : byMsgType.entrySet()) {
+            trees.put(entry.getKey(), build(entries(entry.getValue())));
+        }
+        RuleBasedBehavior behavior = new RuleBasedBehavior(trees, build(entries(common)), rules.size());
+        log.info("Compiled {} behavior rules for {} message types", rules.size(), trees.size());
+        return behavior;
+    }
+
+    @Override
+    public ResponseAction determineResponse(Message receivedMessage) {
+        BehaviorRule rule = match(receivedMessage);
+        if (rule == null) {
+            return null;
+        }
+        try {
+            return rule.respond(receivedMessage, ids);
+        } catch (FieldNotFound | NumberFormatException e) {
+            log.warn("Behavior rule {} could not build a response: {}", rule.name, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 返回优先级最高的匹配规则，没有匹配时返回null
+     */
+    BehaviorRule match(Message message) {
+        String msgType = BehaviorRule.fieldValue(message, MsgType.FIELD);
+        Node tree = msgType != null ? trees.get(msgType) : null;
+        return (tree != null ? tree : fallback).match(message, null);
+    }
+
+    @Override
+    public boolean shouldInitiateAction() {
+        return false;
+    }
+
+    @Override
+    public Message createInitiationMessage() {
+        return null;
+    }
+
+    public int getRuleCount() {
+        return ruleCount;
+    }
+
+    private static List<Entry> entries(List<BehaviorRule> rules) {
+        List<Entry> entries = new ArrayList<>(rules.size());
+        for (BehaviorRule rule : rules) {
+            entries.add(new Entry(rule, new ArrayList<>(Arrays.asList(rule.conditions))));
+        }
+        return entries;
+    }
+
+    /**
+     * 选择被最多规则等值约束的tag拆分，并列时取不同取值更多的tag
+     */
+    private static Node build(List<Entry> entries) {
+        if (entries.size() <= MAX_LEAF_SIZE) {
+            return Node.leaf(entries);
+        }
+        Map<Integer, Integer> counts = new HashMap<>();
+        Map<Integer, Set<String>> distinct = new HashMap<>();
+        for (Entry entry : entries) {
+            Set<Integer> seen = new LinkedHashSet<>();
+            for (BehaviorRule.Condition condition : entry.remaining) {
+                if (condition.operator == BehaviorRule.Operator.EQ && seen.add(condition.tag)) {
+                    counts.merge(condition.tag, 1, Integer::sum);
+                    distinct.computeIfAbsent(condition.tag, k -> new LinkedHashSet<>()).add(condition.value);
+                }
+            }
+        }
+        int tag = 0;
+        int bestCount = 1;
+        int bestDistinct = 0;
+        for (Map.Entry<Integer, Integer> count : counts.entrySet()) {
+            int values = distinct.get(count.getKey()).size();
+            if (count.getValue() > bestCount || (count.getValue() == bestCount && values > bestDistinct)) {
+                tag = count.getKey();
+                bestCount = count.getValue();
+                bestDistinct = values;
+            }
+        }
+        if (tag == 0) {
+            return Node.leaf(entries);
+        }
+
+        Map<String, List<Entry>> branches = new HashMap<>();
+        List<Entry> rest = new ArrayList<>();
+        for (Entry entry : entries) {
+            BehaviorRule.Condition split = null;
+            for (BehaviorRule.Condition condition : entry.remaining) {
+                if (condition.tag == tag && condition.operator == BehaviorRule.Operator.EQ) {
+                    split = condition;
+                    break;
+                }
+            }
+            if (split == null) {
+                rest.add(entry);
+            } else {
+                List<BehaviorRule.Condition> remaining = new ArrayList<>(entry.remaining);
+                remaining.remove(split);
+                branches.computeIfAbsent(split.value, k -> new ArrayList<>()).add(new Entry(entry.rule, remaining));
+            }
+        }
+        Map<String, Node> children = new HashMap<>();
+        for (Map.Entry<String, List<Entry>> branch : branches.entrySet()) {
+            children.put(branch.getKey(), build(branch.getValue()));
+        }
+        return Node.branch(tag, children, rest.isEmpty() ? null : build(rest));
+    }
+
+    /**
+     * 构建期的规则及其尚未被树路径消耗的条件
+     */
+    private static final class Entry {
+        final BehaviorRule rule;
+        final List<BehaviorRule.Condition> remaining;
+
+        Entry(BehaviorRule rule, List<BehaviorRule.Condition> remaining) {
+            this.rule = rule;
+            this.remaining = remaining;
+        }
+    }
+
+    /**
+     * 决策树节点：tag为0时是叶子，按序号升序保存规则及其剩余条件
+     */
+    private static final class Node {
+        final int tag;
+        final Map<String, Node> children;
+        final Node rest;
+        final BehaviorRule[] rules;
+        final BehaviorRule.Condition[][] conditions;
+
+        private Node(int tag, Map<String, Node> children, Node rest, BehaviorRule[] rules,
+                     BehaviorRule.Condition[][] conditions) {
+            this.tag = tag;
+            this.children = children;
+            this.rest = rest;
+            this.rules = rules;
+            this.conditions = conditions;
+        }
+
+        static Node leaf(Collection<Entry> entries) {
+            BehaviorRule[] rules = new BehaviorRule[entries.size()];
+            BehaviorRule.Condition[][] conditions = new BehaviorRule.Condition[entries.size()][];
+            int i = 0;
+            for (Entry entry : entries) {
+                rules[i] = entry.rule;
+                conditions[i] = entry.remaining.toArray(new BehaviorRule.Condition[0]);
+                i++;
+            }
+            return new Node(0, null, null, rules, conditions);
+        }
+
+        static Node branch(int tag, Map<String, Node> children, Node rest) {
+            return new Node(tag, children, rest, null, null);
+        }
+
+        /**
+         * 返回序号小于best的匹配规则中序号最小者，没有时返回best
+         */
+        BehaviorRule match(Message message, BehaviorRule best) {
+            if (tag == 0) {
+                for (int i = 0; i < rules.length; i++) {
+                    if (best != null && rules[i].index >= best.index) {
+                        break;
+                    }
+                    if (matches(conditions[i], message)) {
+                        return rules[i];
+                    }
+                }
+                return best;
+            }
+            String value = BehaviorRule.fieldValue(message, tag);
+            if (value != null) {
+                Node child = children.get(value);
+                if (child != null) {
+                    best = child.match(message, best);
+                }
+            }
+            return rest != null ? rest.match(message, best) : best;
+        }
+
+        private static boolean matches(BehaviorRule.Condition[] conditions, Message message) {
+            for (BehaviorRule.Condition condition : conditions) {
+                if (!condition.test(message)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.quickfix.testtool.simulator;
+
+import quickfix.*;
+import quickfix.mina.acceptor.DynamicAcceptorSessionProvider;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 会话资源分配器
+ * 为并行执行的场景分配互不冲突的端口、CompID和存储目录
+ */
+public class SessionAllocator {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(SessionAllocator.class);
+
+    private static final int DEFAULT_BASE_PORT = 19876;
+    private static final int DEFAULT_MAX_SLOTS = 1000;
+    private static final String DEFAULT_DATA_ROOT = "target/data/parallel";
+
+    private final int basePort;
+    private final int maxSlots;
+    private final Path dataRoot;
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final Queue<Integer> freeSlots = new ConcurrentLinkedQueue<>();
+
+    public SessionAllocator() {
+        this(DEFAULT_BASE_PORT, DEFAULT_MAX_SLOTS, Paths.get(DEFAULT_DATA_ROOT));
+    }
+
+    public SessionAllocator(int basePort, int maxSlots, Path dataRoot) {
+        this.basePort = basePort;
+        this.maxSlots = maxSlots;
+        this.dataRoot = dataRoot;
+    }
+
+    /**
+     * 分配一个空闲槽位，跳过已被其他进程占用的端口；被跳过的槽位在返回前放回空闲队列，之后可再次尝试
+     */
+    public SessionAllocation allocate(String scenarioId) {
+        List<Integer> busySlots = new ArrayList<>();
+        try {
+            return allocate(scenarioId, busySlots);
+        } finally {
+            freeSlots.addAll(busySlots);
+        }
+    }
+
+    private SessionAllocation allocate(String scenarioId, List<Integer> busySlots) {
+        for (int attempt = 0; attempt < maxSlots; attempt++) {
+            Integer slot = freeSlots.poll();
+            if (slot == null) {
+                slot = nextSlot.getAndIncrement();
+                if (slot >= maxSlots) {
+                    throw new IllegalStateException("No free session slots (max " + maxSlots + ")");
+                }
+            }
+
+            int port = basePort + slot;
+            if (!isPortAvailable(port)) {
+                log.warn("Port {} is in use, skipping slot {}", port, slot);
+                busySlots.add(slot);
+                continue;
+            }
+
+            Path storePath = dataRoot.resolve("slot-" + slot);
+            SessionAllocation allocation = new SessionAllocation(slot, port,
+                    "ACCEPTOR" + slot, "INITIATOR" + slot, storePath);
+            log.info("Allocated session slot {} (port {}) for scenario {}", slot, port, scenarioId);
+            return allocation;
+        }
+        throw new IllegalStateException("Unable to allocate a free port starting at " + basePort);
+    }
+
+    /**
+     * 释放槽位并清理其存储目录，避免状态泄漏到下一次执行
+     */
+    public void release(SessionAllocation allocation) {
+        deleteRecursively(allocation.getStorePath());
+        freeSlots.offer(allocation.getSlot());
+    }
+
+    private boolean isPortAvailable(int port) {
+        try (ServerSocket socket = new ServerSocket()) {
+            socket.setReuseAddress(true);
+            socket.bind(new InetSocketAddress(port));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void deleteRecursively(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Failed to clean session store {}", path, e);
+        }
+    }
+
+    /**
+     * 单个场景的会话资源
+     */
+    public static class SessionAllocation {
+        private final int slot;
+        private final int port;
+        private final String senderCompId;
+        private final String targetCompId;
+        private final Path storePath;
+
+        public SessionAllocation(int slot, int port, String senderCompId, String targetCompId, Path storePath) {
+            this.slot = slot;
+            this.port = port;
+            this.senderCompId = senderCompId;
+            this.targetCompId = targetCompId;
+            this.storePath = storePath;
+        }
+
+        /**
+         * 基于原始配置生成隔离的会话配置，覆盖端口、CompID和存储路径；
+         * Initiator配置改写连接端口并交换双方CompID，与同一槽位的Acceptor配置互为对端
+         */
+        public SessionSettings apply(SessionSettings base) throws ConfigError {
+            SessionSettings isolated = new SessionSettings();
+
+            Dictionary defaults = new Dictionary(base.get());
+            boolean initiator = isInitiator(defaults);
+            String senderCompId = initiator ? this.targetCompId : this.senderCompId;
+            String targetCompId = initiator ? this.senderCompId : this.targetCompId;
+            defaults.setLong(initiator ? Initiator.SETTING_SOCKET_CONNECT_PORT : Acceptor.SETTING_SOCKET_ACCEPT_PORT, port);
+            defaults.setString(SessionSettings.SENDERCOMPID, senderCompId);
+            defaults.setString(SessionSettings.TARGETCOMPID, targetCompId);
+            defaults.setString(FileStoreFactory.SETTING_FILE_STORE_PATH, storePath.resolve("store").toString());
+            defaults.setString(FileLogFactory.SETTING_FILE_LOG_PATH, storePath.resolve("log").toString());
+            isolated.set(defaults);
+
+            Iterator<SessionID> sections = base.sectionIterator();
+            while (sections.hasNext()) {
+                SessionID original = sections.next();
+                Dictionary section = new Dictionary(base.get(original));
+                // 动态会话模板的通配TargetCompID保持不变
+                String target = DynamicAcceptorSessionProvider.WILDCARD.equals(original.getTargetCompID())
+                        ? original.getTargetCompID() : targetCompId;
+                section.setString(SessionSettings.SENDERCOMPID, senderCompId);
+                section.setString(SessionSettings.TARGETCOMPID, target);
+                if (section.has(Acceptor.SETTING_SOCKET_ACCEPT_PORT)) {
+                    section.setLong(Acceptor.SETTING_SOCKET_ACCEPT_PORT, port);
+                }
+                if (section.has(Initiator.SETTING_SOCKET_CONNECT_PORT)) {
+                    section.setLong(Initiator.SETTING_SOCKET_CONNECT_PORT, port);
+                }
+                SessionID sessionId = new SessionID(original.getBeginString(), senderCompId, target,
+                        original.getSessionQualifier());
+                isolated.set(sessionId, section);
+            }
+            return isolated;
+        }
+
+        private static boolean isInitiator(Dictionary defaults) throws ConfigError {
+            try {
+                return defaults.has(SessionFactory.SETTING_CONNECTION_TYPE) && SessionFactory.INITIATOR_CONNECTION_TYPE
+                        .equals(defaults.getString(SessionFactory.SETTING_CONNECTION_TYPE));
+            } catch (FieldConvertError e) {
+                throw new ConfigError(e.getMessage());
+            }
+        }
+
+        public int getSlot() { return slot; }
+        public int getPort() { return port; }
+        public String getSenderCompId() { return senderCompId; }
+        public String getTargetCompId() { return targetCompId; }
+        public Path getStorePath() { return storePath; }
+    }
+}
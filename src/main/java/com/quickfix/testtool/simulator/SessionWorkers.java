@@ -0,0 +1,86 @@
+package com.quickfix.testtool.simulator;
+
+import quickfix.ConfigError;
+import quickfix.FieldConvertError;
+import quickfix.SessionID;
+import quickfix.SessionSettings;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模拟器共享的会话工作线程池
+ * 线程数默认等于CPU核数，会话按SessionID散列固定到其中一个线程，
+ * 同一会话的应答保持到达顺序，数千个会话共用少量线程而不是每会话一个线程
+ */
+final class SessionWorkers {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(SessionWorkers.class);
+
+    static final String SETTING_WORKER_THREADS = "SimulatorWorkerThreads";
+
+    private final ExecutorService[] workers;
+
+    SessionWorkers(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Worker thread count must be positive: " + threads);
+        }
+        workers = new ExecutorService[threads];
+        for (int i = 0; i < threads; i++) {
+            String name = "simulator-worker-" + i;
+            workers[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * 从[default]段读取线程数，未配置时使用CPU核数
+     */
+    static SessionWorkers fromSettings(SessionSettings settings) throws ConfigError {
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (settings.isSetting(SETTING_WORKER_THREADS)) {
+            try {
+                threads = (int) settings.getLong(SETTING_WORKER_THREADS);
+            } catch (FieldConvertError e) {
+                throw new ConfigError("Invalid " + SETTING_WORKER_THREADS + ": " + e.getMessage());
+            }
+        }
+        try {
+            return new SessionWorkers(threads);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigError(e.getMessage());
+        }
+    }
+
+    void execute(SessionID sessionId, Runnable task) {
+        try {
+            workers[(sessionId.hashCode() & Integer.MAX_VALUE) % workers.length].execute(task);
+        } catch (RejectedExecutionException e) {
+            log.debug("Dropped task for {} after shutdown", sessionId);
+        }
+    }
+
+    int size() {
+        return workers.length;
+    }
+
+    void stop() {
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+        for (ExecutorService worker : workers) {
+            try {
+                if (!worker.awaitTermination(1, TimeUnit.SECONDS)) {
+                    worker.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                worker.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
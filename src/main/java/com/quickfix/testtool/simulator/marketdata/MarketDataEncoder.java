@@ -0,0 +1,251 @@
+package com.quickfix.testtool.simulator.marketdata;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * 行情报文编码器
+ * 每个品种的MDEntry静态部分（标签、品种、买卖方向）在创建时预编码为字节段，
+ * 每次更新只把价格、数量等数值直接写入可复用的缓冲区，最后补上BodyLength和CheckSum，
+ * 不创建quickfix.Message和字段对象。非线程安全，由发布线程独占
+ */
+final class MarketDataEncoder {
+    private static final byte SOH = 0x01;
+    private static final DateTimeFormatter SECOND_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HH:mm:ss.").withZone(ZoneOffset.UTC);
+
+    private final byte[] beginString;
+    private final byte[] incrementalHeader;
+    private final byte[] snapshotHeader;
+    private final byte[] sendingTimeTag = bytes("\u000152=");
+    private final byte[][] bidEntries;
+    private final byte[][] askEntries;
+    private final byte[][] snapshotPrefixes;
+    private final byte[] sizeTag = bytes("\u0001271=");
+    private final byte[] bidSnapshotTag = bytes("269=0\u0001270=");
+    private final byte[] askSnapshotTag = bytes("269=1\u0001270=");
+    private final int priceDecimals;
+    private final long priceDivisor;
+
+    // 当前报文的MDEntry区及条目数
+    private byte[] entries = new byte[4096];
+    private int entriesLength;
+    private int entryCount;
+    private boolean snapshot;
+
+    // 整条报文的输出缓冲区，报文从renderStart开始
+    private byte[] out = new byte[8192];
+    private int renderStart;
+
+    // SendingTime按秒缓存"yyyyMMdd-HH:mm:ss."前缀
+    private long cachedSecond = Long.MIN_VALUE;
+    private byte[] secondPrefix;
+
+    /**
+     * @param priceDecimals 价格的小数位数，价格以该精度的整数刻度传入
+     */
+    MarketDataEncoder(String beginString, String senderCompId, String targetCompId, String[] symbols,
+                      int priceDecimals) {
+        this.beginString = bytes("8=" + beginString + "\u00019=");
+        String compIds = "\u000149=" + senderCompId + "\u000156=" + targetCompId + "\u000134=";
+        this.incrementalHeader = bytes("35=X" + compIds);
+        this.snapshotHeader = bytes("35=W" + compIds);
+        this.bidEntries = new byte[symbols.length][];
+        this.askEntries = new byte[symbols.length][];
+        this.snapshotPrefixes = new byte[symbols.length][];
+        for (int i = 0; i < symbols.length; i++) {
+            bidEntries[i] = bytes("279=1\u0001269=0\u000155=" + symbols[i] + "\u0001270=");
+            askEntries[i] = bytes("279=1\u0001269=1\u000155=" + symbols[i] + "\u0001270=");
+            snapshotPrefixes[i] = bytes("55=" + symbols[i] + "\u0001268=2\u0001");
+        }
+        this.priceDecimals = priceDecimals;
+        long divisor = 1;
+        for (int i = 0; i < priceDecimals; i++) {
+            divisor *= 10;
+        }
+        this.priceDivisor = divisor;
+    }
+
+    /**
+     * 开始一条MarketDataIncrementalRefresh(X)
+     */
+    void beginIncremental() {
+        snapshot = false;
+        entriesLength = 0;
+        entryCount = 0;
+    }
+
+    void appendIncremental(int symbol, boolean bid, long priceTicks, long size) {
+        ensureEntries(64 + bidEntries[symbol].length);
+        entriesLength = put(entries, entriesLength, bid ? bidEntries[symbol] : askEntries[symbol]);
+        entriesLength = putPrice(entries, entriesLength, priceTicks);
+        entriesLength = put(entries, entriesLength, sizeTag);
+        entriesLength = putLong(entries, entriesLength, size);
+        entries[entriesLength++] = SOH;
+        entryCount++;
+    }
+
+    /**
+     * 编写一条单品种双边的MarketDataSnapshotFullRefresh(W)
+     */
+    void snapshot(int symbol, long bidTicks, long bidSize, long askTicks, long askSize) {
+        snapshot = true;
+        entriesLength = 0;
+        entryCount = 2;
+        ensureEntries(128 + snapshotPrefixes[symbol].length);
+        entriesLength = put(entries, entriesLength, snapshotPrefixes[symbol]);
+        entriesLength = put(entries, entriesLength, bidSnapshotTag);
+        entriesLength = putPrice(entries, entriesLength, bidTicks);
+        entriesLength = put(entries, entriesLength, sizeTag);
+        entriesLength = putLong(entries, entriesLength, bidSize);
+        entries[entriesLength++] = SOH;
+        entriesLength = put(entries, entriesLength, askSnapshotTag);
+        entriesLength = putPrice(entries, entriesLength, askTicks);
+        entriesLength = put(entries, entriesLength, sizeTag);
+        entriesLength = putLong(entries, entriesLength, askSize);
+        entries[entriesLength++] = SOH;
+    }
+
+    boolean isSnapshot() {
+        return snapshot;
+    }
+
+    int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * 以给定的MsgSeqNum生成完整报文，返回长度，报文位于getBuffer()的getRenderStart()处
+     */
+    int render(int seqNum, long timeMillis) {
+        int bodyCapacity = incrementalHeader.length + 64 + entriesLength;
+        int headerRoom = beginString.length + 8;
+        if (out.length < headerRoom + bodyCapacity + 8) {
+            out = new byte[Math.max(out.length * 2, headerRoom + bodyCapacity + 8)];
+        }
+        // 先从预留位置写消息体，长度确定后再写BeginString和BodyLength
+        int bodyStart = headerRoom;
+        int p = put(out, bodyStart, snapshot ? snapshotHeader : incrementalHeader);
+        p = putLong(out, p, seqNum);
+        p = put(out, p, sendingTimeTag);
+        p = putSendingTime(out, p, timeMillis);
+        out[p++] = SOH;
+        if (!snapshot) {
+            out[p++] = '2';
+            out[p++] = '6';
+            out[p++] = '8';
+            out[p++] = '=';
+            p = putLong(out, p, entryCount);
+            out[p++] = SOH;
+        }
+        System.arraycopy(entries, 0, out, p, entriesLength);
+        p += entriesLength;
+        int bodyLength = p - bodyStart;
+
+        int digits = digits(bodyLength);
+        int start = bodyStart - beginString.length - digits - 1;
+        int q = put(out, start, beginString);
+        q = putLong(out, q, bodyLength);
+        out[q] = SOH;
+
+        int sum = 0;
+        for (int i = start; i < p; i++) {
+            sum += out[i];
+        }
+        sum &= 0xFF;
+        out[p++] = '1';
+        out[p++] = '0';
+        out[p++] = '=';
+        out[p++] = (byte) ('0' + sum / 100);
+        out[p++] = (byte) ('0' + sum / 10 % 10);
+        out[p++] = (byte) ('0' + sum % 10);
+        out[p++] = SOH;
+        renderStart = start;
+        return p - start;
+    }
+
+    byte[] getBuffer() {
+        return out;
+    }
+
+    int getRenderStart() {
+        return renderStart;
+    }
+
+    String renderString(int seqNum, long timeMillis) {
+        int length = render(seqNum, timeMillis);
+        return new String(out, renderStart, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private void ensureEntries(int extra) {
+        if (entriesLength + extra > entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(entries.length * 2, entriesLength + extra));
+        }
+    }
+
+    private int putSendingTime(byte[] buffer, int p, long timeMillis) {
+        long second = Math.floorDiv(timeMillis, 1000);
+        if (second != cachedSecond) {
+            secondPrefix = bytes(SECOND_FORMAT.format(Instant.ofEpochSecond(second)));
+            cachedSecond = second;
+        }
+        p = put(buffer, p, secondPrefix);
+        int millis = Math.floorMod(timeMillis, 1000);
+        buffer[p++] = (byte) ('0' + millis / 100);
+        buffer[p++] = (byte) ('0' + millis / 10 % 10);
+        buffer[p++] = (byte) ('0' + millis % 10);
+        return p;
+    }
+
+    private int putPrice(byte[] buffer, int p, long ticks) {
+        if (ticks < 0) {
+            buffer[p++] = '-';
+            ticks = -ticks;
+        }
+        p = putLong(buffer, p, ticks / priceDivisor);
+        if (priceDecimals > 0) {
+            buffer[p++] = '.';
+            long fraction = ticks % priceDivisor;
+            for (int i = priceDecimals - 1; i >= 0; i--) {
+                buffer[p + i] = (byte) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            p += priceDecimals;
+        }
+        return p;
+    }
+
+    private static int putLong(byte[] buffer, int p, long value) {
+        if (value < 0) {
+            buffer[p++] = '-';
+            value = -value;
+        }
+        int digits = digits(value);
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer[p + i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return p + digits;
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private static int put(byte[] buffer, int p, byte[] segment) {
+        System.arraycopy(segment, 0, buffer, p, segment.length);
+        return p + segment.length;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,44 @@
+package com.quickfix.testtool.simulator.marketdata;
+
+import quickfix.FieldNotFound;
+import quickfix.Message;
+import quickfix.field.MsgSeqNum;
+import quickfix.field.MsgType;
+
+/**
+ * 通过QuickFIX/J会话发送的预编码行情报文
+ * 会话照常分配MsgSeqNum、持久化和重发，只有序列化改为由编码器直接生成报文字符串；
+ * 发布线程复用同一实例，报文内容只在Session.send期间有效，不应被保留
+ */
+public final class MarketDataMessage extends Message {
+    private static final long serialVersionUID = 1L;
+
+    private final MarketDataEncoder encoder;
+
+    MarketDataMessage(MarketDataEncoder encoder) {
+        this.encoder = encoder;
+    }
+
+    /**
+     * 切换MsgType，使会话按当前报文类型处理
+     */
+    void prepare() {
+        getHeader().setString(MsgType.FIELD, encoder.isSnapshot()
+                ? MsgType.MARKET_DATA_SNAPSHOT_FULL_REFRESH : MsgType.MARKET_DATA_INCREMENTAL_REFRESH);
+    }
+
+    public int getEntryCount() {
+        return encoder.getEntryCount();
+    }
+
+    @Override
+    public String toString() {
+        int seqNum;
+        try {
+            seqNum = getHeader().getInt(MsgSeqNum.FIELD);
+        } catch (FieldNotFound e) {
+            seqNum = 0;
+        }
+        return encoder.renderString(seqNum, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,336 @@
+package com.quickfix.testtool.simulator.marketdata;
+
+import quickfix.SessionID;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 行情发布器
+ * 在独立线程上按配置速率对一组品种做随机游走，先为每个品种发送MarketDataSnapshotFullRefresh，
+ * 之后以MarketDataIncrementalRefresh推送更新；每条增量报文可合并多个MDEntry。
+ * 开启合并（conflation）时，窗口内同一品种同一方向只保留最新价，窗口结束时统一发送。
+ * 报文由预编码模板生成，每次更新不创建quickfix.Message
+ */
+public class MarketDataPublisher {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(MarketDataPublisher.class);
+
+    // 单次循环最多生成的更新数，避免落后时长时间不检查合并窗口和停止标志
+    private static final int MAX_BURST = 4096;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final byte DIRTY_BID = 1;
+    private static final byte DIRTY_ASK = 2;
+
+    /**
+     * 报文发送目标，返回false表示未能发送（如会话未登录）
+     */
+    public interface Sink {
+        boolean send(MarketDataMessage message);
+    }
+
+    private final String[] symbols;
+    private final long updatesPerSecond;
+    private final int entriesPerMessage;
+    private final long conflationNanos;
+    private final long snapshotIntervalNanos;
+    private final long lotSize;
+    private final Sink sink;
+    private final MarketDataEncoder encoder;
+    private final MarketDataMessage message;
+
+    private final long[] bidTicks;
+    private final long[] askTicks;
+    private final long[] bidSizes;
+    private final long[] askSizes;
+    private final byte[] dirty;
+    private final int[] dirtySymbols;
+    private int dirtyCount;
+    private long random = 0x9E3779B97F4A7C15L;
+
+    private volatile Thread thread;
+    private volatile boolean running;
+    private volatile long updateCount;
+    private volatile long messageCount;
+    private volatile long conflatedCount;
+    private volatile long failedCount;
+
+    public MarketDataPublisher(Definition definition, SessionID sessionId, Sink sink) {
+        this.symbols = symbols(definition);
+        if (definition.getEntriesPerMessage() <= 0) {
+            throw new IllegalArgumentException("entriesPerMessage must be positive: " + definition.getEntriesPerMessage());
+        }
+        this.updatesPerSecond = definition.getUpdatesPerSecond();
+        this.entriesPerMessage = definition.getEntriesPerMessage();
+        this.conflationNanos = TimeUnit.MILLISECONDS.toNanos(definition.getConflationMillis());
+        this.snapshotIntervalNanos = TimeUnit.MILLISECONDS.toNanos(definition.getSnapshotIntervalMillis());
+        this.lotSize = definition.getLotSize();
+        this.sink = sink;
+        this.encoder = new MarketDataEncoder(sessionId.getBeginString(), sessionId.getSenderCompID(),
+                sessionId.getTargetCompID(), symbols, definition.getPriceDecimals());
+        this.message = new MarketDataMessage(encoder);
+
+        int count = symbols.length;
+        bidTicks = new long[count];
+        askTicks = new long[count];
+        bidSizes = new long[count];
+        askSizes = new long[count];
+        dirty = new byte[count];
+        dirtySymbols = new int[count];
+        long base = Math.round(definition.getBasePrice() * Math.pow(10, definition.getPriceDecimals()));
+        for (int i = 0; i < count; i++) {
+            bidTicks[i] = base + i % 100;
+            askTicks[i] = bidTicks[i] + 1;
+            bidSizes[i] = lotSize;
+            askSizes[i] = lotSize;
+        }
+    }
+
+    private static String[] symbols(Definition definition) {
+        List<String> configured = definition.getSymbols();
+        if (configured != null && !configured.isEmpty()) {
+            return configured.toArray(new String[0]);
+        }
+        if (definition.getSymbolCount() <= 0) {
+            throw new IllegalArgumentException("Market data needs symbols or a positive symbolCount");
+        }
+        String[] generated = new String[definition.getSymbolCount()];
+        int width = Integer.toString(generated.length).length();
+        for (int i = 0; i < generated.length; i++) {
+            generated[i] = definition.getSymbolPrefix() + String.format("%0" + width + "d", i + 1);
+        }
+        return generated;
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        Thread publisher = new Thread(this::run, "market-data-publisher");
+        publisher.setDaemon(true);
+        thread = publisher;
+        publisher.start();
+        log.info("Publishing market data for {} symbols at {} updates/s", symbols.length,
+                updatesPerSecond > 0 ? updatesPerSecond : "max");
+    }
+
+    public synchronized void stop() {
+        Thread publisher = thread;
+        if (publisher == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(publisher);
+        try {
+            publisher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+        log.info("Market data publisher stopped: {} updates in {} messages, {} conflated, {} failed",
+                updateCount, messageCount, conflatedCount, failedCount);
+    }
+
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    private void run() {
+        try {
+            publishSnapshots();
+            long start = System.nanoTime();
+            long nextFlush = start + conflationNanos;
+            long nextSnapshot = start + snapshotIntervalNanos;
+            long generated = 0;
+            encoder.beginIncremental();
+            while (running) {
+                long now = System.nanoTime();
+                long due = updatesPerSecond > 0
+                        ? (long) ((now - start) * (updatesPerSecond / 1e9)) - generated : MAX_BURST;
+                if (due > 0) {
+                    due = Math.min(due, MAX_BURST);
+                    for (long i = 0; i < due; i++) {
+                        update();
+                    }
+                    generated += due;
+                }
+                if (conflationNanos > 0) {
+                    if (now >= nextFlush) {
+                        flushConflated();
+                        nextFlush = now + conflationNanos;
+                    }
+                } else if (due <= 0) {
+                    // 空闲时把未满的报文发出，避免更新滞留
+                    flushIncremental();
+                }
+                if (snapshotIntervalNanos > 0 && now >= nextSnapshot) {
+                    flushIncremental();
+                    publishSnapshots();
+                    nextSnapshot = now + snapshotIntervalNanos;
+                }
+                if (due <= 0) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+            if (conflationNanos > 0) {
+                flushConflated();
+            } else {
+                flushIncremental();
+            }
+        } catch (RuntimeException e) {
+            log.error("Market data publisher failed", e);
+        }
+    }
+
+    /**
+     * 随机选择品种和方向，价格按一个刻度随机游走并保持买价低于卖价
+     */
+    private void update() {
+        long r = nextRandom();
+        int symbol = (int) ((r >>> 1) % symbols.length);
+        boolean bid = (r & 1) == 0;
+        int move = (int) ((r >>> 40) % 3) - 1;
+        long size = lotSize * (1 + (r >>> 48) % 100);
+        if (bid) {
+            long price = bidTicks[symbol] + move;
+            bidTicks[symbol] = Math.max(1, Math.min(price, askTicks[symbol] - 1));
+            bidSizes[symbol] = size;
+        } else {
+            askTicks[symbol] = Math.max(askTicks[symbol] + move, bidTicks[symbol] + 1);
+            askSizes[symbol] = size;
+        }
+        updateCount++;
+
+        if (conflationNanos > 0) {
+            byte flag = bid ? DIRTY_BID : DIRTY_ASK;
+            byte current = dirty[symbol];
+            if (current == 0) {
+                dirtySymbols[dirtyCount++] = symbol;
+            }
+            if ((current & flag) != 0) {
+                conflatedCount++;
+            }
+            dirty[symbol] = (byte) (current | flag);
+            return;
+        }
+        appendEntry(symbol, bid);
+    }
+
+    private void appendEntry(int symbol, boolean bid) {
+        encoder.appendIncremental(symbol, bid, bid ? bidTicks[symbol] : askTicks[symbol],
+                bid ? bidSizes[symbol] : askSizes[symbol]);
+        if (encoder.getEntryCount() >= entriesPerMessage) {
+            send();
+            encoder.beginIncremental();
+        }
+    }
+
+    private void flushConflated() {
+        for (int i = 0; i < dirtyCount; i++) {
+            int symbol = dirtySymbols[i];
+            byte flags = dirty[symbol];
+            dirty[symbol] = 0;
+            if ((flags & DIRTY_BID) != 0) {
+                appendEntry(symbol, true);
+            }
+            if ((flags & DIRTY_ASK) != 0) {
+                appendEntry(symbol, false);
+            }
+        }
+        dirtyCount = 0;
+        flushIncremental();
+    }
+
+    private void flushIncremental() {
+        if (encoder.getEntryCount() > 0) {
+            send();
+            encoder.beginIncremental();
+        }
+    }
+
+    private void publishSnapshots() {
+        for (int symbol = 0; symbol < symbols.length && running; symbol++) {
+            encoder.snapshot(symbol, bidTicks[symbol], bidSizes[symbol], askTicks[symbol], askSizes[symbol]);
+            send();
+        }
+        encoder.beginIncremental();
+    }
+
+    private void send() {
+        message.prepare();
+        if (!sink.send(message)) {
+            failedCount++;
+        }
+        messageCount++;
+    }
+
+    private long nextRandom() {
+        long x = random;
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        random = x;
+        return x & Long.MAX_VALUE;
+    }
+
+    public int getSymbolCount() { return symbols.length; }
+    public long getUpdateCount() { return updateCount; }
+    public long getMessageCount() { return messageCount; }
+    public long getConflatedCount() { return conflatedCount; }
+    public long getFailedCount() { return failedCount; }
+
+    /**
+     * 场景配置中的行情发布参数
+     */
+    public static class Definition {
+        private List<String> symbols;
+        private int symbolCount = 100;
+        private String symbolPrefix = "SYM";
+        // 每秒更新数，0表示不限速
+        private long updatesPerSecond = 1000;
+        private int entriesPerMessage = 1;
+        // 合并窗口（毫秒），0表示每个更新都发送
+        private long conflationMillis;
+        // 周期性全量快照间隔（毫秒），0表示只在开始时发送
+        private long snapshotIntervalMillis;
+        private double basePrice = 100.0;
+        private int priceDecimals = 2;
+        private long lotSize = 100;
+        // 登录后自动开始发布
+        private boolean publishOnLogon = true;
+
+        public List<String> getSymbols() { return symbols; }
+        public void setSymbols(List<String> symbols) { this.symbols = symbols; }
+
+        public int getSymbolCount() { return symbolCount; }
+        public void setSymbolCount(int symbolCount) { this.symbolCount = symbolCount; }
+
+        public String getSymbolPrefix() { return symbolPrefix; }
+        public void setSymbolPrefix(String symbolPrefix) { this.symbolPrefix = symbolPrefix; }
+
+        public long getUpdatesPerSecond() { return updatesPerSecond; }
+        public void setUpdatesPerSecond(long updatesPerSecond) { this.updatesPerSecond = updatesPerSecond; }
+
+        public int getEntriesPerMessage() { return entriesPerMessage; }
+        public void setEntriesPerMessage(int entriesPerMessage) { this.entriesPerMessage = entriesPerMessage; }
+
+        public long getConflationMillis() { return conflationMillis; }
+        public void setConflationMillis(long conflationMillis) { this.conflationMillis = conflationMillis; }
+
+        public long getSnapshotIntervalMillis() { return snapshotIntervalMillis; }
+        public void setSnapshotIntervalMillis(long snapshotIntervalMillis) { this.snapshotIntervalMillis = snapshotIntervalMillis; }
+
+        public double getBasePrice() { return basePrice; }
+        public void setBasePrice(double basePrice) { this.basePrice = basePrice; }
+
+        public int getPriceDecimals() { return priceDecimals; }
+        public void setPriceDecimals(int priceDecimals) { this.priceDecimals = priceDecimals; }
+
+        public long getLotSize() { return lotSize; }
+        public void setLotSize(long lotSize) { this.lotSize = lotSize; }
+
+        public boolean isPublishOnLogon() { return publishOnLogon; }
+        public void setPublishOnLogon(boolean publishOnLogon) { this.publishOnLogon = publishOnLogon; }
+    }
+}
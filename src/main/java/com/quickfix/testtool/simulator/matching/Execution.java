@@ -0,0 +1,69 @@
+package com.quickfix.testtool.simulator.matching;
+
+/**
+ * 撮合引擎输出的执行回报
+ * 引擎内复用的同一实例，只在ExecutionListener回调期间有效；
+ * cancelReject为true时表示撤单/改单被拒（OrderCancelReject），否则为ExecutionReport
+ */
+public final class Execution {
+    int owner;
+    boolean cancelReject;
+    String clOrdId;
+    String origClOrdId;
+    String symbol;
+    long orderId;
+    long execId;
+    char execType;
+    char ordStatus;
+    char side;
+    char ordType;
+    double orderQty;
+    double price;
+    double lastQty;
+    double lastPx;
+    double leavesQty;
+    double cumQty;
+    double avgPx;
+    int rejectReason;
+    char cxlRejResponseTo;
+    String text;
+
+    void reset() {
+        cancelReject = false;
+        origClOrdId = null;
+        orderId = 0;
+        ordType = 0;
+        orderQty = 0;
+        price = 0;
+        lastQty = 0;
+        lastPx = 0;
+        leavesQty = 0;
+        cumQty = 0;
+        avgPx = 0;
+        rejectReason = 0;
+        cxlRejResponseTo = 0;
+        text = null;
+    }
+
+    public int getOwner() { return owner; }
+    public boolean isCancelReject() { return cancelReject; }
+    public String getClOrdId() { return clOrdId; }
+    public String getOrigClOrdId() { return origClOrdId; }
+    public String getSymbol() { return symbol; }
+    public long getOrderId() { return orderId; }
+    public long getExecId() { return execId; }
+    public char getExecType() { return execType; }
+    public char getOrdStatus() { return ordStatus; }
+    public char getSide() { return side; }
+    public char getOrdType() { return ordType; }
+    public double getOrderQty() { return orderQty; }
+    public double getPrice() { return price; }
+    public double getLastQty() { return lastQty; }
+    public double getLastPx() { return lastPx; }
+    public double getLeavesQty() { return leavesQty; }
+    public double getCumQty() { return cumQty; }
+    public double getAvgPx() { return avgPx; }
+    public int getRejectReason() { return rejectReason; }
+    public char getCxlRejResponseTo() { return cxlRejResponseTo; }
+    public String getText() { return text; }
+}
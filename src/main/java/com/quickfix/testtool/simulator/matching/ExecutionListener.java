@@ -0,0 +1,8 @@
+package com.quickfix.testtool.simulator.matching;
+
+/**
+ * 执行回报接收方，回调在撮合线程上同步执行
+ */
+public interface ExecutionListener {
+    void onExecution(Execution execution);
+}
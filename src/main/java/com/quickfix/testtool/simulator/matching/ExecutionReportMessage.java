@@ -0,0 +1,277 @@
+package com.quickfix.testtool.simulator.matching;
+
+import quickfix.Field;
+import quickfix.Message;
+import quickfix.field.*;
+import quickfix.field.converter.DoubleConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * 撮合回报对应的ExecutionReport
+ * 创建时只把Execution的字段复制为基本类型，不建立quickfix字段对象；
+ * 会话照常填写报文头、分配MsgSeqNum并持久化，序列化时由toString直接把报文写入线程内复用的字节缓冲区。
+ * 实例可以在时间轮上等待延迟发送，报文体字段不能通过getString等方法读取
+ */
+public final class ExecutionReportMessage extends Message {
+    private static final long serialVersionUID = 1L;
+    private static final ThreadLocal<Renderer> RENDERER = ThreadLocal.withInitial(Renderer::new);
+
+    private final String clOrdId;
+    private final String origClOrdId;
+    private final String symbol;
+    private final String text;
+    private final long orderId;
+    private final long execId;
+    private final char execType;
+    private final char ordStatus;
+    private final char side;
+    private final char ordType;
+    private final double orderQty;
+    private final double price;
+    private final double lastQty;
+    private final double lastPx;
+    private final double leavesQty;
+    private final double cumQty;
+    private final double avgPx;
+    private final int rejectReason;
+    private final long transactTime;
+
+    ExecutionReportMessage(Execution execution) {
+        getHeader().setString(MsgType.FIELD, MsgType.EXECUTION_REPORT);
+        this.clOrdId = execution.getClOrdId();
+        this.origClOrdId = execution.getOrigClOrdId();
+        this.symbol = execution.getSymbol();
+        this.text = execution.getText();
+        this.orderId = execution.getOrderId();
+        this.execId = execution.getExecId();
+        this.execType = execution.getExecType();
+        this.ordStatus = execution.getOrdStatus();
+        this.side = execution.getSide();
+        this.ordType = execution.getOrdType();
+        this.orderQty = execution.getOrderQty();
+        this.price = execution.getPrice();
+        this.lastQty = execution.getLastQty();
+        this.lastPx = execution.getLastPx();
+        this.leavesQty = execution.getLeavesQty();
+        this.cumQty = execution.getCumQty();
+        this.avgPx = execution.getAvgPx();
+        this.rejectReason = execution.getRejectReason();
+        this.transactTime = System.currentTimeMillis();
+    }
+
+    public String getClOrdId() { return clOrdId; }
+    public char getExecType() { return execType; }
+    public char getOrdStatus() { return ordStatus; }
+
+    @Override
+    public String toString() {
+        Renderer out = RENDERER.get();
+        out.begin();
+
+        // 报文头由会话填写；MsgType紧跟BodyLength，其余字段按标签顺序输出
+        out.tag(MsgType.FIELD).string(MsgType.EXECUTION_REPORT).end();
+        String beginString = null;
+        Iterator<Field<?>> header = getHeader().iterator();
+        while (header.hasNext()) {
+            Field<?> field = header.next();
+            int tag = field.getTag();
+            if (tag == BeginString.FIELD) {
+                beginString = field.getObject().toString();
+            } else if (tag != BodyLength.FIELD && tag != MsgType.FIELD && tag != CheckSum.FIELD) {
+                out.tag(tag).string(field.getObject().toString()).end();
+            }
+        }
+
+        out.tag(OrderID.FIELD).number(orderId).end();
+        out.tag(ExecID.FIELD).number(execId).end();
+        out.tag(ClOrdID.FIELD).string(clOrdId).end();
+        if (origClOrdId != null) {
+            out.tag(OrigClOrdID.FIELD).string(origClOrdId).end();
+        }
+        out.tag(ExecType.FIELD).character(execType).end();
+        out.tag(OrdStatus.FIELD).character(ordStatus).end();
+        out.tag(Symbol.FIELD).string(symbol).end();
+        out.tag(Side.FIELD).character(side).end();
+        out.tag(OrdType.FIELD).character(ordType).end();
+        out.tag(OrderQty.FIELD).decimal(orderQty).end();
+        if (price > 0) {
+            out.tag(Price.FIELD).decimal(price).end();
+        }
+        if (execType == ExecType.TRADE) {
+            out.tag(LastQty.FIELD).decimal(lastQty).end();
+            out.tag(LastPx.FIELD).decimal(lastPx).end();
+        }
+        out.tag(LeavesQty.FIELD).decimal(leavesQty).end();
+        out.tag(CumQty.FIELD).decimal(cumQty).end();
+        out.tag(AvgPx.FIELD).decimal(avgPx).end();
+        if (execType == ExecType.REJECTED) {
+            out.tag(OrdRejReason.FIELD).number(rejectReason).end();
+        }
+        if (text != null) {
+            out.tag(Text.FIELD).string(text).end();
+        }
+        out.tag(TransactTime.FIELD).timestamp(transactTime).end();
+        return out.finish(beginString);
+    }
+
+    /**
+     * 线程内复用的报文缓冲区，消息体从预留位置开始写，长度确定后再补BeginString、BodyLength和CheckSum
+     */
+    private static final class Renderer {
+        private static final byte SOH = 0x01;
+        private static final int HEADER_ROOM = 32;
+        private static final int DECIMAL_DIGITS = 6;
+        private static final long DECIMAL_SCALE = 1_000_000L;
+        private static final long MAX_FAST_DECIMAL = 1L << 52;
+        private static final DateTimeFormatter SECOND_FORMAT =
+                DateTimeFormatter.ofPattern("yyyyMMdd-HH:mm:ss.").withZone(ZoneOffset.UTC);
+
+        private byte[] buffer = new byte[512];
+        private int p;
+
+        // TransactTime按秒缓存"yyyyMMdd-HH:mm:ss."前缀
+        private long cachedSecond = Long.MIN_VALUE;
+        private byte[] secondPrefix;
+
+        void begin() {
+            p = HEADER_ROOM;
+        }
+
+        Renderer tag(int tag) {
+            number(tag);
+            ensure(1);
+            buffer[p++] = '=';
+            return this;
+        }
+
+        void end() {
+            ensure(1);
+            buffer[p++] = SOH;
+        }
+
+        Renderer string(String value) {
+            int length = value.length();
+            ensure(length);
+            // 会话字符集为ISO-8859-1，每个字符占一个字节
+            for (int i = 0; i < length; i++) {
+                buffer[p++] = (byte) value.charAt(i);
+            }
+            return this;
+        }
+
+        Renderer character(char value) {
+            ensure(1);
+            buffer[p++] = (byte) value;
+            return this;
+        }
+
+        Renderer number(long value) {
+            ensure(20);
+            if (value < 0) {
+                buffer[p++] = '-';
+                value = -value;
+            }
+            int digits = digits(value);
+            for (int i = digits - 1; i >= 0; i--) {
+                buffer[p + i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            p += digits;
+            return this;
+        }
+
+        /**
+         * 不超过6位小数的值直接按整数写入，其余交给QuickFIX/J的DoubleConverter，输出与setDouble一致
+         */
+        Renderer decimal(double value) {
+            if (value == (long) value) {
+                return number((long) value);
+            }
+            long micros = Math.round(value * DECIMAL_SCALE);
+            if (Math.abs(micros) >= MAX_FAST_DECIMAL || micros / (double) DECIMAL_SCALE != value) {
+                return string(DoubleConverter.convert(value));
+            }
+            if (micros < 0) {
+                character('-');
+                micros = -micros;
+            }
+            number(micros / DECIMAL_SCALE);
+            long fraction = micros % DECIMAL_SCALE;
+            int digits = DECIMAL_DIGITS;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            ensure(digits + 1);
+            buffer[p++] = '.';
+            for (int i = digits - 1; i >= 0; i--) {
+                buffer[p + i] = (byte) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            p += digits;
+            return this;
+        }
+
+        Renderer timestamp(long millis) {
+            long second = Math.floorDiv(millis, 1000);
+            if (second != cachedSecond) {
+                secondPrefix = SECOND_FORMAT.format(Instant.ofEpochSecond(second)).getBytes(StandardCharsets.ISO_8859_1);
+                cachedSecond = second;
+            }
+            ensure(secondPrefix.length + 3);
+            System.arraycopy(secondPrefix, 0, buffer, p, secondPrefix.length);
+            p += secondPrefix.length;
+            int fraction = Math.floorMod(millis, 1000);
+            buffer[p++] = (byte) ('0' + fraction / 100);
+            buffer[p++] = (byte) ('0' + fraction / 10 % 10);
+            buffer[p++] = (byte) ('0' + fraction % 10);
+            return this;
+        }
+
+        String finish(String beginString) {
+            int bodyEnd = p;
+            int bodyLength = bodyEnd - HEADER_ROOM;
+            int start = HEADER_ROOM - (beginString.length() + digits(bodyLength) + 6);
+            p = start;
+            tag(BeginString.FIELD).string(beginString).end();
+            tag(BodyLength.FIELD).number(bodyLength).end();
+
+            int sum = 0;
+            for (int i = start; i < bodyEnd; i++) {
+                sum += buffer[i] & 0xFF;
+            }
+            sum &= 0xFF;
+            p = bodyEnd;
+            ensure(7);
+            buffer[p++] = '1';
+            buffer[p++] = '0';
+            buffer[p++] = '=';
+            buffer[p++] = (byte) ('0' + sum / 100);
+            buffer[p++] = (byte) ('0' + sum / 10 % 10);
+            buffer[p++] = (byte) ('0' + sum % 10);
+            buffer[p++] = SOH;
+            return new String(buffer, start, p - start, StandardCharsets.ISO_8859_1);
+        }
+
+        private void ensure(int extra) {
+            if (p + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, p + extra));
+            }
+        }
+
+        private static int digits(long value) {
+            int digits = 1;
+            while (value >= 10) {
+                value /= 10;
+                digits++;
+            }
+            return digits;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.quickfix.testtool.simulator.matching;
+
+import quickfix.FieldNotFound;
+import quickfix.Message;
+import quickfix.Session;
+import quickfix.SessionID;
+import quickfix.SessionNotFound;
+import quickfix.field.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 撮合对手方
+ * 把会话收到的NewOrderSingle、OrderCancelRequest、OrderCancelReplaceRequest交给撮合引擎，
+ * 将引擎输出的回报编码为ExecutionReport/OrderCancelReject，交给Sink发回订单所属会话。
+ * 会话按首次出现的顺序编号作为订单所属方；所有会话共享订单簿，撮合在同一把锁下串行，
+ * 调用方应在会话工作线程而不是QuickFIX/J的I/O线程上调用onMessage
+ */
+public class MatchingCounterparty implements ExecutionListener {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(MatchingCounterparty.class);
+
+    /**
+     * 回报发送目标，由模拟器决定发送时机（如按应答延迟排入时间轮）
+     */
+    public interface Sink {
+        void send(Message report, SessionID sessionId);
+    }
+
+    private final MatchingEngine engine;
+    private final Sink sink;
+    private final Map<SessionID, Integer> owners = new HashMap<>();
+    private final List<SessionID> sessions = new ArrayList<>();
+
+    public MatchingCounterparty() {
+        this(MatchingCounterparty::sendToTarget);
+    }
+
+    public MatchingCounterparty(long priceScale) {
+        this(MatchingCounterparty::sendToTarget, priceScale);
+    }
+
+    public MatchingCounterparty(Sink sink) {
+        this(sink, MatchingEngine.DEFAULT_PRICE_SCALE);
+    }
+
+    public MatchingCounterparty(Sink sink, long priceScale) {
+        this.sink = sink;
+        this.engine = new MatchingEngine(this, priceScale);
+    }
+
+    /**
+     * 是否为撮合处理的消息类型
+     */
+    public static boolean handles(Message message) {
+        String msgType;
+        try {
+            msgType = message.getHeader().getString(MsgType.FIELD);
+        } catch (FieldNotFound e) {
+            return false;
+        }
+        return MsgType.ORDER_SINGLE.equals(msgType) || MsgType.ORDER_CANCEL_REQUEST.equals(msgType)
+                || MsgType.ORDER_CANCEL_REPLACE_REQUEST.equals(msgType);
+    }
+
+    /**
+     * 处理入站应用消息，返回false表示不是撮合处理的消息类型
+     */
+    public synchronized boolean onMessage(Message message, SessionID sessionId) throws FieldNotFound {
+        String msgType = message.getHeader().getString(MsgType.FIELD);
+        switch (msgType) {
+            case MsgType.ORDER_SINGLE:
+                engine.newOrder(ownerOf(sessionId),
+                        message.getString(ClOrdID.FIELD),
+                        message.getString(Symbol.FIELD),
+                        message.getChar(Side.FIELD),
+                        message.getChar(OrdType.FIELD),
+                        message.isSetField(TimeInForce.FIELD) ? message.getChar(TimeInForce.FIELD) : TimeInForce.DAY,
+                        message.getDouble(OrderQty.FIELD),
+                        message.isSetField(Price.FIELD) ? message.getDouble(Price.FIELD) : 0);
+                return true;
+            case MsgType.ORDER_CANCEL_REQUEST:
+                engine.cancel(ownerOf(sessionId), message.getString(ClOrdID.FIELD),
+                        message.getString(OrigClOrdID.FIELD));
+                return true;
+            case MsgType.ORDER_CANCEL_REPLACE_REQUEST:
+                engine.replace(ownerOf(sessionId), message.getString(ClOrdID.FIELD),
+                        message.getString(OrigClOrdID.FIELD),
+                        message.getDouble(OrderQty.FIELD),
+                        message.isSetField(Price.FIELD) ? message.getDouble(Price.FIELD) : 0);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 会话断开时撤销其全部挂单
+     */
+    public synchronized void onLogout(SessionID sessionId) {
+        Integer owner = owners.get(sessionId);
+        if (owner != null) {
+            int canceled = engine.cancelAll(owner);
+            if (canceled > 0) {
+                log.info("Canceled {} resting orders of {}", canceled, sessionId);
+            }
+        }
+    }
+
+    private int ownerOf(SessionID sessionId) {
+        Integer owner = owners.get(sessionId);
+        if (owner == null) {
+            owner = sessions.size();
+            sessions.add(sessionId);
+            owners.put(sessionId, owner);
+        }
+        return owner;
+    }
+
+    /**
+     * 执行回报只复制为基本类型字段，报文在发送时才序列化
+     */
+    @Override
+    public void onExecution(Execution execution) {
+        Message report = execution.isCancelReject() ? cancelReject(execution) : new ExecutionReportMessage(execution);
+        sink.send(report, sessions.get(execution.getOwner()));
+    }
+
+    private static void sendToTarget(Message report, SessionID sessionId) {
+        try {
+            Session.sendToTarget(report, sessionId);
+        } catch (SessionNotFound e) {
+            log.error("Failed to send execution report to {}", sessionId, e);
+        }
+    }
+
+    private static Message cancelReject(Execution execution) {
+        Message reject = new Message();
+        reject.getHeader().setString(MsgType.FIELD, MsgType.ORDER_CANCEL_REJECT);
+        reject.setString(OrderID.FIELD, "NONE");
+        reject.setString(ClOrdID.FIELD, execution.getClOrdId());
+        reject.setString(OrigClOrdID.FIELD, execution.getOrigClOrdId());
+        reject.setChar(OrdStatus.FIELD, execution.getOrdStatus());
+        reject.setChar(CxlRejResponseTo.FIELD, execution.getCxlRejResponseTo());
+        reject.setInt(CxlRejReason.FIELD, execution.getRejectReason());
+        if (execution.getText() != null) {
+            reject.setString(Text.FIELD, execution.getText());
+        }
+        return reject;
+    }
+
+    public MatchingEngine getEngine() {
+        return engine;
+    }
+}
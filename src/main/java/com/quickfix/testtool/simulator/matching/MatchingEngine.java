@@ -0,0 +1,382 @@
+package com.quickfix.testtool.simulator.matching;
+
+import quickfix.field.CxlRejReason;
+import quickfix.field.CxlRejResponseTo;
+import quickfix.field.ExecType;
+import quickfix.field.OrdRejReason;
+import quickfix.field.OrdStatus;
+import quickfix.field.OrdType;
+import quickfix.field.Side;
+import quickfix.field.TimeInForce;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 价格-时间优先的撮合引擎
+ * 每个品种一本订单簿，订单保存在基本类型数组的订单池中；新单、撤单、改单按真实交易所的方式
+ * 生成New、Trade（部分/全部成交）、Canceled、Replaced、Rejected回报及撤单拒绝，通过ExecutionListener同步输出。
+ * 支持限价/市价单及DAY、GTC、IOC、FOK；市价单和IOC未成交部分立即撤销。
+ * 非线程安全，调用方负责串行化
+ */
+public class MatchingEngine {
+    static final char BUY = Side.BUY;
+    static final char SELL = Side.SELL;
+
+    // 默认价格精度：百万分之一
+    public static final long DEFAULT_PRICE_SCALE = 1_000_000L;
+    private static final double QTY_EPSILON = 1e-9;
+    private static final int INITIAL_ORDERS = 1024;
+
+    private final ExecutionListener listener;
+    private final long priceScale;
+    private final OrderPool pool = new OrderPool(INITIAL_ORDERS);
+    private final OrderIdIndex activeOrders = new OrderIdIndex(INITIAL_ORDERS);
+    private final Map<String, OrderBook> booksBySymbol = new HashMap<>();
+    private final List<OrderBook> books = new ArrayList<>();
+    private final Execution execution = new Execution();
+
+    private long nextOrderId;
+    private long nextExecId;
+    private long tradeCount;
+
+    public MatchingEngine(ExecutionListener listener) {
+        this(listener, DEFAULT_PRICE_SCALE);
+    }
+
+    public MatchingEngine(ExecutionListener listener, long priceScale) {
+        this.listener = listener;
+        this.priceScale = priceScale;
+    }
+
+    /**
+     * 新订单（NewOrderSingle），owner为回报接收方编号
+     */
+    public void newOrder(int owner, String clOrdId, String symbol, char side, char ordType, char timeInForce,
+                         double orderQty, double price) {
+        boolean market = ordType == OrdType.MARKET;
+        String reason = null;
+        int reasonCode = OrdRejReason.OTHER;
+        if (side != BUY && side != SELL) {
+            reason = "Unsupported side: " + side;
+        } else if (ordType != OrdType.LIMIT && !market) {
+            reason = "Unsupported order type: " + ordType;
+        } else if (!(orderQty > 0)) {
+            reason = "Order quantity must be positive";
+        } else if (!market && !(price > 0)) {
+            reason = "Limit price must be positive";
+        } else if (activeOrders.get(owner, clOrdId) != OrderIdIndex.NOT_FOUND) {
+            reason = "Duplicate ClOrdID: " + clOrdId;
+            reasonCode = OrdRejReason.DUPLICATE_ORDER;
+        }
+        if (reason != null) {
+            reject(owner, clOrdId, symbol, side, ordType, orderQty, price, reasonCode, reason);
+            return;
+        }
+
+        OrderBook book = bookFor(symbol);
+        int order = pool.allocate();
+        pool.prices[order] = market ? 0 : toTicks(price);
+        pool.quantities[order] = orderQty;
+        pool.leaves[order] = orderQty;
+        pool.sides[order] = side;
+        pool.ordTypes[order] = ordType;
+        pool.books[order] = book.id;
+        pool.owners[order] = owner;
+        pool.orderIds[order] = ++nextOrderId;
+        pool.clOrdIds[order] = clOrdId;
+        emit(order, ExecType.NEW, null);
+
+        if (timeInForce == TimeInForce.FILL_OR_KILL
+                && book.contra(side).available(pool.prices[order], side == BUY, market, orderQty) < orderQty - QTY_EPSILON) {
+            cancelRemainder(order);
+            return;
+        }
+        match(book, order);
+        if (pool.leaves[order] <= 0) {
+            pool.free(order);
+        } else if (market || timeInForce == TimeInForce.IMMEDIATE_OR_CANCEL || timeInForce == TimeInForce.FILL_OR_KILL) {
+            cancelRemainder(order);
+        } else {
+            book.side(side).add(pool, order);
+            activeOrders.put(owner, clOrdId, order);
+        }
+    }
+
+    /**
+     * 撤单（OrderCancelRequest）
+     */
+    public void cancel(int owner, String clOrdId, String origClOrdId) {
+        int order = activeOrders.get(owner, origClOrdId);
+        if (order == OrderIdIndex.NOT_FOUND) {
+            cancelReject(owner, clOrdId, origClOrdId, CxlRejResponseTo.ORDER_CANCEL_REQUEST,
+                    CxlRejReason.UNKNOWN_ORDER, "Unknown order: " + origClOrdId);
+            return;
+        }
+        books.get(pool.books[order]).side(pool.sides[order]).remove(pool, order);
+        activeOrders.remove(owner, origClOrdId);
+        pool.clOrdIds[order] = clOrdId;
+        pool.leaves[order] = 0;
+        emit(order, ExecType.CANCELED, origClOrdId);
+        pool.free(order);
+    }
+
+    /**
+     * 改单（OrderCancelReplaceRequest）：改价或增量失去时间优先级，仅减量保留原有位置
+     */
+    public void replace(int owner, String clOrdId, String origClOrdId, double orderQty, double price) {
+        int order = activeOrders.get(owner, origClOrdId);
+        if (order == OrderIdIndex.NOT_FOUND) {
+            cancelReject(owner, clOrdId, origClOrdId, CxlRejResponseTo.ORDER_CANCEL_REPLACE_REQUEST,
+                    CxlRejReason.UNKNOWN_ORDER, "Unknown order: " + origClOrdId);
+            return;
+        }
+        if (!clOrdId.equals(origClOrdId) && activeOrders.get(owner, clOrdId) != OrderIdIndex.NOT_FOUND) {
+            cancelReject(owner, clOrdId, origClOrdId, CxlRejResponseTo.ORDER_CANCEL_REPLACE_REQUEST,
+                    CxlRejReason.DUPLICATE_CLORDID_RECEIVED, "Duplicate ClOrdID: " + clOrdId);
+            return;
+        }
+        if (!(orderQty > pool.cums[order])) {
+            cancelReject(owner, clOrdId, origClOrdId, CxlRejResponseTo.ORDER_CANCEL_REPLACE_REQUEST,
+                    CxlRejReason.OTHER, "Order quantity must exceed filled quantity");
+            return;
+        }
+
+        OrderBook book = books.get(pool.books[order]);
+        OrderBook.Levels levels = book.side(pool.sides[order]);
+        long ticks = price > 0 ? toTicks(price) : pool.prices[order];
+        boolean losesPriority = ticks != pool.prices[order] || orderQty > pool.quantities[order];
+        double newLeaves = orderQty - pool.cums[order];
+
+        if (losesPriority) {
+            levels.remove(pool, order);
+            pool.prices[order] = ticks;
+        } else {
+            levels.adjust(pool, order, newLeaves - pool.leaves[order]);
+        }
+        pool.quantities[order] = orderQty;
+        pool.leaves[order] = newLeaves;
+        pool.clOrdIds[order] = clOrdId;
+        activeOrders.remove(owner, origClOrdId);
+        activeOrders.put(owner, clOrdId, order);
+        emit(order, ExecType.REPLACED, origClOrdId);
+
+        if (losesPriority) {
+            match(book, order);
+            if (pool.leaves[order] > 0) {
+                levels.add(pool, order);
+            } else {
+                activeOrders.remove(owner, clOrdId);
+                pool.free(order);
+            }
+        }
+    }
+
+    /**
+     * 撤销某一接收方的全部挂单，返回撤销数量（会话断开时使用）
+     */
+    public int cancelAll(int owner) {
+        int canceled = 0;
+        for (OrderBook book : books) {
+            canceled += cancelAll(book.bids, owner) + cancelAll(book.asks, owner);
+        }
+        return canceled;
+    }
+
+    private int cancelAll(OrderBook.Levels levels, int owner) {
+        int canceled = 0;
+        for (int level = levels.size - 1; level >= 0; level--) {
+            int order = levels.heads[level];
+            while (order != OrderPool.NIL) {
+                int next = pool.nexts[order];
+                if (pool.owners[order] == owner) {
+                    String clOrdId = pool.clOrdIds[order];
+                    levels.remove(pool, order);
+                    activeOrders.remove(owner, clOrdId);
+                    pool.leaves[order] = 0;
+                    emit(order, ExecType.CANCELED, clOrdId);
+                    pool.free(order);
+                    canceled++;
+                }
+                order = next;
+            }
+        }
+        return canceled;
+    }
+
+    private void match(OrderBook book, int order) {
+        char side = pool.sides[order];
+        boolean buy = side == BUY;
+        boolean market = pool.ordTypes[order] == OrdType.MARKET;
+        long limit = pool.prices[order];
+        OrderBook.Levels contra = book.contra(side);
+
+        while (pool.leaves[order] > 0 && contra.size > 0) {
+            int level = contra.best();
+            long levelPrice = contra.priceAt(level);
+            if (!market && (buy ? levelPrice > limit : levelPrice < limit)) {
+                break;
+            }
+            int resting = contra.heads[level];
+            while (resting != OrderPool.NIL && pool.leaves[order] > 0) {
+                double qty = Math.min(pool.leaves[order], pool.leaves[resting]);
+                fill(order, qty, levelPrice);
+                fill(resting, qty, levelPrice);
+                contra.totals[level] -= qty;
+                tradeCount++;
+                emitTrade(order, qty, levelPrice);
+                emitTrade(resting, qty, levelPrice);
+
+                int next = pool.nexts[resting];
+                if (pool.leaves[resting] <= 0) {
+                    contra.popHead(pool, level);
+                    activeOrders.remove(pool.owners[resting], pool.clOrdIds[resting]);
+                    pool.free(resting);
+                }
+                resting = next;
+            }
+            if (contra.heads[level] == OrderPool.NIL) {
+                contra.removeLevel(level);
+            }
+        }
+    }
+
+    private void fill(int order, double qty, long priceTicks) {
+        double leaves = pool.leaves[order] - qty;
+        pool.leaves[order] = leaves < QTY_EPSILON ? 0 : leaves;
+        pool.cums[order] += qty;
+        pool.notionals[order] += qty * priceTicks;
+    }
+
+    private void cancelRemainder(int order) {
+        pool.leaves[order] = 0;
+        emit(order, ExecType.CANCELED, null);
+        pool.free(order);
+    }
+
+    private void emitTrade(int order, double qty, long priceTicks) {
+        Execution e = prepare(order, ExecType.TRADE, null);
+        e.lastQty = qty;
+        e.lastPx = toPrice(priceTicks);
+        listener.onExecution(e);
+    }
+
+    private void emit(int order, char execType, String origClOrdId) {
+        listener.onExecution(prepare(order, execType, origClOrdId));
+    }
+
+    private Execution prepare(int order, char execType, String origClOrdId) {
+        Execution e = execution;
+        e.reset();
+        e.owner = pool.owners[order];
+        e.clOrdId = pool.clOrdIds[order];
+        e.origClOrdId = origClOrdId;
+        e.symbol = books.get(pool.books[order]).symbol;
+        e.orderId = pool.orderIds[order];
+        e.execId = ++nextExecId;
+        e.execType = execType;
+        e.side = pool.sides[order];
+        e.ordType = pool.ordTypes[order];
+        e.orderQty = pool.quantities[order];
+        e.price = pool.ordTypes[order] == OrdType.MARKET ? 0 : toPrice(pool.prices[order]);
+        e.leavesQty = pool.leaves[order];
+        e.cumQty = pool.cums[order];
+        e.avgPx = pool.cums[order] > 0 ? pool.notionals[order] / pool.cums[order] / priceScale : 0;
+        if (execType == ExecType.CANCELED) {
+            e.ordStatus = OrdStatus.CANCELED;
+        } else if (pool.leaves[order] <= 0) {
+            e.ordStatus = OrdStatus.FILLED;
+        } else {
+            e.ordStatus = pool.cums[order] > 0 ? OrdStatus.PARTIALLY_FILLED : OrdStatus.NEW;
+        }
+        return e;
+    }
+
+    private void reject(int owner, String clOrdId, String symbol, char side, char ordType, double orderQty,
+                        double price, int reason, String text) {
+        Execution e = execution;
+        e.reset();
+        e.owner = owner;
+        e.clOrdId = clOrdId;
+        e.symbol = symbol;
+        e.execId = ++nextExecId;
+        e.execType = ExecType.REJECTED;
+        e.ordStatus = OrdStatus.REJECTED;
+        e.side = side;
+        e.ordType = ordType;
+        e.orderQty = orderQty;
+        e.price = price;
+        e.rejectReason = reason;
+        e.text = text;
+        listener.onExecution(e);
+    }
+
+    private void cancelReject(int owner, String clOrdId, String origClOrdId, char responseTo, int reason,
+                              String text) {
+        Execution e = execution;
+        e.reset();
+        e.cancelReject = true;
+        e.owner = owner;
+        e.clOrdId = clOrdId;
+        e.origClOrdId = origClOrdId;
+        e.ordStatus = OrdStatus.REJECTED;
+        e.cxlRejResponseTo = responseTo;
+        e.rejectReason = reason;
+        e.text = text;
+        listener.onExecution(e);
+    }
+
+    private OrderBook bookFor(String symbol) {
+        OrderBook book = booksBySymbol.get(symbol);
+        if (book == null) {
+            book = new OrderBook(books.size(), symbol);
+            books.add(book);
+            booksBySymbol.put(symbol, book);
+        }
+        return book;
+    }
+
+    private long toTicks(double price) {
+        return Math.round(price * priceScale);
+    }
+
+    private double toPrice(long ticks) {
+        return (double) ticks / priceScale;
+    }
+
+    /**
+     * 品种某一方的价位数
+     */
+    public int getDepth(String symbol, char side) {
+        OrderBook book = booksBySymbol.get(symbol);
+        return book != null ? book.side(side).size : 0;
+    }
+
+    /**
+     * 品种某一方的最优价，无挂单时返回NaN
+     */
+    public double getBestPrice(String symbol, char side) {
+        OrderBook book = booksBySymbol.get(symbol);
+        if (book == null || book.side(side).size == 0) {
+            return Double.NaN;
+        }
+        OrderBook.Levels levels = book.side(side);
+        return toPrice(levels.priceAt(levels.best()));
+    }
+
+    public int getOpenOrderCount() { return activeOrders.size(); }
+    public long getTradeCount() { return tradeCount; }
+
+    /**
+     * 清空全部订单簿
+     */
+    public void reset() {
+        booksBySymbol.clear();
+        books.clear();
+        activeOrders.clear();
+        pool.clear();
+        tradeCount = 0;
+    }
+}
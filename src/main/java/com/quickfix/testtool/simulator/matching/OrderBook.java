@@ -0,0 +1,178 @@
+package com.quickfix.testtool.simulator.matching;
+
+import java.util.Arrays;
+
+/**
+ * 单一品种的限价订单簿
+ * 每一方的价位按排序键升序保存在数组中，最优价位位于数组末尾，成交移除最优价位只需减小长度；
+ * 买方排序键为价格本身，卖方为价格取负。价位内的订单按到达顺序串在订单池的链表上
+ */
+final class OrderBook {
+    final int id;
+    final String symbol;
+    final Levels bids = new Levels(true);
+    final Levels asks = new Levels(false);
+
+    OrderBook(int id, String symbol) {
+        this.id = id;
+        this.symbol = symbol;
+    }
+
+    Levels side(char side) {
+        return side == MatchingEngine.BUY ? bids : asks;
+    }
+
+    Levels contra(char side) {
+        return side == MatchingEngine.BUY ? asks : bids;
+    }
+
+    /**
+     * 一方的全部价位
+     */
+    static final class Levels {
+        private static final int INITIAL_LEVELS = 16;
+
+        private final boolean bid;
+        long[] keys = new long[INITIAL_LEVELS];
+        int[] heads = new int[INITIAL_LEVELS];
+        int[] tails = new int[INITIAL_LEVELS];
+        double[] totals = new double[INITIAL_LEVELS];
+        int size;
+
+        Levels(boolean bid) {
+            this.bid = bid;
+        }
+
+        private long key(long price) {
+            return bid ? price : -price;
+        }
+
+        long priceAt(int level) {
+            return bid ? keys[level] : -keys[level];
+        }
+
+        int best() {
+            return size - 1;
+        }
+
+        /**
+         * 订单追加到所在价位的队尾，价位不存在时插入
+         */
+        void add(OrderPool pool, int order) {
+            long key = key(pool.prices[order]);
+            int level = Arrays.binarySearch(keys, 0, size, key);
+            if (level < 0) {
+                level = -level - 1;
+                insertLevel(level, key);
+            }
+            int tail = tails[level];
+            pool.prevs[order] = tail;
+            pool.nexts[order] = OrderPool.NIL;
+            if (tail == OrderPool.NIL) {
+                heads[level] = order;
+            } else {
+                pool.nexts[tail] = order;
+            }
+            tails[level] = order;
+            totals[level] += pool.leaves[order];
+        }
+
+        /**
+         * 从价位中摘除订单，价位为空时一并删除
+         */
+        void remove(OrderPool pool, int order) {
+            int level = Arrays.binarySearch(keys, 0, size, key(pool.prices[order]));
+            if (level < 0) {
+                return;
+            }
+            int prev = pool.prevs[order];
+            int next = pool.nexts[order];
+            if (prev == OrderPool.NIL) {
+                heads[level] = next;
+            } else {
+                pool.nexts[prev] = next;
+            }
+            if (next == OrderPool.NIL) {
+                tails[level] = prev;
+            } else {
+                pool.prevs[next] = prev;
+            }
+            totals[level] -= pool.leaves[order];
+            if (heads[level] == OrderPool.NIL) {
+                removeLevel(level);
+            }
+        }
+
+        /**
+         * 价位内剩余数量变化，不改变时间优先级
+         */
+        void adjust(OrderPool pool, int order, double delta) {
+            int level = Arrays.binarySearch(keys, 0, size, key(pool.prices[order]));
+            if (level >= 0) {
+                totals[level] += delta;
+            }
+        }
+
+        /**
+         * 摘除价位的队首订单（已完全成交）
+         */
+        void popHead(OrderPool pool, int level) {
+            int head = heads[level];
+            int next = pool.nexts[head];
+            heads[level] = next;
+            if (next == OrderPool.NIL) {
+                tails[level] = OrderPool.NIL;
+            } else {
+                pool.prevs[next] = OrderPool.NIL;
+            }
+        }
+
+        /**
+         * 价格不劣于limit的可成交数量，买方limit为出价上限、卖方为下限
+         */
+        double available(long limit, boolean aggressorBuys, boolean market, double wanted) {
+            double sum = 0;
+            for (int level = size - 1; level >= 0 && sum < wanted; level--) {
+                long price = priceAt(level);
+                if (!market && (aggressorBuys ? price > limit : price < limit)) {
+                    break;
+                }
+                sum += totals[level];
+            }
+            return sum;
+        }
+
+        private void insertLevel(int level, long key) {
+            if (size == keys.length) {
+                int capacity = size * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                heads = Arrays.copyOf(heads, capacity);
+                tails = Arrays.copyOf(tails, capacity);
+                totals = Arrays.copyOf(totals, capacity);
+            }
+            int moved = size - level;
+            if (moved > 0) {
+                System.arraycopy(keys, level, keys, level + 1, moved);
+                System.arraycopy(heads, level, heads, level + 1, moved);
+                System.arraycopy(tails, level, tails, level + 1, moved);
+                System.arraycopy(totals, level, totals, level + 1, moved);
+            }
+            keys[level] = key;
+            heads[level] = OrderPool.NIL;
+            tails[level] = OrderPool.NIL;
+            totals[level] = 0;
+            size++;
+        }
+
+        void removeLevel(int level) {
+            int moved = size - level - 1;
+            if (moved > 0) {
+                System.arraycopy(keys, level + 1, keys, level, moved);
+                System.arraycopy(heads, level + 1, heads, level, moved);
+                System.arraycopy(tails, level + 1, tails, level, moved);
+                System.arraycopy(totals, level + 1, totals, level, moved);
+            }
+            size--;
+        }
+    }
+}
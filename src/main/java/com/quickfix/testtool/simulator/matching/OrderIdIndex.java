@@ -0,0 +1,129 @@
+package com.quickfix.testtool.simulator.matching;
+
+import java.util.Arrays;
+
+/**
+ * 活动订单的ClOrdID索引
+ * 键为（所属会话, ClOrdID），值为订单句柄；线性探测的开放寻址表，删除时回移后续槽位，不留墓碑
+ */
+final class OrderIdIndex {
+    static final int NOT_FOUND = -1;
+
+    private String[] keys;
+    private int[] owners;
+    private int[] hashes;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    OrderIdIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        owners = new int[capacity];
+        hashes = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(int owner, String clOrdId) {
+        int h = clOrdId.hashCode() * 31 + owner;
+        return h ^ (h >>> 16);
+    }
+
+    int get(int owner, String clOrdId) {
+        int hash = hash(owner, clOrdId);
+        for (int slot = hash & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && owners[slot] == owner && keys[slot].equals(clOrdId)) {
+                return values[slot];
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    void put(int owner, String clOrdId, int handle) {
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int hash = hash(owner, clOrdId);
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && owners[slot] == owner && keys[slot].equals(clOrdId)) {
+                values[slot] = handle;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = clOrdId;
+        owners[slot] = owner;
+        hashes[slot] = hash;
+        values[slot] = handle;
+        size++;
+    }
+
+    void remove(int owner, String clOrdId) {
+        int hash = hash(owner, clOrdId);
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && owners[slot] == owner && keys[slot].equals(clOrdId)) {
+                deleteSlot(slot);
+                size--;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    // 回移删除：把探测链上可以前移的条目移入空位
+    private void deleteSlot(int hole) {
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (keys[slot] == null) {
+                break;
+            }
+            int home = hashes[slot] & mask;
+            boolean movable = hole <= slot ? (home <= hole || home > slot) : (home <= hole && home > slot);
+            if (movable) {
+                keys[hole] = keys[slot];
+                owners[hole] = owners[slot];
+                hashes[hole] = hashes[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+        keys[hole] = null;
+    }
+
+    private void rehash(int capacity) {
+        String[] oldKeys = keys;
+        int[] oldOwners = owners;
+        int[] oldHashes = hashes;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = oldHashes[i] & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                owners[slot] = oldOwners[i];
+                hashes[slot] = oldHashes[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(keys, null);
+        size = 0;
+    }
+}
@@ -0,0 +1,101 @@
+package com.quickfix.testtool.simulator.matching;
+
+import java.util.Arrays;
+
+/**
+ * 订单池
+ * 订单字段按列保存在基本类型数组中，订单以数组下标（句柄）引用；
+ * 释放的句柄经空闲链表复用，稳定运行时不再分配内存
+ */
+final class OrderPool {
+    static final int NIL = -1;
+
+    long[] prices;
+    double[] quantities;
+    double[] leaves;
+    double[] cums;
+    // 成交金额累计，用于计算均价
+    double[] notionals;
+    char[] sides;
+    char[] ordTypes;
+    // 同一价位内按时间顺序的双向链表
+    int[] nexts;
+    int[] prevs;
+    int[] books;
+    int[] owners;
+    long[] orderIds;
+    String[] clOrdIds;
+
+    private int freeHead = NIL;
+    private int used;
+    private int live;
+
+    OrderPool(int capacity) {
+        prices = new long[capacity];
+        quantities = new double[capacity];
+        leaves = new double[capacity];
+        cums = new double[capacity];
+        notionals = new double[capacity];
+        sides = new char[capacity];
+        ordTypes = new char[capacity];
+        nexts = new int[capacity];
+        prevs = new int[capacity];
+        books = new int[capacity];
+        owners = new int[capacity];
+        orderIds = new long[capacity];
+        clOrdIds = new String[capacity];
+    }
+
+    int allocate() {
+        int order;
+        if (freeHead != NIL) {
+            order = freeHead;
+            freeHead = nexts[order];
+        } else {
+            if (used == prices.length) {
+                grow(used * 2);
+            }
+            order = used++;
+        }
+        nexts[order] = NIL;
+        prevs[order] = NIL;
+        cums[order] = 0;
+        notionals[order] = 0;
+        live++;
+        return order;
+    }
+
+    void free(int order) {
+        clOrdIds[order] = null;
+        nexts[order] = freeHead;
+        freeHead = order;
+        live--;
+    }
+
+    int size() {
+        return live;
+    }
+
+    void clear() {
+        Arrays.fill(clOrdIds, 0, used, null);
+        freeHead = NIL;
+        used = 0;
+        live = 0;
+    }
+
+    private void grow(int capacity) {
+        prices = Arrays.copyOf(prices, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        leaves = Arrays.copyOf(leaves, capacity);
+        cums = Arrays.copyOf(cums, capacity);
+        notionals = Arrays.copyOf(notionals, capacity);
+        sides = Arrays.copyOf(sides, capacity);
+        ordTypes = Arrays.copyOf(ordTypes, capacity);
+        nexts = Arrays.copyOf(nexts, capacity);
+        prevs = Arrays.copyOf(prevs, capacity);
+        books = Arrays.copyOf(books, capacity);
+        owners = Arrays.copyOf(owners, capacity);
+        orderIds = Arrays.copyOf(orderIds, capacity);
+        clOrdIds = Arrays.copyOf(clOrdIds, capacity);
+    }
+}
@@ -0,0 +1,190 @@
+package com.quickfix.testtool.simulator.store;
+
+import org.quickfixj.CharsetSupport;
+import quickfix.MessageStore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * 基于内存映射文件的堆外消息存储
+ * 序列号、创建时间和消息体直接写入映射区域，由操作系统异步刷盘，不产生逐条消息的文件写调用；
+ * 按序列号索引的槽位支持重发请求
+ *
+ * 文件布局：[头部 64字节][索引 capacity * 16字节][数据区]
+ * 索引条目：序列号(int) + 长度(int) + 数据偏移(long)
+ */
+public class MappedMessageStore implements MessageStore, Closeable {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(MappedMessageStore.class);
+
+    private static final int MAGIC = 0x51465853;
+    private static final int HEADER_SIZE = 64;
+    private static final int INDEX_ENTRY_SIZE = 16;
+    private static final long MAX_DATA_SIZE = 1L << 30;
+
+    // 头部字段偏移
+    private static final int MAGIC_OFFSET = 0;
+    private static final int SENDER_SEQ_OFFSET = 4;
+    private static final int TARGET_SEQ_OFFSET = 8;
+    private static final int INDEX_CAPACITY_OFFSET = 12;
+    private static final int CREATION_TIME_OFFSET = 16;
+    private static final int DATA_POSITION_OFFSET = 24;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int indexCapacity;
+    private final long dataStart;
+    private final MappedByteBuffer meta;
+    private final Charset charset = CharsetSupport.getCharsetInstance();
+    private MappedByteBuffer data;
+
+    public MappedMessageStore(Path file, int indexCapacity, int initialDataSize) throws IOException {
+        this.file = file;
+        this.indexCapacity = indexCapacity;
+        this.dataStart = HEADER_SIZE + (long) indexCapacity * INDEX_ENTRY_SIZE;
+
+        Files.createDirectories(file.getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.meta = channel.map(FileChannel.MapMode.READ_WRITE, 0, dataStart);
+
+        boolean valid = meta.getInt(MAGIC_OFFSET) == MAGIC && meta.getInt(INDEX_CAPACITY_OFFSET) == indexCapacity;
+        long size = valid ? Math.max(initialDataSize, meta.getLong(DATA_POSITION_OFFSET)) : initialDataSize;
+        this.data = channel.map(FileChannel.MapMode.READ_WRITE, dataStart, size);
+
+        if (!valid) {
+            reset();
+        }
+        log.debug("Opened mapped message store {}", file);
+    }
+
+    @Override
+    public synchronized boolean set(int sequence, String message) throws IOException {
+        byte[] bytes = message.getBytes(charset);
+        long position = meta.getLong(DATA_POSITION_OFFSET);
+
+        if (position + bytes.length > data.capacity()) {
+            position = ensureCapacity(position, bytes.length);
+        }
+
+        data.position((int) position);
+        data.put(bytes);
+
+        int entry = indexOffset(sequence);
+        meta.putInt(entry, sequence);
+        meta.putInt(entry + 4, bytes.length);
+        meta.putLong(entry + 8, position);
+        meta.putLong(DATA_POSITION_OFFSET, position + bytes.length);
+        return true;
+    }
+
+    @Override
+    public synchronized void get(int startSequence, int endSequence, Collection<String> messages) throws IOException {
+        for (int sequence = startSequence; sequence <= endSequence; sequence++) {
+            int entry = indexOffset(sequence);
+            if (meta.getInt(entry) != sequence) {
+                // 槽位已被覆盖或消息不存在，由会话层以GapFill补齐
+                continue;
+            }
+            int length = meta.getInt(entry + 4);
+            long offset = meta.getLong(entry + 8);
+
+            byte[] bytes = new byte[length];
+            data.position((int) offset);
+            data.get(bytes);
+            messages.add(new String(bytes, charset));
+        }
+    }
+
+    @Override
+    public synchronized int getNextSenderMsgSeqNum() {
+        return meta.getInt(SENDER_SEQ_OFFSET);
+    }
+
+    @Override
+    public synchronized int getNextTargetMsgSeqNum() {
+        return meta.getInt(TARGET_SEQ_OFFSET);
+    }
+
+    @Override
+    public synchronized void setNextSenderMsgSeqNum(int next) {
+        meta.putInt(SENDER_SEQ_OFFSET, next);
+    }
+
+    @Override
+    public synchronized void setNextTargetMsgSeqNum(int next) {
+        meta.putInt(TARGET_SEQ_OFFSET, next);
+    }
+
+    @Override
+    public synchronized void incrNextSenderMsgSeqNum() {
+        meta.putInt(SENDER_SEQ_OFFSET, meta.getInt(SENDER_SEQ_OFFSET) + 1);
+    }
+
+    @Override
+    public synchronized void incrNextTargetMsgSeqNum() {
+        meta.putInt(TARGET_SEQ_OFFSET, meta.getInt(TARGET_SEQ_OFFSET) + 1);
+    }
+
+    @Override
+    public synchronized Date getCreationTime() {
+        return new Date(meta.getLong(CREATION_TIME_OFFSET));
+    }
+
+    @Override
+    public synchronized void reset() {
+        meta.putInt(MAGIC_OFFSET, MAGIC);
+        meta.putInt(INDEX_CAPACITY_OFFSET, indexCapacity);
+        meta.putInt(SENDER_SEQ_OFFSET, 1);
+        meta.putInt(TARGET_SEQ_OFFSET, 1);
+        meta.putLong(CREATION_TIME_OFFSET, System.currentTimeMillis());
+        clearIndex();
+    }
+
+    @Override
+    public void refresh() {
+        // 映射区域即为持久状态，无需重新加载
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        meta.force();
+        data.force();
+        channel.close();
+    }
+
+    private int indexOffset(int sequence) {
+        return HEADER_SIZE + (Math.floorMod(sequence, indexCapacity)) * INDEX_ENTRY_SIZE;
+    }
+
+    private void clearIndex() {
+        for (int i = 0; i < indexCapacity; i++) {
+            meta.putInt(HEADER_SIZE + i * INDEX_ENTRY_SIZE, 0);
+        }
+        meta.putLong(DATA_POSITION_OFFSET, 0);
+    }
+
+    /**
+     * 数据区扩容；达到上限后从头覆盖并清空索引，更早的消息在重发时以GapFill代替
+     */
+    private long ensureCapacity(long position, int length) throws IOException {
+        long required = position + length;
+        if (required <= MAX_DATA_SIZE) {
+            long newSize = Math.min(MAX_DATA_SIZE, Math.max(required, (long) data.capacity() * 2));
+            data = channel.map(FileChannel.MapMode.READ_WRITE, dataStart, newSize);
+            return position;
+        }
+
+        log.warn("Mapped store {} reached {} bytes, wrapping around", file, MAX_DATA_SIZE);
+        clearIndex();
+        return 0;
+    }
+}
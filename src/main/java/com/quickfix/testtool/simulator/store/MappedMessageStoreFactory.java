@@ -0,0 +1,48 @@
+package com.quickfix.testtool.simulator.store;
+
+import quickfix.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 内存映射消息存储工厂
+ */
+public class MappedMessageStoreFactory implements MessageStoreFactory {
+    public static final String SETTING_MAPPED_STORE_PATH = "MappedStorePath";
+    public static final String SETTING_MAPPED_STORE_INDEX_CAPACITY = "MappedStoreIndexCapacity";
+    public static final String SETTING_MAPPED_STORE_INITIAL_SIZE = "MappedStoreInitialSize";
+
+    private static final String DEFAULT_PATH = "target/data/mapped";
+    private static final int DEFAULT_INDEX_CAPACITY = 65536;
+    private static final int DEFAULT_INITIAL_SIZE = 16 * 1024 * 1024;
+
+    private final SessionSettings settings;
+
+    public MappedMessageStoreFactory(SessionSettings settings) {
+        this.settings = settings;
+    }
+
+    @Override
+    public MessageStore create(SessionID sessionId) {
+        try {
+            Path directory = Paths.get(getString(sessionId, SETTING_MAPPED_STORE_PATH,
+                    getString(sessionId, FileStoreFactory.SETTING_FILE_STORE_PATH, DEFAULT_PATH)));
+            Path file = directory.resolve(sessionId.toString().replaceAll("[^A-Za-z0-9._-]", "_") + ".mmap");
+            int indexCapacity = getInt(sessionId, SETTING_MAPPED_STORE_INDEX_CAPACITY, DEFAULT_INDEX_CAPACITY);
+            int initialSize = getInt(sessionId, SETTING_MAPPED_STORE_INITIAL_SIZE, DEFAULT_INITIAL_SIZE);
+            return new MappedMessageStore(file, indexCapacity, initialSize);
+        } catch (ConfigError | FieldConvertError | IOException e) {
+            throw new RuntimeError(e);
+        }
+    }
+
+    private String getString(SessionID sessionId, String key, String defaultValue) throws ConfigError {
+        return settings.isSetting(sessionId, key) ? settings.getString(sessionId, key) : defaultValue;
+    }
+
+    private int getInt(SessionID sessionId, String key, int defaultValue) throws ConfigError, FieldConvertError {
+        return settings.isSetting(sessionId, key) ? settings.getInt(sessionId, key) : defaultValue;
+    }
+}
@@ -0,0 +1,65 @@
+package com.quickfix.testtool.simulator.store;
+
+import quickfix.*;
+
+/**
+ * 模拟器消息存储类型
+ */
+public enum StoreType {
+    MEMORY, FILE, MEMORY_MAPPED;
+
+    public static final String SETTING_STORE_TYPE = "StoreType";
+
+    /**
+     * 解析场景配置中的storeType，支持memory、file、memory-mapped（或mmap）
+     */
+    public static StoreType fromString(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        switch (value.trim().toLowerCase().replace('_', '-')) {
+            case "memory":
+                return MEMORY;
+            case "file":
+                return FILE;
+            case "memory-mapped":
+            case "mapped":
+            case "mmap":
+                return MEMORY_MAPPED;
+            default:
+                throw new IllegalArgumentException("Unknown store type: " + value);
+        }
+    }
+
+    /**
+     * 从QuickFIX/J配置读取存储类型，未配置时沿用文件存储
+     */
+    public static StoreType fromSettings(SessionSettings settings) throws ConfigError {
+        if (!settings.isSetting(SETTING_STORE_TYPE)) {
+            return FILE;
+        }
+        try {
+            return fromString(settings.getString(SETTING_STORE_TYPE));
+        } catch (IllegalArgumentException e) {
+            throw new ConfigError(e.getMessage());
+        }
+    }
+
+    public MessageStoreFactory createStoreFactory(SessionSettings settings) {
+        switch (this) {
+            case MEMORY:
+                return new MemoryStoreFactory();
+            case MEMORY_MAPPED:
+                return new MappedMessageStoreFactory(settings);
+            default:
+                return new FileStoreFactory(settings);
+        }
+    }
+
+    /**
+     * 只有文件存储保留文件日志，其余类型避免逐条消息的磁盘写入
+     */
+    public LogFactory createLogFactory(SessionSettings settings) {
+        return this == FILE ? new FileLogFactory(settings) : new SLF4JLogFactory(settings);
+    }
+}
@@ -0,0 +1,186 @@
+package com.quickfix.testtool.simulator.timing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 模拟器应答延迟分布，取值单位为纳秒
+ * 配置格式（毫秒，可带小数）：
+ * fixed:5、uniform:2,10、lognormal:5,0.5（中位数、对数标准差）、trace:latency.txt（每行一个延迟，循环回放）
+ */
+public abstract class LatencyDistribution {
+    public static final String SETTING_RESPONSE_LATENCY = "ResponseLatency";
+
+    /**
+     * 下一个延迟（纳秒），可在多个会话线程上并发调用
+     */
+    public abstract long nextDelayNanos();
+
+    public static LatencyDistribution fixed(double millis) {
+        long nanos = toNanos(millis);
+        return new LatencyDistribution() {
+            @Override
+            public long nextDelayNanos() {
+                return nanos;
+            }
+
+            @Override
+            public String toString() {
+                return "fixed:" + millis;
+            }
+        };
+    }
+
+    public static LatencyDistribution uniform(double minMillis, double maxMillis) {
+        if (maxMillis < minMillis) {
+            throw new IllegalArgumentException("Uniform latency max " + maxMillis + " is below min " + minMillis);
+        }
+        long min = toNanos(minMillis);
+        long bound = toNanos(maxMillis) - min + 1;
+        return new LatencyDistribution() {
+            @Override
+            public long nextDelayNanos() {
+                return min + ThreadLocalRandom.current().nextLong(bound);
+            }
+
+            @Override
+            public String toString() {
+                return "uniform:" + minMillis + "," + maxMillis;
+            }
+        };
+    }
+
+    /**
+     * 对数正态分布：ln(延迟)服从均值ln(median)、标准差sigma的正态分布，模拟长尾的交易所响应
+     */
+    public static LatencyDistribution logNormal(double medianMillis, double sigma) {
+        if (!(medianMillis > 0) || sigma < 0) {
+            throw new IllegalArgumentException("Log-normal latency requires median > 0 and sigma >= 0");
+        }
+        double mu = Math.log(medianMillis * 1_000_000.0);
+        return new LatencyDistribution() {
+            @Override
+            public long nextDelayNanos() {
+                return (long) Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+            }
+
+            @Override
+            public String toString() {
+                return "lognormal:" + medianMillis + "," + sigma;
+            }
+        };
+    }
+
+    /**
+     * 按顺序循环回放采集到的延迟序列
+     */
+    public static LatencyDistribution trace(long[] delaysNanos) {
+        if (delaysNanos.length == 0) {
+            throw new IllegalArgumentException("Latency trace is empty");
+        }
+        long[] delays = delaysNanos.clone();
+        AtomicLong cursor = new AtomicLong();
+        return new LatencyDistribution() {
+            @Override
+            public long nextDelayNanos() {
+                return delays[(int) (cursor.getAndIncrement() % delays.length)];
+            }
+
+            @Override
+            public String toString() {
+                return "trace[" + delays.length + "]";
+            }
+        };
+    }
+
+    /**
+     * 从文件加载延迟序列：每行一个毫秒值，取逗号/空白分隔的第一列，空行、#注释及非数字表头被跳过
+     */
+    public static LatencyDistribution trace(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        long[] delays = new long[lines.size()];
+        int count = 0;
+        for (String line : lines) {
+            String value = line.trim();
+            if (value.isEmpty() || value.startsWith("#")) {
+                continue;
+            }
+            int end = 0;
+            while (end < value.length() && value.charAt(end) != ',' && !Character.isWhitespace(value.charAt(end))) {
+                end++;
+            }
+            try {
+                delays[count] = toNanos(Double.parseDouble(value.substring(0, end)));
+                count++;
+            } catch (NumberFormatException e) {
+                if (count > 0) {
+                    throw new IOException("Invalid latency in " + file + ": " + line);
+                }
+            }
+        }
+        return trace(Arrays.copyOf(delays, count));
+    }
+
+    /**
+     * 解析延迟配置，空值返回null；单独的数字等同于fixed
+     */
+    public static LatencyDistribution parse(String spec) {
+        if (spec == null || spec.trim().isEmpty()) {
+            return null;
+        }
+        String value = spec.trim();
+        int colon = value.indexOf(':');
+        String kind = colon < 0 ? "fixed" : value.substring(0, colon).trim().toLowerCase().replace('_', '-');
+        String args = colon < 0 ? value : value.substring(colon + 1).trim();
+        try {
+            switch (kind) {
+                case "fixed":
+                    return fixed(Double.parseDouble(args));
+                case "uniform": {
+                    double[] bounds = parseArgs(args, 2);
+                    return uniform(bounds[0], bounds[1]);
+                }
+                case "lognormal":
+                case "log-normal": {
+                    double[] params = parseArgs(args, 2);
+                    return logNormal(params[0], params[1]);
+                }
+                case "trace":
+                    return trace(Paths.get(args));
+                default:
+                    throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid latency distribution: " + spec, e);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to load latency trace: " + args, e);
+        }
+    }
+
+    private static double[] parseArgs(String args, int expected) {
+        String[] parts = args.split(",");
+        if (parts.length != expected) {
+            throw new IllegalArgumentException("Expected " + expected + " latency parameters: " + args);
+        }
+        double[] values = new double[expected];
+        for (int i = 0; i < expected; i++) {
+            values[i] = Double.parseDouble(parts[i].trim());
+        }
+        return values;
+    }
+
+    private static long toNanos(double millis) {
+        if (millis < 0 || Double.isNaN(millis)) {
+            throw new IllegalArgumentException("Latency must not be negative: " + millis);
+        }
+        return Math.round(millis * TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
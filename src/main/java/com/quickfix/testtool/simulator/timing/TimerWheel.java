@@ -0,0 +1,273 @@
+package com.quickfix.testtool.simulator.timing;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 哈希时间轮
+ * 定时任务按到期刻度散列到固定数量的槽位，槽内以双向链表串联，超过一圈的任务记录剩余圈数。
+ * schedule只把任务放入无锁队列，由时间轮线程在每个刻度批量入槽并执行到期任务，
+ * 调度与取消均为O(1)，调用线程（如QuickFIX/J的I/O线程）不会被阻塞。
+ * 到期精度为一个刻度，任务在时间轮线程上执行，不应长时间阻塞
+ */
+public final class TimerWheel {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(TimerWheel.class);
+
+    public static final long DEFAULT_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+    // 每个刻度最多从队列转移的任务数，避免突发调度拖慢到期任务的执行
+    private static final int MAX_TRANSFER_PER_TICK = 100_000;
+
+    private final String name;
+    private final long tickNanos;
+    private final int mask;
+    private final Bucket[] buckets;
+    private final Queue<Timeout> submitted = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+
+    private volatile Thread worker;
+    private volatile boolean running;
+    private long startTime;
+    private long tick;
+
+    public TimerWheel(String name) {
+        this(name, DEFAULT_TICK_NANOS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * @param tickNanos 刻度长度（纳秒）
+     * @param wheelSize 槽位数，向上取整为2的幂
+     */
+    public TimerWheel(String name, long tickNanos, int wheelSize) {
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive: " + tickNanos);
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("Invalid wheel size: " + wheelSize);
+        }
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        this.name = name;
+        this.tickNanos = tickNanos;
+        this.mask = size - 1;
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        running = true;
+        startTime = System.nanoTime();
+        tick = 0;
+        Thread thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    /**
+     * 停止时间轮，未到期的任务被丢弃，返回丢弃数量
+     */
+    public synchronized long stop() {
+        Thread thread = worker;
+        if (thread == null) {
+            return 0;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        worker = null;
+        for (Bucket bucket : buckets) {
+            bucket.clear();
+        }
+        submitted.clear();
+        return pending.getAndSet(0);
+    }
+
+    /**
+     * 在delay之后执行任务，delay不大于0时在下一个刻度执行
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return scheduleAt(task, System.nanoTime() + Math.max(0, unit.toNanos(delay)));
+    }
+
+    /**
+     * 在System.nanoTime()到达deadline时执行任务；到期时刻相同的任务按调度顺序执行
+     */
+    public Timeout scheduleAt(Runnable task, long deadline) {
+        if (worker == null) {
+            throw new IllegalStateException("Timer wheel " + name + " is not started");
+        }
+        Timeout timeout = new Timeout(this, task, deadline);
+        pending.incrementAndGet();
+        submitted.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * 已调度但尚未执行或取消的任务数
+     */
+    public long getPendingCount() {
+        return pending.get();
+    }
+
+    public boolean isRunning() {
+        return worker != null;
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = startTime + (tick + 1) * tickNanos;
+            long now;
+            while (running && (now = System.nanoTime()) < deadline) {
+                LockSupport.parkNanos(this, deadline - now);
+            }
+            if (!running) {
+                break;
+            }
+            transferSubmitted();
+            buckets[(int) (tick & mask)].expire(System.nanoTime());
+            tick++;
+        }
+    }
+
+    private void transferSubmitted() {
+        for (int i = 0; i < MAX_TRANSFER_PER_TICK; i++) {
+            Timeout timeout = submitted.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long ticks = (timeout.deadline - startTime) / tickNanos;
+            // 已过期的任务放入当前刻度，本轮即执行
+            long target = Math.max(ticks, tick);
+            timeout.remainingRounds = (target - tick) / buckets.length;
+            buckets[(int) (target & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * 已调度的任务，可在执行前取消
+     */
+    public static final class Timeout {
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final TimerWheel wheel;
+        private final Runnable task;
+        private final long deadline;
+        private long remainingRounds;
+        private Timeout next;
+        private Timeout prev;
+        private volatile int state;
+
+        private Timeout(TimerWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消任务，由时间轮线程在经过所在槽位时摘除；任务已执行时返回false
+         */
+        public boolean cancel() {
+            if (STATE.compareAndSet(this, WAITING, CANCELLED)) {
+                wheel.pending.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        private boolean expire() {
+            return STATE.compareAndSet(this, WAITING, EXPIRED);
+        }
+    }
+
+    /**
+     * 槽位：到期刻度散列到同一位置的任务链表，仅由时间轮线程访问
+     */
+    private final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void expire(long now) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds <= 0 && timeout.deadline <= now) {
+                    remove(timeout);
+                    // 与并发的cancel竞争，只有一方生效
+                    if (timeout.expire()) {
+                        pending.decrementAndGet();
+                        try {
+                            timeout.task.run();
+                        } catch (RuntimeException e) {
+                            log.error("Timer task failed on {}", name, e);
+                        }
+                    }
+                } else if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            Timeout prev = timeout.prev;
+            Timeout next = timeout.next;
+            if (prev == null) {
+                head = next;
+            } else {
+                prev.next = next;
+            }
+            if (next == null) {
+                tail = prev;
+            } else {
+                next.prev = prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+        }
+    }
+}